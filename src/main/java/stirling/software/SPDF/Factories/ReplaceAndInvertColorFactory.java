@@ -5,13 +5,21 @@ import org.springframework.web.multipart.MultipartFile;
 
 import stirling.software.SPDF.model.api.misc.HighContrastColorCombination;
 import stirling.software.SPDF.model.api.misc.ReplaceAndInvert;
+import stirling.software.SPDF.service.PageRenderService;
 import stirling.software.SPDF.utils.misc.CustomColorReplaceStrategy;
 import stirling.software.SPDF.utils.misc.InvertFullColorStrategy;
+import stirling.software.SPDF.utils.misc.InvertVectorColorStrategy;
 import stirling.software.SPDF.utils.misc.ReplaceAndInvertColorStrategy;
 
 @Component
 public class ReplaceAndInvertColorFactory {
 
+    private final PageRenderService pageRenderService;
+
+    public ReplaceAndInvertColorFactory(PageRenderService pageRenderService) {
+        this.pageRenderService = pageRenderService;
+    }
+
     public ReplaceAndInvertColorStrategy replaceAndInvert(
             MultipartFile file,
             ReplaceAndInvert replaceAndInvertOption,
@@ -31,7 +39,11 @@ public class ReplaceAndInvertColorFactory {
 
         } else if (replaceAndInvertOption == ReplaceAndInvert.FULL_INVERSION) {
 
-            return new InvertFullColorStrategy(file, replaceAndInvertOption);
+            return new InvertFullColorStrategy(file, replaceAndInvertOption, pageRenderService);
+
+        } else if (replaceAndInvertOption == ReplaceAndInvert.VECTOR_INVERSION) {
+
+            return new InvertVectorColorStrategy(file, replaceAndInvertOption, pageRenderService);
         }
 
         return null;
@@ -3,96 +3,144 @@ package stirling.software.SPDF;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-import io.github.pixee.security.SystemCommand;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * A headless LibreOffice instance accepting UNO connections (e.g. from {@code unoconv --port}) on
+ * its own local port, with its own user profile so several instances can run side by side.
+ */
 @Slf4j
 public class LibreOfficeListener {
 
-    private static final long ACTIVITY_TIMEOUT = 20L * 60 * 1000; // 20 minutes
+    private static final long STARTUP_TIMEOUT = 30000;
 
-    private static final LibreOfficeListener INSTANCE = new LibreOfficeListener();
-    private static final int LISTENER_PORT = 2002;
-    private ExecutorService executorService;
-    private long lastActivityTime;
+    private final int port;
+    private final Path profileDir;
     private Process process;
+    private int conversions;
+
+    public LibreOfficeListener(int port, Path profileDir) {
+        this.port = port;
+        this.profileDir = profileDir;
+    }
 
-    private LibreOfficeListener() {}
+    public int getPort() {
+        return port;
+    }
+
+    /** Number of conversions since the instance was (re)started. */
+    public int getConversions() {
+        return conversions;
+    }
 
-    public static LibreOfficeListener getInstance() {
-        return INSTANCE;
+    public void conversionDone() {
+        conversions++;
     }
 
     private boolean isListenerRunning() {
-        log.info("waiting for listener to start");
         try (Socket socket = new Socket()) {
             socket.connect(
-                    new InetSocketAddress("localhost", 2002), 1000); // Timeout after 1 second
+                    new InetSocketAddress("127.0.0.1", port), 1000); // Timeout after 1 second
             return true;
         } catch (Exception e) {
             return false;
         }
     }
 
-    public void start() throws IOException {
+    public boolean isHealthy() {
+        return process != null && process.isAlive() && isListenerRunning();
+    }
+
+    public synchronized void start() throws IOException, InterruptedException {
         // Check if the listener is already running
         if (process != null && process.isAlive()) {
             return;
         }
 
-        // Start the listener process
-        process = SystemCommand.runCommand(Runtime.getRuntime(), "unoconv --listener");
-        lastActivityTime = System.currentTimeMillis();
-
-        // Start a background thread to monitor the activity timeout
-        executorService = Executors.newSingleThreadExecutor();
-        executorService.submit(
-                () -> {
-                    while (true) {
-                        long idleTime = System.currentTimeMillis() - lastActivityTime;
-                        if (idleTime >= ACTIVITY_TIMEOUT) {
-                            // If there has been no activity for too long, tear down the listener
-                            process.destroy();
-                            break;
-                        }
-                        try {
-                            Thread.sleep(5000); // Check for inactivity every 5 seconds
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            break;
-                        }
-                    }
-                });
+        Files.createDirectories(profileDir);
+        process =
+                new ProcessBuilder(
+                                List.of(
+                                        "soffice",
+                                        "--headless",
+                                        "--invisible",
+                                        "--nologo",
+                                        "--nodefault",
+                                        "--norestore",
+                                        "--nofirststartwizard",
+                                        "-env:UserInstallation=" + profileDir.toUri(),
+                                        "--accept=socket,host=127.0.0.1,port="
+                                                + port
+                                                + ";urp;StarOffice.ComponentContext"))
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+        conversions = 0;
 
         // Wait for the listener to start up
         long startTime = System.currentTimeMillis();
-        long timeout = 30000; // Timeout after 30 seconds
-        while (System.currentTimeMillis() - startTime < timeout) {
+        while (System.currentTimeMillis() - startTime < STARTUP_TIMEOUT) {
             if (isListenerRunning()) {
-
-                lastActivityTime = System.currentTimeMillis();
+                log.info("LibreOffice listener started on port {}", port);
                 return;
             }
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("exception", e);
-            } // Check every 1 second
+            if (!process.isAlive()) {
+                break;
+            }
+            Thread.sleep(500); // Check every half second
         }
+        stop();
+        throw new IOException("LibreOffice listener on port " + port + " did not start");
     }
 
-    public synchronized void stop() {
-        // Stop the activity timeout monitor thread
-        executorService.shutdownNow();
+    /**
+     * Resident memory of the instance and its child processes, or -1 where {@code /proc} is not
+     * available.
+     */
+    public long getMemoryUsageBytes() {
+        Process current = process;
+        if (current == null || !Files.isDirectory(Path.of("/proc/self"))) {
+            return -1;
+        }
+        return Stream.concat(Stream.of(current.toHandle()), current.descendants())
+                .mapToLong(LibreOfficeListener::residentBytes)
+                .sum();
+    }
 
-        // Stop the listener process
-        if (process != null && process.isAlive()) {
-            process.destroy();
+    private static long residentBytes(ProcessHandle handle) {
+        try (Stream<String> lines = Files.lines(Path.of("/proc", handle.pid() + "", "status"))) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .findFirst()
+                    .map(line -> Long.parseLong(line.replaceAll("\\D", "")) * 1024)
+                    .orElse(0L);
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    public synchronized void stop() {
+        if (process == null) {
+            return;
+        }
+        // soffice runs the actual office as a child process
+        List<ProcessHandle> descendants = process.descendants().toList();
+        process.destroy();
+        descendants.forEach(ProcessHandle::destroy);
+        try {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
         }
+        descendants.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+        process = null;
     }
 }
@@ -150,7 +150,9 @@ public class AppConfig {
     public Predicate<Path> processOnlyFiles() {
         return path -> {
             if (Files.isDirectory(path)) {
-                return !path.toString().contains("processing");
+                // runs in progress and the inputs of failed runs are not picked up again
+                return !path.toString().contains("processing")
+                        && !"error".equals(path.getFileName().toString());
             } else {
                 return true;
             }
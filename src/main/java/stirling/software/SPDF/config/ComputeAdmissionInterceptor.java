@@ -0,0 +1,68 @@
+package stirling.software.SPDF.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import stirling.software.SPDF.service.ComputeScheduler;
+
+/**
+ * Makes CPU-heavy tool API requests wait for a {@link ComputeScheduler} slot before the controller
+ * runs, and answers 503 with Retry-After when too many are already waiting. Streaming responses
+ * keep the slot until the body is written. Which paths are gated is set by {@code
+ * system.computePool.admissionPaths}; other requests only take a slot around the heavy parts they
+ * run through the scheduler.
+ */
+@Component
+public class ComputeAdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SLOT_ATTRIBUTE =
+            ComputeAdmissionInterceptor.class.getName() + ".slot";
+
+    private final ComputeScheduler computeScheduler;
+
+    public ComputeAdmissionInterceptor(ComputeScheduler computeScheduler) {
+        this.computeScheduler = computeScheduler;
+    }
+
+    @Override
+    public boolean preHandle(
+            HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (request.getDispatcherType() != DispatcherType.REQUEST
+                || !"POST".equals(request.getMethod())) {
+            return true;
+        }
+        try {
+            computeScheduler.acquire();
+        } catch (ComputeScheduler.CapacityExceededException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getReason());
+            return false;
+        }
+        request.setAttribute(SLOT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(
+            HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // the response is finished on another thread, the slot is released after that dispatch
+        computeScheduler.detachFromThread();
+    }
+
+    @Override
+    public void afterCompletion(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Object handler,
+            Exception ex) {
+        if (request.getAttribute(SLOT_ATTRIBUTE) != null) {
+            request.removeAttribute(SLOT_ATTRIBUTE);
+            computeScheduler.release();
+        }
+    }
+}
@@ -16,6 +16,7 @@ import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.ApplicationProperties;
 import stirling.software.SPDF.utils.GeneralUtils;
+import stirling.software.SPDF.utils.ProcessExecutor;
 
 @Component
 @Slf4j
@@ -30,6 +31,7 @@ public class InitialSetup {
 
     @PostConstruct
     public void init() throws IOException {
+        ProcessExecutor.setApplicationProperties(applicationProperties);
         initUUIDKey();
         initSecretKey();
         initEnableCSRFSecurity();
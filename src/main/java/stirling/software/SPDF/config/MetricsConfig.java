@@ -15,7 +15,9 @@ public class MetricsConfig {
         return new MeterFilter() {
             @Override
             public MeterFilterReply accept(Meter.Id id) {
-                if (id.getName().equals("http.requests")) {
+                if (id.getName().startsWith("http.requests")
+                        || id.getName().startsWith("process.executor.")
+                        || id.getName().startsWith("ocr.cache.")) {
                     return MeterFilterReply.NEUTRAL;
                 }
                 return MeterFilterReply.DENY;
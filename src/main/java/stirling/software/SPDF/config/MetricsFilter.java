@@ -1,50 +1,263 @@
 package stirling.software.SPDF.config;
 
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.MeterRegistry;
-
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
 import jakarta.servlet.http.HttpSession;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.service.RequestMetricsService;
+import stirling.software.SPDF.service.RequestMetricsService.Stage;
+import stirling.software.SPDF.service.RequestMetricsService.StageTimings;
 import stirling.software.SPDF.utils.RequestUriUtils;
 
+/**
+ * Records every trackable request once it has completed, including responses streamed after the
+ * handler returned. Requests are grouped by the route pattern Spring matched, so path variables and
+ * unknown URIs do not create new meters.
+ *
+ * <p>The time before the first byte of the body is written is split into the stages reported while
+ * handling the request, with the rest counted as processing; the time from there to completion is
+ * the write stage. With {@code metrics.serverTiming} enabled the stages known when the body starts
+ * are also sent as a {@code Server-Timing} header.
+ */
 @Component
 public class MetricsFilter extends OncePerRequestFilter {
 
-    private final MeterRegistry meterRegistry;
+    private static final String UNMATCHED_ROUTE = "UNKNOWN";
+
+    // clients can send any method name, anything else would create a new meter each
+    private static final Set<String> KNOWN_METHODS =
+            Set.of("GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS");
+
+    private static final String OTHER_METHOD = "OTHER";
+
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final RequestMetricsService requestMetricsService;
+
+    private final boolean serverTiming;
 
     @Autowired
-    public MetricsFilter(MeterRegistry meterRegistry) {
-        this.meterRegistry = meterRegistry;
+    public MetricsFilter(
+            RequestMetricsService requestMetricsService,
+            ApplicationProperties applicationProperties) {
+        this.requestMetricsService = requestMetricsService;
+        this.serverTiming =
+                Boolean.TRUE.equals(applicationProperties.getMetrics().getServerTiming());
     }
 
     @Override
     protected void doFilterInternal(
             HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        String uri = request.getRequestURI();
+        if (!RequestUriUtils.isTrackableResource(
+                request.getContextPath(), request.getRequestURI())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        StageTimings stages = new StageTimings();
+        request.setAttribute(RequestMetricsService.STAGES_ATTRIBUTE, stages);
+        ByteCountingResponse countingResponse =
+                new ByteCountingResponse(response, start, stages, serverTiming);
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, countingResponse);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext()
+                        .addListener(
+                                new AsyncListener() {
+                                    @Override
+                                    public void onComplete(AsyncEvent event) {
+                                        record(request, countingResponse, start, false);
+                                    }
+
+                                    @Override
+                                    public void onTimeout(AsyncEvent event) {}
+
+                                    @Override
+                                    public void onError(AsyncEvent event) {}
+
+                                    @Override
+                                    public void onStartAsync(AsyncEvent event) {}
+                                });
+            } else {
+                record(request, countingResponse, start, failed);
+            }
+        }
+    }
+
+    private void record(
+            HttpServletRequest request, ByteCountingResponse response, long start, boolean failed) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        HttpSession session = request.getSession(false);
+        Object pages = request.getAttribute(RequestMetricsService.PAGES_ATTRIBUTE);
+        long end = System.nanoTime();
+        StageTimings stages = response.finishStages(end);
+        requestMetricsService.record(
+                KNOWN_METHODS.contains(request.getMethod()) ? request.getMethod() : OTHER_METHOD,
+                pattern != null ? pattern.toString() : UNMATCHED_ROUTE,
+                failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(),
+                session != null ? session.getId() : "no-session",
+                end - start,
+                request.getContentLengthLong(),
+                response.getByteCount(),
+                pages instanceof Integer count ? count : 0,
+                stages);
+    }
+
+    /**
+     * Counts what the handler writes to the response, as bytes or, through the writer, chars, and
+     * notes when the body starts.
+     */
+    private static class ByteCountingResponse extends HttpServletResponseWrapper {
+
+        private final long start;
+
+        private final StageTimings stages;
+
+        private final boolean serverTiming;
+
+        private volatile long firstWrite;
 
-        if (RequestUriUtils.isTrackableResource(request.getContextPath(), uri)) {
-            HttpSession session = request.getSession(false);
-            String sessionId = (session != null) ? session.getId() : "no-session";
-            Counter counter =
-                    Counter.builder("http.requests")
-                            .tag("session", sessionId)
-                            .tag("method", request.getMethod())
-                            .tag("uri", uri)
-                            .register(meterRegistry);
+        private long byteCount;
 
-            counter.increment();
+        private ServletOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        ByteCountingResponse(
+                HttpServletResponse response,
+                long start,
+                StageTimings stages,
+                boolean serverTiming) {
+            super(response);
+            this.start = start;
+            this.stages = stages;
+            this.serverTiming = serverTiming;
+        }
+
+        long getByteCount() {
+            return byteCount;
+        }
+
+        /** Splits the request time into processing and writing and returns all stages. */
+        StageTimings finishStages(long end) {
+            if (firstWrite == 0) {
+                addProcessTime(end);
+            } else {
+                stages.add(Stage.WRITE, end - firstWrite);
+            }
+            return stages;
+        }
+
+        private void beforeWrite() {
+            if (firstWrite != 0) {
+                return;
+            }
+            firstWrite = System.nanoTime();
+            addProcessTime(firstWrite);
+            if (serverTiming && !isCommitted()) {
+                addHeader(SERVER_TIMING_HEADER, stages.toServerTiming());
+            }
+        }
+
+        private void addProcessTime(long bodyStart) {
+            stages.add(
+                    Stage.PROCESS,
+                    stages.remainder(bodyStart - start, Stage.LOAD, Stage.SAVE, Stage.EXEC));
         }
 
-        filterChain.doFilter(request, response);
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream =
+                        new ServletOutputStream() {
+                            @Override
+                            public void write(int b) throws IOException {
+                                beforeWrite();
+                                delegate.write(b);
+                                byteCount++;
+                            }
+
+                            @Override
+                            public void write(byte[] b, int off, int len) throws IOException {
+                                beforeWrite();
+                                delegate.write(b, off, len);
+                                byteCount += len;
+                            }
+
+                            @Override
+                            public void flush() throws IOException {
+                                delegate.flush();
+                            }
+
+                            @Override
+                            public void close() throws IOException {
+                                delegate.close();
+                            }
+
+                            @Override
+                            public boolean isReady() {
+                                return delegate.isReady();
+                            }
+
+                            @Override
+                            public void setWriteListener(WriteListener writeListener) {
+                                delegate.setWriteListener(writeListener);
+                            }
+                        };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                Writer delegate = super.getWriter();
+                writer =
+                        new PrintWriter(
+                                new Writer() {
+                                    @Override
+                                    public void write(char[] cbuf, int off, int len)
+                                            throws IOException {
+                                        beforeWrite();
+                                        delegate.write(cbuf, off, len);
+                                        byteCount += len;
+                                    }
+
+                                    @Override
+                                    public void flush() throws IOException {
+                                        delegate.flush();
+                                    }
+
+                                    @Override
+                                    public void close() throws IOException {
+                                        delegate.close();
+                                    }
+                                });
+            }
+            return writer;
+        }
     }
 }
@@ -5,18 +5,33 @@ import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import stirling.software.SPDF.model.ApplicationProperties;
+
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
     private final EndpointInterceptor endpointInterceptor;
 
-    public WebMvcConfig(EndpointInterceptor endpointInterceptor) {
+    private final ComputeAdmissionInterceptor computeAdmissionInterceptor;
+
+    private final ApplicationProperties applicationProperties;
+
+    public WebMvcConfig(
+            EndpointInterceptor endpointInterceptor,
+            ComputeAdmissionInterceptor computeAdmissionInterceptor,
+            ApplicationProperties applicationProperties) {
         this.endpointInterceptor = endpointInterceptor;
+        this.computeAdmissionInterceptor = computeAdmissionInterceptor;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(endpointInterceptor);
+        // CPU-heavy tool endpoints only, the pipeline admits its operations itself
+        registry.addInterceptor(computeAdmissionInterceptor)
+                .addPathPatterns(
+                        applicationProperties.getSystem().getComputePool().getAdmissionPaths());
     }
 
     @Override
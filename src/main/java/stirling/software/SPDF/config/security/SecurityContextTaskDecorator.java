@@ -0,0 +1,18 @@
+package stirling.software.SPDF.config.security;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the submitting thread's security context over to worker threads, so work handed off to an
+ * executor still runs as the user who started it.
+ */
+@Component
+public class SecurityContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return new DelegatingSecurityContextRunnable(runnable);
+    }
+}
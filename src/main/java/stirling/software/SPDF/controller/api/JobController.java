@@ -0,0 +1,133 @@
+package stirling.software.SPDF.controller.api;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import stirling.software.SPDF.model.Job;
+import stirling.software.SPDF.service.JobService;
+import stirling.software.SPDF.utils.WebResponseUtils;
+
+@RestController
+@RequestMapping("/api/v1/jobs")
+@Tag(name = "Jobs", description = "Asynchronous job APIs")
+public class JobController {
+
+    private final JobService jobService;
+
+    @Autowired
+    public JobController(JobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @PostMapping(consumes = "multipart/form-data")
+    @Operation(
+            summary = "Submit an operation as an asynchronous job",
+            description =
+                    "Queues any file operation, e.g. operation=/api/v1/general/rotate-pdf, with its files in fileInput and its other parameters as form fields. Returns the job, whose status can be polled and whose result can be downloaded once it has completed. A job can only be seen by the user that submitted it, or without login by the same session, so clients must send the session cookie back when polling.")
+    public ResponseEntity<?> submitJob(
+            @RequestParam("operation") String operation,
+            @RequestParam("fileInput") MultipartFile[] files,
+            HttpServletRequest request,
+            Principal principal)
+            throws IOException {
+        Map<String, Object> parameters = new HashMap<>();
+        request.getParameterMap()
+                .forEach(
+                        (key, values) -> {
+                            if (!"operation".equals(key) && !"fileInput".equals(key)) {
+                                parameters.put(
+                                        key, values.length == 1 ? values[0] : List.of(values));
+                            }
+                        });
+        Job job;
+        try {
+            job =
+                    jobService.submit(
+                            operation, files, parameters, getOwner(principal, request, true));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(
+            summary = "Get the status of a job",
+            description = "Returns the job's status, timings and, once completed, its result.")
+    public ResponseEntity<Job> getJob(
+            @PathVariable("jobId") String jobId, HttpServletRequest request, Principal principal) {
+        Job job = jobService.get(jobId, getOwner(principal, request, false));
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/{jobId}/result")
+    @Operation(
+            summary = "Download the result of a job",
+            description =
+                    "Returns the file produced by a completed job. Responds with 409 while the job is still queued or running, or if it failed.")
+    public ResponseEntity<StreamingResponseBody> getJobResult(
+            @PathVariable("jobId") String jobId, HttpServletRequest request, Principal principal)
+            throws IOException {
+        Job job = jobService.get(jobId, getOwner(principal, request, false));
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != Job.Status.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return WebResponseUtils.fileToStreamingWebResponse(
+                job.getResultFile(),
+                job.getResultFileName(),
+                MediaType.parseMediaType(job.getResultContentType()));
+    }
+
+    @DeleteMapping("/{jobId}")
+    @Operation(
+            summary = "Cancel or delete a job",
+            description =
+                    "Cancels a queued or running job, terminating any external tool it started, or deletes a finished job and its result before it expires.")
+    public ResponseEntity<Void> deleteJob(
+            @PathVariable("jobId") String jobId, HttpServletRequest request, Principal principal) {
+        return jobService.delete(jobId, getOwner(principal, request, false))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Identifies the caller: the logged-in user, or the session when security is disabled. Jobs of
+     * other callers are answered with 404 so their ids cannot be probed.
+     */
+    private static String getOwner(
+            Principal principal, HttpServletRequest request, boolean createSession) {
+        if (principal != null) {
+            return "user:" + principal.getName();
+        }
+        HttpSession session = request.getSession(createSession);
+        return session != null ? "session:" + session.getId() : null;
+    }
+}
@@ -0,0 +1,55 @@
+package stirling.software.SPDF.controller.api;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import jakarta.servlet.http.HttpServletRequest;
+import stirling.software.SPDF.controller.api.pipeline.UserServiceInterface;
+import stirling.software.SPDF.service.OcrCache;
+
+/**
+ * Ships with every build, so the cache can also be purged without the security module. When users
+ * log in, only admins may purge it.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/ocr-cache")
+@Tag(name = "Admin", description = "Admin APIs")
+public class OcrCacheController {
+
+    private final OcrCache ocrCache;
+
+    private final boolean loginEnabled;
+
+    private final UserServiceInterface userService;
+
+    public OcrCacheController(
+            OcrCache ocrCache,
+            @Qualifier("loginEnabled") boolean loginEnabled,
+            @Autowired(required = false) UserServiceInterface userService) {
+        this.ocrCache = ocrCache;
+        this.loginEnabled = loginEnabled;
+        this.userService = userService;
+    }
+
+    @DeleteMapping
+    @Operation(
+            summary = "Purge the OCR cache",
+            description =
+                    "Deletes all cached OCR page results, e.g. after updating Tesseract or its language data. Requires the admin role when login is enabled.")
+    public ResponseEntity<Map<String, Integer>> purge(HttpServletRequest request) {
+        if (loginEnabled && userService != null && !request.isUserInRole("ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(Map.of("removedPages", ocrCache.purge()));
+    }
+}
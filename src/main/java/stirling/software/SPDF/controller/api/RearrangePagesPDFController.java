@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -46,8 +47,8 @@ public class RearrangePagesPDFController {
             summary = "Remove pages from a PDF file",
             description =
                     "This endpoint removes specified pages from a given PDF file. Users can provide a comma-separated list of page numbers or ranges to delete. Input:PDF Output:PDF Type:SISO")
-    public ResponseEntity<byte[]> deletePages(@ModelAttribute PDFWithPageNums request)
-            throws IOException {
+    public ResponseEntity<StreamingResponseBody> deletePages(
+            @ModelAttribute PDFWithPageNums request) throws IOException {
 
         MultipartFile pdfFile = request.getFileInput();
         String pagesToDelete = request.getPageNumbers();
@@ -66,7 +67,7 @@ public class RearrangePagesPDFController {
             int pageIndex = pagesToRemove.get(i);
             document.removePage(pageIndex);
         }
-        return WebResponseUtils.pdfDocToWebResponse(
+        return WebResponseUtils.pdfDocToStreamingWebResponse(
                 document,
                 Filenames.toSimpleFileName(pdfFile.getOriginalFilename())
                                 .replaceFirst("[.][^.]+$", "")
@@ -210,8 +211,8 @@ public class RearrangePagesPDFController {
             summary = "Rearrange pages in a PDF file",
             description =
                     "This endpoint rearranges pages in a given PDF file based on the specified page order or custom mode. Users can provide a page order as a comma-separated list of page numbers or page ranges, or a custom mode. Input:PDF Output:PDF")
-    public ResponseEntity<byte[]> rearrangePages(@ModelAttribute RearrangePagesRequest request)
-            throws IOException {
+    public ResponseEntity<StreamingResponseBody> rearrangePages(
+            @ModelAttribute RearrangePagesRequest request) throws IOException {
         MultipartFile pdfFile = request.getFileInput();
         String pageOrder = request.getPageNumbers();
         String sortType = request.getCustomMode();
@@ -246,7 +247,7 @@ public class RearrangePagesPDFController {
                 document.addPage(page);
             }
 
-            return WebResponseUtils.pdfDocToWebResponse(
+            return WebResponseUtils.pdfDocToStreamingWebResponse(
                     document,
                     Filenames.toSimpleFileName(pdfFile.getOriginalFilename())
                                     .replaceFirst("[.][^.]+$", "")
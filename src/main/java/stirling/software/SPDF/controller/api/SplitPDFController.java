@@ -7,8 +7,6 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -21,6 +19,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -28,8 +27,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.api.PDFWithPageNums;
+import stirling.software.SPDF.service.ComputeScheduler;
 import stirling.software.SPDF.service.CustomPDDocumentFactory;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.ZipArchiveWriter;
 
 @RestController
 @RequestMapping("/api/v1/general")
@@ -39,9 +40,13 @@ public class SplitPDFController {
 
     private final CustomPDDocumentFactory pdfDocumentFactory;
 
+    private final ComputeScheduler computeScheduler;
+
     @Autowired
-    public SplitPDFController(CustomPDDocumentFactory pdfDocumentFactory) {
+    public SplitPDFController(
+            CustomPDDocumentFactory pdfDocumentFactory, ComputeScheduler computeScheduler) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.computeScheduler = computeScheduler;
     }
 
     @PostMapping(consumes = "multipart/form-data", value = "/split-pages")
@@ -49,20 +54,17 @@ public class SplitPDFController {
             summary = "Split a PDF file into separate documents",
             description =
                     "This endpoint splits a given PDF file into separate documents based on the specified page numbers or ranges. Users can specify pages using individual numbers, ranges, or 'all' for every page. Input:PDF Output:PDF Type:SIMO")
-    public ResponseEntity<byte[]> splitPdf(@ModelAttribute PDFWithPageNums request)
+    public ResponseEntity<StreamingResponseBody> splitPdf(@ModelAttribute PDFWithPageNums request)
             throws IOException {
 
-        PDDocument document = null;
-        Path zipFile = null;
-        List<ByteArrayOutputStream> splitDocumentsBoas = new ArrayList<>();
-
-        try {
-
-            MultipartFile file = request.getFileInput();
-            String pages = request.getPageNumbers();
-            // open the pdf document
+        MultipartFile file = request.getFileInput();
+        String filename =
+                Filenames.toSimpleFileName(file.getOriginalFilename())
+                        .replaceFirst("[.][^.]+$", "");
+        Path zipFile = Files.createTempFile("split_documents", ".zip");
 
-            document = Loader.loadPDF(file.getBytes());
+        try (PDDocument document = Loader.loadPDF(file.getBytes());
+                ZipArchiveWriter zipWriter = ZipArchiveWriter.toFile(zipFile, computeScheduler)) {
             // PdfMetadata metadata = PdfMetadataService.extractMetadataFromPdf(document);
             int totalPages = document.getNumberOfPages();
             List<Integer> pageNumbers = request.getPageNumbersList(document, false);
@@ -76,9 +78,9 @@ public class SplitPDFController {
                     "Splitting PDF into pages: {}",
                     pageNumbers.stream().map(String::valueOf).collect(Collectors.joining(",")));
 
-            // split the document
-            splitDocumentsBoas = new ArrayList<>();
+            // split the document, each part is compressed into the zip while the next is saved
             int previousPageNumber = 0;
+            int index = 1;
             for (int splitPoint : pageNumbers) {
                 try (PDDocument splitDocument =
                         pdfDocumentFactory.createNewDocumentBasedOnOldDocument(document)) {
@@ -95,70 +97,22 @@ public class SplitPDFController {
                     ByteArrayOutputStream baos = new ByteArrayOutputStream();
                     splitDocument.save(baos);
 
-                    splitDocumentsBoas.add(baos);
+                    String fileName = filename + "_" + index++ + ".pdf";
+                    zipWriter.addEntry(fileName, baos.toByteArray());
+                    log.info("Wrote split document {} to zip file", fileName);
                 } catch (Exception e) {
                     log.error("Failed splitting documents and saving them", e);
                     throw e;
                 }
             }
-
-            // closing the original document
-            document.close();
-
-            zipFile = Files.createTempFile("split_documents", ".zip");
-
-            String filename =
-                    Filenames.toSimpleFileName(file.getOriginalFilename())
-                            .replaceFirst("[.][^.]+$", "");
-            try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile))) {
-                // loop through the split documents and write them to the zip file
-                for (int i = 0; i < splitDocumentsBoas.size(); i++) {
-                    String fileName = filename + "_" + (i + 1) + ".pdf";
-                    ByteArrayOutputStream baos = splitDocumentsBoas.get(i);
-                    byte[] pdf = baos.toByteArray();
-
-                    // Add PDF file to the zip
-                    ZipEntry pdfEntry = new ZipEntry(fileName);
-                    zipOut.putNextEntry(pdfEntry);
-                    zipOut.write(pdf);
-                    zipOut.closeEntry();
-
-                    log.info("Wrote split document {} to zip file", fileName);
-                }
-            } catch (Exception e) {
-                log.error("Failed writing to zip", e);
-                throw e;
-            }
-
-            log.info("Successfully created zip file with split documents: {}", zipFile.toString());
-            byte[] data = Files.readAllBytes(zipFile);
+        } catch (IOException | RuntimeException e) {
             Files.deleteIfExists(zipFile);
-
-            // return the Resource in the response
-            return WebResponseUtils.bytesToWebResponse(
-                    data, filename + ".zip", MediaType.APPLICATION_OCTET_STREAM);
-
-        } finally {
-            try {
-                // Close the main document
-                if (document != null) {
-                    document.close();
-                }
-
-                // Close all ByteArrayOutputStreams
-                for (ByteArrayOutputStream baos : splitDocumentsBoas) {
-                    if (baos != null) {
-                        baos.close();
-                    }
-                }
-
-                // Delete temporary zip file
-                if (zipFile != null) {
-                    Files.deleteIfExists(zipFile);
-                }
-            } catch (Exception e) {
-                log.error("Error while cleaning up resources", e);
-            }
+            throw e;
         }
+
+        log.info("Successfully created zip file with split documents: {}", zipFile.toString());
+        // return the Resource in the response
+        return WebResponseUtils.tempFileToStreamingWebResponse(
+                zipFile, filename + ".zip", MediaType.APPLICATION_OCTET_STREAM);
     }
 }
@@ -5,8 +5,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -21,6 +19,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -33,8 +32,10 @@ import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.PdfMetadata;
 import stirling.software.SPDF.model.api.SplitPdfByChaptersRequest;
+import stirling.software.SPDF.service.ComputeScheduler;
 import stirling.software.SPDF.service.PdfMetadataService;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.ZipArchiveWriter;
 
 @RestController
 @RequestMapping("/api/v1/general")
@@ -44,9 +45,13 @@ public class SplitPdfByChaptersController {
 
     private final PdfMetadataService pdfMetadataService;
 
+    private final ComputeScheduler computeScheduler;
+
     @Autowired
-    public SplitPdfByChaptersController(PdfMetadataService pdfMetadataService) {
+    public SplitPdfByChaptersController(
+            PdfMetadataService pdfMetadataService, ComputeScheduler computeScheduler) {
         this.pdfMetadataService = pdfMetadataService;
+        this.computeScheduler = computeScheduler;
     }
 
     private static List<Bookmark> extractOutlineItems(
@@ -121,7 +126,7 @@ public class SplitPdfByChaptersController {
     @Operation(
             summary = "Split PDFs by Chapters",
             description = "Splits a PDF into chapters and returns a ZIP file.")
-    public ResponseEntity<byte[]> splitPdf(@ModelAttribute SplitPdfByChaptersRequest request)
+    public ResponseEntity<?> splitPdf(@ModelAttribute SplitPdfByChaptersRequest request)
             throws Exception {
         MultipartFile file = request.getFileInput();
         PDDocument sourceDocument = null;
@@ -183,15 +188,16 @@ public class SplitPdfByChaptersController {
 
             zipFile = createZipFile(bookmarks, splitDocumentsBoas);
 
-            byte[] data = Files.readAllBytes(zipFile);
-            Files.deleteIfExists(zipFile);
-
             String filename =
                     Filenames.toSimpleFileName(file.getOriginalFilename())
                             .replaceFirst("[.][^.]+$", "");
             sourceDocument.close();
-            return WebResponseUtils.bytesToWebResponse(
-                    data, filename + ".zip", MediaType.APPLICATION_OCTET_STREAM);
+            // the response deletes the zip once it has been sent
+            ResponseEntity<StreamingResponseBody> response =
+                    WebResponseUtils.tempFileToStreamingWebResponse(
+                            zipFile, filename + ".zip", MediaType.APPLICATION_OCTET_STREAM);
+            zipFile = null;
+            return response;
         } finally {
             try {
                 if (sourceDocument != null) {
@@ -236,7 +242,7 @@ public class SplitPdfByChaptersController {
             throws Exception {
         Path zipFile = Files.createTempFile("split_documents", ".zip");
         String fileNumberFormatter = "%0" + (Integer.toString(bookmarks.size()).length()) + "d ";
-        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+        try (ZipArchiveWriter zipOut = ZipArchiveWriter.toFile(zipFile, computeScheduler)) {
             for (int i = 0; i < splitDocumentsBoas.size(); i++) {
 
                 // split files will be named as "[FILE_NUMBER] [BOOKMARK_TITLE].pdf"
@@ -245,18 +251,13 @@ public class SplitPdfByChaptersController {
                         String.format(fileNumberFormatter, i)
                                 + bookmarks.get(i).getTitle()
                                 + ".pdf";
-                ByteArrayOutputStream baos = splitDocumentsBoas.get(i);
-                byte[] pdf = baos.toByteArray();
-
-                ZipEntry pdfEntry = new ZipEntry(fileName);
-                zipOut.putNextEntry(pdfEntry);
-                zipOut.write(pdf);
-                zipOut.closeEntry();
+                zipOut.addEntry(fileName, splitDocumentsBoas.get(i).toByteArray());
 
                 log.info("Wrote split document {} to zip file", fileName);
             }
         } catch (Exception e) {
             log.error("Failed writing to zip", e);
+            Files.deleteIfExists(zipFile);
             throw e;
         }
 
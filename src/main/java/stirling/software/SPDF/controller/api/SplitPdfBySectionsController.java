@@ -6,8 +6,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.multipdf.LayerUtility;
@@ -26,14 +24,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import stirling.software.SPDF.model.api.SplitPdfBySectionsRequest;
+import stirling.software.SPDF.service.ComputeScheduler;
 import stirling.software.SPDF.service.CustomPDDocumentFactory;
+import stirling.software.SPDF.service.PdfMergeService;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.ZipArchiveWriter;
 
 @RestController
 @RequestMapping("/api/v1/general")
@@ -42,9 +44,18 @@ public class SplitPdfBySectionsController {
 
     private final CustomPDDocumentFactory pdfDocumentFactory;
 
+    private final PdfMergeService pdfMergeService;
+
+    private final ComputeScheduler computeScheduler;
+
     @Autowired
-    public SplitPdfBySectionsController(CustomPDDocumentFactory pdfDocumentFactory) {
+    public SplitPdfBySectionsController(
+            CustomPDDocumentFactory pdfDocumentFactory,
+            PdfMergeService pdfMergeService,
+            ComputeScheduler computeScheduler) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.pdfMergeService = pdfMergeService;
+        this.computeScheduler = computeScheduler;
     }
 
     @PostMapping(value = "/split-pdf-by-sections", consumes = "multipart/form-data")
@@ -52,10 +63,8 @@ public class SplitPdfBySectionsController {
             summary = "Split PDF pages into smaller sections",
             description =
                     "Split each page of a PDF into smaller sections based on the user's choice (halves, thirds, quarters, etc.), both vertically and horizontally. Input:PDF Output:ZIP-PDF Type:SISO")
-    public ResponseEntity<byte[]> splitPdf(@ModelAttribute SplitPdfBySectionsRequest request)
-            throws Exception {
-        List<ByteArrayOutputStream> splitDocumentsBoas = new ArrayList<>();
-
+    public ResponseEntity<StreamingResponseBody> splitPdf(
+            @ModelAttribute SplitPdfBySectionsRequest request) throws Exception {
         MultipartFile file = request.getFileInput();
         PDDocument sourceDocument = Loader.loadPDF(file.getBytes());
 
@@ -69,44 +78,35 @@ public class SplitPdfBySectionsController {
                 Filenames.toSimpleFileName(file.getOriginalFilename())
                         .replaceFirst("[.][^.]+$", "");
         if (merge) {
-            MergeController mergeController = new MergeController(pdfDocumentFactory);
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            mergeController.mergeDocuments(splitDocuments).save(baos);
-            return WebResponseUtils.bytesToWebResponse(baos.toByteArray(), filename + "_split.pdf");
+            pdfMergeService.mergeDocuments(splitDocuments).save(baos);
+            return WebResponseUtils.boasToStreamingWebResponse(
+                    baos, filename + "_split.pdf", MediaType.APPLICATION_PDF);
         }
-        for (PDDocument doc : splitDocuments) {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            doc.save(baos);
-            doc.close();
-            splitDocumentsBoas.add(baos);
-        }
-
-        sourceDocument.close();
 
         Path zipFile = Files.createTempFile("split_documents", ".zip");
-        byte[] data;
-
-        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+        try (ZipArchiveWriter zipOut = ZipArchiveWriter.toFile(zipFile, computeScheduler)) {
             int pageNum = 1;
-            for (int i = 0; i < splitDocumentsBoas.size(); i++) {
-                ByteArrayOutputStream baos = splitDocumentsBoas.get(i);
+            for (int i = 0; i < splitDocuments.size(); i++) {
+                PDDocument doc = splitDocuments.get(i);
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                doc.save(baos);
+                doc.close();
+
                 int sectionNum = (i % (horiz * verti)) + 1;
                 String fileName = filename + "_" + pageNum + "_" + sectionNum + ".pdf";
-                byte[] pdf = baos.toByteArray();
-                ZipEntry pdfEntry = new ZipEntry(fileName);
-                zipOut.putNextEntry(pdfEntry);
-                zipOut.write(pdf);
-                zipOut.closeEntry();
+                zipOut.addEntry(fileName, baos.toByteArray());
 
                 if (sectionNum == horiz * verti) pageNum++;
             }
-            data = Files.readAllBytes(zipFile);
-            return WebResponseUtils.bytesToWebResponse(
-                    data, filename + "_split.zip", MediaType.APPLICATION_OCTET_STREAM);
-
-        } finally {
+        } catch (IOException | RuntimeException e) {
             Files.deleteIfExists(zipFile);
+            throw e;
+        } finally {
+            sourceDocument.close();
         }
+        return WebResponseUtils.tempFileToStreamingWebResponse(
+                zipFile, filename + "_split.zip", MediaType.APPLICATION_OCTET_STREAM);
     }
 
     public List<PDDocument> splitPdfPages(
@@ -4,8 +4,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -18,6 +16,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -25,9 +24,12 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.api.general.SplitPdfBySizeOrCountRequest;
+import stirling.software.SPDF.service.ComputeScheduler;
 import stirling.software.SPDF.service.CustomPDDocumentFactory;
 import stirling.software.SPDF.utils.GeneralUtils;
+import stirling.software.SPDF.utils.PdfSizeEstimator;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.ZipArchiveWriter;
 
 @RestController
 @RequestMapping("/api/v1/general")
@@ -37,9 +39,13 @@ public class SplitPdfBySizeController {
 
     private final CustomPDDocumentFactory pdfDocumentFactory;
 
+    private final ComputeScheduler computeScheduler;
+
     @Autowired
-    public SplitPdfBySizeController(CustomPDDocumentFactory pdfDocumentFactory) {
+    public SplitPdfBySizeController(
+            CustomPDDocumentFactory pdfDocumentFactory, ComputeScheduler computeScheduler) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.computeScheduler = computeScheduler;
     }
 
     @PostMapping(value = "/split-by-size-or-count", consumes = "multipart/form-data")
@@ -48,16 +54,15 @@ public class SplitPdfBySizeController {
             description =
                     "split PDF into multiple paged documents based on size/count, ie if 20 pages and split into 5, it does 5 documents each 4 pages\r\n"
                             + " if 10MB and each page is 1MB and you enter 2MB then 5 docs each 2MB (rounded so that it accepts 1.9MB but not 2.1MB) Input:PDF Output:ZIP-PDF Type:SISO")
-    public ResponseEntity<byte[]> autoSplitPdf(@ModelAttribute SplitPdfBySizeOrCountRequest request)
-            throws Exception {
+    public ResponseEntity<StreamingResponseBody> autoSplitPdf(
+            @ModelAttribute SplitPdfBySizeOrCountRequest request) throws Exception {
 
         MultipartFile file = request.getFileInput();
         Path zipFile = Files.createTempFile("split_documents", ".zip");
         String filename =
                 Filenames.toSimpleFileName(file.getOriginalFilename())
                         .replaceFirst("[.][^.]+$", "");
-        byte[] data = null;
-        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile));
+        try (ZipArchiveWriter zipOut = ZipArchiveWriter.toFile(zipFile, computeScheduler);
                 PDDocument sourceDocument = Loader.loadPDF(file.getBytes())) {
 
             int type = request.getSplitType();
@@ -78,55 +83,41 @@ public class SplitPdfBySizeController {
 
         } catch (Exception e) {
             log.error("exception", e);
-        } finally {
-            data = Files.readAllBytes(zipFile);
-            Files.deleteIfExists(zipFile);
         }
 
-        return WebResponseUtils.bytesToWebResponse(
-                data, filename + ".zip", MediaType.APPLICATION_OCTET_STREAM);
+        return WebResponseUtils.tempFileToStreamingWebResponse(
+                zipFile, filename + ".zip", MediaType.APPLICATION_OCTET_STREAM);
     }
 
     private void handleSplitBySize(
-            PDDocument sourceDocument, long maxBytes, ZipOutputStream zipOut, String baseFilename)
+            PDDocument sourceDocument, long maxBytes, ZipArchiveWriter zipOut, String baseFilename)
             throws IOException {
-        long currentSize = 0;
+        // estimated from the objects each page adds, so every part is saved exactly once
+        PdfSizeEstimator estimator = new PdfSizeEstimator();
         PDDocument currentDoc =
                 pdfDocumentFactory.createNewDocumentBasedOnOldDocument(sourceDocument);
         int fileIndex = 1;
 
-        for (int pageIndex = 0; pageIndex < sourceDocument.getNumberOfPages(); pageIndex++) {
-            PDPage page = sourceDocument.getPage(pageIndex);
-            ByteArrayOutputStream pageOutputStream = new ByteArrayOutputStream();
-
-            try (PDDocument tempDoc = new PDDocument()) {
-                PDPage importedPage = tempDoc.importPage(page); // This creates a new PDPage object
-                tempDoc.save(pageOutputStream);
-            }
-
-            long pageSize = pageOutputStream.size();
-            if (currentSize + pageSize > maxBytes) {
-                if (currentDoc.getNumberOfPages() > 0) {
-                    saveDocumentToZip(currentDoc, zipOut, baseFilename, fileIndex++);
-                    currentDoc.close(); // Make sure to close the document
-                    currentDoc = new PDDocument();
-                    currentSize = 0;
-                }
+        for (PDPage page : sourceDocument.getPages()) {
+            estimator.addPage(page);
+            if (estimator.getSize() > maxBytes && currentDoc.getNumberOfPages() > 0) {
+                saveDocumentToZip(currentDoc, zipOut, baseFilename, fileIndex++);
+                currentDoc = pdfDocumentFactory.createNewDocumentBasedOnOldDocument(sourceDocument);
+                estimator.reset();
+                estimator.addPage(page);
             }
-
-            PDPage newPage = new PDPage(page.getCOSObject()); // Re-create the page
-            currentDoc.addPage(newPage);
-            currentSize += pageSize;
+            currentDoc.addPage(page);
         }
 
         if (currentDoc.getNumberOfPages() != 0) {
             saveDocumentToZip(currentDoc, zipOut, baseFilename, fileIndex++);
+        } else {
             currentDoc.close();
         }
     }
 
     private void handleSplitByPageCount(
-            PDDocument sourceDocument, int pageCount, ZipOutputStream zipOut, String baseFilename)
+            PDDocument sourceDocument, int pageCount, ZipArchiveWriter zipOut, String baseFilename)
             throws IOException {
         int currentPageCount = 0;
         PDDocument currentDoc =
@@ -152,7 +143,7 @@ public class SplitPdfBySizeController {
     private void handleSplitByDocCount(
             PDDocument sourceDocument,
             int documentCount,
-            ZipOutputStream zipOut,
+            ZipArchiveWriter zipOut,
             String baseFilename)
             throws IOException {
         int totalPageCount = sourceDocument.getNumberOfPages();
@@ -174,16 +165,12 @@ public class SplitPdfBySizeController {
     }
 
     private void saveDocumentToZip(
-            PDDocument document, ZipOutputStream zipOut, String baseFilename, int index)
+            PDDocument document, ZipArchiveWriter zipOut, String baseFilename, int index)
             throws IOException {
         ByteArrayOutputStream outStream = new ByteArrayOutputStream();
         document.save(outStream);
         document.close(); // Close the document to free resources
 
-        // Create a new zip entry
-        ZipEntry zipEntry = new ZipEntry(baseFilename + "_" + index + ".pdf");
-        zipOut.putNextEntry(zipEntry);
-        zipOut.write(outStream.toByteArray());
-        zipOut.closeEntry();
+        zipOut.addEntry(baseFilename + "_" + index + ".pdf", outStream.toByteArray());
     }
 }
@@ -9,8 +9,6 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.pdfbox.rendering.ImageType;
@@ -31,11 +29,13 @@ import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.api.converters.ConvertToImageRequest;
 import stirling.software.SPDF.model.api.converters.ConvertToPdfRequest;
 import stirling.software.SPDF.service.CustomPDDocumentFactory;
+import stirling.software.SPDF.service.PageRenderService;
 import stirling.software.SPDF.utils.CheckProgramInstall;
 import stirling.software.SPDF.utils.PdfUtils;
 import stirling.software.SPDF.utils.ProcessExecutor;
 import stirling.software.SPDF.utils.ProcessExecutor.ProcessExecutorResult;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.ZipArchiveWriter;
 
 @RestController
 @RequestMapping("/api/v1/convert")
@@ -45,9 +45,13 @@ public class ConvertImgPDFController {
 
     private final CustomPDDocumentFactory pdfDocumentFactory;
 
+    private final PageRenderService pageRenderService;
+
     @Autowired
-    public ConvertImgPDFController(CustomPDDocumentFactory pdfDocumentFactory) {
+    public ConvertImgPDFController(
+            CustomPDDocumentFactory pdfDocumentFactory, PageRenderService pageRenderService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.pageRenderService = pageRenderService;
     }
 
     @PostMapping(consumes = "multipart/form-data", value = "/pdf/img")
@@ -84,6 +88,7 @@ public class ConvertImgPDFController {
 
             result =
                     PdfUtils.convertFromPdf(
+                            pageRenderService,
                             pdfBytes,
                             "webp".equalsIgnoreCase(imageFormat)
                                     ? "png"
@@ -154,11 +159,9 @@ public class ConvertImgPDFController {
                 } else {
                     // Create a ZIP file containing all WebP images
                     ByteArrayOutputStream zipOutputStream = new ByteArrayOutputStream();
-                    try (ZipOutputStream zos = new ZipOutputStream(zipOutputStream)) {
+                    try (ZipArchiveWriter zos = new ZipArchiveWriter(zipOutputStream)) {
                         for (Path webpFile : webpFiles) {
-                            zos.putNextEntry(new ZipEntry(webpFile.getFileName().toString()));
-                            Files.copy(webpFile, zos);
-                            zos.closeEntry();
+                            zos.addEntry(webpFile.getFileName().toString(), webpFile);
                         }
                     }
                     bodyBytes = zipOutputStream.toByteArray();
@@ -5,7 +5,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.FilenameUtils;
@@ -24,6 +23,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import stirling.software.SPDF.model.api.GeneralFile;
 import stirling.software.SPDF.service.CustomPDDocumentFactory;
+import stirling.software.SPDF.service.LibreOfficePool;
 import stirling.software.SPDF.utils.ProcessExecutor;
 import stirling.software.SPDF.utils.ProcessExecutor.ProcessExecutorResult;
 import stirling.software.SPDF.utils.WebResponseUtils;
@@ -35,9 +35,13 @@ public class ConvertOfficeController {
 
     private final CustomPDDocumentFactory pdfDocumentFactory;
 
+    private final LibreOfficePool libreOfficePool;
+
     @Autowired
-    public ConvertOfficeController(CustomPDDocumentFactory pdfDocumentFactory) {
+    public ConvertOfficeController(
+            CustomPDDocumentFactory pdfDocumentFactory, LibreOfficePool libreOfficePool) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.libreOfficePool = libreOfficePool;
     }
 
     public File convertToPdf(MultipartFile inputFile) throws IOException, InterruptedException {
@@ -57,20 +61,23 @@ public class ConvertOfficeController {
         Path tempOutputFile = Files.createTempFile("output_", ".pdf");
 
         try {
-            // Run the LibreOffice command
-            List<String> command =
-                    new ArrayList<>(
-                            Arrays.asList(
-                                    "unoconv",
-                                    "-vvv",
-                                    "-f",
-                                    "pdf",
-                                    "-o",
-                                    tempOutputFile.toString(),
-                                    tempInputFile.toString()));
-            ProcessExecutorResult returnCode =
-                    ProcessExecutor.getInstance(ProcessExecutor.Processes.LIBRE_OFFICE)
-                            .runCommandWithOutputHandling(command);
+            List<String> arguments =
+                    List.of(
+                            "-vvv",
+                            "-f",
+                            "pdf",
+                            "-o",
+                            tempOutputFile.toString(),
+                            tempInputFile.toString());
+            if (libreOfficePool.convert(arguments) == null) {
+                // Run the LibreOffice command
+                List<String> command = new ArrayList<>();
+                command.add("unoconv");
+                command.addAll(arguments);
+                ProcessExecutorResult returnCode =
+                        ProcessExecutor.getInstance(ProcessExecutor.Processes.LIBRE_OFFICE)
+                                .runCommandWithOutputHandling(command);
+            }
 
             // Read the converted PDF file
             return tempOutputFile.toFile();
@@ -93,8 +100,6 @@ public class ConvertOfficeController {
     public ResponseEntity<byte[]> processFileToPDF(@ModelAttribute GeneralFile request)
             throws Exception {
         MultipartFile inputFile = request.getFileInput();
-        // unused but can start server instance if startup time is to long
-        // LibreOfficeListener.getInstance().start();
         File file = null;
         try {
             file = convertToPdf(inputFile);
@@ -8,6 +8,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -22,6 +23,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.api.converters.PdfToPdfARequest;
+import stirling.software.SPDF.service.LibreOfficePool;
 import stirling.software.SPDF.utils.ProcessExecutor;
 import stirling.software.SPDF.utils.ProcessExecutor.ProcessExecutorResult;
 import stirling.software.SPDF.utils.WebResponseUtils;
@@ -32,6 +34,13 @@ import stirling.software.SPDF.utils.WebResponseUtils;
 @Tag(name = "Convert", description = "Convert APIs")
 public class ConvertPDFToPDFA {
 
+    private final LibreOfficePool libreOfficePool;
+
+    @Autowired
+    public ConvertPDFToPDFA(LibreOfficePool libreOfficePool) {
+        this.libreOfficePool = libreOfficePool;
+    }
+
     @PostMapping(consumes = "multipart/form-data", value = "/pdf/pdfa")
     @Operation(
             summary = "Convert a PDF to a PDF/A",
@@ -70,28 +79,45 @@ public class ConvertPDFToPDFA {
             // Create temp output directory
             tempOutputDir = Files.createTempDirectory("output_");
 
-            // Determine PDF/A filter based on requested format
-            String pdfFilter =
-                    "pdfa".equals(outputFormat)
-                            ? "writer_pdf_Export:{'SelectPdfVersion':{'Value':'2'}}:writer_pdf_Export"
-                            : "writer_pdf_Export:{'SelectPdfVersion':{'Value':'1'}}:writer_pdf_Export";
-
-            // Prepare LibreOffice command
-            List<String> command =
-                    new ArrayList<>(
-                            Arrays.asList(
-                                    "soffice",
-                                    "--headless",
-                                    "--nologo",
-                                    "--convert-to",
-                                    "pdf:" + pdfFilter,
-                                    "--outdir",
-                                    tempOutputDir.toString(),
-                                    tempInputFile.toString()));
-
-            ProcessExecutorResult returnCode =
-                    ProcessExecutor.getInstance(ProcessExecutor.Processes.LIBRE_OFFICE)
-                            .runCommandWithOutputHandling(command);
+            // Convert on a warm LibreOffice instance if possible, exporting through the same
+            // filter as the soffice fallback below
+            String pdfVersion = "pdfa".equals(outputFormat) ? "2" : "1";
+            List<String> pooledArguments =
+                    List.of(
+                            "-f",
+                            "pdf",
+                            "-e",
+                            "FilterName=writer_pdf_Export",
+                            "-e",
+                            "SelectPdfVersion=" + pdfVersion,
+                            "-o",
+                            tempOutputDir.toString(),
+                            tempInputFile.toString());
+            ProcessExecutorResult returnCode = libreOfficePool.convert(pooledArguments);
+            if (returnCode == null) {
+                // Determine PDF/A filter based on requested format
+                String pdfFilter =
+                        "pdfa".equals(outputFormat)
+                                ? "writer_pdf_Export:{'SelectPdfVersion':{'Value':'2'}}:writer_pdf_Export"
+                                : "writer_pdf_Export:{'SelectPdfVersion':{'Value':'1'}}:writer_pdf_Export";
+
+                // Prepare LibreOffice command
+                List<String> command =
+                        new ArrayList<>(
+                                Arrays.asList(
+                                        "soffice",
+                                        "--headless",
+                                        "--nologo",
+                                        "--convert-to",
+                                        "pdf:" + pdfFilter,
+                                        "--outdir",
+                                        tempOutputDir.toString(),
+                                        tempInputFile.toString()));
+
+                returnCode =
+                        ProcessExecutor.getInstance(ProcessExecutor.Processes.LIBRE_OFFICE)
+                                .runCommandWithOutputHandling(command);
+            }
 
             if (returnCode.getRc() != 0) {
                 log.error("PDF/A conversion failed with return code: {}", returnCode.getRc());
@@ -6,12 +6,14 @@ import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -23,6 +25,7 @@ import stirling.software.SPDF.model.api.filter.ContainsTextRequest;
 import stirling.software.SPDF.model.api.filter.FileSizeRequest;
 import stirling.software.SPDF.model.api.filter.PageRotationRequest;
 import stirling.software.SPDF.model.api.filter.PageSizeRequest;
+import stirling.software.SPDF.service.PageTextIndexService;
 import stirling.software.SPDF.utils.PdfUtils;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
@@ -31,19 +34,26 @@ import stirling.software.SPDF.utils.WebResponseUtils;
 @Tag(name = "Filter", description = "Filter APIs")
 public class FilterController {
 
+    private final PageTextIndexService pageTextIndexService;
+
+    @Autowired
+    public FilterController(PageTextIndexService pageTextIndexService) {
+        this.pageTextIndexService = pageTextIndexService;
+    }
+
     @PostMapping(consumes = "multipart/form-data", value = "/filter-contains-text")
     @Operation(
             summary = "Checks if a PDF contains set text, returns true if does",
             description = "Input:PDF Output:Boolean Type:SISO")
-    public ResponseEntity<byte[]> containsText(@ModelAttribute ContainsTextRequest request)
-            throws IOException, InterruptedException {
+    public ResponseEntity<StreamingResponseBody> containsText(
+            @ModelAttribute ContainsTextRequest request) throws IOException, InterruptedException {
         MultipartFile inputFile = request.getFileInput();
         String text = request.getText();
         String pageNumber = request.getPageNumbers();
 
         PDDocument pdfDocument = Loader.loadPDF(inputFile.getBytes());
-        if (PdfUtils.hasText(pdfDocument, pageNumber, text))
-            return WebResponseUtils.pdfDocToWebResponse(
+        if (PdfUtils.hasText(pageTextIndexService.getIndex(pdfDocument), pageNumber, text))
+            return WebResponseUtils.pdfDocToStreamingWebResponse(
                     pdfDocument, Filenames.toSimpleFileName(inputFile.getOriginalFilename()));
         return null;
     }
@@ -53,14 +63,14 @@ public class FilterController {
     @Operation(
             summary = "Checks if a PDF contains an image",
             description = "Input:PDF Output:Boolean Type:SISO")
-    public ResponseEntity<byte[]> containsImage(@ModelAttribute PDFWithPageNums request)
-            throws IOException, InterruptedException {
+    public ResponseEntity<StreamingResponseBody> containsImage(
+            @ModelAttribute PDFWithPageNums request) throws IOException, InterruptedException {
         MultipartFile inputFile = request.getFileInput();
         String pageNumber = request.getPageNumbers();
 
         PDDocument pdfDocument = Loader.loadPDF(inputFile.getBytes());
         if (PdfUtils.hasImages(pdfDocument, pageNumber))
-            return WebResponseUtils.pdfDocToWebResponse(
+            return WebResponseUtils.pdfDocToStreamingWebResponse(
                     pdfDocument, Filenames.toSimpleFileName(inputFile.getOriginalFilename()));
         return null;
     }
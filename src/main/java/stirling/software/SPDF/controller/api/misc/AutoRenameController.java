@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -38,8 +39,8 @@ public class AutoRenameController {
             summary = "Extract header from PDF file",
             description =
                     "This endpoint accepts a PDF file and attempts to extract its title or header based on heuristics. Input:PDF Output:PDF Type:SISO")
-    public ResponseEntity<byte[]> extractHeader(@ModelAttribute ExtractHeaderRequest request)
-            throws Exception {
+    public ResponseEntity<StreamingResponseBody> extractHeader(
+            @ModelAttribute ExtractHeaderRequest request) throws Exception {
         MultipartFile file = request.getFileInput();
         Boolean useFirstTextAsFallback = request.isUseFirstTextAsFallback();
 
@@ -129,10 +130,10 @@ public class AutoRenameController {
         // Sanitize the header string by removing characters not allowed in a filename.
         if (header != null && header.length() < 255) {
             header = header.replaceAll("[/\\\\?%*:|\"<>]", "").trim();
-            return WebResponseUtils.pdfDocToWebResponse(document, header + ".pdf");
+            return WebResponseUtils.pdfDocToStreamingWebResponse(document, header + ".pdf");
         } else {
             log.info("File has no good title to be found");
-            return WebResponseUtils.pdfDocToWebResponse(
+            return WebResponseUtils.pdfDocToStreamingWebResponse(
                     document, Filenames.toSimpleFileName(file.getOriginalFilename()));
         }
     }
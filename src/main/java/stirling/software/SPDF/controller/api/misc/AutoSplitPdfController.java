@@ -9,11 +9,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.ImageType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +20,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.google.zxing.*;
 import com.google.zxing.common.HybridBinarizer;
@@ -32,8 +31,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.api.misc.AutoSplitPdfRequest;
+import stirling.software.SPDF.service.ComputeScheduler;
 import stirling.software.SPDF.service.CustomPDDocumentFactory;
+import stirling.software.SPDF.service.PageRenderService;
+import stirling.software.SPDF.service.PageRenderService.DocumentSource;
+import stirling.software.SPDF.service.PageRenderService.RenderSettings;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.ZipArchiveWriter;
 
 @RestController
 @RequestMapping("/api/v1/misc")
@@ -46,9 +50,18 @@ public class AutoSplitPdfController {
 
     private final CustomPDDocumentFactory pdfDocumentFactory;
 
+    private final ComputeScheduler computeScheduler;
+
+    private final PageRenderService pageRenderService;
+
     @Autowired
-    public AutoSplitPdfController(CustomPDDocumentFactory pdfDocumentFactory) {
+    public AutoSplitPdfController(
+            CustomPDDocumentFactory pdfDocumentFactory,
+            ComputeScheduler computeScheduler,
+            PageRenderService pageRenderService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.computeScheduler = computeScheduler;
+        this.pageRenderService = pageRenderService;
     }
 
     private static String decodeQRCode(BufferedImage bufferedImage) {
@@ -102,43 +115,49 @@ public class AutoSplitPdfController {
             summary = "Auto split PDF pages into separate documents",
             description =
                     "This endpoint accepts a PDF file, scans each page for a specific QR code, and splits the document at the QR code boundaries. The output is a zip file containing each separate PDF document. Input:PDF Output:ZIP-PDF Type:SISO")
-    public ResponseEntity<byte[]> autoSplitPdf(@ModelAttribute AutoSplitPdfRequest request)
-            throws IOException {
+    public ResponseEntity<StreamingResponseBody> autoSplitPdf(
+            @ModelAttribute AutoSplitPdfRequest request) throws IOException {
         MultipartFile file = request.getFileInput();
         boolean duplexMode = request.isDuplexMode();
 
         PDDocument document = null;
         List<PDDocument> splitDocuments = new ArrayList<>();
         Path zipFile = null;
-        byte[] data = null;
 
         try {
             document = pdfDocumentFactory.load(file.getInputStream());
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            pdfRenderer.setSubsamplingAllowed(true);
-
-            for (int page = 0; page < document.getNumberOfPages(); ++page) {
-                BufferedImage bim = pdfRenderer.renderImageWithDPI(page, 150);
-                String result = decodeQRCode(bim);
-                if ((QR_CONTENT.equals(result) || QR_CONTENT_OLD.equals(result)) && page != 0) {
-                    splitDocuments.add(new PDDocument());
-                }
-
-                if (!splitDocuments.isEmpty()
-                        && !QR_CONTENT.equals(result)
-                        && !QR_CONTENT_OLD.equals(result)) {
-                    splitDocuments.get(splitDocuments.size() - 1).addPage(document.getPage(page));
-                } else if (page == 0) {
-                    PDDocument firstDocument = new PDDocument();
-                    firstDocument.addPage(document.getPage(page));
-                    splitDocuments.add(firstDocument);
-                }
-
-                // If duplexMode is true and current page is a divider, then skip next page
-                if (duplexMode && (QR_CONTENT.equals(result) || QR_CONTENT_OLD.equals(result))) {
-                    page++;
-                }
-            }
+            PDDocument loaded = document;
+            boolean[] skipNext = {false};
+            // QR codes are decoded on the thread that rendered the page
+            pageRenderService.renderPages(
+                    document,
+                    DocumentSource.of(file),
+                    new RenderSettings(150, ImageType.RGB, true),
+                    (page, bim) -> decodeQRCode(bim),
+                    (page, result) -> {
+                        // If duplexMode is true and the previous page was a divider, skip this one
+                        if (skipNext[0]) {
+                            skipNext[0] = false;
+                            return;
+                        }
+                        boolean divider =
+                                QR_CONTENT.equals(result) || QR_CONTENT_OLD.equals(result);
+                        if (divider && page != 0) {
+                            splitDocuments.add(new PDDocument());
+                        }
+
+                        if (!splitDocuments.isEmpty() && !divider) {
+                            splitDocuments
+                                    .get(splitDocuments.size() - 1)
+                                    .addPage(loaded.getPage(page));
+                        } else if (page == 0) {
+                            PDDocument firstDocument = new PDDocument();
+                            firstDocument.addPage(loaded.getPage(page));
+                            splitDocuments.add(firstDocument);
+                        }
+
+                        skipNext[0] = duplexMode && divider;
+                    });
 
             // Remove split documents that have no pages
             splitDocuments.removeIf(pdDocument -> pdDocument.getNumberOfPages() == 0);
@@ -148,26 +167,23 @@ public class AutoSplitPdfController {
                     Filenames.toSimpleFileName(file.getOriginalFilename())
                             .replaceFirst("[.][^.]+$", "");
 
-            try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            try (ZipArchiveWriter zipOut = ZipArchiveWriter.toFile(zipFile, computeScheduler)) {
                 for (int i = 0; i < splitDocuments.size(); i++) {
                     String fileName = filename + "_" + (i + 1) + ".pdf";
                     PDDocument splitDocument = splitDocuments.get(i);
 
                     ByteArrayOutputStream baos = new ByteArrayOutputStream();
                     splitDocument.save(baos);
-                    byte[] pdf = baos.toByteArray();
-
-                    ZipEntry pdfEntry = new ZipEntry(fileName);
-                    zipOut.putNextEntry(pdfEntry);
-                    zipOut.write(pdf);
-                    zipOut.closeEntry();
+                    zipOut.addEntry(fileName, baos.toByteArray());
                 }
             }
 
-            data = Files.readAllBytes(zipFile);
-
-            return WebResponseUtils.bytesToWebResponse(
-                    data, filename + ".zip", MediaType.APPLICATION_OCTET_STREAM);
+            // the response deletes the zip once it has been sent
+            ResponseEntity<StreamingResponseBody> response =
+                    WebResponseUtils.tempFileToStreamingWebResponse(
+                            zipFile, filename + ".zip", MediaType.APPLICATION_OCTET_STREAM);
+            zipFile = null;
+            return response;
         } finally {
             // Clean up resources
             if (document != null) {
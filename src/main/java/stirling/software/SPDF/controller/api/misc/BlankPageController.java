@@ -1,19 +1,15 @@
 package stirling.software.SPDF.controller.api.misc;
 
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageTree;
-import org.apache.pdfbox.rendering.PDFRenderer;
-import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.rendering.ImageType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -30,9 +26,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.api.misc.RemoveBlankPagesRequest;
+import stirling.software.SPDF.service.ComputeScheduler;
 import stirling.software.SPDF.service.CustomPDDocumentFactory;
-import stirling.software.SPDF.utils.PdfUtils;
+import stirling.software.SPDF.service.PageRenderService;
+import stirling.software.SPDF.service.PageRenderService.DocumentSource;
+import stirling.software.SPDF.service.PageRenderService.RenderSettings;
+import stirling.software.SPDF.service.PageTextIndexService;
+import stirling.software.SPDF.utils.BlankPageDetector;
+import stirling.software.SPDF.utils.BlankPageDetector.Verdict;
+import stirling.software.SPDF.utils.PageTextIndex;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.ZipArchiveWriter;
 
 @RestController
 @RequestMapping("/api/v1/misc")
@@ -40,37 +44,27 @@ import stirling.software.SPDF.utils.WebResponseUtils;
 @Tag(name = "Misc", description = "Miscellaneous APIs")
 public class BlankPageController {
 
-    private final CustomPDDocumentFactory pdfDocumentFactory;
-
-    @Autowired
-    public BlankPageController(CustomPDDocumentFactory pdfDocumentFactory) {
-        this.pdfDocumentFactory = pdfDocumentFactory;
-    }
+    /** Resolution pages are checked at when their content stream cannot settle it. */
+    private static final float RENDER_DPI = 30;
 
-    public static boolean isBlankImage(
-            BufferedImage image, int threshold, double whitePercent, int blurSize) {
-        if (image == null) {
-            log.info("Error: Image is null");
-            return false;
-        }
+    private final CustomPDDocumentFactory pdfDocumentFactory;
 
-        // Convert to binary image based on the threshold
-        int whitePixels = 0;
-        int totalPixels = image.getWidth() * image.getHeight();
+    private final ComputeScheduler computeScheduler;
 
-        for (int i = 0; i < image.getHeight(); i++) {
-            for (int j = 0; j < image.getWidth(); j++) {
-                int color = image.getRGB(j, i) & 0xFF;
-                if (color >= 255 - threshold) {
-                    whitePixels++;
-                }
-            }
-        }
+    private final PageTextIndexService pageTextIndexService;
 
-        double whitePixelPercentage = (whitePixels / (double) totalPixels) * 100;
-        log.info(String.format("Page has white pixel percent of %.2f%%", whitePixelPercentage));
+    private final PageRenderService pageRenderService;
 
-        return whitePixelPercentage >= whitePercent;
+    @Autowired
+    public BlankPageController(
+            CustomPDDocumentFactory pdfDocumentFactory,
+            ComputeScheduler computeScheduler,
+            PageTextIndexService pageTextIndexService,
+            PageRenderService pageRenderService) {
+        this.pdfDocumentFactory = pdfDocumentFactory;
+        this.computeScheduler = computeScheduler;
+        this.pageTextIndexService = pageTextIndexService;
+        this.pageRenderService = pageRenderService;
     }
 
     @PostMapping(consumes = "multipart/form-data", value = "/remove-blanks")
@@ -84,50 +78,55 @@ public class BlankPageController {
         int threshold = request.getThreshold();
         float whitePercent = request.getWhitePercent();
 
-        try (PDDocument document = Loader.loadPDF(inputFile.getBytes())) {
+        byte[] pdfBytes = inputFile.getBytes();
+        try (PDDocument document = Loader.loadPDF(pdfBytes)) {
             PDPageTree pages = document.getDocumentCatalog().getPages();
-            PDFTextStripper textStripper = new PDFTextStripper();
+            PageTextIndex textIndex = pageTextIndexService.getIndex(document);
 
-            List<PDPage> nonBlankPages = new ArrayList<>();
-            List<PDPage> blankPages = new ArrayList<>();
+            boolean[] blank = new boolean[document.getNumberOfPages()];
+            List<Integer> pagesToRender = new ArrayList<>();
             int pageIndex = 0;
 
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            pdfRenderer.setSubsamplingAllowed(true);
             for (PDPage page : pages) {
-                log.info("checking page {}", pageIndex);
-                textStripper.setStartPage(pageIndex + 1);
-                textStripper.setEndPage(pageIndex + 1);
-                String pageText = textStripper.getText(document);
-                boolean hasText = !pageText.trim().isEmpty();
-
-                boolean blank = true;
-                if (hasText) {
+                if (textIndex.hasText(pageIndex)) {
                     log.info("page {} has text, not blank", pageIndex);
-                    blank = false;
+                    blank[pageIndex] = false;
                 } else {
-                    boolean hasImages = PdfUtils.hasImagesOnPage(page);
-                    if (hasImages) {
-                        log.info("page {} has image, running blank detection", pageIndex);
-                        // Render image and save as temp file
-                        BufferedImage image = pdfRenderer.renderImageWithDPI(pageIndex, 30);
-                        blank = isBlankImage(image, threshold, whitePercent, threshold);
+                    Verdict verdict =
+                            BlankPageDetector.classifyVectorContent(
+                                    page, threshold, whitePercent, RENDER_DPI);
+                    log.info("page {} has no text, content check: {}", pageIndex, verdict);
+                    blank[pageIndex] = verdict == Verdict.BLANK;
+                    if (verdict == Verdict.RENDER) {
+                        pagesToRender.add(pageIndex);
                     }
                 }
+                pageIndex++;
+            }
+
+            // pages the content stream cannot settle are rendered and checked in parallel
+            pageRenderService.renderPages(
+                    document,
+                    DocumentSource.of(pdfBytes),
+                    pagesToRender,
+                    new RenderSettings(RENDER_DPI, ImageType.RGB, true),
+                    (i, image) -> BlankPageDetector.isBlankImage(image, threshold, whitePercent),
+                    (i, imageBlank) -> blank[i] = imageBlank);
 
-                if (blank) {
-                    log.info("Skipping, Image was  blank for page #{}", pageIndex);
+            List<PDPage> nonBlankPages = new ArrayList<>();
+            List<PDPage> blankPages = new ArrayList<>();
+            for (int i = 0; i < blank.length; i++) {
+                PDPage page = document.getPage(i);
+                if (blank[i]) {
+                    log.info("Skipping, page #{} is blank", i);
                     blankPages.add(page);
                 } else {
-                    log.info("page {} has image which is not blank", pageIndex);
                     nonBlankPages.add(page);
                 }
-
-                pageIndex++;
             }
 
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ZipOutputStream zos = new ZipOutputStream(baos);
+            ZipArchiveWriter zos = new ZipArchiveWriter(baos, computeScheduler);
 
             String filename =
                     Filenames.toSimpleFileName(inputFile.getOriginalFilename())
@@ -155,7 +154,7 @@ public class BlankPageController {
         }
     }
 
-    public void createZipEntry(ZipOutputStream zos, List<PDPage> pages, String entryName)
+    public void createZipEntry(ZipArchiveWriter zos, List<PDPage> pages, String entryName)
             throws IOException {
         try (PDDocument document = pdfDocumentFactory.createNewDocument()) {
 
@@ -163,10 +162,9 @@ public class BlankPageController {
                 document.addPage(page);
             }
 
-            ZipEntry zipEntry = new ZipEntry(entryName);
-            zos.putNextEntry(zipEntry);
-            document.save(zos);
-            zos.closeEntry();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            zos.addEntry(entryName, baos.toByteArray());
         }
     }
 }
@@ -1,22 +1,20 @@
 package stirling.software.SPDF.controller.api.misc;
 
-import java.awt.image.BufferedImage;
-import java.io.FileOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import javax.imageio.ImageIO;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.ImageType;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -31,10 +29,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.api.misc.ExtractImageScansRequest;
+import stirling.software.SPDF.service.PageRenderService;
+import stirling.software.SPDF.service.PageRenderService.DocumentSource;
+import stirling.software.SPDF.service.PageRenderService.RenderSettings;
 import stirling.software.SPDF.utils.CheckProgramInstall;
 import stirling.software.SPDF.utils.ProcessExecutor;
 import stirling.software.SPDF.utils.ProcessExecutor.ProcessExecutorResult;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.ZipArchiveWriter;
 
 @RestController
 @RequestMapping("/api/v1/misc")
@@ -44,6 +46,13 @@ public class ExtractImageScansController {
 
     private static final String REPLACEFIRST = "[.][^.]+$";
 
+    private final PageRenderService pageRenderService;
+
+    @Autowired
+    public ExtractImageScansController(PageRenderService pageRenderService) {
+        this.pageRenderService = pageRenderService;
+    }
+
     @PostMapping(consumes = "multipart/form-data", value = "/extract-image-scans")
     @Operation(
             summary = "Extract image scans from an input file",
@@ -74,7 +83,6 @@ public class ExtractImageScansController {
 
         List<Path> tempImageFiles = new ArrayList<>();
         Path tempInputFile = null;
-        Path tempZipFile = null;
         List<Path> tempDirs = new ArrayList<>();
 
         if (!CheckProgramInstall.isPythonAvailable()) {
@@ -86,25 +94,27 @@ public class ExtractImageScansController {
             // Check if input file is a PDF
             if ("pdf".equalsIgnoreCase(extension)) {
                 // Load PDF document
-                try (PDDocument document = Loader.loadPDF(form.getFileInput().getBytes())) {
-                    PDFRenderer pdfRenderer = new PDFRenderer(document);
-                    pdfRenderer.setSubsamplingAllowed(true);
-                    int pageCount = document.getNumberOfPages();
-                    images = new ArrayList<>();
-
-                    // Create images of all pages
-                    for (int i = 0; i < pageCount; i++) {
-                        // Create temp file to save the image
-                        Path tempFile = Files.createTempFile("image_", ".png");
-
-                        // Render image and save as temp file
-                        BufferedImage image = pdfRenderer.renderImageWithDPI(i, 300);
-                        ImageIO.write(image, "png", tempFile.toFile());
-
-                        // Add temp file path to images list
-                        images.add(tempFile.toString());
-                        tempImageFiles.add(tempFile);
-                    }
+                byte[] pdfBytes = form.getFileInput().getBytes();
+                try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+                    // Create images of all pages, encoded on the thread that rendered them
+                    pageRenderService.renderPages(
+                            document,
+                            DocumentSource.of(pdfBytes),
+                            new RenderSettings(300, ImageType.RGB, true),
+                            (i, image) -> {
+                                ByteArrayOutputStream png = new ByteArrayOutputStream();
+                                ImageIO.write(image, "png", png);
+                                return png.toByteArray();
+                            },
+                            (i, png) -> {
+                                // Create temp file to save the image
+                                Path tempFile = Files.createTempFile("image_", ".png");
+                                tempImageFiles.add(tempFile);
+                                Files.write(tempFile, png);
+
+                                // Add temp file path to images list
+                                images.add(tempFile.toString());
+                            });
                 }
             } else {
                 tempInputFile = Files.createTempFile("input_", "." + extension);
@@ -157,30 +167,19 @@ public class ExtractImageScansController {
             if (processedImageBytes.size() > 1) {
                 String outputZipFilename =
                         fileName.replaceFirst(REPLACEFIRST, "") + "_processed.zip";
-                tempZipFile = Files.createTempFile("output_", ".zip");
+                ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
 
-                try (ZipOutputStream zipOut =
-                        new ZipOutputStream(new FileOutputStream(tempZipFile.toFile()))) {
+                // PNGs are stored as they are, deflating them again gains nothing
+                try (ZipArchiveWriter zipOut = new ZipArchiveWriter(zipBytes)) {
                     // Add processed images to the zip
                     for (int i = 0; i < processedImageBytes.size(); i++) {
-                        ZipEntry entry =
-                                new ZipEntry(
-                                        fileName.replaceFirst(REPLACEFIRST, "")
-                                                + "_"
-                                                + (i + 1)
-                                                + ".png");
-                        zipOut.putNextEntry(entry);
-                        zipOut.write(processedImageBytes.get(i));
-                        zipOut.closeEntry();
+                        zipOut.addEntry(
+                                fileName.replaceFirst(REPLACEFIRST, "") + "_" + (i + 1) + ".png",
+                                processedImageBytes.get(i));
                     }
                 }
 
-                byte[] zipBytes = Files.readAllBytes(tempZipFile);
-
-                // Clean up the temporary zip file
-                Files.deleteIfExists(tempZipFile);
-
-                return WebResponseUtils.bytesToWebResponse(
+                return WebResponseUtils.boasToWebResponse(
                         zipBytes, outputZipFilename, MediaType.APPLICATION_OCTET_STREAM);
             }
             if (processedImageBytes.size() == 0) {
@@ -205,14 +204,6 @@ public class ExtractImageScansController {
                         }
                     });
 
-            if (tempZipFile != null && Files.exists(tempZipFile)) {
-                try {
-                    Files.deleteIfExists(tempZipFile);
-                } catch (IOException e) {
-                    log.error("Failed to delete temporary zip file: " + tempZipFile, e);
-                }
-            }
-
             tempDirs.forEach(
                     dir -> {
                         try {
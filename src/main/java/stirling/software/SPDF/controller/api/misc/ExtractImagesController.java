@@ -5,18 +5,16 @@ import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.zip.Deflater;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.Callable;
 
 import javax.imageio.ImageIO;
 
@@ -32,6 +30,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -39,8 +38,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.api.PDFExtractImagesRequest;
+import stirling.software.SPDF.service.ComputeScheduler;
 import stirling.software.SPDF.utils.ImageProcessingUtils;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.ZipArchiveWriter;
 
 @RestController
 @RequestMapping("/api/v1/misc")
@@ -48,13 +49,19 @@ import stirling.software.SPDF.utils.WebResponseUtils;
 @Tag(name = "Misc", description = "Miscellaneous APIs")
 public class ExtractImagesController {
 
+    private final ComputeScheduler computeScheduler;
+
+    public ExtractImagesController(ComputeScheduler computeScheduler) {
+        this.computeScheduler = computeScheduler;
+    }
+
     @PostMapping(consumes = "multipart/form-data", value = "/extract-images")
     @Operation(
             summary = "Extract images from a PDF file",
             description =
                     "This endpoint extracts images from a given PDF file and returns them in a zip file. Users can specify the output image format. Input: PDF Output: IMAGE/ZIP Type: SIMO")
-    public ResponseEntity<byte[]> extractImages(@ModelAttribute PDFExtractImagesRequest request)
-            throws IOException, InterruptedException, ExecutionException {
+    public ResponseEntity<StreamingResponseBody> extractImages(
+            @ModelAttribute PDFExtractImagesRequest request) throws Exception {
         MultipartFile file = request.getFileInput();
         String format = request.getFormat();
         boolean allowDuplicates = request.isAllowDuplicates();
@@ -63,86 +70,67 @@ public class ExtractImagesController {
         // Determine if multithreading should be used based on PDF size or number of pages
         boolean useMultithreading = shouldUseMultithreading(file, document);
 
-        // Create ByteArrayOutputStream to write zip file to byte array
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        // Create ZipOutputStream to create zip file
-        ZipOutputStream zos = new ZipOutputStream(baos);
-
-        // Set compression level
-        zos.setLevel(Deflater.BEST_COMPRESSION);
+        // Images are stored as they are, the formats are compressed already
+        Path zipFile = Files.createTempFile("extracted_images", ".zip");
+        ZipArchiveWriter zos = ZipArchiveWriter.toFile(zipFile, computeScheduler);
 
         String filename =
                 Filenames.toSimpleFileName(file.getOriginalFilename())
                         .replaceFirst("[.][^.]+$", "");
         Set<byte[]> processedImages = new HashSet<>();
 
-        if (useMultithreading) {
-            // Executor service to handle multithreading
-            ExecutorService executor =
-                    Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-            Set<Future<Void>> futures = new HashSet<>();
-
-            // Iterate over each page
-            for (int pgNum = 0; pgNum < document.getPages().getCount(); pgNum++) {
-                PDPage page = document.getPage(pgNum);
-                Future<Void> future =
-                        executor.submit(
-                                () -> {
-                                    // Use the page number directly from the iterator, so no need to
-                                    // calculate manually
-                                    int pageNum = document.getPages().indexOf(page) + 1;
-
-                                    try {
-                                        // Call the image extraction method for each page
-                                        extractImagesFromPage(
-                                                page,
-                                                format,
-                                                filename,
-                                                pageNum,
-                                                processedImages,
-                                                zos,
-                                                allowDuplicates);
-                                    } catch (IOException e) {
-                                        // Log the error and continue processing other pages
-                                        log.error(
-                                                "Error extracting images from page {}: {}",
-                                                pageNum,
-                                                e.getMessage());
-                                    }
-
-                                    return null; // Callable requires a return type
-                                });
-
-                // Add the Future object to the list to track completion
-                futures.add(future);
-            }
-
-            // Wait for all tasks to complete
-            for (Future<Void> future : futures) {
-                future.get();
-            }
-
-            // Close executor service
-            executor.shutdown();
-        } else {
-            // Single-threaded extraction
-            for (int pgNum = 0; pgNum < document.getPages().getCount(); pgNum++) {
-                PDPage page = document.getPage(pgNum);
-                extractImagesFromPage(
-                        page, format, filename, pgNum + 1, processedImages, zos, allowDuplicates);
+        try (document;
+                zos) {
+            if (useMultithreading) {
+                // One task per page, run on the shared compute scheduler
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (int pgNum = 0; pgNum < document.getPages().getCount(); pgNum++) {
+                    PDPage page = document.getPage(pgNum);
+                    int pageNum = pgNum + 1;
+                    tasks.add(
+                            () -> {
+                                try {
+                                    // Call the image extraction method for each page
+                                    extractImagesFromPage(
+                                            page,
+                                            format,
+                                            filename,
+                                            pageNum,
+                                            processedImages,
+                                            zos,
+                                            allowDuplicates);
+                                } catch (IOException e) {
+                                    // Log the error and continue processing other pages
+                                    log.error(
+                                            "Error extracting images from page {}: {}",
+                                            pageNum,
+                                            e.getMessage());
+                                }
+                                return null;
+                            });
+                }
+                computeScheduler.invokeAll(tasks);
+            } else {
+                // Single-threaded extraction
+                for (int pgNum = 0; pgNum < document.getPages().getCount(); pgNum++) {
+                    PDPage page = document.getPage(pgNum);
+                    extractImagesFromPage(
+                            page,
+                            format,
+                            filename,
+                            pgNum + 1,
+                            processedImages,
+                            zos,
+                            allowDuplicates);
+                }
             }
+        } catch (Exception e) {
+            Files.deleteIfExists(zipFile);
+            throw e;
         }
 
-        // Close PDDocument and ZipOutputStream
-        document.close();
-        zos.close();
-
-        // Create ByteArrayResource from byte array
-        byte[] zipContents = baos.toByteArray();
-
-        return WebResponseUtils.boasToWebResponse(
-                baos, filename + "_extracted-images.zip", MediaType.APPLICATION_OCTET_STREAM);
+        return WebResponseUtils.tempFileToStreamingWebResponse(
+                zipFile, filename + "_extracted-images.zip", MediaType.APPLICATION_OCTET_STREAM);
     }
 
     private boolean shouldUseMultithreading(MultipartFile file, PDDocument document) {
@@ -158,7 +146,7 @@ public class ExtractImagesController {
             String filename,
             int pageNum,
             Set<byte[]> processedImages,
-            ZipOutputStream zos,
+            ZipArchiveWriter zos,
             boolean allowDuplicates)
             throws IOException {
         MessageDigest md;
@@ -194,12 +182,10 @@ public class ExtractImagesController {
 
                 // Write image to zip file
                 String imageName = filename + "_page_" + pageNum + "_" + count++ + "." + format;
+                ByteArrayOutputStream imageBaos = new ByteArrayOutputStream();
+                ImageIO.write(bufferedImage, format, imageBaos);
                 synchronized (zos) {
-                    zos.putNextEntry(new ZipEntry(imageName));
-                    ByteArrayOutputStream imageBaos = new ByteArrayOutputStream();
-                    ImageIO.write(bufferedImage, format, imageBaos);
-                    zos.write(imageBaos.toByteArray());
-                    zos.closeEntry();
+                    zos.addEntry(imageName, imageBaos.toByteArray());
                 }
             }
         }
@@ -17,7 +17,7 @@ import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.rendering.ImageType;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -31,6 +31,9 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import stirling.software.SPDF.model.api.PDFFile;
+import stirling.software.SPDF.service.PageRenderService;
+import stirling.software.SPDF.service.PageRenderService.DocumentSource;
+import stirling.software.SPDF.service.PageRenderService.RenderSettings;
 import stirling.software.SPDF.utils.PdfUtils;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
@@ -39,6 +42,13 @@ import stirling.software.SPDF.utils.WebResponseUtils;
 @Tag(name = "Misc", description = "Miscellaneous APIs")
 public class FakeScanControllerWIP {
 
+    private final PageRenderService pageRenderService;
+
+    @Autowired
+    public FakeScanControllerWIP(PageRenderService pageRenderService) {
+        this.pageRenderService = pageRenderService;
+    }
+
     // TODO finish
     @PostMapping(consumes = "multipart/form-data", value = "/fake-scan")
     @Hidden
@@ -50,14 +60,16 @@ public class FakeScanControllerWIP {
         MultipartFile inputFile = request.getFileInput();
 
         // Load the PDF document
-        PDDocument document = Loader.loadPDF(inputFile.getBytes());
-        PDFRenderer renderer = new PDFRenderer(document);
+        byte[] pdfBytes = inputFile.getBytes();
+        PDDocument document = Loader.loadPDF(pdfBytes);
         List<BufferedImage> images = new ArrayList<>();
-        // Convert each page to an image
-        for (int i = 0; i < document.getNumberOfPages(); i++) {
-            BufferedImage image = renderer.renderImageWithDPI(i, 150, ImageType.GRAY);
-            images.add(processImage(image));
-        }
+        // Convert each page to an image, processed on the thread that rendered it
+        pageRenderService.renderPages(
+                document,
+                DocumentSource.of(pdfBytes),
+                new RenderSettings(150, ImageType.GRAY, false),
+                (i, image) -> processImage(image),
+                (i, image) -> images.add(image));
         document.close();
 
         // Create a new PDF document with the processed images
@@ -1,6 +1,5 @@
 package stirling.software.SPDF.controller.api.misc;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
 
 import org.apache.pdfbox.Loader;
@@ -11,7 +10,6 @@ import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.apache.pdfbox.rendering.ImageType;
-import org.apache.pdfbox.rendering.PDFRenderer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -19,27 +17,33 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
-import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.api.misc.FlattenRequest;
 import stirling.software.SPDF.service.CustomPDDocumentFactory;
+import stirling.software.SPDF.service.PageRenderService;
+import stirling.software.SPDF.service.PageRenderService.DocumentSource;
+import stirling.software.SPDF.service.PageRenderService.RenderSettings;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
 @RestController
 @RequestMapping("/api/v1/misc")
-@Slf4j
 @Tag(name = "Misc", description = "Miscellaneous APIs")
 public class FlattenController {
 
     private final CustomPDDocumentFactory pdfDocumentFactory;
 
+    private final PageRenderService pageRenderService;
+
     @Autowired
-    public FlattenController(CustomPDDocumentFactory pdfDocumentFactory) {
+    public FlattenController(
+            CustomPDDocumentFactory pdfDocumentFactory, PageRenderService pageRenderService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.pageRenderService = pageRenderService;
     }
 
     @PostMapping(consumes = "multipart/form-data", value = "/flatten")
@@ -47,10 +51,12 @@ public class FlattenController {
             summary = "Flatten PDF form fields or full page",
             description =
                     "Flattening just PDF form fields or converting each page to images to make text unselectable. Input: PDF, Output: PDF. Type: SISO")
-    public ResponseEntity<byte[]> flatten(@ModelAttribute FlattenRequest request) throws Exception {
+    public ResponseEntity<StreamingResponseBody> flatten(@ModelAttribute FlattenRequest request)
+            throws Exception {
         MultipartFile file = request.getFileInput();
 
-        PDDocument document = Loader.loadPDF(file.getBytes());
+        byte[] pdfBytes = file.getBytes();
+        PDDocument document = Loader.loadPDF(pdfBytes);
         Boolean flattenOnlyForms = request.getFlattenOnlyForms();
 
         if (Boolean.TRUE.equals(flattenOnlyForms)) {
@@ -58,34 +64,39 @@ public class FlattenController {
             if (acroForm != null) {
                 acroForm.flatten();
             }
-            return WebResponseUtils.pdfDocToWebResponse(
+            return WebResponseUtils.pdfDocToStreamingWebResponse(
                     document, Filenames.toSimpleFileName(file.getOriginalFilename()));
         } else {
             // flatten whole page aka convert each page to image and readd it (making text
             // unselectable)
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
             PDDocument newDocument =
                     pdfDocumentFactory.createNewDocumentBasedOnOldDocument(document);
-            int numPages = document.getNumberOfPages();
-            for (int i = 0; i < numPages; i++) {
-                try {
-                    BufferedImage image = pdfRenderer.renderImageWithDPI(i, 300, ImageType.RGB);
-                    PDPage page = new PDPage();
-                    page.setMediaBox(document.getPage(i).getMediaBox());
-                    newDocument.addPage(page);
-                    try (PDPageContentStream contentStream =
-                            new PDPageContentStream(newDocument, page)) {
-                        PDImageXObject pdImage = JPEGFactory.createFromImage(newDocument, image);
-                        float pageWidth = page.getMediaBox().getWidth();
-                        float pageHeight = page.getMediaBox().getHeight();
+            try {
+                pageRenderService.renderPages(
+                        document,
+                        DocumentSource.of(pdfBytes),
+                        new RenderSettings(300, ImageType.RGB, false),
+                        (i, image) -> {
+                            PDPage page = new PDPage();
+                            page.setMediaBox(document.getPage(i).getMediaBox());
+                            newDocument.addPage(page);
+                            try (PDPageContentStream contentStream =
+                                    new PDPageContentStream(newDocument, page)) {
+                                PDImageXObject pdImage =
+                                        JPEGFactory.createFromImage(newDocument, image);
+                                float pageWidth = page.getMediaBox().getWidth();
+                                float pageHeight = page.getMediaBox().getHeight();
 
-                        contentStream.drawImage(pdImage, 0, 0, pageWidth, pageHeight);
-                    }
-                } catch (IOException e) {
-                    log.error("exception", e);
-                }
+                                contentStream.drawImage(pdImage, 0, 0, pageWidth, pageHeight);
+                            }
+                        });
+            } catch (IOException | RuntimeException e) {
+                // never handed to the response, which would close them
+                newDocument.close();
+                document.close();
+                throw e;
             }
-            return WebResponseUtils.pdfDocToWebResponse(
+            return WebResponseUtils.pdfDocToStreamingWebResponse(
                     newDocument, Filenames.toSimpleFileName(file.getOriginalFilename()));
         }
     }
@@ -0,0 +1,40 @@
+package stirling.software.SPDF.controller.api.pipeline;
+
+import java.util.List;
+
+/**
+ * File types an operation declares as input or output in its {@code Input:}/{@code Output:} tag.
+ */
+public enum FileKind {
+    PDF("pdf"),
+    IMAGE("png", "jpg", "jpeg", "gif", "webp", "bmp", "tif", "tiff", "svg", "psd", "ai", "eps"),
+    ZIP("zip", "rar", "7z", "tar", "gz", "bz2", "xz", "lz", "lzma", "z"),
+    WORD("doc", "docx", "odt", "rtf"),
+    CSV("csv"),
+    JS("js", "jsx"),
+    HTML("html", "htm", "xhtml"),
+    JSON("json"),
+    TXT("txt", "text", "md", "markdown"),
+    PPT("ppt", "pptx", "odp"),
+    XML("xml", "xsd", "xsl"),
+    BOOK("epub", "mobi", "azw3", "fb2", "txt", "docx");
+
+    private final List<String> extensions;
+
+    FileKind(String... extensions) {
+        this.extensions = List.of(extensions);
+    }
+
+    public List<String> getExtensions() {
+        return extensions;
+    }
+
+    /** Returns the kind for a tag value such as {@code PDF} or {@code Image}, or null. */
+    public static FileKind fromTag(String tag) {
+        try {
+            return valueOf(tag.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
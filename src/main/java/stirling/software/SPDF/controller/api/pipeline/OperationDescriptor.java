@@ -0,0 +1,52 @@
+package stirling.software.SPDF.controller.api.pipeline;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * Everything the pipeline needs to know about one API operation, resolved once at startup.
+ *
+ * @param path the request path, e.g. {@code /api/v1/general/rotate-pdf}
+ * @param inputKind the declared input type, or null if the operation accepts anything
+ * @param outputKind the declared output type, or null if it is not a file type
+ * @param multiInput whether the operation takes all files of a stage in one call
+ * @param multiOutput whether the operation can return several files
+ * @param parameters the form parameters of the request object, by name
+ * @param handlerMethod the controller method serving the operation
+ * @param requestType the form-bound request class if it can be dispatched in-process, else null
+ */
+public record OperationDescriptor(
+        String path,
+        FileKind inputKind,
+        FileKind outputKind,
+        boolean multiInput,
+        boolean multiOutput,
+        Map<String, Parameter> parameters,
+        HandlerMethod handlerMethod,
+        Class<?> requestType) {
+
+    public record Parameter(String name, Class<?> type, boolean required) {}
+
+    public boolean isDispatchable() {
+        return requestType != null;
+    }
+
+    public List<String> getInputExtensions() {
+        return inputKind != null ? inputKind.getExtensions() : null;
+    }
+
+    public List<String> getOutputExtensions() {
+        return outputKind != null ? outputKind.getExtensions() : null;
+    }
+
+    /** Names of required parameters that are missing from {@code provided}. */
+    public List<String> getMissingParameters(Map<String, Object> provided) {
+        return parameters.values().stream()
+                .filter(Parameter::required)
+                .map(Parameter::name)
+                .filter(name -> !"fileInput".equals(name) && !provided.containsKey(name))
+                .toList();
+    }
+}
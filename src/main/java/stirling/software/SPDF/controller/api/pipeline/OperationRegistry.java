@@ -0,0 +1,220 @@
+package stirling.software.SPDF.controller.api.pipeline;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index of the API operations the pipeline can run, built from the MVC handler mappings and their
+ * {@link Operation} metadata instead of fetching the OpenAPI document over HTTP. The {@code
+ * Input:PDF Output:ZIP Type:MISO} tags in the operation descriptions are parsed once here.
+ */
+@Service
+@Slf4j
+public class OperationRegistry {
+
+    private static final Pattern INPUT_PATTERN = Pattern.compile("Input:(\\w+)");
+
+    private static final Pattern OUTPUT_PATTERN = Pattern.compile("Output:(\\w+)");
+
+    private static final Pattern TYPE_PATTERN = Pattern.compile("Type:(\\w+)");
+
+    private final ApplicationContext applicationContext;
+
+    private volatile Map<String, OperationDescriptor> operations;
+
+    public OperationRegistry(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        getOperations();
+    }
+
+    /** Returns the operation registered for the path, or null if there is none. */
+    public OperationDescriptor get(String operation) {
+        return getOperations().get(normalizeOperation(operation));
+    }
+
+    public boolean isValidOperation(String operation, Map<String, Object> parameters) {
+        OperationDescriptor descriptor = get(operation);
+        if (descriptor == null) {
+            return false;
+        }
+        List<String> missing = descriptor.getMissingParameters(parameters);
+        if (!missing.isEmpty()) {
+            log.warn("Operation {} is missing required parameters {}", operation, missing);
+        }
+        return true;
+    }
+
+    public boolean isMultiInput(String operation) {
+        OperationDescriptor descriptor = get(operation);
+        return descriptor != null && descriptor.multiInput();
+    }
+
+    /**
+     * @return the file extensions the operation accepts (or produces), or null if it is unknown or
+     *     does not declare a file type
+     */
+    public List<String> getExtensionTypes(boolean output, String operation) {
+        OperationDescriptor descriptor = get(operation);
+        if (descriptor == null) {
+            return null;
+        }
+        return output ? descriptor.getOutputExtensions() : descriptor.getInputExtensions();
+    }
+
+    private Map<String, OperationDescriptor> getOperations() {
+        if (operations == null) {
+            synchronized (this) {
+                if (operations == null) {
+                    operations = buildOperations();
+                }
+            }
+        }
+        return operations;
+    }
+
+    private Map<String, OperationDescriptor> buildOperations() {
+        RequestMappingHandlerMapping mapping =
+                applicationContext.getBean(
+                        "requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        Map<String, OperationDescriptor> index = new HashMap<>();
+        for (Entry<RequestMappingInfo, HandlerMethod> entry :
+                mapping.getHandlerMethods().entrySet()) {
+            Set<RequestMethod> methods = entry.getKey().getMethodsCondition().getMethods();
+            if (!methods.isEmpty() && !methods.contains(RequestMethod.POST)) {
+                continue;
+            }
+            for (String pattern : entry.getKey().getPatternValues()) {
+                if (pattern.startsWith("/api/")) {
+                    index.put(pattern, describe(pattern, entry.getValue()));
+                }
+            }
+        }
+        log.info("Registered {} pipeline operations", index.size());
+        return Collections.unmodifiableMap(index);
+    }
+
+    private OperationDescriptor describe(String path, HandlerMethod handlerMethod) {
+        Operation operation = handlerMethod.getMethodAnnotation(Operation.class);
+        String description = operation != null ? operation.description() : "";
+        String type = firstTag(TYPE_PATTERN, description);
+        Class<?> requestType = getFormRequestType(handlerMethod);
+        return new OperationDescriptor(
+                path,
+                firstFileKind(INPUT_PATTERN, description),
+                firstFileKind(OUTPUT_PATTERN, description),
+                type != null && type.startsWith("MI"),
+                type != null && type.endsWith("MO"),
+                describeParameters(requestType),
+                handlerMethod.createWithResolvedBean(),
+                isDispatchable(handlerMethod, requestType) ? requestType : null);
+    }
+
+    private static String firstTag(Pattern pattern, String description) {
+        Matcher matcher = pattern.matcher(description);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static FileKind firstFileKind(Pattern pattern, String description) {
+        Matcher matcher = pattern.matcher(description);
+        while (matcher.find()) {
+            FileKind kind = FileKind.fromTag(matcher.group(1));
+            if (kind != null) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    /** Returns the class of the single form-bound request object, or null. */
+    private static Class<?> getFormRequestType(HandlerMethod handlerMethod) {
+        MethodParameter[] parameters = handlerMethod.getMethodParameters();
+        if (parameters.length != 1) {
+            return null;
+        }
+        MethodParameter parameter = parameters[0];
+        if (parameter.hasParameterAnnotations()
+                && !parameter.hasParameterAnnotation(ModelAttribute.class)) {
+            return null;
+        }
+        if (BeanUtils.isSimpleProperty(parameter.getParameterType())) {
+            return null;
+        }
+        return parameter.getParameterType();
+    }
+
+    /** Only handlers returning an entity and taking a request object with a file input qualify. */
+    private static boolean isDispatchable(HandlerMethod handlerMethod, Class<?> requestType) {
+        if (requestType == null
+                || !ResponseEntity.class.isAssignableFrom(
+                        handlerMethod.getMethod().getReturnType())) {
+            return false;
+        }
+        PropertyDescriptor fileInput = BeanUtils.getPropertyDescriptor(requestType, "fileInput");
+        return fileInput != null && fileInput.getWriteMethod() != null;
+    }
+
+    @SuppressWarnings("deprecation") // request classes still use @Schema(required = true)
+    private static Map<String, OperationDescriptor.Parameter> describeParameters(
+            Class<?> requestType) {
+        Map<String, OperationDescriptor.Parameter> parameters = new LinkedHashMap<>();
+        if (requestType == null) {
+            return parameters;
+        }
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(requestType)) {
+            if (property.getWriteMethod() == null) {
+                continue;
+            }
+            Field field = ReflectionUtils.findField(requestType, property.getName());
+            Schema schema = field != null ? field.getAnnotation(Schema.class) : null;
+            boolean required =
+                    schema != null
+                            && (schema.required()
+                                    || schema.requiredMode() == Schema.RequiredMode.REQUIRED);
+            parameters.put(
+                    property.getName(),
+                    new OperationDescriptor.Parameter(
+                            property.getName(), property.getPropertyType(), required));
+        }
+        return parameters;
+    }
+
+    private static String normalizeOperation(String operation) {
+        String normalized = operation.trim();
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        return "/" + normalized;
+    }
+}
@@ -5,8 +5,6 @@ import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
@@ -27,7 +25,9 @@ import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.ApplicationProperties;
 import stirling.software.SPDF.model.PipelineConfig;
 import stirling.software.SPDF.model.api.HandleDataRequest;
+import stirling.software.SPDF.service.ComputeScheduler;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.ZipArchiveWriter;
 
 @RestController
 @RequestMapping("/api/v1/pipeline")
@@ -45,13 +45,17 @@ public class PipelineController {
 
     private final ObjectMapper objectMapper;
 
+    private final ComputeScheduler computeScheduler;
+
     public PipelineController(
             PipelineProcessor processor,
             ApplicationProperties applicationProperties,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            ComputeScheduler computeScheduler) {
         this.processor = processor;
         this.applicationProperties = applicationProperties;
         this.objectMapper = objectMapper;
+        this.computeScheduler = computeScheduler;
     }
 
     @PostMapping("/handleData")
@@ -85,7 +89,7 @@ public class PipelineController {
             }
             // Create a ByteArrayOutputStream to hold the zip
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ZipOutputStream zipOut = new ZipOutputStream(baos);
+            ZipArchiveWriter zipOut = new ZipArchiveWriter(baos, computeScheduler);
             // A map to keep track of filenames and their counts
             Map<String, Integer> filenameCount = new HashMap<>();
             // Loop through each file and add it to the zip
@@ -102,16 +106,10 @@ public class PipelineController {
                 } else {
                     filenameCount.put(originalFilename, 1);
                 }
-                ZipEntry zipEntry = new ZipEntry(filename);
-                zipOut.putNextEntry(zipEntry);
-                // Read the file into a byte array
-                InputStream is = file.getInputStream();
-                byte[] bytes = new byte[(int) file.contentLength()];
-                is.read(bytes);
-                // Write the bytes of the file to the zip
-                zipOut.write(bytes, 0, bytes.length);
-                zipOut.closeEntry();
-                is.close();
+                // Read the file into a byte array and add it to the zip
+                try (InputStream is = file.getInputStream()) {
+                    zipOut.addEntry(filename, is.readAllBytes());
+                }
             }
             zipOut.close();
             log.info("Returning zipped file response...");
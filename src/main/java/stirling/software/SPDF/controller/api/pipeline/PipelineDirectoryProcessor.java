@@ -5,26 +5,40 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.model.ApplicationProperties;
 import stirling.software.SPDF.model.PipelineConfig;
 import stirling.software.SPDF.model.PipelineOperation;
 import stirling.software.SPDF.utils.FileMonitor;
@@ -33,9 +47,12 @@ import stirling.software.SPDF.utils.FileMonitor;
 @Slf4j
 public class PipelineDirectoryProcessor {
 
+    /** Directory inside a watched folder that receives the inputs of failed runs. */
+    static final String ERROR_DIRECTORY = "error";
+
     private final ObjectMapper objectMapper;
 
-    private final ApiDocService apiDocService;
+    private final OperationRegistry operationRegistry;
 
     private final PipelineProcessor processor;
 
@@ -45,23 +62,51 @@ public class PipelineDirectoryProcessor {
 
     private final String finishedFoldersDir;
 
+    private final ApplicationProperties applicationProperties;
+
+    private final Path watchedRoot;
+
+    private final PipelineJournal journal;
+
+    private final ExecutorService folderWorkers;
+
+    private final Map<Path, FolderState> folderStates = new ConcurrentHashMap<>();
+
+    private final Map<Path, CachedConfig> configCache = new ConcurrentHashMap<>();
+
     public PipelineDirectoryProcessor(
             ObjectMapper objectMapper,
-            ApiDocService apiDocService,
+            OperationRegistry operationRegistry,
             @Qualifier("watchedFoldersDir") String watchedFoldersDir,
             @Qualifier("finishedFoldersDir") String finishedFoldersDir,
             PipelineProcessor processor,
-            FileMonitor fileMonitor) {
+            FileMonitor fileMonitor,
+            ApplicationProperties applicationProperties) {
         this.objectMapper = objectMapper;
-        this.apiDocService = apiDocService;
+        this.operationRegistry = operationRegistry;
         this.watchedFoldersDir = watchedFoldersDir;
         this.finishedFoldersDir = finishedFoldersDir;
         this.processor = processor;
         this.fileMonitor = fileMonitor;
+        this.applicationProperties = applicationProperties;
+        this.watchedRoot = Paths.get(watchedFoldersDir).toAbsolutePath().normalize();
+        this.journal = new PipelineJournal(watchedRoot.resolveSibling("journal"), objectMapper);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.folderWorkers =
+                Executors.newFixedThreadPool(
+                        applicationProperties.getAutoPipeline().getFolderWorkers(),
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable,
+                                            "pipeline-folder-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
     }
 
-    @Scheduled(fixedRate = 60000)
-    public void scanFolders() {
+    @PostConstruct
+    public void init() {
         Path watchedFolderPath = Paths.get(watchedFoldersDir);
         if (!Files.exists(watchedFolderPath)) {
             try {
@@ -69,37 +114,82 @@ public class PipelineDirectoryProcessor {
                 log.info("Created directory: {}", watchedFolderPath);
             } catch (IOException e) {
                 log.error("Error creating directory: {}", watchedFolderPath, e);
-                return;
             }
         }
-        try (Stream<Path> paths = Files.walk(watchedFolderPath)) {
-            paths.filter(Files::isDirectory)
-                    .forEach(
-                            t -> {
-                                try {
-                                    if (!t.equals(watchedFolderPath) && !t.endsWith("processing")) {
-                                        handleDirectory(t);
-                                    }
-                                } catch (Exception e) {
-                                    log.error("Error handling directory: {}", t, e);
-                                }
-                            });
-        } catch (Exception e) {
-            log.error("Error walking through directory: {}", watchedFolderPath, e);
+        recoverJournal();
+        recoverUnjournaledFiles(watchedFolderPath);
+        fileMonitor.addReadyListener(this::onFileReady);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        folderWorkers.shutdownNow();
+    }
+
+    private void onFileReady(Path file) {
+        Path dir = file.getParent();
+        if (dir == null || watchedRoot.equals(dir.toAbsolutePath().normalize())) {
+            return;
+        }
+        if (file.toString().endsWith(".json")) {
+            configCache.remove(dir);
+        }
+        FolderState state =
+                folderStates.computeIfAbsent(
+                        dir,
+                        d ->
+                                new FolderState(
+                                        applicationProperties
+                                                .getAutoPipeline()
+                                                .getMaxConcurrentRunsPerFolder()));
+        state.pending.set(true);
+        submitIfIdle(dir, state);
+    }
+
+    private void submitIfIdle(Path dir, FolderState state) {
+        if (!state.runSlots.tryAcquire()) {
+            // a running pass will see the pending flag and go again
+            return;
+        }
+        try {
+            folderWorkers.execute(() -> runDirectory(dir, state));
+        } catch (RejectedExecutionException e) {
+            state.runSlots.release();
+        }
+    }
+
+    private void runDirectory(Path dir, FolderState state) {
+        try {
+            while (state.pending.getAndSet(false)) {
+                if (!Files.isDirectory(dir)) {
+                    folderStates.remove(dir);
+                    configCache.remove(dir);
+                    return;
+                }
+                try {
+                    handleDirectory(dir);
+                } catch (Exception e) {
+                    log.error("Error handling directory: {}", dir, e);
+                }
+            }
+        } finally {
+            state.runSlots.release();
+            if (state.pending.get()) {
+                submitIfIdle(dir, state);
+            }
         }
     }
 
     public void handleDirectory(Path dir) throws IOException {
         log.info("Handling directory: {}", dir);
         Path processingDir = createProcessingDirectory(dir);
-        Optional<Path> jsonFileOptional = findJsonFile(dir);
-        if (!jsonFileOptional.isPresent()) {
+        CachedConfig cachedConfig = getConfig(dir);
+        if (cachedConfig == null) {
             log.warn("No .JSON settings file found. No processing will happen for dir {}.", dir);
             return;
         }
-        Path jsonFile = jsonFileOptional.get();
-        PipelineConfig config = readAndParseJson(jsonFile);
-        processPipelineOperations(dir, processingDir, jsonFile, config);
+        processPipelineOperations(
+                dir, processingDir, cachedConfig.jsonFile(), cachedConfig.config());
     }
 
     private Path createProcessingDirectory(Path dir) throws IOException {
@@ -117,6 +207,30 @@ public class PipelineDirectoryProcessor {
         }
     }
 
+    /** Returns the folder's pipeline config, re-reading it only when the JSON file changed. */
+    private CachedConfig getConfig(Path dir) throws IOException {
+        CachedConfig cached = configCache.get(dir);
+        if (cached != null) {
+            try {
+                if (Files.getLastModifiedTime(cached.jsonFile()).equals(cached.lastModified())) {
+                    return cached;
+                }
+            } catch (NoSuchFileException e) {
+                log.debug("Settings file {} was removed", cached.jsonFile());
+            }
+        }
+        Optional<Path> jsonFileOptional = findJsonFile(dir);
+        if (!jsonFileOptional.isPresent()) {
+            configCache.remove(dir);
+            return null;
+        }
+        Path jsonFile = jsonFileOptional.get();
+        FileTime lastModified = Files.getLastModifiedTime(jsonFile);
+        cached = new CachedConfig(jsonFile, lastModified, readAndParseJson(jsonFile));
+        configCache.put(dir, cached);
+        return cached;
+    }
+
     private PipelineConfig readAndParseJson(Path jsonFile) throws IOException {
         String jsonString = new String(Files.readAllBytes(jsonFile), StandardCharsets.UTF_8);
         log.debug("Reading JSON file: {}", jsonFile);
@@ -132,13 +246,17 @@ public class PipelineDirectoryProcessor {
                 log.debug("No files detected for {} ", dir);
                 return;
             }
-            List<File> filesToProcess = prepareFilesForProcessing(files, processingDir);
-            runPipelineAgainstFiles(filesToProcess, config, dir, processingDir);
+            Map<Path, Path> claimedFiles = prepareFilesForProcessing(files, processingDir);
+            if (claimedFiles.isEmpty()) {
+                return;
+            }
+            runPipelineAgainstFiles(claimedFiles, config, dir);
         }
     }
 
     private void validateOperation(PipelineOperation operation) throws IOException {
-        if (!apiDocService.isValidOperation(operation.getOperation(), operation.getParameters())) {
+        if (!operationRegistry.isValidOperation(
+                operation.getOperation(), operation.getParameters())) {
             throw new IOException("Invalid operation: " + operation.getOperation());
         }
     }
@@ -161,15 +279,37 @@ public class PipelineDirectoryProcessor {
         }
     }
 
-    private List<File> prepareFilesForProcessing(File[] files, Path processingDir)
+    /**
+     * Moves the files into the processing directory.
+     *
+     * @return the claimed files, mapping each path in the processing directory to the path the file
+     *     was moved from
+     */
+    private Map<Path, Path> prepareFilesForProcessing(File[] files, Path processingDir)
             throws IOException {
-        List<File> filesToProcess = new ArrayList<>();
+        Map<Path, Path> claimedFiles = new LinkedHashMap<>();
         for (File file : files) {
-            Path targetPath = resolveUniqueFilePath(processingDir, file.getName());
-            Files.move(file.toPath(), targetPath);
-            filesToProcess.add(targetPath.toFile());
+            Path targetPath = claimFile(file.toPath(), processingDir);
+            if (targetPath != null) {
+                claimedFiles.put(targetPath, file.toPath());
+            }
+        }
+        return claimedFiles;
+    }
+
+    private Path claimFile(Path source, Path processingDir) throws IOException {
+        while (true) {
+            Path targetPath = resolveUniqueFilePath(processingDir, source.getFileName().toString());
+            try {
+                Files.move(source, targetPath);
+                return targetPath;
+            } catch (FileAlreadyExistsException e) {
+                // another run of this folder took the name first, pick the next free one
+            } catch (NoSuchFileException e) {
+                log.debug("File {} was already claimed by another run", source);
+                return null;
+            }
         }
-        return filesToProcess;
     }
 
     private Path resolveUniqueFilePath(Path directory, String originalFileName) {
@@ -195,39 +335,67 @@ public class PipelineDirectoryProcessor {
     }
 
     private void runPipelineAgainstFiles(
-            List<File> filesToProcess, PipelineConfig config, Path dir, Path processingDir)
-            throws IOException {
+            Map<Path, Path> claimedFiles, PipelineConfig config, Path dir) throws IOException {
+        PipelineJournal.Entry entry;
         try {
-            List<Resource> inputFiles =
-                    processor.generateInputFiles(filesToProcess.toArray(new File[0]));
+            entry = journal.claim(toJournalPaths(claimedFiles));
+        } catch (IOException e) {
+            log.error("Could not journal claimed files, moving them back", e);
+            moveFilesBack(claimedFiles);
+            return;
+        }
+        Map<String, String> outputs;
+        try {
+            File[] filesToProcess =
+                    claimedFiles.keySet().stream().map(Path::toFile).toArray(File[]::new);
+            List<Resource> inputFiles = processor.generateInputFiles(filesToProcess);
             if (inputFiles == null || inputFiles.size() == 0) {
+                moveToErrorDirectory(entry, dir);
                 return;
             }
             List<Resource> outputFiles = processor.runPipelineAgainstFiles(inputFiles, config);
-            if (outputFiles == null) return;
-            moveAndRenameFiles(outputFiles, config, dir);
-            deleteOriginalFiles(filesToProcess, processingDir);
+            if (outputFiles == null) {
+                moveToErrorDirectory(entry, dir);
+                return;
+            }
+            outputs = stageOutputs(outputFiles, config, dir, entry);
         } catch (Exception e) {
             log.error("error during processing", e);
-            moveFilesBack(filesToProcess, processingDir);
+            moveToErrorDirectory(entry, dir);
+            return;
+        }
+        try {
+            entry = journal.commit(entry, outputs);
+        } catch (IOException e) {
+            log.error("Error committing pipeline run {}, will roll back on restart", entry.id(), e);
+            return;
         }
+        complete(entry);
     }
 
-    private void moveAndRenameFiles(List<Resource> resources, PipelineConfig config, Path dir)
+    /**
+     * Writes the outputs to the run's staging directory. They are published only after the run is
+     * committed, so a crash in between neither loses them nor publishes them twice.
+     *
+     * @return maps each staged output to the path it is published to
+     */
+    private Map<String, String> stageOutputs(
+            List<Resource> resources, PipelineConfig config, Path dir, PipelineJournal.Entry entry)
             throws IOException {
+        Path stagingDir = Files.createDirectories(journal.stagingDirectory(entry));
+        Path outputPath = determineOutputPath(config, dir).toAbsolutePath().normalize();
+        Map<String, String> outputs = new LinkedHashMap<>();
         for (Resource resource : resources) {
             String outputFileName = createOutputFileName(resource, config);
-            Path outputPath = determineOutputPath(config, dir);
-            if (!Files.exists(outputPath)) {
-                Files.createDirectories(outputPath);
-                log.info("Created directory: {}", outputPath);
-            }
-            Path outputFile = outputPath.resolve(outputFileName);
-            try (OutputStream os = new FileOutputStream(outputFile.toFile())) {
+            Path stagedFile = stagingDir.resolve(outputFileName);
+            try (OutputStream os = new FileOutputStream(stagedFile.toFile())) {
                 os.write(((ByteArrayResource) resource).getByteArray());
             }
-            log.info("File moved and renamed to {}", outputFile);
+            outputs.put(
+                    stagedFile.toAbsolutePath().normalize().toString(),
+                    outputPath.resolve(outputFileName).toString());
         }
+        return outputs;
     }
 
     private String createOutputFileName(Resource resource, PipelineConfig config) {
@@ -260,25 +428,180 @@ public class PipelineDirectoryProcessor {
         return Paths.get(outputDir).isAbsolute() ? Paths.get(outputDir) : Paths.get(".", outputDir);
     }
 
-    private void deleteOriginalFiles(List<File> filesToProcess, Path processingDir)
-            throws IOException {
-        for (File file : filesToProcess) {
-            Files.deleteIfExists(processingDir.resolve(file.getName()));
-            log.info("Deleted original file: {}", file.getName());
+    /**
+     * Moves the staged outputs of a committed run to the output folder and deletes its inputs from
+     * the processing directory. Outputs already moved before a crash are no longer staged and are
+     * skipped.
+     */
+    private void complete(PipelineJournal.Entry entry) {
+        try {
+            for (Map.Entry<String, String> output : entry.outputs().entrySet()) {
+                Path stagedFile = Paths.get(output.getKey());
+                if (!Files.exists(stagedFile)) {
+                    continue;
+                }
+                Path outputFile = Paths.get(output.getValue());
+                if (!Files.exists(outputFile.getParent())) {
+                    Files.createDirectories(outputFile.getParent());
+                    log.info("Created directory: {}", outputFile.getParent());
+                }
+                Files.move(stagedFile, outputFile, StandardCopyOption.REPLACE_EXISTING);
+                log.info("File moved and renamed to {}", outputFile);
+            }
+            for (String processingFile : entry.files().keySet()) {
+                Files.deleteIfExists(Paths.get(processingFile));
+                log.info("Deleted original file: {}", processingFile);
+            }
+            journal.remove(entry);
+        } catch (IOException e) {
+            log.error("Error finishing pipeline run, will retry on restart", e);
+        }
+    }
+
+    /**
+     * Moves the inputs of a run that was interrupted by a shutdown back to where they were claimed
+     * from, so they are processed again, and drops the outputs it had staged.
+     */
+    private void rollBack(PipelineJournal.Entry entry) {
+        if (moveFilesBack(toClaimedFiles(entry))) {
+            removeEntry(entry);
+        }
+    }
+
+    /**
+     * Moves the inputs of a failed run into the folder's {@code error} directory. Returning them to
+     * the folder would only run the pipeline against them again, failing the same way.
+     */
+    private void moveToErrorDirectory(PipelineJournal.Entry entry, Path dir) {
+        Path errorDir = dir.resolve(ERROR_DIRECTORY);
+        boolean allMoved = true;
+        try {
+            Files.createDirectories(errorDir);
+        } catch (IOException e) {
+            log.error("Error creating error directory: {}", errorDir, e);
+            return;
+        }
+        for (Path processingFile : toClaimedFiles(entry).keySet()) {
+            if (!Files.exists(processingFile)) {
+                continue;
+            }
+            try {
+                Path target =
+                        resolveUniqueFilePath(errorDir, processingFile.getFileName().toString());
+                Files.move(processingFile, target);
+                log.warn("Moved file of failed pipeline run to {}", target);
+            } catch (IOException e) {
+                log.error("Error moving file to error directory: {}", processingFile, e);
+                allMoved = false;
+            }
         }
+        // files that could not be moved stay journaled and are retried on restart
+        if (allMoved) {
+            removeEntry(entry);
+        }
+    }
+
+    private void removeEntry(PipelineJournal.Entry entry) {
+        try {
+            journal.remove(entry);
+        } catch (IOException e) {
+            log.error("Error removing pipeline journal entry {}", entry.id(), e);
+        }
+    }
+
+    private static Map<Path, Path> toClaimedFiles(PipelineJournal.Entry entry) {
+        Map<Path, Path> claimedFiles = new LinkedHashMap<>();
+        entry.files().forEach((key, value) -> claimedFiles.put(Paths.get(key), Paths.get(value)));
+        return claimedFiles;
     }
 
-    private void moveFilesBack(List<File> filesToProcess, Path processingDir) {
-        for (File file : filesToProcess) {
+    private boolean moveFilesBack(Map<Path, Path> claimedFiles) {
+        boolean allMoved = true;
+        for (Map.Entry<Path, Path> claimed : claimedFiles.entrySet()) {
+            Path processingFile = claimed.getKey();
+            Path originalFile = claimed.getValue();
+            if (!Files.exists(processingFile)) {
+                continue;
+            }
             try {
-                Files.move(processingDir.resolve(file.getName()), file.toPath());
-                log.info(
-                        "Moved file back to original location: {} , {}",
-                        file.toPath(),
-                        file.getName());
+                Path target = originalFile;
+                if (Files.exists(target)) {
+                    target =
+                            resolveUniqueFilePath(
+                                    originalFile.getParent(),
+                                    originalFile.getFileName().toString());
+                }
+                Files.move(processingFile, target);
+                log.info("Moved file back to original location: {}", target);
             } catch (IOException e) {
-                log.error("Error moving file back to original location: {}", file.getName(), e);
+                log.error("Error moving file back to original location: {}", originalFile, e);
+                allMoved = false;
+            }
+        }
+        return allMoved;
+    }
+
+    private void recoverJournal() {
+        try {
+            for (PipelineJournal.Entry entry : journal.readAll()) {
+                if (entry.state() == PipelineJournal.State.COMMITTED) {
+                    log.info(
+                            "Finishing pipeline run {} that completed before shutdown", entry.id());
+                    complete(entry);
+                } else {
+                    log.info("Rolling back pipeline run {} interrupted by shutdown", entry.id());
+                    rollBack(entry);
+                }
             }
+        } catch (IOException e) {
+            log.error("Error reading pipeline journal", e);
+        }
+    }
+
+    /**
+     * Files left in a processing directory without a journal entry were claimed right before a
+     * crash (or by an older version), so they are returned to their folder to be picked up again.
+     */
+    private void recoverUnjournaledFiles(Path watchedFolderPath) {
+        try (Stream<Path> paths = Files.walk(watchedFolderPath)) {
+            List<Path> leftovers =
+                    paths.filter(
+                                    path ->
+                                            Files.isRegularFile(path)
+                                                    && path.getParent()
+                                                            .getFileName()
+                                                            .toString()
+                                                            .equals("processing"))
+                            .toList();
+            for (Path leftover : leftovers) {
+                Path folder = leftover.getParent().getParent();
+                Path target = resolveUniqueFilePath(folder, leftover.getFileName().toString());
+                Files.move(leftover, target);
+                log.info("Moved unfinished file back to {}", target);
+            }
+        } catch (IOException e) {
+            log.error("Error recovering files from processing directories", e);
+        }
+    }
+
+    private static Map<String, String> toJournalPaths(Map<Path, Path> claimedFiles) {
+        Map<String, String> journalPaths = new LinkedHashMap<>();
+        claimedFiles.forEach(
+                (processingFile, originalFile) ->
+                        journalPaths.put(
+                                processingFile.toAbsolutePath().normalize().toString(),
+                                originalFile.toAbsolutePath().normalize().toString()));
+        return journalPaths;
+    }
+
+    private record CachedConfig(Path jsonFile, FileTime lastModified, PipelineConfig config) {}
+
+    private static class FolderState {
+        private final Semaphore runSlots;
+        private final AtomicBoolean pending = new AtomicBoolean();
+
+        FolderState(int maxConcurrentRuns) {
+            this.runSlots = new Semaphore(maxConcurrentRuns);
         }
     }
 }
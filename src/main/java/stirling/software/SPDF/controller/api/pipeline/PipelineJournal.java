@@ -0,0 +1,128 @@
+package stirling.software.SPDF.controller.api.pipeline;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * On-disk record of the files a watched-folder run has claimed. Every run writes one entry when it
+ * moves its inputs into the {@code processing} directory, writes its outputs to a staging directory
+ * of the entry and marks the entry committed, listing where each output goes, before moving them to
+ * the output folder. After a crash the inputs of unfinished runs can be moved back and their staged
+ * outputs dropped, while finished runs get their remaining outputs moved and their inputs deleted.
+ */
+@Slf4j
+class PipelineJournal {
+
+    enum State {
+        CLAIMED,
+        COMMITTED
+    }
+
+    /**
+     * @param files maps the path of each claimed file in the processing directory to the path it
+     *     was claimed from
+     * @param outputs maps the path of each staged output to the path it is published to, once the
+     *     entry is committed
+     */
+    record Entry(String id, State state, Map<String, String> files, Map<String, String> outputs) {
+
+        Entry {
+            // entries written before outputs were journaled have none
+            outputs = outputs != null ? outputs : Map.of();
+        }
+    }
+
+    private static final String STAGING_DIRECTORY = "staging";
+
+    private final Path journalDir;
+
+    private final ObjectMapper objectMapper;
+
+    PipelineJournal(Path journalDir, ObjectMapper objectMapper) {
+        this.journalDir = journalDir;
+        this.objectMapper = objectMapper;
+    }
+
+    Entry claim(Map<String, String> files) throws IOException {
+        Entry entry = new Entry(UUID.randomUUID().toString(), State.CLAIMED, files, Map.of());
+        write(entry);
+        return entry;
+    }
+
+    /** Directory the run of {@code entry} writes its outputs to until it is committed. */
+    Path stagingDirectory(Entry entry) {
+        return journalDir.resolve(STAGING_DIRECTORY).resolve(entry.id());
+    }
+
+    Entry commit(Entry entry, Map<String, String> outputs) throws IOException {
+        Entry committed = new Entry(entry.id(), State.COMMITTED, entry.files(), outputs);
+        write(committed);
+        return committed;
+    }
+
+    /** Removes the entry together with whatever is left in its staging directory. */
+    void remove(Entry entry) throws IOException {
+        FileUtils.deleteDirectory(stagingDirectory(entry).toFile());
+        Files.deleteIfExists(entryPath(entry.id()));
+    }
+
+    List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.isDirectory(journalDir)) {
+            return entries;
+        }
+        try (Stream<Path> paths = Files.list(journalDir)) {
+            for (Path path : paths.toList()) {
+                if (Files.isDirectory(path)) {
+                    continue;
+                }
+                if (path.toString().endsWith(".tmp")) {
+                    // an entry that was never completely written
+                    Files.deleteIfExists(path);
+                    continue;
+                }
+                try {
+                    entries.add(objectMapper.readValue(path.toFile(), Entry.class));
+                } catch (IOException e) {
+                    log.error("Unreadable pipeline journal entry, removing it: {}", path, e);
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private void write(Entry entry) throws IOException {
+        Files.createDirectories(journalDir);
+        Path target = entryPath(entry.id());
+        Path temp = journalDir.resolve(entry.id() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), entry);
+        try {
+            Files.move(
+                    temp,
+                    target,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path entryPath(String id) {
+        return journalDir.resolve(id + ".json");
+    }
+}
@@ -0,0 +1,354 @@
+package stirling.software.SPDF.controller.api.pipeline;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.function.ToLongFunction;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Conventions;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.validation.BindException;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpSession;
+import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.config.EndpointConfiguration;
+import stirling.software.SPDF.service.ComputeScheduler;
+import stirling.software.SPDF.service.RequestMetricsService;
+
+/**
+ * Runs pipeline operations by calling the controller handler directly instead of posting a
+ * multipart request back to the server. Handlers are looked up in the {@link OperationRegistry} and
+ * their request object is bound from the pipeline parameters the same way Spring would bind the
+ * form fields.
+ *
+ * <p>Skipping HTTP also skips the filters and interceptors around a tool request, so the parts that
+ * limit or measure work are applied here for each operation: the handler runs holding a {@link
+ * ComputeScheduler} slot, and the operation is recorded in the {@link RequestMetricsService} under
+ * its own route. Operations of a pipeline started by an API call are admitted like tool requests
+ * and may be rejected with 503; operations run in the background (jobs, watched folders) wait for a
+ * slot instead. Rate limits count HTTP requests and apply once, to the request that started the
+ * pipeline.
+ */
+@Service
+@Slf4j
+public class PipelineOperationDispatcher {
+
+    private final ApplicationContext applicationContext;
+    private final EndpointConfiguration endpointConfiguration;
+    private final OperationRegistry operationRegistry;
+    private final UserServiceInterface userService;
+    private final ComputeScheduler computeScheduler;
+    private final RequestMetricsService requestMetricsService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile ConversionService conversionService;
+
+    public PipelineOperationDispatcher(
+            ApplicationContext applicationContext,
+            EndpointConfiguration endpointConfiguration,
+            OperationRegistry operationRegistry,
+            ComputeScheduler computeScheduler,
+            RequestMetricsService requestMetricsService,
+            @Autowired(required = false) UserServiceInterface userService) {
+        this.applicationContext = applicationContext;
+        this.endpointConfiguration = endpointConfiguration;
+        this.operationRegistry = operationRegistry;
+        this.computeScheduler = computeScheduler;
+        this.requestMetricsService = requestMetricsService;
+        this.userService = userService;
+    }
+
+    /**
+     * Invokes the operation in-process.
+     *
+     * @return the handler response with its body serialized to bytes, or {@code null} if the
+     *     operation cannot be run in-process and the caller should fall back to an HTTP request
+     */
+    public ResponseEntity<byte[]> dispatch(
+            String operation,
+            List<Resource> files,
+            boolean multiInput,
+            Map<String, Object> parameters)
+            throws Exception {
+        return dispatch(
+                operation, files, multiInput, parameters, this::toBytes, body -> body.length);
+    }
+
+    /**
+     * Invokes the operation in-process and writes the response body to {@code target} instead of
+     * holding it in memory. The file is not created if the handler returns no body.
+     *
+     * @return the handler response with the number of bytes written as its body, or {@code null} if
+     *     the operation cannot be run in-process
+     */
+    public ResponseEntity<Long> dispatchToFile(
+            String operation,
+            List<Resource> files,
+            boolean multiInput,
+            Map<String, Object> parameters,
+            Path target)
+            throws Exception {
+        return dispatch(
+                operation,
+                files,
+                multiInput,
+                parameters,
+                body -> writeToFile(body, target),
+                size -> size);
+    }
+
+    private <T> ResponseEntity<T> dispatch(
+            String operation,
+            List<Resource> files,
+            boolean multiInput,
+            Map<String, Object> parameters,
+            BodyConverter<T> converter,
+            ToLongFunction<T> sizeOf)
+            throws Exception {
+        OperationDescriptor descriptor = operationRegistry.get(operation);
+        if (descriptor == null || !descriptor.isDispatchable() || !hasRequestContext()) {
+            return null;
+        }
+        HandlerMethod handlerMethod = descriptor.handlerMethod();
+        if (!endpointConfiguration.isEndpointEnabled(descriptor.path().substring(1))) {
+            return convert(
+                    new ResponseEntity<>("This endpoint is disabled", HttpStatus.FORBIDDEN),
+                    converter);
+        }
+
+        Object request = bindRequest(descriptor, files, multiInput, parameters);
+        long start = System.nanoTime();
+        ResponseEntity<T> response = null;
+        int failureStatus = HttpStatus.INTERNAL_SERVER_ERROR.value();
+        try {
+            Callable<ResponseEntity<T>> task =
+                    () -> convert(invoke(handlerMethod, request), converter);
+            response =
+                    RequestContextHolder.getRequestAttributes() != null
+                            ? computeScheduler.execute(task)
+                            : computeScheduler.executeInBackground(task);
+            return response;
+        } catch (ResponseStatusException e) {
+            failureStatus = e.getStatusCode().value();
+            throw e;
+        } finally {
+            recordMetrics(
+                    descriptor.path(),
+                    files,
+                    response != null ? response.getStatusCode().value() : failureStatus,
+                    response != null && response.getBody() != null
+                            ? sizeOf.applyAsLong(response.getBody())
+                            : 0,
+                    start);
+        }
+    }
+
+    private Object invoke(HandlerMethod handlerMethod, Object request) throws Exception {
+        Method method = handlerMethod.getMethod();
+        ReflectionUtils.makeAccessible(method);
+        try {
+            return method.invoke(handlerMethod.getBean(), request);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void recordMetrics(
+            String path, List<Resource> files, int status, long outputBytes, long start) {
+        long inputBytes = 0;
+        for (Resource file : files) {
+            try {
+                inputBytes += file.contentLength();
+            } catch (IOException e) {
+                inputBytes = -1;
+                break;
+            }
+        }
+        requestMetricsService.record(
+                "POST",
+                path,
+                status,
+                getSessionKey(),
+                System.nanoTime() - start,
+                inputBytes,
+                outputBytes,
+                0,
+                null);
+    }
+
+    /** The session of the request that started the pipeline, like the HTTP metrics use. */
+    private static String getSessionKey() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpSession session = servletAttributes.getRequest().getSession(false);
+            if (session != null) {
+                return session.getId();
+            }
+        }
+        return "no-session";
+    }
+
+    private Object bindRequest(
+            OperationDescriptor descriptor,
+            List<Resource> files,
+            boolean multiInput,
+            Map<String, Object> parameters)
+            throws Exception {
+        HandlerMethod handlerMethod = descriptor.handlerMethod();
+        MethodParameter parameter = handlerMethod.getMethodParameters()[0];
+        Object target = BeanUtils.instantiateClass(descriptor.requestType());
+        WebDataBinder binder =
+                new WebDataBinder(target, Conventions.getVariableNameForParameter(parameter));
+        binder.setConversionService(getConversionService());
+        invokeInitBinders(handlerMethod, binder);
+
+        MutablePropertyValues values = new MutablePropertyValues();
+        if (multiInput) {
+            MultipartFile[] multipartFiles = new MultipartFile[files.size()];
+            for (int i = 0; i < files.size(); i++) {
+                multipartFiles[i] = new ResourceMultipartFile("fileInput", files.get(i));
+            }
+            values.addPropertyValue("fileInput", multipartFiles);
+        } else {
+            values.addPropertyValue(
+                    "fileInput", new ResourceMultipartFile("fileInput", files.get(0)));
+        }
+        for (Entry<String, Object> entry : parameters.entrySet()) {
+            // Watched-folder configs use a "fileInput" parameter to select files, which must not
+            // replace the files bound above
+            if (!"fileInput".equals(entry.getKey())) {
+                values.addPropertyValue(entry.getKey(), entry.getValue());
+            }
+        }
+        binder.bind(values);
+        if (binder.getBindingResult().hasErrors()) {
+            throw new BindException(binder.getBindingResult());
+        }
+        return target;
+    }
+
+    private void invokeInitBinders(HandlerMethod handlerMethod, WebDataBinder binder)
+            throws Exception {
+        for (Method method :
+                ReflectionUtils.getUniqueDeclaredMethods(handlerMethod.getBeanType())) {
+            if (method.isAnnotationPresent(InitBinder.class)
+                    && method.getParameterCount() == 1
+                    && method.getParameterTypes()[0].isAssignableFrom(WebDataBinder.class)) {
+                ReflectionUtils.makeAccessible(method);
+                method.invoke(handlerMethod.getBean(), binder);
+            }
+        }
+    }
+
+    /** Serializes the body of a handler result, which may be null for an empty 200. */
+    private static <T> ResponseEntity<T> convert(Object result, BodyConverter<T> converter)
+            throws Exception {
+        if (result == null) {
+            // Filters return no entity when the file does not match, which is an empty 200 over
+            // HTTP
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
+        ResponseEntity<?> entity = (ResponseEntity<?>) result;
+        Object body = entity.getBody();
+        return new ResponseEntity<>(
+                body != null ? converter.convert(body) : null,
+                entity.getHeaders(),
+                entity.getStatusCode());
+    }
+
+    private byte[] toBytes(Object body) throws Exception {
+        if (body instanceof byte[]) {
+            return (byte[]) body;
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeBody(body, baos);
+        return baos.toByteArray();
+    }
+
+    private long writeToFile(Object body, Path target) throws Exception {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            writeBody(body, out);
+        }
+        return Files.size(target);
+    }
+
+    private void writeBody(Object body, OutputStream out) throws Exception {
+        if (body instanceof byte[]) {
+            out.write((byte[]) body);
+        } else if (body instanceof StreamingResponseBody) {
+            ((StreamingResponseBody) body).writeTo(out);
+        } else if (body instanceof Resource) {
+            try (InputStream in = ((Resource) body).getInputStream()) {
+                in.transferTo(out);
+            }
+        } else if (body instanceof String) {
+            out.write(((String) body).getBytes(StandardCharsets.UTF_8));
+        } else {
+            objectMapper.writeValue(out, body);
+        }
+    }
+
+    /** Turns a response body into the form the caller asked for. */
+    private interface BodyConverter<T> {
+        T convert(Object body) throws Exception;
+    }
+
+    /**
+     * Handlers may look up the current user (e.g. for metadata), which is only possible when the
+     * pipeline runs inside an authenticated request. Scheduled runs without a user go over HTTP
+     * with the internal API key instead.
+     */
+    private boolean hasRequestContext() {
+        if (userService == null) {
+            return true;
+        }
+        try {
+            return userService.getCurrentUsername() != null;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private ConversionService getConversionService() {
+        if (conversionService == null) {
+            conversionService =
+                    applicationContext.getBean("mvcConversionService", ConversionService.class);
+        }
+        return conversionService;
+    }
+}
@@ -11,6 +11,11 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -18,19 +23,24 @@ import java.util.zip.ZipInputStream;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.multipart.MultipartFile;
 
 import io.github.pixee.security.Filenames;
 import io.github.pixee.security.ZipSecurity;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.ServletContext;
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.SPdfApplication;
+import stirling.software.SPDF.model.ApplicationProperties;
 import stirling.software.SPDF.model.PipelineConfig;
 import stirling.software.SPDF.model.PipelineOperation;
 import stirling.software.SPDF.model.Role;
@@ -39,19 +49,50 @@ import stirling.software.SPDF.model.Role;
 @Slf4j
 public class PipelineProcessor {
 
-    private final ApiDocService apiDocService;
+    private final OperationRegistry operationRegistry;
 
     private final UserServiceInterface userService;
 
     private final ServletContext servletContext;
 
+    private final PipelineOperationDispatcher operationDispatcher;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final TaskDecorator taskDecorator;
+
+    private final ExecutorService workerPool;
+
     public PipelineProcessor(
-            ApiDocService apiDocService,
+            OperationRegistry operationRegistry,
             @Autowired(required = false) UserServiceInterface userService,
-            ServletContext servletContext) {
-        this.apiDocService = apiDocService;
+            ServletContext servletContext,
+            PipelineOperationDispatcher operationDispatcher,
+            ApplicationProperties applicationProperties,
+            @Autowired(required = false) TaskDecorator taskDecorator) {
+        this.operationRegistry = operationRegistry;
         this.userService = userService;
         this.servletContext = servletContext;
+        this.operationDispatcher = operationDispatcher;
+        this.applicationProperties = applicationProperties;
+        this.taskDecorator = taskDecorator;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workerPool =
+                Executors.newFixedThreadPool(
+                        applicationProperties.getAutoPipeline().getMaxParallelFiles(),
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable,
+                                            "pipeline-worker-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdownNow();
     }
 
     public static String removeTrailingNaming(String filename) {
@@ -91,65 +132,30 @@ public class PipelineProcessor {
         boolean hasErrors = false;
         for (PipelineOperation pipelineOperation : config.getOperations()) {
             String operation = pipelineOperation.getOperation();
-            boolean isMultiInputOperation = apiDocService.isMultiInput(operation);
+            boolean isMultiInputOperation = operationRegistry.isMultiInput(operation);
             log.info(
                     "Running operation: {} isMultiInputOperation {}",
                     operation,
                     isMultiInputOperation);
             Map<String, Object> parameters = pipelineOperation.getParameters();
-            List<String> inputFileTypes = apiDocService.getExtensionTypes(false, operation);
+            List<String> inputFileTypes = operationRegistry.getExtensionTypes(false, operation);
             if (inputFileTypes == null) {
                 inputFileTypes = new ArrayList<String>(Arrays.asList("ALL"));
             }
-            // List outputFileTypes = apiDocService.getExtensionTypes(true, operation);
+            // List outputFileTypes = operationRegistry.getExtensionTypes(true, operation);
             String url = getBaseUrl() + operation;
             List<Resource> newOutputFiles = new ArrayList<>();
             if (!isMultiInputOperation) {
-                for (Resource file : outputFiles) {
-                    boolean hasInputFileType = false;
-                    for (String extension : inputFileTypes) {
-                        if ("ALL".equals(extension) || file.getFilename().endsWith(extension)) {
-                            hasInputFileType = true;
-                            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-                            body.add("fileInput", file);
-                            for (Entry<String, Object> entry : parameters.entrySet()) {
-                                if (entry.getValue() instanceof List) {
-                                    List<?> list = (List<?>) entry.getValue();
-                                    for (Object item : list) {
-                                        body.add(entry.getKey(), item);
-                                    }
-                                } else {
-                                    body.add(entry.getKey(), entry.getValue());
-                                }
-                            }
-                            ResponseEntity<byte[]> response = sendWebRequest(url, body);
-                            // If the operation is filter and the response body is null or empty,
-                            // skip
-                            // this
-                            // file
-                            if (operation.startsWith("filter-")
-                                    && (response.getBody() == null
-                                            || response.getBody().length == 0)) {
-                                log.info("Skipping file due to failing {}", operation);
-                                continue;
-                            }
-                            if (!response.getStatusCode().equals(HttpStatus.OK)) {
-                                logPrintStream.println("Error: " + response.getBody());
-                                hasErrors = true;
-                                continue;
-                            }
-                            processOutputFiles(operation, response, newOutputFiles);
-                        }
-                    }
-                    if (!hasInputFileType) {
-                        logPrintStream.println(
-                                "No files with extension "
-                                        + String.join(", ", inputFileTypes)
-                                        + " found for operation "
-                                        + operation);
-                        hasErrors = true;
-                    }
-                }
+                hasErrors |=
+                        runSingleInputStage(
+                                operation,
+                                url,
+                                outputFiles,
+                                inputFileTypes,
+                                parameters,
+                                getParallelism(config),
+                                newOutputFiles,
+                                logPrintStream);
             } else {
                 // Filter and collect all files that match the inputFileExtension
                 List<Resource> matchingFiles;
@@ -167,23 +173,8 @@ public class PipelineProcessor {
                 }
                 // Check if there are matching files
                 if (!matchingFiles.isEmpty()) {
-                    // Create a new MultiValueMap for the request body
-                    MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-                    // Add all matching files to the body
-                    for (Resource file : matchingFiles) {
-                        body.add("fileInput", file);
-                    }
-                    for (Entry<String, Object> entry : parameters.entrySet()) {
-                        if (entry.getValue() instanceof List) {
-                            List<?> list = (List<?>) entry.getValue();
-                            for (Object item : list) {
-                                body.add(entry.getKey(), item);
-                            }
-                        } else {
-                            body.add(entry.getKey(), entry.getValue());
-                        }
-                    }
-                    ResponseEntity<byte[]> response = sendWebRequest(url, body);
+                    ResponseEntity<byte[]> response =
+                            runOperation(operation, url, matchingFiles, true, parameters);
                     // Handle the response
                     if (response.getStatusCode().equals(HttpStatus.OK)) {
                         processOutputFiles(operation, response, newOutputFiles);
@@ -202,15 +193,189 @@ public class PipelineProcessor {
                     hasErrors = true;
                 }
             }
-            logPrintStream.close();
             outputFiles = newOutputFiles;
         }
+        logPrintStream.close();
         if (hasErrors) {
             log.error("Errors occurred during processing. Log: {}", logStream.toString());
         }
         return outputFiles;
     }
 
+    private int getParallelism(PipelineConfig config) {
+        int parallelism = applicationProperties.getAutoPipeline().getMaxParallelFiles();
+        Integer configured = config.getMaxParallelFiles();
+        if (configured != null && configured > 0) {
+            parallelism = Math.min(parallelism, configured);
+        }
+        return parallelism;
+    }
+
+    /**
+     * Runs a single-input operation against every file, processing up to {@code parallelism} files
+     * at the same time. Outputs and log messages are kept in input order, and a failing file is
+     * reported without aborting the other files.
+     *
+     * @return whether any file failed
+     */
+    private boolean runSingleInputStage(
+            String operation,
+            String url,
+            List<Resource> files,
+            List<String> inputFileTypes,
+            Map<String, Object> parameters,
+            int parallelism,
+            List<Resource> newOutputFiles,
+            PrintStream logPrintStream)
+            throws Exception {
+        FileStageResult[] results = new FileStageResult[files.size()];
+        AtomicInteger nextIndex = new AtomicInteger();
+        Runnable lane =
+                () -> {
+                    int index;
+                    while ((index = nextIndex.getAndIncrement()) < files.size()) {
+                        results[index] =
+                                runFileStage(
+                                        operation,
+                                        url,
+                                        files.get(index),
+                                        inputFileTypes,
+                                        parameters);
+                    }
+                };
+        if (taskDecorator != null) {
+            lane = taskDecorator.decorate(lane);
+        }
+        int lanes = Math.min(parallelism, files.size());
+        if (lanes <= 1) {
+            lane.run();
+        } else {
+            Runnable workerLane = withRequestAttributes(lane);
+            List<Future<?>> futures = new ArrayList<>(lanes);
+            for (int i = 0; i < lanes; i++) {
+                futures.add(workerPool.submit(workerLane));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        }
+        boolean hasErrors = false;
+        for (FileStageResult result : results) {
+            result.messages().forEach(logPrintStream::println);
+            newOutputFiles.addAll(result.outputFiles());
+            hasErrors |= result.hasErrors();
+        }
+        return hasErrors;
+    }
+
+    /**
+     * Carries the caller's request attributes over to a worker thread, so operations of a pipeline
+     * started by an API call are admitted and recorded as part of that request wherever they run.
+     */
+    private static Runnable withRequestAttributes(Runnable lane) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return lane;
+        }
+        return () -> {
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                lane.run();
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        };
+    }
+
+    private FileStageResult runFileStage(
+            String operation,
+            String url,
+            Resource file,
+            List<String> inputFileTypes,
+            Map<String, Object> parameters) {
+        List<Resource> outputFiles = new ArrayList<>();
+        List<String> messages = new ArrayList<>();
+        boolean hasErrors = false;
+        boolean hasInputFileType = false;
+        for (String extension : inputFileTypes) {
+            if ("ALL".equals(extension) || file.getFilename().endsWith(extension)) {
+                hasInputFileType = true;
+                try {
+                    ResponseEntity<byte[]> response =
+                            runOperation(operation, url, List.of(file), false, parameters);
+                    // If the operation is filter and the response body is null or empty, skip
+                    // this file
+                    if (operation.startsWith("filter-")
+                            && (response.getBody() == null || response.getBody().length == 0)) {
+                        log.info("Skipping file due to failing {}", operation);
+                        continue;
+                    }
+                    if (!response.getStatusCode().equals(HttpStatus.OK)) {
+                        messages.add("Error: " + response.getBody());
+                        hasErrors = true;
+                        continue;
+                    }
+                    processOutputFiles(operation, response, outputFiles);
+                } catch (Exception e) {
+                    log.error("Operation {} failed for {}", operation, file.getFilename(), e);
+                    messages.add("Error processing " + file.getFilename() + ": " + e.getMessage());
+                    hasErrors = true;
+                }
+            }
+        }
+        if (!hasInputFileType) {
+            messages.add(
+                    "No files with extension "
+                            + String.join(", ", inputFileTypes)
+                            + " found for operation "
+                            + operation);
+            hasErrors = true;
+        }
+        return new FileStageResult(outputFiles, messages, hasErrors);
+    }
+
+    private record FileStageResult(
+            List<Resource> outputFiles, List<String> messages, boolean hasErrors) {}
+
+    private ResponseEntity<byte[]> runOperation(
+            String operation,
+            String url,
+            List<Resource> files,
+            boolean isMultiInputOperation,
+            Map<String, Object> parameters)
+            throws Exception {
+        ResponseEntity<byte[]> response =
+                operationDispatcher.dispatch(operation, files, isMultiInputOperation, parameters);
+        if (response != null) {
+            return response;
+        }
+        log.debug("Operation {} is not dispatchable in-process, sending web request", operation);
+        // Create a new MultiValueMap for the request body
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        // Add all matching files to the body
+        for (Resource file : files) {
+            body.add("fileInput", file);
+        }
+        for (Entry<String, Object> entry : parameters.entrySet()) {
+            if (entry.getValue() instanceof List) {
+                List<?> list = (List<?>) entry.getValue();
+                for (Object item : list) {
+                    body.add(entry.getKey(), item);
+                }
+            } else {
+                body.add(entry.getKey(), entry.getValue());
+            }
+        }
+        return sendWebRequest(url, body);
+    }
+
     private ResponseEntity<byte[]> sendWebRequest(String url, MultiValueMap<String, Object> body) {
         RestTemplate restTemplate = new RestTemplate();
         // Set up headers, including API key
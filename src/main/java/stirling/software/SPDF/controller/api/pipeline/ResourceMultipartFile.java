@@ -0,0 +1,88 @@
+package stirling.software.SPDF.controller.api.pipeline;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Exposes a pipeline {@link Resource} as a {@link MultipartFile} so it can be handed to a
+ * controller without going through multipart encoding. Byte array resources are passed through
+ * without copying.
+ */
+class ResourceMultipartFile implements MultipartFile {
+
+    private final String name;
+    private final Resource resource;
+
+    ResourceMultipartFile(String name, Resource resource) {
+        this.name = name;
+        this.resource = resource;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return resource.getFilename();
+    }
+
+    @Override
+    public String getContentType() {
+        return MediaTypeFactory.getMediaType(resource.getFilename())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        try {
+            return resource.contentLength();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        if (resource instanceof ByteArrayResource) {
+            return ((ByteArrayResource) resource).getByteArray();
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return resource.getInputStream();
+    }
+
+    @Override
+    public Resource getResource() {
+        return resource;
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            Files.copy(in, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
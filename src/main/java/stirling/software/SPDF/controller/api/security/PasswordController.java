@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -40,13 +41,13 @@ public class PasswordController {
             description =
                     "This endpoint removes the password from a protected PDF file. Users need to provide the"
                             + " existing password. Input:PDF Output:PDF Type:SISO")
-    public ResponseEntity<byte[]> removePassword(@ModelAttribute PDFPasswordRequest request)
-            throws IOException {
+    public ResponseEntity<StreamingResponseBody> removePassword(
+            @ModelAttribute PDFPasswordRequest request) throws IOException {
         MultipartFile fileInput = request.getFileInput();
         String password = request.getPassword();
         PDDocument document = pdfDocumentFactory.load(fileInput, password);
         document.setAllSecurityToBeRemoved(true);
-        return WebResponseUtils.pdfDocToWebResponse(
+        return WebResponseUtils.pdfDocToStreamingWebResponse(
                 document,
                 Filenames.toSimpleFileName(fileInput.getOriginalFilename())
                                 .replaceFirst("[.][^.]+$", "")
@@ -59,8 +60,8 @@ public class PasswordController {
             description =
                     "This endpoint adds password protection to a PDF file. Users can specify a set of"
                             + " permissions that should be applied to the file. Input:PDF Output:PDF")
-    public ResponseEntity<byte[]> addPassword(@ModelAttribute AddPasswordRequest request)
-            throws IOException {
+    public ResponseEntity<StreamingResponseBody> addPassword(
+            @ModelAttribute AddPasswordRequest request) throws IOException {
         MultipartFile fileInput = request.getFileInput();
         String ownerPassword = request.getOwnerPassword();
         String password = request.getPassword();
@@ -93,12 +94,12 @@ public class PasswordController {
         document.protect(spp);
 
         if ("".equals(ownerPassword) && "".equals(password))
-            return WebResponseUtils.pdfDocToWebResponse(
+            return WebResponseUtils.pdfDocToStreamingWebResponse(
                     document,
                     Filenames.toSimpleFileName(fileInput.getOriginalFilename())
                                     .replaceFirst("[.][^.]+$", "")
                             + "_permissions.pdf");
-        return WebResponseUtils.pdfDocToWebResponse(
+        return WebResponseUtils.pdfDocToStreamingWebResponse(
                 document,
                 Filenames.toSimpleFileName(fileInput.getOriginalFilename())
                                 .replaceFirst("[.][^.]+$", "")
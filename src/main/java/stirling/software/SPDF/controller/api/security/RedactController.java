@@ -25,6 +25,7 @@ import stirling.software.SPDF.model.PDFText;
 import stirling.software.SPDF.model.api.security.RedactPdfRequest;
 import stirling.software.SPDF.pdf.TextFinder;
 import stirling.software.SPDF.service.CustomPDDocumentFactory;
+import stirling.software.SPDF.service.PageRenderService;
 import stirling.software.SPDF.utils.PdfUtils;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
@@ -36,9 +37,13 @@ public class RedactController {
 
     private final CustomPDDocumentFactory pdfDocumentFactory;
 
+    private final PageRenderService pageRenderService;
+
     @Autowired
-    public RedactController(CustomPDDocumentFactory pdfDocumentFactory) {
+    public RedactController(
+            CustomPDDocumentFactory pdfDocumentFactory, PageRenderService pageRenderService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.pageRenderService = pageRenderService;
     }
 
     @PostMapping(value = "/auto-redact", consumes = "multipart/form-data")
@@ -79,7 +84,7 @@ public class RedactController {
         }
 
         if (convertPDFToImage) {
-            PDDocument convertedPdf = PdfUtils.convertPdfToPdfImage(document);
+            PDDocument convertedPdf = PdfUtils.convertPdfToPdfImage(pageRenderService, document);
             document.close();
             document = convertedPdf;
         }
@@ -30,6 +30,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -37,6 +38,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import stirling.software.SPDF.model.api.security.AddWatermarkRequest;
 import stirling.software.SPDF.service.CustomPDDocumentFactory;
+import stirling.software.SPDF.service.PageRenderService;
 import stirling.software.SPDF.utils.PdfUtils;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
@@ -47,9 +49,13 @@ public class WatermarkController {
 
     private final CustomPDDocumentFactory pdfDocumentFactory;
 
+    private final PageRenderService pageRenderService;
+
     @Autowired
-    public WatermarkController(CustomPDDocumentFactory pdfDocumentFactory) {
+    public WatermarkController(
+            CustomPDDocumentFactory pdfDocumentFactory, PageRenderService pageRenderService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.pageRenderService = pageRenderService;
     }
 
     @PostMapping(consumes = "multipart/form-data", value = "/add-watermark")
@@ -57,8 +63,8 @@ public class WatermarkController {
             summary = "Add watermark to a PDF file",
             description =
                     "This endpoint adds a watermark to a given PDF file. Users can specify the watermark type (text or image), rotation, opacity, width spacer, and height spacer. Input:PDF Output:PDF Type:SISO")
-    public ResponseEntity<byte[]> addWatermark(@ModelAttribute AddWatermarkRequest request)
-            throws IOException, Exception {
+    public ResponseEntity<StreamingResponseBody> addWatermark(
+            @ModelAttribute AddWatermarkRequest request) throws IOException, Exception {
         MultipartFile pdfFile = request.getFileInput();
         String watermarkType = request.getWatermarkType();
         String watermarkText = request.getWatermarkText();
@@ -117,12 +123,12 @@ public class WatermarkController {
         }
 
         if (convertPdfToImage) {
-            PDDocument convertedPdf = PdfUtils.convertPdfToPdfImage(document);
+            PDDocument convertedPdf = PdfUtils.convertPdfToPdfImage(pageRenderService, document);
             document.close();
             document = convertedPdf;
         }
 
-        return WebResponseUtils.pdfDocToWebResponse(
+        return WebResponseUtils.pdfDocToStreamingWebResponse(
                 document,
                 Filenames.toSimpleFileName(pdfFile.getOriginalFilename())
                                 .replaceFirst("[.][^.]+$", "")
@@ -12,8 +12,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -22,6 +20,7 @@ import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.config.StartupApplicationListener;
 import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.service.RequestMetricsService;
 
 @RestController
 @RequestMapping("/api/v1/info")
@@ -31,14 +30,15 @@ public class MetricsController {
 
     private final ApplicationProperties applicationProperties;
 
-    private final MeterRegistry meterRegistry;
+    private final RequestMetricsService requestMetricsService;
 
     private boolean metricsEnabled;
 
     public MetricsController(
-            ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+            ApplicationProperties applicationProperties,
+            RequestMetricsService requestMetricsService) {
         this.applicationProperties = applicationProperties;
-        this.meterRegistry = meterRegistry;
+        this.requestMetricsService = requestMetricsService;
     }
 
     @PostConstruct
@@ -210,33 +210,15 @@ public class MetricsController {
                 "Getting request count for method: {}, endpoint: {}",
                 method,
                 endpoint.orElse("all"));
-        double count =
-                meterRegistry.find("http.requests").tag("method", method).counters().stream()
-                        .filter(
-                                counter ->
-                                        !endpoint.isPresent()
-                                                || endpoint.get()
-                                                        .equals(counter.getId().getTag("uri")))
-                        .mapToDouble(Counter::count)
-                        .sum();
+        double count = requestMetricsService.getRequestCount(method, endpoint);
         log.info("Request count: {}", count);
         return count;
     }
 
     private List<EndpointCount> getEndpointCounts(String method) {
         log.info("Getting endpoint counts for method: {}", method);
-        Map<String, Double> counts = new HashMap<>();
-        meterRegistry
-                .find("http.requests")
-                .tag("method", method)
-                .counters()
-                .forEach(
-                        counter -> {
-                            String uri = counter.getId().getTag("uri");
-                            counts.merge(uri, counter.count(), Double::sum);
-                        });
         List<EndpointCount> result =
-                counts.entrySet().stream()
+                requestMetricsService.getRequestCounts(method).entrySet().stream()
                         .map(entry -> new EndpointCount(entry.getKey(), entry.getValue()))
                         .sorted(Comparator.comparing(EndpointCount::getCount).reversed())
                         .collect(Collectors.toList());
@@ -249,41 +231,16 @@ public class MetricsController {
                 "Getting unique user count for method: {}, endpoint: {}",
                 method,
                 endpoint.orElse("all"));
-        Set<String> uniqueUsers = new HashSet<>();
-        meterRegistry.find("http.requests").tag("method", method).counters().stream()
-                .filter(
-                        counter ->
-                                !endpoint.isPresent()
-                                        || endpoint.get().equals(counter.getId().getTag("uri")))
-                .forEach(
-                        counter -> {
-                            String session = counter.getId().getTag("session");
-                            if (session != null) {
-                                uniqueUsers.add(session);
-                            }
-                        });
-        log.info("Unique user count: {}", uniqueUsers.size());
-        return uniqueUsers.size();
+        long count = requestMetricsService.getUniqueUserCount(method, endpoint);
+        log.info("Unique user count: {}", count);
+        return count;
     }
 
     private List<EndpointCount> getUniqueUserCounts(String method) {
         log.info("Getting unique user counts for method: {}", method);
-        Map<String, Set<String>> uniqueUsers = new HashMap<>();
-        meterRegistry
-                .find("http.requests")
-                .tag("method", method)
-                .counters()
-                .forEach(
-                        counter -> {
-                            String uri = counter.getId().getTag("uri");
-                            String session = counter.getId().getTag("session");
-                            if (uri != null && session != null) {
-                                uniqueUsers.computeIfAbsent(uri, k -> new HashSet<>()).add(session);
-                            }
-                        });
         List<EndpointCount> result =
-                uniqueUsers.entrySet().stream()
-                        .map(entry -> new EndpointCount(entry.getKey(), entry.getValue().size()))
+                requestMetricsService.getUniqueUserCounts(method).entrySet().stream()
+                        .map(entry -> new EndpointCount(entry.getKey(), entry.getValue()))
                         .sorted(Comparator.comparing(EndpointCount::getCount).reversed())
                         .collect(Collectors.toList());
         log.info("Found {} endpoints with unique user counts", result.size());
@@ -48,10 +48,33 @@ public class ApplicationProperties {
     private EnterpriseEdition enterpriseEdition = new EnterpriseEdition();
     private AutoPipeline autoPipeline = new AutoPipeline();
     private ProcessExecutor processExecutor = new ProcessExecutor();
+    private Jobs jobs = new Jobs();
 
     @Data
     public static class AutoPipeline {
         private String outputFolder;
+        private int maxParallelFiles;
+        private int folderWorkers;
+        private int maxConcurrentRunsPerFolder;
+        private int fileQuietPeriodSeconds;
+
+        public int getMaxParallelFiles() {
+            return maxParallelFiles > 0
+                    ? maxParallelFiles
+                    : Runtime.getRuntime().availableProcessors();
+        }
+
+        public int getFolderWorkers() {
+            return folderWorkers > 0 ? folderWorkers : 4;
+        }
+
+        public int getMaxConcurrentRunsPerFolder() {
+            return maxConcurrentRunsPerFolder > 0 ? maxConcurrentRunsPerFolder : 1;
+        }
+
+        public int getFileQuietPeriodSeconds() {
+            return fileQuietPeriodSeconds > 0 ? fileQuietPeriodSeconds : 5;
+        }
     }
 
     @Data
@@ -247,6 +270,88 @@ public class ApplicationProperties {
         private String tessdataDir;
         private Boolean enableAlphaFunctionality;
         private String enableAnalytics;
+        private PdfLoading pdfLoading = new PdfLoading();
+        private ComputePool computePool = new ComputePool();
+        private OcrCache ocrCache = new OcrCache();
+
+        @Data
+        public static class PdfLoading {
+            private long fileThresholdMB;
+            private long scratchMemoryMB;
+
+            public long getFileThresholdMB() {
+                return fileThresholdMB > 0 ? fileThresholdMB : 100;
+            }
+
+            public long getScratchMemoryMB() {
+                return scratchMemoryMB > 0 ? scratchMemoryMB : 50;
+            }
+        }
+
+        @Data
+        public static class ComputePool {
+            /** Operations that render pages, run OCR or recompress images in the JVM. */
+            private static final List<String> DEFAULT_ADMISSION_PATHS =
+                    List.of(
+                            "/api/v1/convert/pdf/img",
+                            "/api/v1/convert/img/pdf",
+                            "/api/v1/misc/ocr-pdf",
+                            "/api/v1/misc/compress-pdf",
+                            "/api/v1/misc/flatten",
+                            "/api/v1/misc/replace-invert-pdf",
+                            "/api/v1/misc/fake-scan",
+                            "/api/v1/misc/remove-blanks",
+                            "/api/v1/misc/auto-split-pdf",
+                            "/api/v1/misc/extract-images",
+                            "/api/v1/misc/extract-image-scans",
+                            "/api/v1/security/auto-redact");
+
+            private int maxConcurrent;
+            private int queueSize;
+            private int retryAfterSeconds;
+            private List<String> admissionPaths = new ArrayList<>();
+
+            public int getMaxConcurrent() {
+                return maxConcurrent > 0
+                        ? maxConcurrent
+                        : Runtime.getRuntime().availableProcessors();
+            }
+
+            public int getQueueSize() {
+                return queueSize > 0 ? queueSize : getMaxConcurrent() * 4;
+            }
+
+            public int getRetryAfterSeconds() {
+                return retryAfterSeconds > 0 ? retryAfterSeconds : 10;
+            }
+
+            public List<String> getAdmissionPaths() {
+                return admissionPaths == null || admissionPaths.isEmpty()
+                        ? DEFAULT_ADMISSION_PATHS
+                        : admissionPaths;
+            }
+        }
+
+        /**
+         * Cache of OCRed pages. Entries hold user content, the rendered page image with its text,
+         * are shared across all users, and stay on disk across restarts until evicted or purged.
+         */
+        @Data
+        public static class OcrCache {
+            private boolean enabled = false;
+            private String directory;
+            private long maxSizeMB;
+
+            public String getDirectory() {
+                return directory == null || directory.trim().isEmpty()
+                        ? java.lang.System.getProperty("java.io.tmpdir") + "/stirling-pdf-ocr-cache"
+                        : directory;
+            }
+
+            public long getMaxSizeMB() {
+                return maxSizeMB > 0 ? maxSizeMB : 1024;
+            }
+        }
     }
 
     @Data
@@ -281,6 +386,7 @@ public class ApplicationProperties {
     @Data
     public static class Metrics {
         private Boolean enabled;
+        private Boolean serverTiming = false;
     }
 
     @Data
@@ -314,10 +420,64 @@ public class ApplicationProperties {
         }
     }
 
+    @Data
+    public static class Jobs {
+        private String storageDirectory;
+        private int resultTtlMinutes;
+        private long maxStorageMB;
+        private int maxConcurrentJobs;
+        private int queueSize;
+
+        public String getStorageDirectory() {
+            return storageDirectory == null || storageDirectory.trim().isEmpty()
+                    ? java.lang.System.getProperty("java.io.tmpdir") + "/stirling-pdf-jobs"
+                    : storageDirectory;
+        }
+
+        public int getResultTtlMinutes() {
+            return resultTtlMinutes > 0 ? resultTtlMinutes : 60;
+        }
+
+        public long getMaxStorageMB() {
+            return maxStorageMB > 0 ? maxStorageMB : 2048;
+        }
+
+        public int getMaxConcurrentJobs() {
+            return maxConcurrentJobs > 0
+                    ? maxConcurrentJobs
+                    : Runtime.getRuntime().availableProcessors();
+        }
+
+        public int getQueueSize() {
+            return queueSize > 0 ? queueSize : 100;
+        }
+    }
+
     @Data
     public static class ProcessExecutor {
         private SessionLimit sessionLimit = new SessionLimit();
         private TimeoutMinutes timeoutMinutes = new TimeoutMinutes();
+        private LibreOfficePool libreOfficePool = new LibreOfficePool();
+
+        @Data
+        public static class LibreOfficePool {
+            private boolean enabled = true;
+            private int basePort;
+            private int maxConversionsPerInstance;
+            private long maxMemoryMB;
+
+            public int getBasePort() {
+                return basePort > 0 ? basePort : 2002;
+            }
+
+            public int getMaxConversionsPerInstance() {
+                return maxConversionsPerInstance > 0 ? maxConversionsPerInstance : 200;
+            }
+
+            public long getMaxMemoryMB() {
+                return maxMemoryMB > 0 ? maxMemoryMB : 1024;
+            }
+        }
 
         @Data
         public static class SessionLimit {
@@ -0,0 +1,45 @@
+package stirling.software.SPDF.model;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+
+/** An operation submitted through the asynchronous job API and its stored result. */
+@Data
+public class Job {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private String id;
+    private String operation;
+    private volatile Status status = Status.QUEUED;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant completedAt;
+    private String error;
+    private String resultFileName;
+    private String resultContentType;
+    private long resultSize;
+
+    /** The user or session that submitted the job. */
+    @JsonIgnore private String owner;
+
+    @JsonIgnore private Path directory;
+    @JsonIgnore private Path resultFile;
+    @JsonIgnore private Future<?> future;
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status != Status.QUEUED && status != Status.RUNNING;
+    }
+}
@@ -15,6 +15,8 @@ public class PipelineConfig {
     @JsonProperty("outputFileName")
     private String outputPattern;
 
+    private Integer maxParallelFiles;
+
     public String getName() {
         return name;
     }
@@ -46,4 +48,12 @@ public class PipelineConfig {
     public void setOutputPattern(String outputPattern) {
         this.outputPattern = outputPattern;
     }
+
+    public Integer getMaxParallelFiles() {
+        return maxParallelFiles;
+    }
+
+    public void setMaxParallelFiles(Integer maxParallelFiles) {
+        this.maxParallelFiles = maxParallelFiles;
+    }
 }
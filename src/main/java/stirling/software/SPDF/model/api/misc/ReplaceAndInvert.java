@@ -4,4 +4,5 @@ public enum ReplaceAndInvert {
     HIGH_CONTRAST_COLOR,
     CUSTOM_COLOR,
     FULL_INVERSION,
+    VECTOR_INVERSION,
 }
@@ -11,8 +11,14 @@ import stirling.software.SPDF.model.api.PDFFile;
 public class ReplaceAndInvertColorRequest extends PDFFile {
 
     @Schema(
-            description = "Replace and Invert color options of a pdf.",
-            allowableValues = {"HIGH_CONTRAST_COLOR", "CUSTOM_COLOR", "FULL_INVERSION"})
+            description =
+                    "Replace and Invert color options of a pdf. FULL_INVERSION renders each page to an inverted image, VECTOR_INVERSION inverts the colours without rendering so text stays selectable, but needs a viewer with transparency support (others show white pages) and falls back to FULL_INVERSION for documents with CMYK page groups.",
+            allowableValues = {
+                "HIGH_CONTRAST_COLOR",
+                "CUSTOM_COLOR",
+                "FULL_INVERSION",
+                "VECTOR_INVERSION"
+            })
     private ReplaceAndInvert replaceAndInvertOption;
 
     @Schema(
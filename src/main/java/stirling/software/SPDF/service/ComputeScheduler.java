@@ -0,0 +1,278 @@
+package stirling.software.SPDF.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.model.ApplicationProperties;
+
+/**
+ * Central limit for CPU-heavy work (rendering, OCR preparation, image recompression, text
+ * extraction).
+ *
+ * <p>At most {@code maxConcurrent} tasks hold a compute slot at a time and at most {@code
+ * queueSize} more wait for one, in arrival order. Anything beyond that is rejected with a {@link
+ * CapacityExceededException}, which is sent to API clients as 503 with a Retry-After header. Work
+ * that fans out (e.g. one task per page) goes through {@link #invokeAll}, which only borrows slots
+ * that are free right now, so a busy server degrades to running each request sequentially instead
+ * of oversubscribing the CPU.
+ */
+@Service
+@Slf4j
+public class ComputeScheduler {
+
+    private static final ThreadLocal<Boolean> HOLDS_SLOT = ThreadLocal.withInitial(() -> false);
+
+    private final Semaphore slots;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final int queueSize;
+
+    private final int retryAfterSeconds;
+
+    private final ThreadPoolExecutor helperPool;
+
+    public ComputeScheduler(ApplicationProperties applicationProperties) {
+        ApplicationProperties.System.ComputePool config =
+                applicationProperties.getSystem().getComputePool();
+        int maxConcurrent = config.getMaxConcurrent();
+        this.slots = new Semaphore(maxConcurrent, true);
+        this.queueSize = config.getQueueSize();
+        this.retryAfterSeconds = config.getRetryAfterSeconds();
+        AtomicInteger threadCount = new AtomicInteger();
+        // helpers only start after taking a slot, so the pool never needs more threads than slots
+        this.helperPool =
+                new ThreadPoolExecutor(
+                        0,
+                        maxConcurrent,
+                        60L,
+                        TimeUnit.SECONDS,
+                        new SynchronousQueue<>(),
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable, "compute-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        log.info(
+                "Compute scheduler allows {} concurrent tasks with {} queued",
+                maxConcurrent,
+                queueSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        helperPool.shutdownNow();
+    }
+
+    /**
+     * Waits for a compute slot. Every successful call must be paired with {@link #release()}.
+     *
+     * @throws CapacityExceededException if the wait queue is full
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        if (slots.tryAcquire()) {
+            HOLDS_SLOT.set(true);
+            return;
+        }
+        if (waiting.incrementAndGet() > queueSize) {
+            waiting.decrementAndGet();
+            throw new CapacityExceededException(retryAfterSeconds);
+        }
+        try {
+            slots.acquire();
+        } finally {
+            waiting.decrementAndGet();
+        }
+        HOLDS_SLOT.set(true);
+    }
+
+    public void release() {
+        HOLDS_SLOT.remove();
+        slots.release();
+    }
+
+    /**
+     * Forgets that the current thread holds a slot without releasing it, for work that continues on
+     * another thread and releases the slot there.
+     */
+    public void detachFromThread() {
+        HOLDS_SLOT.remove();
+    }
+
+    /**
+     * Runs the task on the calling thread once a compute slot is free. Calls from a thread that
+     * already holds a slot run straight away.
+     */
+    public <T> T execute(Callable<T> task) throws Exception {
+        if (HOLDS_SLOT.get()) {
+            return task.call();
+        }
+        acquire();
+        try {
+            return task.call();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Like {@link #execute} but never rejected: waits for a slot however long the queue is. Meant
+     * for background work that was already admitted through a queue of its own.
+     */
+    public <T> T executeInBackground(Callable<T> task) throws Exception {
+        if (HOLDS_SLOT.get()) {
+            return task.call();
+        }
+        slots.acquire();
+        HOLDS_SLOT.set(true);
+        try {
+            return task.call();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Runs all tasks and returns their results in order. The calling thread works through the tasks
+     * itself (taking a slot first if it does not hold one) and is joined by helper threads for as
+     * many slots as are currently free. The first failure is rethrown once every task has finished.
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> tasks) throws Exception {
+        return invokeAll(tasks, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #invokeAll(List)}, but runs at most {@code maxParallelism} tasks at the same
+     * time, for tasks that each need a lot of memory.
+     */
+    public <T> List<T> invokeAll(List<? extends Callable<T>> tasks, int maxParallelism)
+            throws Exception {
+        int size = tasks.size();
+        List<T> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(null);
+        }
+        AtomicInteger nextIndex = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Runnable lane =
+                () -> {
+                    int index;
+                    while ((index = nextIndex.getAndIncrement()) < size) {
+                        try {
+                            results.set(index, tasks.get(index).call());
+                        } catch (Exception e) {
+                            if (!failure.compareAndSet(null, e)) {
+                                failure.get().addSuppressed(e);
+                            }
+                        }
+                    }
+                };
+
+        execute(
+                () -> {
+                    runLanes(lane, Math.min(size, maxParallelism) - 1);
+                    return null;
+                });
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return results;
+    }
+
+    /**
+     * Starts the task on a helper thread if a compute slot is free right now, for work the caller
+     * can just as well do itself when the server is busy.
+     *
+     * @return false, without running the task, if no slot is free
+     */
+    public boolean tryRunAsync(Runnable task) {
+        if (!slots.tryAcquire()) {
+            return false;
+        }
+        try {
+            helperPool.execute(
+                    () -> {
+                        HOLDS_SLOT.set(true);
+                        try {
+                            task.run();
+                        } finally {
+                            release();
+                        }
+                    });
+            return true;
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            return false;
+        }
+    }
+
+    private void runLanes(Runnable lane, int maxHelpers) throws InterruptedException {
+        List<CountDownLatch> helpers = new ArrayList<>();
+        while (helpers.size() < maxHelpers && slots.tryAcquire()) {
+            CountDownLatch done = new CountDownLatch(1);
+            try {
+                helperPool.execute(
+                        () -> {
+                            HOLDS_SLOT.set(true);
+                            try {
+                                lane.run();
+                            } finally {
+                                release();
+                                done.countDown();
+                            }
+                        });
+            } catch (RejectedExecutionException e) {
+                slots.release();
+                break;
+            }
+            helpers.add(done);
+        }
+        lane.run();
+        for (CountDownLatch done : helpers) {
+            done.await();
+        }
+    }
+
+    /** Thrown when the compute queue is full. Maps to 503 with a Retry-After header. */
+    public static class CapacityExceededException extends ResponseStatusException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int retryAfterSeconds;
+
+        public CapacityExceededException(int retryAfterSeconds) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please retry later");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return headers;
+        }
+    }
+}
@@ -4,26 +4,39 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.model.ApplicationProperties;
 import stirling.software.SPDF.model.PdfMetadata;
 import stirling.software.SPDF.model.api.PDFFile;
+import stirling.software.SPDF.service.RequestMetricsService.Stage;
 
 @Component
 @Slf4j
 public class CustomPDDocumentFactory {
 
     private final PdfMetadataService pdfMetadataService;
+    private final ApplicationProperties applicationProperties;
 
     @Autowired
-    public CustomPDDocumentFactory(PdfMetadataService pdfMetadataService) {
+    public CustomPDDocumentFactory(
+            PdfMetadataService pdfMetadataService, ApplicationProperties applicationProperties) {
         this.pdfMetadataService = pdfMetadataService;
+        this.applicationProperties = applicationProperties;
     }
 
     public PDDocument createNewDocument() throws IOException {
@@ -32,6 +45,16 @@ public class CustomPDDocumentFactory {
         return document;
     }
 
+    /**
+     * Creates an empty document whose streams spill to a scratch file beyond {@code
+     * scratchMemoryMB}, for outputs assembled from many or large inputs.
+     */
+    public PDDocument createNewScratchDocument() throws IOException {
+        PDDocument document = new PDDocument(getScratchStreamCache());
+        pdfMetadataService.setMetadataToPdf(document, PdfMetadata.builder().build(), true);
+        return document;
+    }
+
     public byte[] createNewBytesBasedOnOldDocument(byte[] oldDocument) throws IOException {
         PDDocument document = Loader.loadPDF(oldDocument);
         return createNewBytesBasedOnOldDocument(document);
@@ -47,7 +70,7 @@ public class CustomPDDocumentFactory {
                 oldDocument, pdfMetadataService.extractMetadataFromPdf(oldDocument), true);
 
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        oldDocument.save(baos);
+        save(oldDocument, baos);
         oldDocument.close();
         return baos.toByteArray();
     }
@@ -73,7 +96,7 @@ public class CustomPDDocumentFactory {
     public byte[] loadToBytes(File file) throws IOException {
         PDDocument document = load(file);
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        document.save(baos);
+        save(document, baos);
         // Close the document
         document.close();
         return baos.toByteArray();
@@ -82,7 +105,7 @@ public class CustomPDDocumentFactory {
     public byte[] loadToBytes(byte[] bytes) throws IOException {
         PDDocument document = load(bytes);
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        document.save(baos);
+        save(document, baos);
         // Close the document
         document.close();
         return baos.toByteArray();
@@ -90,19 +113,43 @@ public class CustomPDDocumentFactory {
 
     // if loading from a file, assume the file has been made with Stirling-PDF
     public PDDocument load(File file) throws IOException {
-        PDDocument document = Loader.loadPDF(file);
+        long start = System.nanoTime();
+        PDDocument document =
+                file.length() > getFileThresholdBytes()
+                        ? Loader.loadPDF(file, getScratchStreamCache())
+                        : Loader.loadPDF(file);
         pdfMetadataService.setMetadataToPdf(document, PdfMetadata.builder().build(), true);
+        recordLoad(document, start);
         return document;
     }
 
     public PDDocument load(InputStream input) throws IOException {
-        return load(input.readAllBytes());
+        // Read at most threshold + 1 bytes into memory, anything larger is spooled to disk
+        int threshold = (int) Math.min(getFileThresholdBytes(), Integer.MAX_VALUE - 9);
+        byte[] head = input.readNBytes(threshold + 1);
+        if (head.length <= threshold) {
+            return load(head);
+        }
+        Path tempFile = Files.createTempFile("load_", ".pdf");
+        try (OutputStream out = Files.newOutputStream(tempFile)) {
+            out.write(head);
+            input.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return loadFromTempFile(tempFile, "", true);
     }
 
     public PDDocument load(byte[] input) throws IOException {
-        PDDocument document = Loader.loadPDF(input);
+        long start = System.nanoTime();
+        PDDocument document =
+                input.length > getFileThresholdBytes()
+                        ? Loader.loadPDF(input, "", null, null, getScratchStreamCache())
+                        : Loader.loadPDF(input);
         pdfMetadataService.setDefaultMetadata(document);
         removezeropassword(document);
+        recordLoad(document, start);
         return document;
     }
 
@@ -111,6 +158,9 @@ public class CustomPDDocumentFactory {
     }
 
     public PDDocument load(MultipartFile pdfFile) throws IOException {
+        if (pdfFile.getSize() > getFileThresholdBytes()) {
+            return loadFromTempFile(copyToTempFile(pdfFile), "", true);
+        }
         return load(pdfFile.getBytes());
     }
 
@@ -119,15 +169,81 @@ public class CustomPDDocumentFactory {
     }
 
     public PDDocument load(MultipartFile fileInput, String password) throws IOException {
+        if (fileInput.getSize() > getFileThresholdBytes()) {
+            return loadFromTempFile(copyToTempFile(fileInput), password, false);
+        }
         return load(fileInput.getBytes(), password);
     }
 
     private PDDocument load(byte[] bytes, String password) throws IOException {
-        PDDocument document = Loader.loadPDF(bytes, password);
+        long start = System.nanoTime();
+        PDDocument document =
+                bytes.length > getFileThresholdBytes()
+                        ? Loader.loadPDF(bytes, password, null, null, getScratchStreamCache())
+                        : Loader.loadPDF(bytes, password);
         pdfMetadataService.setDefaultMetadata(document);
+        recordLoad(document, start);
         return document;
     }
 
+    /**
+     * Opens a spooled upload with a file-backed reader so the raw bytes never sit in heap. The temp
+     * file is deleted when the returned document is closed.
+     */
+    private PDDocument loadFromTempFile(Path tempFile, String password, boolean removePassword)
+            throws IOException {
+        long start = System.nanoTime();
+        RandomAccessRead source = new TempFileRandomAccessRead(tempFile);
+        PDDocument document;
+        try {
+            document = Loader.loadPDF(source, password, null, null, getScratchStreamCache());
+        } catch (IOException e) {
+            source.close();
+            throw e;
+        }
+        log.debug("Loaded {} from disk with scratch file stream cache", tempFile);
+        pdfMetadataService.setDefaultMetadata(document);
+        if (removePassword) {
+            removezeropassword(document);
+        }
+        recordLoad(document, start);
+        return document;
+    }
+
+    private static void recordLoad(PDDocument document, long start) {
+        RequestMetricsService.addStageTime(Stage.LOAD, start);
+        RequestMetricsService.addPages(document.getNumberOfPages());
+    }
+
+    private static void save(PDDocument document, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        document.save(out);
+        RequestMetricsService.addStageTime(Stage.SAVE, start);
+    }
+
+    private Path copyToTempFile(MultipartFile file) throws IOException {
+        Path tempFile = Files.createTempFile("load_", ".pdf");
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return tempFile;
+    }
+
+    private long getFileThresholdBytes() {
+        return applicationProperties.getSystem().getPdfLoading().getFileThresholdMB() * 1024 * 1024;
+    }
+
+    private StreamCacheCreateFunction getScratchStreamCache() {
+        long scratchBytes =
+                applicationProperties.getSystem().getPdfLoading().getScratchMemoryMB()
+                        * 1024
+                        * 1024;
+        return MemoryUsageSetting.setupMixed(scratchBytes).streamCache;
+    }
+
     private PDDocument removezeropassword(PDDocument document) throws IOException {
         if (document.isEncrypted()) {
             try {
@@ -140,5 +256,23 @@ public class CustomPDDocumentFactory {
         return document;
     }
 
+    private static class TempFileRandomAccessRead extends RandomAccessReadBufferedFile {
+        private final Path tempFile;
+
+        TempFileRandomAccessRead(Path tempFile) throws IOException {
+            super(tempFile.toFile());
+            this.tempFile = tempFile;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
     // Add other load methods as needed, following the same pattern
 }
@@ -0,0 +1,388 @@
+package stirling.software.SPDF.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import io.github.pixee.security.Filenames;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.controller.api.pipeline.OperationDescriptor;
+import stirling.software.SPDF.controller.api.pipeline.OperationRegistry;
+import stirling.software.SPDF.controller.api.pipeline.PipelineOperationDispatcher;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.model.Job;
+
+/**
+ * Runs API operations in the background for the asynchronous job API.
+ *
+ * <p>Uploads are copied into a per-job directory under the configured storage directory and the job
+ * is queued on a bounded worker pool; a full queue is answered with 503. Operations run in-process
+ * through the {@link PipelineOperationDispatcher} and hold a compute slot while they run; their
+ * result is streamed straight into the job directory. Results stay on disk until they are deleted,
+ * expire after the configured TTL, or are evicted (oldest finished job first) to keep the store
+ * within its size quota. Jobs only live in memory, so anything left in the storage directory at
+ * startup is removed.
+ *
+ * <p>Every job belongs to the caller that submitted it and is not visible to anyone else. A job
+ * reaches its final status exactly once: a cancelled job stays cancelled even if its operation
+ * finishes afterwards.
+ */
+@Service
+@Slf4j
+public class JobService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    /** Where the operation writes its response, renamed to the result's file name on success. */
+    private static final String RESPONSE_BODY_FILE = ".response";
+
+    private final PipelineOperationDispatcher operationDispatcher;
+    private final OperationRegistry operationRegistry;
+    private final ComputeScheduler computeScheduler;
+    private final TaskDecorator taskDecorator;
+    private final ApplicationProperties.Jobs config;
+    private final int retryAfterSeconds;
+    private final Path storageDir;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+
+    public JobService(
+            PipelineOperationDispatcher operationDispatcher,
+            OperationRegistry operationRegistry,
+            ComputeScheduler computeScheduler,
+            ApplicationProperties applicationProperties,
+            @Autowired(required = false) TaskDecorator taskDecorator)
+            throws IOException {
+        this.operationDispatcher = operationDispatcher;
+        this.operationRegistry = operationRegistry;
+        this.computeScheduler = computeScheduler;
+        this.taskDecorator = taskDecorator;
+        this.config = applicationProperties.getJobs();
+        this.retryAfterSeconds =
+                applicationProperties.getSystem().getComputePool().getRetryAfterSeconds();
+        this.storageDir = Path.of(config.getStorageDirectory()).toAbsolutePath();
+        if (Files.exists(storageDir)) {
+            // jobs from a previous run can no longer be looked up
+            FileUtils.cleanDirectory(storageDir.toFile());
+        }
+        Files.createDirectories(storageDir);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        int workers = config.getMaxConcurrentJobs();
+        this.executor =
+                new ThreadPoolExecutor(
+                        workers,
+                        workers,
+                        60L,
+                        TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(config.getQueueSize()),
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable,
+                                            "job-worker-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stores the uploaded files and queues the operation.
+     *
+     * @param owner identifies the submitting user or session; only this owner can see the job
+     * @throws IllegalArgumentException if the operation is unknown, cannot run as a job, or no
+     *     files were given
+     * @throws ComputeScheduler.CapacityExceededException if the job queue is full
+     */
+    public Job submit(
+            String operation, MultipartFile[] files, Map<String, Object> parameters, String owner)
+            throws IOException {
+        OperationDescriptor descriptor = operationRegistry.get(operation);
+        if (descriptor == null || !descriptor.isDispatchable()) {
+            throw new IllegalArgumentException(
+                    "Operation " + operation + " cannot be run as a job");
+        }
+        if (files == null || files.length == 0) {
+            throw new IllegalArgumentException("At least one input file is required");
+        }
+
+        Job job = new Job();
+        job.setId(UUID.randomUUID().toString());
+        job.setOwner(owner);
+        job.setOperation(descriptor.path());
+        job.setCreatedAt(Instant.now());
+        job.setDirectory(storageDir.resolve(job.getId()));
+
+        List<Path> inputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < files.length; i++) {
+                // a directory per file keeps the original names even if they repeat
+                Path inputDir = Files.createDirectories(job.getDirectory().resolve("input-" + i));
+                String fileName = Filenames.toSimpleFileName(files[i].getOriginalFilename());
+                Path input =
+                        inputDir.resolve(
+                                fileName == null || fileName.isBlank() ? "input" : fileName);
+                files[i].transferTo(input);
+                inputs.add(input);
+            }
+        } catch (IOException e) {
+            deleteDirectory(job.getDirectory());
+            throw e;
+        }
+
+        Runnable task = () -> run(job, descriptor, inputs, parameters);
+        jobs.put(job.getId(), job);
+        try {
+            // decorated here so the job runs as the submitting user
+            job.setFuture(
+                    executor.submit(taskDecorator != null ? taskDecorator.decorate(task) : task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteDirectory(job.getDirectory());
+            throw new ComputeScheduler.CapacityExceededException(retryAfterSeconds);
+        }
+        log.info("Queued job {} for {}", job.getId(), job.getOperation());
+        return job;
+    }
+
+    /** Returns the job, or null if it does not exist, has expired or belongs to someone else. */
+    public Job get(String id, String owner) {
+        Job job = jobs.get(id);
+        return job != null && owner != null && owner.equals(job.getOwner()) ? job : null;
+    }
+
+    /**
+     * Deletes a job and its result. A job that is still queued or running is cancelled first, which
+     * also terminates any external tool it has started.
+     *
+     * @return false if there is no such job or it belongs to someone else
+     */
+    public boolean delete(String id, String owner) {
+        Job job = get(id, owner);
+        if (job == null) {
+            return false;
+        }
+        if (finish(job, Job.Status.CANCELLED, null)) {
+            if (job.getFuture() != null) {
+                job.getFuture().cancel(true);
+            }
+            log.info("Cancelled job {}", job.getId());
+        }
+        remove(job);
+        return true;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void removeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(config.getResultTtlMinutes()));
+        for (Job job : jobs.values()) {
+            if (job.isFinished() && job.getCompletedAt().isBefore(cutoff)) {
+                log.debug("Removing expired job {}", job.getId());
+                remove(job);
+            }
+        }
+    }
+
+    private void run(
+            Job job,
+            OperationDescriptor descriptor,
+            List<Path> inputs,
+            Map<String, Object> parameters) {
+        synchronized (job) {
+            if (job.isFinished()) {
+                // cancelled before it started
+                return;
+            }
+            job.setStartedAt(Instant.now());
+            job.setStatus(Job.Status.RUNNING);
+        }
+        try {
+            List<Resource> resources =
+                    inputs.stream().map(input -> (Resource) new FileSystemResource(input)).toList();
+            Path resultDir = Files.createDirectories(job.getDirectory().resolve("result"));
+            Path body = resultDir.resolve(RESPONSE_BODY_FILE);
+            ResponseEntity<Long> response =
+                    computeScheduler.executeInBackground(
+                            () ->
+                                    operationDispatcher.dispatchToFile(
+                                            descriptor.path(),
+                                            resources,
+                                            descriptor.multiInput(),
+                                            parameters,
+                                            body));
+            if (response == null) {
+                fail(job, "Operation cannot be run as a job");
+            } else if (!response.getStatusCode().is2xxSuccessful()) {
+                fail(
+                        job,
+                        "Operation failed with status "
+                                + response.getStatusCode().value()
+                                + describeBody(body));
+            } else {
+                storeResult(job, response, body);
+            }
+        } catch (Exception e) {
+            if (job.getStatus() != Job.Status.CANCELLED) {
+                log.error("Job {} failed", job.getId(), e);
+                fail(job, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
+        } finally {
+            for (Path input : inputs) {
+                deleteDirectory(input.getParent());
+            }
+        }
+        if (!jobs.containsKey(job.getId())) {
+            // cancelled or evicted while running
+            deleteDirectory(job.getDirectory());
+        }
+    }
+
+    private void storeResult(Job job, ResponseEntity<Long> response, Path body) throws IOException {
+        HttpHeaders headers = response.getHeaders();
+        String fileName = null;
+        String contentDisposition = headers.getFirst(HttpHeaders.CONTENT_DISPOSITION);
+        if (contentDisposition != null) {
+            fileName =
+                    Filenames.toSimpleFileName(
+                            ContentDisposition.parse(contentDisposition).getFilename());
+        }
+        if (fileName == null || fileName.isBlank()) {
+            fileName = "result";
+        }
+        MediaType contentType = headers.getContentType();
+
+        if (!Files.exists(body)) {
+            Files.createFile(body);
+        }
+        long size = Files.size(body);
+        if (!reserveStorage(job, size)) {
+            Files.deleteIfExists(body);
+            fail(job, "Result is larger than the job storage quota");
+            return;
+        }
+        Path resultFile = body.resolveSibling(fileName);
+        Files.move(body, resultFile, StandardCopyOption.REPLACE_EXISTING);
+        job.setResultFile(resultFile);
+        job.setResultFileName(fileName);
+        job.setResultContentType(
+                (contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM)
+                        .toString());
+        if (finish(job, Job.Status.COMPLETED, null)) {
+            log.info("Job {} completed with {} ({} bytes)", job.getId(), fileName, size);
+        }
+    }
+
+    /**
+     * Books {@code size} bytes for the job's result, evicting the oldest finished jobs when the
+     * store would exceed its quota.
+     */
+    private synchronized boolean reserveStorage(Job job, long size) {
+        long quota = config.getMaxStorageMB() * 1024 * 1024;
+        if (size > quota) {
+            return false;
+        }
+        long used = jobs.values().stream().mapToLong(Job::getResultSize).sum();
+        if (used + size > quota) {
+            List<Job> finished =
+                    jobs.values().stream()
+                            .filter(Job::isFinished)
+                            .sorted(Comparator.comparing(Job::getCompletedAt))
+                            .toList();
+            for (Job oldest : finished) {
+                if (used + size <= quota) {
+                    break;
+                }
+                log.info("Evicting job {} to stay within the job storage quota", oldest.getId());
+                used -= oldest.getResultSize();
+                remove(oldest);
+            }
+            if (used + size > quota) {
+                return false;
+            }
+        }
+        job.setResultSize(size);
+        return true;
+    }
+
+    private void fail(Job job, String error) {
+        finish(job, Job.Status.FAILED, error);
+    }
+
+    /**
+     * Gives a queued or running job its final status. Cancelling and the worker finishing the job
+     * race, whichever comes first wins.
+     *
+     * @return false if the job already had a final status
+     */
+    private static boolean finish(Job job, Job.Status status, String error) {
+        synchronized (job) {
+            if (job.isFinished()) {
+                return false;
+            }
+            job.setError(error);
+            job.setCompletedAt(Instant.now());
+            job.setStatus(status);
+            return true;
+        }
+    }
+
+    private void remove(Job job) {
+        jobs.remove(job.getId());
+        deleteDirectory(job.getDirectory());
+    }
+
+    private static String describeBody(Path body) {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(body)) {
+            head = in.readNBytes(MAX_ERROR_LENGTH);
+        } catch (IOException e) {
+            return "";
+        }
+        return head.length == 0 ? "" : ": " + new String(head, StandardCharsets.UTF_8);
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try {
+            FileUtils.deleteDirectory(directory.toFile());
+        } catch (IOException e) {
+            log.warn("Unable to delete job directory {}", directory, e);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package stirling.software.SPDF.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.LibreOfficeListener;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.utils.ProcessExecutor;
+import stirling.software.SPDF.utils.ProcessExecutor.ProcessExecutorResult;
+
+/**
+ * Keeps {@code libreOfficeSessionLimit} LibreOffice instances running so conversions do not pay the
+ * 2-4 s office start-up each time. Conversions check an idle instance out, run {@code unoconv}
+ * against its port and check it back in. Instances are restarted when they stop answering, after
+ * {@code maxConversionsPerInstance} conversions, or once they use more than {@code maxMemoryMB}.
+ *
+ * <p>If the pool is disabled or LibreOffice cannot be started, {@link #convert} returns null and
+ * callers start their own LibreOffice process as before.
+ */
+@Service
+@Slf4j
+public class LibreOfficePool {
+
+    private final ApplicationProperties.ProcessExecutor.LibreOfficePool config;
+    private final String unoconvCommand;
+    private final List<LibreOfficeListener> listeners = new ArrayList<>();
+    private final BlockingQueue<LibreOfficeListener> idle = new LinkedBlockingQueue<>();
+    private final ExecutorService maintenance;
+    private volatile boolean available;
+
+    @Autowired
+    public LibreOfficePool(ApplicationProperties applicationProperties) {
+        this(applicationProperties, "unoconv", LibreOfficeListener::new);
+    }
+
+    LibreOfficePool(
+            ApplicationProperties applicationProperties,
+            String unoconvCommand,
+            BiFunction<Integer, Path, LibreOfficeListener> listenerFactory) {
+        this.config = applicationProperties.getProcessExecutor().getLibreOfficePool();
+        this.unoconvCommand = unoconvCommand;
+        int size =
+                applicationProperties
+                        .getProcessExecutor()
+                        .getSessionLimit()
+                        .getLibreOfficeSessionLimit();
+        Path profilesDir =
+                Path.of(System.getProperty("java.io.tmpdir"), "stirling-pdf-libreoffice");
+        for (int i = 0; i < size; i++) {
+            int port = config.getBasePort() + i;
+            listeners.add(listenerFactory.apply(port, profilesDir.resolve("profile-" + port)));
+        }
+        this.maintenance =
+                Executors.newSingleThreadExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "libreoffice-pool");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        maintenance.execute(
+                () -> {
+                    for (LibreOfficeListener listener : listeners) {
+                        try {
+                            listener.start();
+                            available = true;
+                        } catch (IOException e) {
+                            log.warn("Unable to start LibreOffice listener: {}", e.getMessage());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        // instances that failed to start are retried on checkout
+                        idle.add(listener);
+                    }
+                    if (available) {
+                        log.info("Started {} LibreOffice instances", listeners.size());
+                    } else {
+                        log.warn(
+                                "LibreOffice pool is not available, conversions will start their own LibreOffice process");
+                    }
+                });
+    }
+
+    /** Whether at least one instance has started, so conversions use the pool. */
+    boolean isAvailable() {
+        return available;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        available = false;
+        maintenance.shutdownNow();
+        listeners.forEach(LibreOfficeListener::stop);
+    }
+
+    /**
+     * Runs {@code unoconv} with the given arguments against an idle pooled instance, waiting for
+     * one if all are busy.
+     *
+     * @return the result of {@code unoconv}, or null if the pool cannot be used and the caller
+     *     should start its own LibreOffice
+     * @throws IOException if the conversion fails
+     */
+    public ProcessExecutorResult convert(List<String> unoconvArguments)
+            throws IOException, InterruptedException {
+        if (!available) {
+            return null;
+        }
+        LibreOfficeListener listener = idle.take();
+        boolean recycle = false;
+        try {
+            if (!listener.isHealthy()) {
+                listener.stop();
+                try {
+                    listener.start();
+                } catch (IOException e) {
+                    log.warn("Unable to restart LibreOffice listener: {}", e.getMessage());
+                    // keep retrying in the background instead of handing out a dead instance
+                    recycle = true;
+                    return null;
+                }
+            }
+            List<String> command = new ArrayList<>();
+            command.add(unoconvCommand);
+            command.add("--no-launch");
+            command.add("--port");
+            command.add(String.valueOf(listener.getPort()));
+            command.addAll(unoconvArguments);
+            return ProcessExecutor.getInstance(ProcessExecutor.Processes.LIBRE_OFFICE)
+                    .runCommandWithOutputHandling(command);
+        } catch (InterruptedException e) {
+            // the instance may still be busy with the abandoned document
+            recycle = true;
+            throw e;
+        } finally {
+            checkIn(listener, recycle);
+        }
+    }
+
+    private void checkIn(LibreOfficeListener listener, boolean recycle) {
+        listener.conversionDone();
+        long memoryBytes = listener.getMemoryUsageBytes();
+        if (recycle
+                || listener.getConversions() >= config.getMaxConversionsPerInstance()
+                || memoryBytes > config.getMaxMemoryMB() * 1024 * 1024
+                || !listener.isHealthy()) {
+            log.info(
+                    "Restarting LibreOffice listener on port {} after {} conversions ({} MB)",
+                    listener.getPort(),
+                    listener.getConversions(),
+                    memoryBytes / (1024 * 1024));
+            restartInBackground(listener);
+        } else {
+            idle.add(listener);
+        }
+    }
+
+    /** Probes idle instances and restarts the ones that stopped answering. */
+    @Scheduled(fixedDelay = 60000)
+    public void checkIdleInstances() {
+        if (!available) {
+            return;
+        }
+        List<LibreOfficeListener> instances = new ArrayList<>();
+        idle.drainTo(instances);
+        for (LibreOfficeListener listener : instances) {
+            if (listener.isHealthy()) {
+                idle.add(listener);
+            } else {
+                log.warn("LibreOffice listener on port {} is not responding", listener.getPort());
+                restartInBackground(listener);
+            }
+        }
+    }
+
+    private void restartInBackground(LibreOfficeListener listener) {
+        try {
+            maintenance.execute(
+                    () -> {
+                        listener.stop();
+                        try {
+                            listener.start();
+                        } catch (IOException e) {
+                            log.warn("Unable to restart LibreOffice listener: {}", e.getMessage());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            idle.add(listener);
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            listener.stop();
+        }
+    }
+}
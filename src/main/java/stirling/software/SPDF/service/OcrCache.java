@@ -0,0 +1,243 @@
+package stirling.software.SPDF.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.model.ApplicationProperties;
+
+/**
+ * On-disk LRU cache of per-page Tesseract PDFs.
+ *
+ * <p>Entries are keyed by the SHA-256 of the language list and the rendered page raster, so a page
+ * is only reused when it renders to exactly the same pixels; a perceptual hash would also match
+ * pages that differ in small print. Access order is kept in memory and mirrored in the file
+ * modification times, so it survives restarts. Once the cache grows beyond {@code maxSizeMB} the
+ * least recently used entries are deleted.
+ */
+@Service
+@Slf4j
+public class OcrCache {
+
+    // bump when the cached output changes, e.g. a different render resolution
+    private static final String KEY_VERSION = "ocr-v2";
+
+    private final ApplicationProperties.System.OcrCache config;
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final Counter hits;
+    private final Counter misses;
+
+    /** Cache entry key to file size, in access order. */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+
+    public OcrCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.config = applicationProperties.getSystem().getOcrCache();
+        this.cacheDir = Path.of(config.getDirectory()).toAbsolutePath();
+        this.maxBytes = config.getMaxSizeMB() * 1024 * 1024;
+        this.hits =
+                Counter.builder("ocr.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses =
+                Counter.builder("ocr.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("ocr.cache.size", this, OcrCache::getTotalBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Files.createDirectories(cacheDir);
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            List<Path> cached =
+                    files.filter(Files::isRegularFile)
+                            .sorted(Comparator.comparing(OcrCache::lastModified))
+                            .toList();
+            synchronized (this) {
+                for (Path file : cached) {
+                    String name = file.getFileName().toString();
+                    if (!name.endsWith(".pdf")) {
+                        // left over from an interrupted store
+                        Files.deleteIfExists(file);
+                        continue;
+                    }
+                    long size = Files.size(file);
+                    entries.put(name.substring(0, name.length() - 4), size);
+                    totalBytes += size;
+                }
+                evict();
+            }
+        }
+        log.info("OCR cache holds {} pages ({} MB)", entries.size(), totalBytes / (1024 * 1024));
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /** Starts a key digest for the given languages, to be completed with the page raster bytes. */
+    public MessageDigest newKeyDigest(List<String> languages) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] languageList = String.join("+", languages).getBytes(StandardCharsets.UTF_8);
+            // length-prefixed, so no language list can run into the raster bytes
+            digest.update(
+                    (KEY_VERSION + "\n" + languageList.length + "\n")
+                            .getBytes(StandardCharsets.UTF_8));
+            digest.update(languageList);
+            return digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String toKey(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Copies the cached OCR result for the key to {@code target}.
+     *
+     * @return false on a cache miss
+     */
+    public boolean copyTo(String key, Path target) {
+        if (!config.isEnabled()) {
+            return false;
+        }
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                misses.increment();
+                return false;
+            }
+        }
+        Path file = entryPath(key);
+        try {
+            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.increment();
+            return true;
+        } catch (IOException e) {
+            log.warn("Unable to read cached OCR result {}, dropping it", key, e);
+            remove(key);
+            misses.increment();
+            return false;
+        }
+    }
+
+    /** Stores a copy of the OCR result for the key, evicting old entries if needed. */
+    public void put(String key, Path pagePdf) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            long size = Files.size(pagePdf);
+            if (size > maxBytes) {
+                return;
+            }
+            Path file = entryPath(key);
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(key + "." + UUID.randomUUID() + ".tmp");
+            Files.copy(pagePdf, temp);
+            try {
+                Files.move(
+                        temp,
+                        file,
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            synchronized (this) {
+                Long previous = entries.put(key, size);
+                totalBytes += size - (previous != null ? previous : 0);
+                evict();
+            }
+        } catch (IOException e) {
+            log.warn("Unable to cache OCR result {}", key, e);
+        }
+    }
+
+    /**
+     * Deletes every cached page.
+     *
+     * @return the number of pages removed
+     */
+    public synchronized int purge() {
+        int count = entries.size();
+        for (String key : List.copyOf(entries.keySet())) {
+            remove(key);
+        }
+        log.info("Purged {} pages from the OCR cache", count);
+        return count;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            deleteQuietly(entryPath(entry.getKey()));
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        deleteQuietly(entryPath(key));
+    }
+
+    private Path entryPath(String key) {
+        // spread entries over subdirectories to keep directory listings short
+        return cacheDir.resolve(key.substring(0, 2)).resolve(key + ".pdf");
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime();
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Unable to delete cached OCR result {}", file, e);
+        }
+    }
+}
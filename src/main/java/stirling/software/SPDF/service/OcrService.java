@@ -0,0 +1,341 @@
+package stirling.software.SPDF.service;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.service.PageRenderService.DocumentSource;
+import stirling.software.SPDF.service.PageRenderService.RenderSettings;
+import stirling.software.SPDF.utils.PageTextIndex;
+import stirling.software.SPDF.utils.ProcessExecutor;
+
+/**
+ * Page-parallel Tesseract OCR.
+ *
+ * <p>The calling thread renders pages (PDFBox rendering of one document is not thread-safe) and
+ * hands each one to a pool of {@code tesseractSessionLimit} workers that run Tesseract
+ * concurrently. Rendering runs at most two pages per worker ahead of the OCR, so large scans do not
+ * pile up rendered images. Pages are handed over as uncompressed PPM files, which skips the PNG
+ * encode and decode, and the per-page PDFs are merged in page order as soon as they are done.
+ *
+ * <p>The raster is hashed while it is written, and pages found in the {@link OcrCache} are taken
+ * from there instead of running Tesseract again.
+ */
+@Service
+@Slf4j
+public class OcrService {
+
+    private static final int RENDER_DPI = 300;
+
+    private final CustomPDDocumentFactory pdfDocumentFactory;
+
+    private final OcrCache ocrCache;
+
+    private final PageTextIndexService pageTextIndexService;
+
+    private final PageRenderService pageRenderService;
+
+    private final String tesseractCommand;
+
+    private final int workers;
+
+    private final ThreadPoolExecutor ocrPool;
+
+    @Autowired
+    public OcrService(
+            CustomPDDocumentFactory pdfDocumentFactory,
+            OcrCache ocrCache,
+            PageTextIndexService pageTextIndexService,
+            PageRenderService pageRenderService,
+            ApplicationProperties applicationProperties) {
+        this(
+                pdfDocumentFactory,
+                ocrCache,
+                pageTextIndexService,
+                pageRenderService,
+                applicationProperties,
+                "tesseract");
+    }
+
+    OcrService(
+            CustomPDDocumentFactory pdfDocumentFactory,
+            OcrCache ocrCache,
+            PageTextIndexService pageTextIndexService,
+            PageRenderService pageRenderService,
+            ApplicationProperties applicationProperties,
+            String tesseractCommand) {
+        this.tesseractCommand = tesseractCommand;
+        this.pdfDocumentFactory = pdfDocumentFactory;
+        this.ocrCache = ocrCache;
+        this.pageTextIndexService = pageTextIndexService;
+        this.pageRenderService = pageRenderService;
+        this.workers =
+                applicationProperties
+                        .getProcessExecutor()
+                        .getSessionLimit()
+                        .getTesseractSessionLimit();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.ocrPool =
+                new ThreadPoolExecutor(
+                        workers,
+                        workers,
+                        60L,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(runnable, "ocr-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        ocrPool.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ocrPool.shutdownNow();
+    }
+
+    /**
+     * OCRs every page of the input into a searchable PDF.
+     *
+     * @param workDir empty directory for the intermediate page images and PDFs
+     * @param skipPagesWithText keep pages that already have text as they are
+     */
+    public void ocrPdf(
+            Path inputPdf,
+            Path outputPdf,
+            Path workDir,
+            List<String> languages,
+            boolean skipPagesWithText)
+            throws IOException, InterruptedException {
+        Semaphore renderAhead = new Semaphore(workers * 2);
+        List<Future<Path>> pages = new ArrayList<>();
+        List<PDDocument> mergedPages = new ArrayList<>();
+        try (PDDocument document = pdfDocumentFactory.load(inputPdf.toFile());
+                PDDocument output = new PDDocument()) {
+            PageTextIndex textIndex =
+                    skipPagesWithText ? pageTextIndexService.getIndex(document) : null;
+            PDFMergerUtility merger = new PDFMergerUtility();
+            int pageCount = document.getNumberOfPages();
+            List<Integer> pagesToOcr = new ArrayList<>();
+            for (int pageNum = 0; pageNum < pageCount; pageNum++) {
+                if (!skipPagesWithText || !textIndex.hasText(pageNum)) {
+                    pagesToOcr.add(pageNum);
+                }
+            }
+
+            // pages are rendered, written and hashed in parallel, then queued for Tesseract in
+            // order
+            int[] nextPage = {0};
+            try {
+                pageRenderService.renderPages(
+                        document,
+                        DocumentSource.of(inputPdf),
+                        pagesToOcr,
+                        new RenderSettings(RENDER_DPI, ImageType.RGB, false),
+                        (pageNum, image) -> {
+                            Path imagePath = workDir.resolve(String.format("page_%d.ppm", pageNum));
+                            if (ocrCache.isEnabled()) {
+                                MessageDigest digest = ocrCache.newKeyDigest(languages);
+                                writePpm(image, imagePath, digest);
+                                return OcrCache.toKey(digest);
+                            }
+                            writePpm(image, imagePath, null);
+                            return null;
+                        },
+                        (pageNum, cacheKey) -> {
+                            for (; nextPage[0] < pageNum; nextPage[0]++) {
+                                keepPage(document, nextPage[0], workDir, pages);
+                            }
+                            nextPage[0] = pageNum + 1;
+                            try {
+                                renderAhead.acquire();
+                                queueOcr(pageNum, cacheKey, workDir, languages, renderAhead, pages);
+                                mergeFinishedPages(pages, mergedPages, merger, output, false);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new InterruptedIOException("OCR was cancelled");
+                            }
+                        });
+            } catch (InterruptedIOException e) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException(e.getMessage());
+                }
+                throw e;
+            }
+            for (; nextPage[0] < pageCount; nextPage[0]++) {
+                keepPage(document, nextPage[0], workDir, pages);
+            }
+            mergeFinishedPages(pages, mergedPages, merger, output, true);
+            output.save(outputPdf.toFile());
+        } finally {
+            // stops (and kills the Tesseract of) any page still pending after a failure
+            pages.forEach(page -> page.cancel(true));
+            for (PDDocument page : mergedPages) {
+                page.close();
+            }
+        }
+    }
+
+    /** Saves the original page without OCR. */
+    private static void keepPage(
+            PDDocument document, int pageNum, Path workDir, List<Future<Path>> pages)
+            throws IOException {
+        Path pageOutputPath = workDir.resolve(String.format("page_%d.pdf", pageNum));
+        try (PDDocument pageDoc = new PDDocument()) {
+            pageDoc.addPage(document.getPage(pageNum));
+            pageDoc.save(pageOutputPath.toFile());
+        }
+        pages.add(CompletableFuture.completedFuture(pageOutputPath));
+    }
+
+    /**
+     * Takes the page from the OCR cache or hands its image to Tesseract. The render-ahead permit
+     * held for the page is released once its image is no longer needed.
+     */
+    private void queueOcr(
+            int pageNum,
+            String cacheKey,
+            Path workDir,
+            List<String> languages,
+            Semaphore renderAhead,
+            List<Future<Path>> pages)
+            throws IOException {
+        Path imagePath = workDir.resolve(String.format("page_%d.ppm", pageNum));
+        Path pageOutputPath = workDir.resolve(String.format("page_%d.pdf", pageNum));
+        if (cacheKey != null && ocrCache.copyTo(cacheKey, pageOutputPath)) {
+            Files.deleteIfExists(imagePath);
+            renderAhead.release();
+            pages.add(CompletableFuture.completedFuture(pageOutputPath));
+            return;
+        }
+        Path outputBase = workDir.resolve(String.format("page_%d", pageNum));
+        try {
+            pages.add(
+                    ocrPool.submit(
+                            () -> {
+                                try {
+                                    runTesseract(imagePath, outputBase, languages);
+                                    Files.deleteIfExists(imagePath);
+                                    if (cacheKey != null) {
+                                        ocrCache.put(cacheKey, pageOutputPath);
+                                    }
+                                    return pageOutputPath;
+                                } finally {
+                                    renderAhead.release();
+                                }
+                            }));
+        } catch (RuntimeException e) {
+            renderAhead.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends finished pages to the output in page order, stopping at the first unfinished page
+     * unless {@code waitForAll} is set.
+     */
+    private static void mergeFinishedPages(
+            List<Future<Path>> pages,
+            List<PDDocument> mergedPages,
+            PDFMergerUtility merger,
+            PDDocument output,
+            boolean waitForAll)
+            throws IOException, InterruptedException {
+        for (int i = mergedPages.size(); i < pages.size(); i++) {
+            Future<Path> page = pages.get(i);
+            if (!waitForAll && !page.isDone()) {
+                return;
+            }
+            Path pagePdf;
+            try {
+                pagePdf = page.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("OCR of page " + (i + 1) + " failed", e.getCause());
+            }
+            // the page must stay open until the output is saved
+            PDDocument pageDoc = Loader.loadPDF(pagePdf.toFile());
+            mergedPages.add(pageDoc);
+            merger.appendDocument(output, pageDoc);
+        }
+    }
+
+    private void runTesseract(Path imagePath, Path outputBase, List<String> languages)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(tesseractCommand);
+        command.add(imagePath.toString());
+        command.add(outputBase.toString());
+        command.add("-l");
+        command.add(String.join("+", languages));
+        // Always output PDF
+        command.add("pdf");
+        // the pages already run in parallel, one thread per Tesseract avoids oversubscription
+        Map<String, String> environment = workers > 1 ? Map.of("OMP_THREAD_LIMIT", "1") : null;
+        ProcessExecutor.getInstance(ProcessExecutor.Processes.TESSERACT)
+                .runCommandWithOutputHandling(command, null, environment);
+    }
+
+    /**
+     * Writes the image as a binary PPM (P6), which Tesseract reads without decoding.
+     *
+     * @param digest if not null, updated with the written bytes
+     */
+    static void writePpm(BufferedImage image, Path path, MessageDigest digest) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        byte[] rowBytes = new byte[width * 3];
+        OutputStream file = Files.newOutputStream(path);
+        if (digest != null) {
+            file = new DigestOutputStream(file, digest);
+        }
+        try (OutputStream out = new BufferedOutputStream(file, 1 << 16)) {
+            out.write(
+                    ("P6\n" + width + " " + height + "\n255\n")
+                            .getBytes(StandardCharsets.US_ASCII));
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                for (int x = 0; x < width; x++) {
+                    int rgb = row[x];
+                    rowBytes[x * 3] = (byte) (rgb >> 16);
+                    rowBytes[x * 3 + 1] = (byte) (rgb >> 8);
+                    rowBytes[x * 3 + 2] = (byte) rgb;
+                }
+                out.write(rowBytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package stirling.software.SPDF.service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadMemoryMappedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.multipart.MultipartFile;
+
+import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.model.ApplicationProperties;
+
+/**
+ * Renders the pages of a document on several cores.
+ *
+ * <p>{@link PDFRenderer} is not thread-safe, so each extra thread renders from its own read-only
+ * instance of the document, opened from a {@link DocumentSource}. The calling thread renders from
+ * the caller's document and hands the results to the consumer in page order. Helper threads
+ * borrowed from the {@link ComputeScheduler} render ahead of it, but at most {@value
+ * #PAGES_AHEAD_PER_HELPER} pages per helper can wait for the consumer, so memory stays bounded
+ * however long the document is. Helpers only run while compute slots are free and give their slot
+ * back whenever they get too far ahead; on a busy server every page is rendered on the calling
+ * thread as before.
+ */
+@Service
+@Slf4j
+public class PageRenderService {
+
+    private static final int PAGES_AHEAD_PER_HELPER = 2;
+
+    private final ComputeScheduler computeScheduler;
+
+    private final int maxHelpers;
+
+    public PageRenderService(
+            ComputeScheduler computeScheduler, ApplicationProperties applicationProperties) {
+        this.computeScheduler = computeScheduler;
+        this.maxHelpers =
+                Math.max(
+                        0,
+                        applicationProperties.getSystem().getComputePool().getMaxConcurrent() - 1);
+    }
+
+    /** Resolution, colour model and subsampling used for every page of a run. */
+    public record RenderSettings(float dpi, ImageType imageType, boolean subsamplingAllowed) {}
+
+    /** Work done on the rendering thread, e.g. encoding or analysing the page image. */
+    @FunctionalInterface
+    public interface PageTransform<T> {
+        T apply(int pageIndex, BufferedImage image) throws IOException;
+    }
+
+    /** Receives the pages in order, on the calling thread. */
+    @FunctionalInterface
+    public interface PageConsumer<T> {
+        void accept(int pageIndex, T result) throws IOException;
+    }
+
+    /**
+     * Opens read-only instances of the document being rendered. Every instance must have the same
+     * pages as the caller's document; instances that cannot be opened just mean fewer helpers.
+     */
+    public interface DocumentSource extends Closeable {
+
+        /**
+         * Called on the calling thread before any helper starts, and only if one may start. Any
+         * work on the caller's document belongs here.
+         */
+        default void prepare() throws IOException {}
+
+        PDDocument open() throws IOException;
+
+        @Override
+        default void close() throws IOException {}
+
+        /** Instances share the bytes instead of copying them. */
+        static DocumentSource of(byte[] pdf) {
+            return () -> Loader.loadPDF(pdf);
+        }
+
+        /** Instances map the file into memory, so the OS shares its pages between them. */
+        static DocumentSource of(Path pdf) {
+            return () -> Loader.loadPDF(new RandomAccessReadMemoryMappedFile(pdf));
+        }
+
+        /**
+         * Copies the upload to a temp file the first time an instance is needed, which is deleted
+         * when the source is closed.
+         */
+        static DocumentSource of(MultipartFile pdf) {
+            return new UploadSource(pdf);
+        }
+
+        /**
+         * For documents changed in memory: saves the document before the helpers start and opens
+         * instances from those bytes.
+         */
+        static DocumentSource snapshot(PDDocument document) {
+            return new SnapshotSource(document);
+        }
+    }
+
+    /** Renders every page of the document and hands the images to the consumer in order. */
+    public void renderPages(
+            PDDocument document,
+            DocumentSource source,
+            RenderSettings settings,
+            PageConsumer<BufferedImage> consumer)
+            throws IOException {
+        renderPages(document, source, allPages(document), settings, (i, image) -> image, consumer);
+    }
+
+    /**
+     * Renders every page of the document, applies the transform on the thread that rendered the
+     * page and hands the results to the consumer in order.
+     */
+    public <T> void renderPages(
+            PDDocument document,
+            DocumentSource source,
+            RenderSettings settings,
+            PageTransform<T> transform,
+            PageConsumer<T> consumer)
+            throws IOException {
+        renderPages(document, source, allPages(document), settings, transform, consumer);
+    }
+
+    /**
+     * Renders the given 0-based pages, applies the transform on the thread that rendered each page
+     * and hands the results to the consumer in the order of the list. The source, if any, is closed
+     * once rendering has finished.
+     *
+     * @param source opens instances for helper threads, or null to render on the calling thread
+     */
+    public <T> void renderPages(
+            PDDocument document,
+            DocumentSource source,
+            List<Integer> pageIndexes,
+            RenderSettings settings,
+            PageTransform<T> transform,
+            PageConsumer<T> consumer)
+            throws IOException {
+        try (RenderedPages<T> pages =
+                openPages(document, source, pageIndexes, settings, transform)) {
+            while (pages.hasNext()) {
+                int pageIndex = pages.nextPageIndex();
+                consumer.accept(pageIndex, pages.next());
+            }
+        }
+    }
+
+    /**
+     * Like {@link #renderPages}, but the caller pulls the results one at a time, for consumers such
+     * as image encoders that ask for their input instead of being handed it. Helpers keep rendering
+     * ahead between calls, so the pages must be closed even if not all of them were read.
+     */
+    public <T> RenderedPages<T> openPages(
+            PDDocument document,
+            DocumentSource source,
+            List<Integer> pageIndexes,
+            RenderSettings settings,
+            PageTransform<T> transform) {
+        int helpers =
+                source == null ? 0 : Math.min(maxHelpers, Math.max(pageIndexes.size() - 1, 0));
+        if (helpers > 0) {
+            try {
+                source.prepare();
+            } catch (IOException | RuntimeException e) {
+                log.debug("Could not prepare render instances, rendering on one thread", e);
+                helpers = 0;
+            }
+        }
+        return new RenderRun<>(document, source, pageIndexes, settings, transform, helpers);
+    }
+
+    /** Results of {@link #openPages}, in the order of the requested pages. */
+    public interface RenderedPages<T> extends Closeable {
+
+        boolean hasNext();
+
+        /** The 0-based index of the page {@link #next} returns. */
+        int nextPageIndex();
+
+        /** Renders the next page, or waits for the helper that claimed it. */
+        T next() throws IOException;
+
+        /** Stops the helpers, waits for them to finish their page and closes the instances. */
+        @Override
+        void close() throws IOException;
+    }
+
+    private static List<Integer> allPages(PDDocument document) {
+        return IntStream.range(0, document.getNumberOfPages()).boxed().toList();
+    }
+
+    private static PDFRenderer newRenderer(PDDocument document, RenderSettings settings) {
+        PDFRenderer renderer = new PDFRenderer(document);
+        renderer.setSubsamplingAllowed(settings.subsamplingAllowed());
+        return renderer;
+    }
+
+    /** One call of {@link #openPages}: the pages, the results not yet consumed and the helpers. */
+    private class RenderRun<T> implements RenderedPages<T> {
+
+        private final DocumentSource source;
+
+        private final List<Integer> pageIndexes;
+
+        private final RenderSettings settings;
+
+        private final PageTransform<T> transform;
+
+        private final PDFRenderer callerRenderer;
+
+        private final List<CompletableFuture<T>> results;
+
+        /** Position in {@link #pageIndexes} of the next page nobody has claimed. */
+        private final AtomicInteger nextClaim = new AtomicInteger();
+
+        /** Pages helpers may still render ahead of the consumer. */
+        private final Semaphore window = new Semaphore(0);
+
+        /** Helper renderers not in use, kept so a restarted helper need not open the document. */
+        private final Queue<PDFRenderer> idleRenderers = new ConcurrentLinkedQueue<>();
+
+        private final List<PDDocument> instances = new ArrayList<>();
+
+        private final int maxActiveHelpers;
+
+        private int activeHelpers;
+
+        /** Position in {@link #pageIndexes} of the page {@link #next} returns. */
+        private int position;
+
+        /** Whether the page last returned was rendered by a helper and still holds a permit. */
+        private boolean holdsPermit;
+
+        private volatile boolean finished;
+
+        private volatile boolean sourceFailed;
+
+        RenderRun(
+                PDDocument document,
+                DocumentSource source,
+                List<Integer> pageIndexes,
+                RenderSettings settings,
+                PageTransform<T> transform,
+                int helpers) {
+            this.source = source;
+            this.pageIndexes = pageIndexes;
+            this.settings = settings;
+            this.transform = transform;
+            this.callerRenderer = newRenderer(document, settings);
+            this.results = new ArrayList<>(pageIndexes.size());
+            for (int i = 0; i < pageIndexes.size(); i++) {
+                results.add(new CompletableFuture<>());
+            }
+            this.maxActiveHelpers = helpers;
+            window.release(helpers * PAGES_AHEAD_PER_HELPER);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < pageIndexes.size();
+        }
+
+        @Override
+        public int nextPageIndex() {
+            return pageIndexes.get(position);
+        }
+
+        @Override
+        public T next() throws IOException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (holdsPermit) {
+                // only now, so the page being consumed still counts towards the limit
+                holdsPermit = false;
+                window.release();
+            }
+            startHelpers();
+            int pageIndex = pageIndexes.get(position);
+            boolean claimedByHelper = !nextClaim.compareAndSet(position, position + 1);
+            T result = claimedByHelper ? await(position, pageIndex) : renderOnCaller(pageIndex);
+            results.set(position, null);
+            holdsPermit = claimedByHelper;
+            position++;
+            return result;
+        }
+
+        private T await(int position, int pageIndex) throws IOException {
+            try {
+                return results.get(position).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while rendering page " + pageIndex);
+            } catch (ExecutionException e) {
+                // render again here, so errors are reported the same way on every thread
+                log.debug("Helper failed to render page {}, retrying", pageIndex, e.getCause());
+                return renderOnCaller(pageIndex);
+            }
+        }
+
+        /**
+         * Renders on the calling thread once it has a compute slot. Only request threads may be
+         * turned away when the queue is full, and only for the first page, so a response is not cut
+         * off halfway; background work, such as jobs and watched folders, was admitted through its
+         * own queue and waits instead.
+         */
+        private T renderOnCaller(int pageIndex) throws IOException {
+            Callable<T> task = () -> render(callerRenderer, pageIndex);
+            try {
+                return position == 0 && RequestContextHolder.getRequestAttributes() != null
+                        ? computeScheduler.execute(task)
+                        : computeScheduler.executeInBackground(task);
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to render page " + (pageIndex + 1), e);
+            }
+        }
+
+        private T render(PDFRenderer renderer, int pageIndex) throws IOException {
+            BufferedImage image =
+                    renderer.renderImageWithDPI(pageIndex, settings.dpi(), settings.imageType());
+            return transform.apply(pageIndex, image);
+        }
+
+        private void startHelpers() {
+            while (!sourceFailed
+                    && nextClaim.get() < pageIndexes.size()
+                    && window.availablePermits() > 0) {
+                synchronized (this) {
+                    if (activeHelpers >= maxActiveHelpers) {
+                        return;
+                    }
+                    activeHelpers++;
+                }
+                if (!computeScheduler.tryRunAsync(this::helperLane)) {
+                    helperDone();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Renders claimed pages until none are left or the window is full, then gives up its slot.
+         */
+        private void helperLane() {
+            PDFRenderer renderer = finished ? null : idleRenderers.poll();
+            try {
+                if (finished) {
+                    return;
+                }
+                if (renderer == null) {
+                    renderer = openRenderer();
+                    if (renderer == null) {
+                        return;
+                    }
+                }
+                while (!finished && window.tryAcquire()) {
+                    int position = nextClaim.getAndIncrement();
+                    if (position >= pageIndexes.size()) {
+                        window.release();
+                        break;
+                    }
+                    CompletableFuture<T> result = results.get(position);
+                    try {
+                        result.complete(render(renderer, pageIndexes.get(position)));
+                    } catch (Exception e) {
+                        result.completeExceptionally(e);
+                    }
+                }
+                idleRenderers.add(renderer);
+            } finally {
+                helperDone();
+            }
+        }
+
+        private PDFRenderer openRenderer() {
+            try {
+                PDDocument instance = source.open();
+                synchronized (this) {
+                    if (finished) {
+                        instance.close();
+                        return null;
+                    }
+                    instances.add(instance);
+                }
+                return newRenderer(instance, settings);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Could not open a render instance, rendering on fewer threads", e);
+                sourceFailed = true;
+                return null;
+            }
+        }
+
+        private synchronized void helperDone() {
+            activeHelpers--;
+            notifyAll();
+        }
+
+        @Override
+        public void close() throws IOException {
+            finished = true;
+            boolean interrupted = false;
+            synchronized (this) {
+                while (activeHelpers > 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            for (PDDocument instance : instances) {
+                instance.close();
+            }
+            if (source != null) {
+                source.close();
+            }
+        }
+    }
+
+    /** Copies an upload to disk once, on first use, and maps it for every instance. */
+    private static class UploadSource implements DocumentSource {
+
+        private final MultipartFile upload;
+
+        private Path tempFile;
+
+        UploadSource(MultipartFile upload) {
+            this.upload = upload;
+        }
+
+        @Override
+        public synchronized PDDocument open() throws IOException {
+            if (tempFile == null) {
+                Path copy = Files.createTempFile("render_", ".pdf");
+                try (InputStream in = upload.getInputStream()) {
+                    Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    Files.deleteIfExists(copy);
+                    throw e;
+                }
+                tempFile = copy;
+            }
+            return DocumentSource.of(tempFile).open();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile);
+                tempFile = null;
+            }
+        }
+    }
+
+    /** Saves a copy of a document changed in memory for the helpers to open. */
+    private static class SnapshotSource implements DocumentSource {
+
+        private final PDDocument document;
+
+        private byte[] pdf;
+
+        SnapshotSource(PDDocument document) {
+            this.document = document;
+        }
+
+        @Override
+        public void prepare() throws IOException {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            pdf = baos.toByteArray();
+        }
+
+        @Override
+        public PDDocument open() throws IOException {
+            if (pdf == null) {
+                throw new IOException("Snapshot was not prepared");
+            }
+            return Loader.loadPDF(pdf);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package stirling.software.SPDF.service;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.utils.PageTextIndex;
+
+/**
+ * Hands out the {@link PageTextIndex} of a loaded document, extracting it on first use.
+ *
+ * <p>Indexes are held weakly by document, so they go away with it. An index describes the pages as
+ * they were when it was built; callers that add, remove or edit pages afterwards must {@link
+ * #invalidate} it.
+ */
+@Service
+@Slf4j
+public class PageTextIndexService {
+
+    private final Map<PDDocument, PageTextIndex> indexes =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    public PageTextIndex getIndex(PDDocument document) throws IOException {
+        return getIndex(document, false);
+    }
+
+    /**
+     * @param withPositions also keep the position of every character; an index built without them
+     *     is replaced
+     */
+    public PageTextIndex getIndex(PDDocument document, boolean withPositions) throws IOException {
+        PageTextIndex index = indexes.get(document);
+        if (index != null && (index.hasPositions() || !withPositions)) {
+            return index;
+        }
+        // built outside the map lock so other documents are not held up by a large extraction
+        long start = System.nanoTime();
+        index = PageTextIndex.build(document, withPositions);
+        log.debug(
+                "Indexed text of {} pages in {} ms",
+                index.getPageCount(),
+                (System.nanoTime() - start) / 1_000_000);
+        indexes.put(document, index);
+        return index;
+    }
+
+    public void invalidate(PDDocument document) {
+        indexes.remove(document);
+    }
+}
@@ -0,0 +1,349 @@
+package stirling.software.SPDF.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSObjectKey;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.utils.ProcessExecutor;
+
+/**
+ * Compresses PDFs with qpdf, optionally downscaling and re-encoding their images first.
+ *
+ * <p>For a target size, the images are analysed once to estimate how many bytes they will take at a
+ * given scale and JPEG quality. Candidate settings predicted to land just under the target are then
+ * tried two at a time, each starting from the untouched input, and the largest result that fits
+ * wins. Only if none fits is a second, smaller round of candidates tried, so images are never
+ * recompressed more than once.
+ */
+@Service
+@Slf4j
+public class PdfCompressionService {
+
+    // the size model is only an estimate, aim a little below the target
+    private static final double TARGET_MARGIN = 0.95;
+
+    private static final double MIN_SCALE = 0.1;
+
+    private static final int SEARCH_ROUNDS = 2;
+
+    // JPEG size relative to quality 0.75, roughly constant across photographic images
+    private static final float[] QUALITIES = {0.3f, 0.4f, 0.5f, 0.6f, 0.75f, 0.85f, 0.95f};
+    private static final double[] RELATIVE_SIZES = {0.45, 0.53, 0.62, 0.75, 1.0, 1.4, 2.3};
+
+    private static final int SAMPLE_MAX_PIXELS = 2_000_000;
+
+    // every candidate holds decoded images of its own, more in parallel would multiply the heap use
+    private static final int MAX_PARALLEL_CANDIDATES = 2;
+
+    private final ComputeScheduler computeScheduler;
+
+    private final PdfImageCompressionService imageCompressionService;
+
+    private final String qpdfCommand;
+
+    @Autowired
+    public PdfCompressionService(
+            ComputeScheduler computeScheduler, PdfImageCompressionService imageCompressionService) {
+        this(computeScheduler, imageCompressionService, "qpdf");
+    }
+
+    PdfCompressionService(
+            ComputeScheduler computeScheduler,
+            PdfImageCompressionService imageCompressionService,
+            String qpdfCommand) {
+        this.computeScheduler = computeScheduler;
+        this.imageCompressionService = imageCompressionService;
+        this.qpdfCommand = qpdfCommand;
+    }
+
+    /**
+     * Compresses with a fixed optimization level. Levels 6 to 9 also downscale the images.
+     *
+     * @return a new temporary file, to be deleted by the caller
+     */
+    public Path compress(Path input, int optimizeLevel, boolean normalize, boolean linearize)
+            throws Exception {
+        Path qpdfInput = input;
+        Path scaledImages = null;
+        try {
+            if (optimizeLevel >= 6) {
+                double scaleFactor =
+                        switch (optimizeLevel) {
+                            case 6 -> 0.9; // 90% of original size
+                            case 7 -> 0.8; // 80% of original size
+                            case 8 -> 0.65; // 65% of original size
+                            case 9 -> 0.5; // 50% of original size
+                            default -> 1.0;
+                        };
+                scaledImages = Files.createTempFile("images_", ".pdf");
+                imageCompressionService.compressImages(input, scaledImages, scaleFactor, 0.75f);
+                qpdfInput = scaledImages;
+            }
+            Path output = Files.createTempFile("output_", ".pdf");
+            try {
+                runQpdf(qpdfInput, output, optimizeLevel, normalize, linearize);
+            } catch (IOException | RuntimeException | InterruptedException e) {
+                Files.deleteIfExists(output);
+                throw e;
+            }
+            return output;
+        } finally {
+            if (scaledImages != null) {
+                Files.deleteIfExists(scaledImages);
+            }
+        }
+    }
+
+    /**
+     * Compresses to at most {@code targetSize} bytes if possible, keeping as much image quality as
+     * the target allows. If the target cannot be reached, returns the smallest result found.
+     *
+     * @return a new temporary file, to be deleted by the caller
+     */
+    public Path compressToSize(Path input, long targetSize, boolean normalize, boolean linearize)
+            throws Exception {
+        ImageStats stats;
+        try (PDDocument document = Loader.loadPDF(input.toFile())) {
+            stats = analyzeImages(document);
+        }
+        long otherBytes = Math.max(0, Files.size(input) - stats.encodedBytes);
+        log.info(
+                "Compressing {} bytes to {}: {} images, {} image bytes, {} bytes per pixel at quality 0.75",
+                Files.size(input),
+                targetSize,
+                stats.count,
+                stats.encodedBytes,
+                String.format("%.3f", stats.bytesPerPixel));
+
+        List<Candidate> candidates = new ArrayList<>();
+        // qpdf alone may already be enough, and keeps the images untouched
+        candidates.add(new Candidate(1.0, 0f));
+        if (stats.pixels > 0) {
+            candidates.addAll(predictCandidates(stats, targetSize * TARGET_MARGIN - otherBytes));
+        }
+
+        // filled by the candidate tasks, so finished candidates are cleaned up whatever happens
+        List<Result> results = Collections.synchronizedList(new ArrayList<>());
+        try {
+            for (int round = 0; round < SEARCH_ROUNDS && !candidates.isEmpty(); round++) {
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (Candidate candidate : candidates) {
+                    tasks.add(
+                            () -> {
+                                try {
+                                    results.add(
+                                            tryCandidate(input, candidate, normalize, linearize));
+                                } catch (IOException | RuntimeException e) {
+                                    // keep the other candidates, and their temp files
+                                    log.warn("Compression with {} failed", candidate, e);
+                                }
+                                return null;
+                            });
+                }
+                computeScheduler.invokeAll(tasks, MAX_PARALLEL_CANDIDATES);
+                if (results.isEmpty()) {
+                    throw new IOException("Unable to compress the PDF, see the log for details");
+                }
+                if (results.stream().anyMatch(result -> result.size <= targetSize)) {
+                    break;
+                }
+                // every candidate was too large, scale down from the smallest one
+                Result smallest = Collections.min(results, Comparator.comparingLong(r -> r.size));
+                candidates = refineCandidates(smallest, targetSize, otherBytes);
+            }
+
+            Result best =
+                    results.stream()
+                            .filter(result -> result.size <= targetSize)
+                            .max(Comparator.comparingLong(r -> r.size))
+                            .orElseGet(
+                                    () ->
+                                            Collections.min(
+                                                    results,
+                                                    Comparator.comparingLong(r -> r.size)));
+            log.info(
+                    "Picked scale {} quality {} ({} bytes) out of {} candidates",
+                    String.format("%.2f", best.candidate.scale),
+                    best.candidate.quality,
+                    best.size,
+                    results.size());
+            results.remove(best);
+            return best.file;
+        } finally {
+            for (Result result : results) {
+                Files.deleteIfExists(result.file);
+            }
+        }
+    }
+
+    /** Candidates at a few JPEG qualities, each scaled to fit the image byte budget. */
+    private static List<Candidate> predictCandidates(ImageStats stats, double imageBudget) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (float quality : new float[] {0.85f, 0.7f, 0.5f}) {
+            double bytesAtFullScale = stats.pixels * stats.bytesPerPixel * relativeSize(quality);
+            double scale = imageBudget > 0 ? Math.sqrt(imageBudget / bytesAtFullScale) : MIN_SCALE;
+            candidates.add(new Candidate(Math.max(MIN_SCALE, Math.min(1.0, scale)), quality));
+        }
+        // a safety net in case the images compress worse than the sample
+        Candidate lowest = candidates.get(candidates.size() - 1);
+        candidates.add(new Candidate(Math.max(MIN_SCALE, lowest.scale * 0.7), 0.4f));
+        return candidates.stream().distinct().toList();
+    }
+
+    private static List<Candidate> refineCandidates(
+            Result smallest, long targetSize, long otherBytes) {
+        Candidate from = smallest.candidate;
+        if (from.quality == 0f || from.scale <= MIN_SCALE) {
+            return List.of(new Candidate(MIN_SCALE, 0.3f));
+        }
+        double imageBytes = Math.max(1, smallest.size - otherBytes);
+        double imageBudget = targetSize * TARGET_MARGIN - otherBytes;
+        double shrink = imageBudget > 0 ? Math.sqrt(imageBudget / imageBytes) : 0;
+        double scale = Math.max(MIN_SCALE, from.scale * shrink);
+        return List.of(
+                new Candidate(scale, from.quality),
+                new Candidate(Math.max(MIN_SCALE, scale * 0.7), 0.3f));
+    }
+
+    private static double relativeSize(float quality) {
+        for (int i = 1; i < QUALITIES.length; i++) {
+            if (quality <= QUALITIES[i]) {
+                double t = (quality - QUALITIES[i - 1]) / (QUALITIES[i] - QUALITIES[i - 1]);
+                return RELATIVE_SIZES[i - 1] + t * (RELATIVE_SIZES[i] - RELATIVE_SIZES[i - 1]);
+            }
+        }
+        return RELATIVE_SIZES[RELATIVE_SIZES.length - 1];
+    }
+
+    private Result tryCandidate(
+            Path input, Candidate candidate, boolean normalize, boolean linearize)
+            throws Exception {
+        Path qpdfInput = input;
+        Path scaledImages = null;
+        Path output = Files.createTempFile("output_", ".pdf");
+        try {
+            if (candidate.quality > 0f) {
+                scaledImages = Files.createTempFile("images_", ".pdf");
+                imageCompressionService.compressImages(
+                        input, scaledImages, candidate.scale, candidate.quality);
+                qpdfInput = scaledImages;
+            }
+            runQpdf(qpdfInput, output, 9, normalize, linearize);
+            return new Result(candidate, output, Files.size(output));
+        } catch (Exception e) {
+            Files.deleteIfExists(output);
+            throw e;
+        } finally {
+            if (scaledImages != null) {
+                Files.deleteIfExists(scaledImages);
+            }
+        }
+    }
+
+    /**
+     * Sums up the images that can be recompressed and measures the JPEG bytes per pixel of the
+     * largest one at quality 0.75.
+     */
+    private static ImageStats analyzeImages(PDDocument document) throws IOException {
+        ImageStats stats = new ImageStats();
+        PDImageXObject largest = null;
+        for (COSObjectKey key : PdfImageCompressionService.findImages(document)) {
+            PDImageXObject image =
+                    new PDImageXObject(
+                            new PDStream(PdfImageCompressionService.getStream(document, key)),
+                            null);
+            try {
+                if (!PdfImageCompressionService.isSupported(image)) {
+                    continue;
+                }
+            } catch (IOException e) {
+                continue;
+            }
+            long pixels = (long) image.getWidth() * image.getHeight();
+            stats.count++;
+            stats.pixels += pixels;
+            stats.encodedBytes += image.getCOSObject().getLength();
+            if (largest == null || pixels > (long) largest.getWidth() * largest.getHeight()) {
+                largest = image;
+            }
+        }
+        BufferedImage sample =
+                largest != null ? PdfImageCompressionService.readSamples(largest) : null;
+        if (sample != null) {
+            long samplePixels = (long) sample.getWidth() * sample.getHeight();
+            double sampleScale =
+                    Math.min(1.0, Math.sqrt(SAMPLE_MAX_PIXELS / (double) samplePixels));
+            if (sampleScale < 1) {
+                sample =
+                        PdfImageCompressionService.downscale(
+                                sample,
+                                (int) (sample.getWidth() * sampleScale),
+                                (int) (sample.getHeight() * sampleScale));
+            }
+            byte[] jpeg = PdfImageCompressionService.encodeJpeg(sample, 0.75f);
+            stats.bytesPerPixel =
+                    jpeg.length / (double) ((long) sample.getWidth() * sample.getHeight());
+        } else {
+            // nothing to measure, so nothing the image candidates can gain
+            stats.pixels = 0;
+        }
+        return stats;
+    }
+
+    private void runQpdf(
+            Path input, Path output, int compressionLevel, boolean normalize, boolean linearize)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(qpdfCommand);
+        if (normalize) {
+            command.add("--normalize-content=y");
+        }
+        if (linearize) {
+            command.add("--linearize");
+        }
+        command.add("--optimize-images");
+        command.add("--recompress-flate");
+        command.add("--compression-level=" + compressionLevel);
+        command.add("--compress-streams=y");
+        command.add("--object-streams=generate");
+        command.add(input.toString());
+        command.add(output.toString());
+        try {
+            ProcessExecutor.getInstance(ProcessExecutor.Processes.QPDF)
+                    .runCommandWithOutputHandling(command);
+        } catch (IOException e) {
+            // qpdf exits with 3 when it wrote the file but had warnings
+            if (!Files.exists(output) || Files.size(output) == 0) {
+                throw e;
+            }
+            log.warn("qpdf reported problems: {}", e.getMessage());
+        }
+    }
+
+    private static class ImageStats {
+        int count;
+        long pixels;
+        long encodedBytes;
+        double bytesPerPixel;
+    }
+
+    /** Image scale and JPEG quality to try, where quality 0 leaves the images as they are. */
+    private record Candidate(double scale, float quality) {}
+
+    private record Result(Candidate candidate, Path file, long size) {}
+}
@@ -0,0 +1,359 @@
+package stirling.software.SPDF.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSObjectKey;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.color.PDCalGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDCalRGB;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.color.PDICCBased;
+import org.apache.pdfbox.pdmodel.graphics.color.PDIndexed;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Downscales and re-encodes the images of a PDF.
+ *
+ * <p>Every image stream is processed once, however many pages use it, and the new data replaces the
+ * stream in place so all references, masks, Decode arrays and colour spaces are kept. Images are
+ * resampled in their own colour space by repeated halving with bilinear filtering, which averages
+ * the covered area at a fraction of the cost of {@code Image.SCALE_SMOOTH}. Images with few colours
+ * (charts, screenshots, scanned line art) are stored with Flate, everything else as JPEG, and the
+ * original is kept whenever the new encoding is not smaller.
+ *
+ * <p>PDFBox cannot read one document from several threads, so each compute lane decodes from its
+ * own read-only copy of the document and only the final write-back touches the output document.
+ */
+@Service
+@Slf4j
+public class PdfImageCompressionService {
+
+    // recompressing tiny images (icons, bullets) saves nothing
+    private static final long MIN_STREAM_LENGTH = 2048;
+
+    private static final int LINE_ART_MAX_COLORS = 256;
+
+    private static final int LINE_ART_SAMPLES_PER_AXIS = 256;
+
+    private final ComputeScheduler computeScheduler;
+
+    public PdfImageCompressionService(ComputeScheduler computeScheduler) {
+        this.computeScheduler = computeScheduler;
+    }
+
+    /**
+     * Writes a copy of the input with its images scaled by {@code scaleFactor} and re-encoded.
+     *
+     * @param quality JPEG quality for photographic images, between 0 and 1
+     * @return the number of images replaced
+     */
+    public int compressImages(Path input, Path output, double scaleFactor, float quality)
+            throws Exception {
+        try (PDDocument document = Loader.loadPDF(input.toFile())) {
+            List<COSObjectKey> keys = findImages(document);
+            Map<Thread, PDDocument> readers = new ConcurrentHashMap<>();
+            List<Callable<EncodedImage>> tasks = new ArrayList<>();
+            for (COSObjectKey key : keys) {
+                tasks.add(
+                        () -> {
+                            PDDocument reader = readers.get(Thread.currentThread());
+                            if (reader == null) {
+                                reader = Loader.loadPDF(input.toFile());
+                                readers.put(Thread.currentThread(), reader);
+                            }
+                            return compressImage(reader, key, scaleFactor, quality);
+                        });
+            }
+            List<EncodedImage> results;
+            try {
+                results = computeScheduler.invokeAll(tasks);
+            } finally {
+                for (PDDocument reader : readers.values()) {
+                    reader.close();
+                }
+            }
+
+            int replaced = 0;
+            for (EncodedImage result : results) {
+                if (result != null) {
+                    result.writeTo(getStream(document, result.key));
+                    replaced++;
+                }
+            }
+            log.info("Recompressed {} of {} images", replaced, keys.size());
+            document.save(output.toFile());
+            return replaced;
+        }
+    }
+
+    /**
+     * Returns the keys of all image streams in the document, except soft masks and stencil masks,
+     * which are only ever drawn through their parent image.
+     */
+    static List<COSObjectKey> findImages(PDDocument document) {
+        List<COSObjectKey> images = new ArrayList<>();
+        Set<COSBase> masks = new HashSet<>();
+        for (COSObjectKey key : document.getDocument().getXrefTable().keySet()) {
+            COSStream stream = getStream(document, key);
+            if (stream == null || !COSName.IMAGE.equals(stream.getCOSName(COSName.SUBTYPE))) {
+                continue;
+            }
+            images.add(key);
+            for (COSName maskName : new COSName[] {COSName.SMASK, COSName.MASK}) {
+                if (stream.getDictionaryObject(maskName) instanceof COSStream mask) {
+                    masks.add(mask);
+                }
+            }
+        }
+        images.removeIf(key -> masks.contains(getStream(document, key)));
+        return images;
+    }
+
+    static COSStream getStream(PDDocument document, COSObjectKey key) {
+        COSObject object = document.getDocument().getObjectFromPool(key);
+        return object != null && object.getObject() instanceof COSStream stream ? stream : null;
+    }
+
+    /**
+     * Whether the image has 8-bit samples in a colour space whose raw components can be resampled
+     * and stored as they are.
+     */
+    static boolean isSupported(PDImageXObject image) throws IOException {
+        COSStream stream = image.getCOSObject();
+        // a JPX image may take its colour space from the codestream, which re-encoding would lose
+        if (!stream.containsKey(COSName.COLORSPACE)) {
+            return false;
+        }
+        if (image.isStencil()
+                || image.getBitsPerComponent() != 8
+                || image.getColorKeyMask() != null
+                || stream.getLength() < MIN_STREAM_LENGTH
+                || stream.containsKey(COSName.F)
+                || stream.getInt(COSName.getPDFName("SMaskInData"), 0) != 0) {
+            return false;
+        }
+        PDColorSpace colorSpace = image.getColorSpace();
+        if (colorSpace instanceof PDIndexed) {
+            return true;
+        }
+        int components = colorSpace.getNumberOfComponents();
+        return (components == 1 || components == 3)
+                && (colorSpace instanceof PDDeviceGray
+                        || colorSpace instanceof PDDeviceRGB
+                        || colorSpace instanceof PDICCBased
+                        || colorSpace instanceof PDCalGray
+                        || colorSpace instanceof PDCalRGB);
+    }
+
+    private static EncodedImage compressImage(
+            PDDocument reader, COSObjectKey key, double scaleFactor, float quality) {
+        COSStream stream = getStream(reader, key);
+        try {
+            PDImageXObject image = new PDImageXObject(new PDStream(stream), null);
+            if (!isSupported(image)) {
+                return null;
+            }
+            // palette indices cannot be interpolated
+            boolean indexed = image.getColorSpace() instanceof PDIndexed;
+            BufferedImage pixels = readSamples(image);
+            if (pixels == null) {
+                return null;
+            }
+            boolean lineArt = indexed || isLineArt(pixels);
+            if (!indexed && scaleFactor < 1) {
+                int width = (int) (pixels.getWidth() * scaleFactor);
+                int height = (int) (pixels.getHeight() * scaleFactor);
+                if (width == 0 || height == 0) {
+                    return null;
+                }
+                pixels = downscale(pixels, width, height);
+            }
+            byte[] data = lineArt ? deflate(pixels) : encodeJpeg(pixels, quality);
+            if (data.length >= stream.getLength()) {
+                return null;
+            }
+            return new EncodedImage(
+                    key,
+                    data,
+                    lineArt ? COSName.FLATE_DECODE : COSName.DCT_DECODE,
+                    pixels.getWidth(),
+                    pixels.getHeight());
+        } catch (IOException | RuntimeException e) {
+            log.debug("Leaving image {} as it is: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Decodes the 8-bit samples as they are stored, without any colour conversion, into a gray or
+     * three-component image. Much faster than {@link PDImageXObject#getRawRaster()}, which reads
+     * sample by sample.
+     */
+    static BufferedImage readSamples(PDImageXObject image) throws IOException {
+        int components = image.getColorSpace().getNumberOfComponents();
+        int type =
+                switch (components) {
+                    case 1 -> BufferedImage.TYPE_BYTE_GRAY;
+                    case 3 -> BufferedImage.TYPE_3BYTE_BGR;
+                    default -> BufferedImage.TYPE_CUSTOM;
+                };
+        if (type == BufferedImage.TYPE_CUSTOM) {
+            return null;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int length = width * height * components;
+        byte[] samples;
+        try (InputStream in = image.getCOSObject().createInputStream()) {
+            samples = in.readNBytes(length);
+        }
+        if (samples.length < length) {
+            return null;
+        }
+        BufferedImage result = new BufferedImage(width, height, type);
+        byte[] pixels = ((DataBufferByte) result.getRaster().getDataBuffer()).getData();
+        if (components == 1) {
+            System.arraycopy(samples, 0, pixels, 0, length);
+        } else {
+            for (int i = 0; i < length; i += 3) {
+                pixels[i] = samples[i + 2];
+                pixels[i + 1] = samples[i + 1];
+                pixels[i + 2] = samples[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Scales down by halving the image until it is within a factor of two of the target, so each
+     * bilinear step averages all the pixels it covers.
+     */
+    static BufferedImage downscale(BufferedImage image, int targetWidth, int targetHeight) {
+        int type =
+                image.getType() == BufferedImage.TYPE_CUSTOM
+                        ? BufferedImage.TYPE_INT_RGB
+                        : image.getType();
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(
+                    RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(current, 0, 0, width, height, null);
+            g.dispose();
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    /** Whether a grid of samples across the image has no more than a palette's worth of colours. */
+    private static boolean isLineArt(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        int bands = raster.getNumBands();
+        int xStep = Math.max(1, image.getWidth() / LINE_ART_SAMPLES_PER_AXIS);
+        int yStep = Math.max(1, image.getHeight() / LINE_ART_SAMPLES_PER_AXIS);
+        int[] pixel = new int[bands];
+        Set<Integer> colors = new HashSet<>();
+        for (int y = 0; y < image.getHeight(); y += yStep) {
+            for (int x = 0; x < image.getWidth(); x += xStep) {
+                raster.getPixel(x, y, pixel);
+                int color = bands == 1 ? pixel[0] : pixel[0] << 16 | pixel[1] << 8 | pixel[2];
+                if (colors.add(color) && colors.size() > LINE_ART_MAX_COLORS) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            JPEGImageWriteParam param = new JPEGImageWriteParam(null);
+            param.setCompressionMode(JPEGImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setOptimizeHuffmanTables(true);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Flate-encodes the samples in PDF component order (RGB rather than Java's BGR). */
+    private static byte[] deflate(BufferedImage image) throws IOException {
+        byte[] samples = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            samples = samples.clone();
+            for (int i = 0; i < samples.length; i += 3) {
+                byte blue = samples[i];
+                samples[i] = samples[i + 2];
+                samples[i + 2] = blue;
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(samples);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private record EncodedImage(
+            COSObjectKey key, byte[] data, COSName filter, int width, int height) {
+
+        void writeTo(COSStream stream) throws IOException {
+            try (OutputStream out = stream.createRawOutputStream()) {
+                out.write(data);
+            }
+            stream.setItem(COSName.FILTER, filter);
+            stream.removeItem(COSName.DECODE_PARMS);
+            stream.setInt(COSName.WIDTH, width);
+            stream.setInt(COSName.HEIGHT, height);
+            stream.setInt(COSName.BITS_PER_COMPONENT, 8);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package stirling.software.SPDF.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDField;
+import org.apache.pdfbox.pdmodel.interactive.form.PDSignatureField;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Merges uploaded PDFs in a single pass.
+ *
+ * <p>Every input is parsed exactly once: its sort key (e.g. the document title) is read from that
+ * parse, signatures are removed from it before its pages are imported, and the merged document is
+ * saved once, to a temporary file. Inputs above {@code system.pdfLoading.fileThresholdMB} are read
+ * from disk and the merged document spills its streams to a scratch file beyond {@code
+ * scratchMemoryMB}, so merging hundreds of files does not need the whole result in memory.
+ */
+@Service
+public class PdfMergeService {
+
+    private final CustomPDDocumentFactory pdfDocumentFactory;
+
+    public PdfMergeService(CustomPDDocumentFactory pdfDocumentFactory) {
+        this.pdfDocumentFactory = pdfDocumentFactory;
+    }
+
+    /** Moves the pages of the documents into a new document, without copying any resources. */
+    public PDDocument mergeDocuments(List<PDDocument> documents) throws IOException {
+        PDDocument mergedDoc = pdfDocumentFactory.createNewDocument();
+        for (PDDocument doc : documents) {
+            for (PDPage page : doc.getPages()) {
+                mergedDoc.addPage(page);
+            }
+        }
+        return mergedDoc;
+    }
+
+    /**
+     * Merges the files into a new temporary file, to be deleted by the caller.
+     *
+     * @param files the inputs, which are left sorted in the order they were merged in
+     * @param sortType orderProvided, byFileName, byDateModified, byDateCreated or byPDFTitle
+     * @param removeSignatures flatten signature fields so the result carries no signatures
+     */
+    public Path merge(MultipartFile[] files, String sortType, boolean removeSignatures)
+            throws IOException {
+        List<Source> sources = new ArrayList<>();
+        Path output = Files.createTempFile("merged_", ".pdf");
+        // imported pages reference the sources, which must stay open until the merge is saved
+        try (PDDocument merged = pdfDocumentFactory.createNewScratchDocument()) {
+            for (MultipartFile file : files) {
+                PDDocument document = pdfDocumentFactory.load(file);
+                sources.add(new Source(file, document, sortKey(sortType, file, document)));
+            }
+            // stable, so inputs with equal or missing keys keep the order they were provided in
+            sources.sort(
+                    Comparator.comparing(
+                            Source::comparableKey,
+                            Comparator.nullsLast(Comparator.naturalOrder())));
+            for (int i = 0; i < files.length; i++) {
+                files[i] = sources.get(i).file;
+            }
+
+            PDFMergerUtility merger = new PDFMergerUtility();
+            for (Source source : sources) {
+                if (removeSignatures) {
+                    removeSignatures(source.document);
+                }
+                merger.appendDocument(merged, source.document);
+            }
+            merged.save(output.toFile());
+            return output;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(output);
+            throw e;
+        } finally {
+            for (Source source : sources) {
+                source.document.close();
+            }
+        }
+    }
+
+    private static Comparable<?> sortKey(String sortType, MultipartFile file, PDDocument document) {
+        if (sortType == null) {
+            return null;
+        }
+        return switch (sortType) {
+            case "byFileName" -> file.getOriginalFilename();
+            case "byDateModified" -> fileTime(file, false);
+            case "byDateCreated" -> fileTime(file, true);
+            case "byPDFTitle" -> document.getDocumentInformation().getTitle();
+            default -> null;
+        };
+    }
+
+    /** Timestamp of a file of the same name on the server, as the sort options always used. */
+    private static FileTime fileTime(MultipartFile file, boolean created) {
+        try {
+            BasicFileAttributes attributes =
+                    Files.readAttributes(
+                            Paths.get(file.getOriginalFilename()), BasicFileAttributes.class);
+            return created ? attributes.creationTime() : attributes.lastModifiedTime();
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void removeSignatures(PDDocument document) throws IOException {
+        PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
+        if (acroForm == null) {
+            return;
+        }
+        List<PDField> signatureFields =
+                acroForm.getFields().stream()
+                        .filter(field -> field instanceof PDSignatureField)
+                        .toList();
+        if (!signatureFields.isEmpty()) {
+            // Flatten the fields, effectively removing them
+            acroForm.flatten(signatureFields, false);
+        }
+    }
+
+    private record Source(MultipartFile file, PDDocument document, Comparable<?> sortKey) {
+
+        @SuppressWarnings("unchecked")
+        Comparable<Object> comparableKey() {
+            return (Comparable<Object>) sortKey;
+        }
+    }
+}
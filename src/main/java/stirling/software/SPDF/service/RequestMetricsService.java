@@ -0,0 +1,299 @@
+package stirling.software.SPDF.service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import stirling.software.SPDF.utils.HyperLogLog;
+
+/**
+ * Request metrics with a bounded number of meters.
+ *
+ * <p>Each combination of method, route pattern (e.g. {@code /api/v1/general/merge-pdfs}, never the
+ * raw URI) and status gets one latency timer and distribution summaries of the input bytes, output
+ * bytes and pages handled, all with percentile histograms. Unique users per route are counted with
+ * a {@link HyperLogLog} sketch of the session ids, so neither sessions nor raw URIs become meter
+ * tags and queries only walk the routes seen so far.
+ *
+ * <p>Time spent inside a request is also split into {@link Stage stages}: code that loads, saves or
+ * runs an external tool reports its time through {@link #addStageTime}, and whatever is left before
+ * the response starts counts as processing.
+ */
+@Service
+public class RequestMetricsService {
+
+    public static final String REQUESTS = "http.requests";
+
+    /** Request attribute holding the pages loaded while handling the request. */
+    public static final String PAGES_ATTRIBUTE = RequestMetricsService.class.getName() + ".pages";
+
+    public static final String STAGES = REQUESTS + ".stage";
+
+    /** Request attribute holding the {@link StageTimings} of the request. */
+    public static final String STAGES_ATTRIBUTE = RequestMetricsService.class.getName() + ".stages";
+
+    /** Where the time of a request goes. */
+    public enum Stage {
+        /** Parsing input documents. */
+        LOAD,
+        /** Serializing documents before the response starts. */
+        SAVE,
+        /** Running external tools such as LibreOffice, qpdf or OCRmyPDF. */
+        EXEC,
+        /** Handler time not covered by the other stages. */
+        PROCESS,
+        /** Writing the response body, including documents saved straight into it. */
+        WRITE;
+
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<MeterKey, RouteMeters> meters = new ConcurrentHashMap<>();
+
+    private final Map<RouteKey, HyperLogLog> usersByRoute = new ConcurrentHashMap<>();
+
+    private final Map<String, HyperLogLog> usersByMethod = new ConcurrentHashMap<>();
+
+    public RequestMetricsService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Adds to the pages counted for the request handled by the calling thread. Does nothing on
+     * other threads.
+     */
+    public static void addPages(int pages) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        Object current = attributes.getAttribute(PAGES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        int total = (current instanceof Integer count ? count : 0) + pages;
+        attributes.setAttribute(PAGES_ATTRIBUTE, total, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * Adds the time since {@code startNanos} to a stage of the request handled by the calling
+     * thread. Does nothing on other threads, so work handed to a pool counts towards the stage that
+     * waits for it.
+     */
+    public static void addStageTime(Stage stage, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        Object timings = attributes.getAttribute(STAGES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (timings instanceof StageTimings stageTimings) {
+            stageTimings.add(stage, elapsed);
+        }
+    }
+
+    /**
+     * Records a finished request.
+     *
+     * @param pages pages loaded while handling the request, 0 if unknown
+     * @param stages where the time went, or null if not tracked
+     */
+    public void record(
+            String method,
+            String route,
+            int status,
+            String userKey,
+            long durationNanos,
+            long inputBytes,
+            long outputBytes,
+            int pages,
+            StageTimings stages) {
+        RouteMeters routeMeters =
+                meters.computeIfAbsent(
+                        new MeterKey(method, route, status),
+                        key -> new RouteMeters(meterRegistry, key));
+        routeMeters.latency.record(durationNanos, TimeUnit.NANOSECONDS);
+        if (inputBytes >= 0) {
+            routeMeters.inputBytes.record(inputBytes);
+        }
+        if (outputBytes >= 0) {
+            routeMeters.outputBytes.record(outputBytes);
+        }
+        if (pages > 0) {
+            routeMeters.pages.record(pages);
+            if (durationNanos > 0) {
+                routeMeters.pageRate.record(pages * 1e9 / durationNanos);
+            }
+        }
+        if (stages != null) {
+            for (Stage stage : Stage.values()) {
+                long nanos = stages.getNanos(stage);
+                if (nanos > 0) {
+                    routeMeters.stages.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        usersByRoute
+                .computeIfAbsent(new RouteKey(method, route), key -> new HyperLogLog())
+                .add(userKey);
+        usersByMethod.computeIfAbsent(method, key -> new HyperLogLog()).add(userKey);
+    }
+
+    /** Number of requests of the method, to one route or all of them. */
+    public double getRequestCount(String method, Optional<String> route) {
+        return meters.entrySet().stream()
+                .filter(entry -> entry.getKey().method.equals(method))
+                .filter(entry -> route.isEmpty() || route.get().equals(entry.getKey().route))
+                .mapToDouble(entry -> entry.getValue().latency.count())
+                .sum();
+    }
+
+    /** Number of requests of the method per route, over all statuses. */
+    public Map<String, Double> getRequestCounts(String method) {
+        Map<String, Double> counts = new HashMap<>();
+        meters.forEach(
+                (key, value) -> {
+                    if (key.method.equals(method)) {
+                        counts.merge(key.route, (double) value.latency.count(), Double::sum);
+                    }
+                });
+        return counts;
+    }
+
+    /** Estimated number of distinct sessions that sent requests of the method. */
+    public long getUniqueUserCount(String method, Optional<String> route) {
+        HyperLogLog sketch =
+                route.isPresent()
+                        ? usersByRoute.get(new RouteKey(method, route.get()))
+                        : usersByMethod.get(method);
+        return sketch == null ? 0 : sketch.estimate();
+    }
+
+    /** Estimated number of distinct sessions per route for the method. */
+    public Map<String, Long> getUniqueUserCounts(String method) {
+        Map<String, Long> counts = new HashMap<>();
+        usersByRoute.forEach(
+                (key, sketch) -> {
+                    if (key.method.equals(method)) {
+                        counts.put(key.route, sketch.estimate());
+                    }
+                });
+        return counts;
+    }
+
+    /**
+     * Stage times of one request. Stages are reported by the request thread and, for streamed
+     * responses, read on the thread that finishes the response.
+     */
+    public static class StageTimings {
+
+        private final long[] nanos = new long[Stage.values().length];
+
+        public synchronized void add(Stage stage, long elapsedNanos) {
+            nanos[stage.ordinal()] += elapsedNanos;
+        }
+
+        public synchronized long getNanos(Stage stage) {
+            return nanos[stage.ordinal()];
+        }
+
+        /** Time not covered by the given stages, never negative. */
+        public synchronized long remainder(long totalNanos, Stage... stages) {
+            long remainder = totalNanos;
+            for (Stage stage : stages) {
+                remainder -= nanos[stage.ordinal()];
+            }
+            return Math.max(remainder, 0);
+        }
+
+        /** Formats the stages with time recorded as a {@code Server-Timing} header value. */
+        public synchronized String toServerTiming() {
+            StringBuilder header = new StringBuilder();
+            for (Stage stage : Stage.values()) {
+                long stageNanos = nanos[stage.ordinal()];
+                if (stageNanos > 0) {
+                    if (header.length() > 0) {
+                        header.append(", ");
+                    }
+                    header.append(stage.tag())
+                            .append(";dur=")
+                            .append(String.format(Locale.ROOT, "%.1f", stageNanos / 1e6));
+                }
+            }
+            return header.toString();
+        }
+    }
+
+    private record RouteKey(String method, String route) {}
+
+    private record MeterKey(String method, String route, int status) {}
+
+    private static class RouteMeters {
+
+        final Timer latency;
+
+        final DistributionSummary inputBytes;
+
+        final DistributionSummary outputBytes;
+
+        final DistributionSummary pages;
+
+        final DistributionSummary pageRate;
+
+        final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+
+        RouteMeters(MeterRegistry registry, MeterKey key) {
+            Tags tags =
+                    Tags.of(
+                            "method",
+                            key.method,
+                            "uri",
+                            key.route,
+                            "status",
+                            String.valueOf(key.status));
+            latency =
+                    Timer.builder(REQUESTS)
+                            .tags(tags)
+                            .publishPercentiles(0.5, 0.95, 0.99)
+                            .publishPercentileHistogram()
+                            .register(registry);
+            inputBytes = summary(registry, REQUESTS + ".input", "bytes", tags);
+            outputBytes = summary(registry, REQUESTS + ".output", "bytes", tags);
+            pages = summary(registry, REQUESTS + ".pages", null, tags);
+            pageRate = summary(registry, REQUESTS + ".pages.rate", "pages/s", tags);
+            for (Stage stage : Stage.values()) {
+                stages.put(
+                        stage,
+                        Timer.builder(STAGES)
+                                .tags(tags)
+                                .tag("stage", stage.tag())
+                                .publishPercentiles(0.5, 0.95, 0.99)
+                                .register(registry));
+            }
+        }
+
+        private static DistributionSummary summary(
+                MeterRegistry registry, String name, String unit, Tags tags) {
+            return DistributionSummary.builder(name)
+                    .baseUnit(unit)
+                    .tags(tags)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package stirling.software.SPDF.utils;
+
+import java.awt.geom.Area;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+
+import org.apache.pdfbox.contentstream.PDFGraphicsStreamEngine;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.blend.BlendMode;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColor;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImage;
+import org.apache.pdfbox.pdmodel.graphics.state.PDGraphicsState;
+import org.apache.pdfbox.util.Matrix;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decides whether a page is blank: at least {@code whitePercent} of it is white, where a pixel is
+ * white if none of its channels is more than {@code threshold} below 255.
+ *
+ * <p>Pages made only of vector paths are classified from their content stream, by bounding how much
+ * of the page the non-white paint can cover; only pages the bounds cannot settle, or that draw
+ * images or glyphs, have to be rendered and checked with {@link #isBlankImage}.
+ */
+@Slf4j
+public class BlankPageDetector {
+
+    /** Outcome of {@link #classifyVectorContent}. */
+    public enum Verdict {
+        BLANK,
+        NOT_BLANK,
+        /** The content stream does not settle it; render the page and check the image. */
+        RENDER
+    }
+
+    /**
+     * Counts non-white pixels row by row and stops as soon as the page can no longer be blank, or
+     * can no longer fail to be.
+     */
+    public static boolean isBlankImage(BufferedImage image, int threshold, double whitePercent) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long allowed = allowedNonWhite((long) width * height, whitePercent);
+        int cut = 255 - threshold;
+
+        WritableRaster raster = image.getRaster();
+        boolean packed =
+                (image.getType() == BufferedImage.TYPE_INT_RGB
+                                || image.getType() == BufferedImage.TYPE_INT_ARGB)
+                        && raster.getDataBuffer() instanceof DataBufferInt
+                        && raster.getSampleModel() instanceof SinglePixelPackedSampleModel;
+        int[] pixels;
+        int stride;
+        if (packed) {
+            // read the pixels in place instead of converting each one through the colour model
+            DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+            pixels = buffer.getData();
+            stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+        } else {
+            pixels = new int[width];
+            stride = 0;
+        }
+
+        long nonWhite = 0;
+        for (int y = 0; y < height; y++) {
+            int offset;
+            if (packed) {
+                offset =
+                        raster.getDataBuffer().getOffset()
+                                + (y - raster.getSampleModelTranslateY()) * stride
+                                - raster.getSampleModelTranslateX();
+            } else {
+                image.getRGB(0, y, width, 1, pixels, 0, width);
+                offset = 0;
+            }
+            for (int x = offset, end = offset + width; x < end; x++) {
+                int rgb = pixels[x];
+                if (((rgb >> 16) & 0xFF) < cut || ((rgb >> 8) & 0xFF) < cut || (rgb & 0xFF) < cut) {
+                    nonWhite++;
+                }
+            }
+            if (nonWhite > allowed) {
+                return false;
+            }
+            if (nonWhite + (long) (height - y - 1) * width <= allowed) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Classifies a page from its content stream, without rendering it.
+     *
+     * @param dpi resolution the page would be rendered at if the verdict is {@link Verdict#RENDER};
+     *     paint is widened by a pixel at that resolution to allow for anti-aliasing
+     */
+    public static Verdict classifyVectorContent(
+            PDPage page, int threshold, double whitePercent, float dpi) {
+        PDRectangle cropBox = page.getCropBox();
+        double pageArea = (double) cropBox.getWidth() * cropBox.getHeight();
+        double allowed = pageArea * (100 - whitePercent) / 100;
+
+        PaintBounds bounds = new PaintBounds(page, threshold, 72 / dpi);
+        try {
+            if (!page.getAnnotations().isEmpty()) {
+                // annotation appearances are drawn too, and are not analysed here
+                return Verdict.RENDER;
+            }
+            bounds.processPage(page);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not analyse page content, rendering it instead", e);
+            return Verdict.RENDER;
+        }
+        if (bounds.needsRendering) {
+            return Verdict.RENDER;
+        }
+        if (bounds.maxInk <= allowed) {
+            return Verdict.BLANK;
+        }
+        if (bounds.minInkTrusted && bounds.minInk > allowed) {
+            return Verdict.NOT_BLANK;
+        }
+        return Verdict.RENDER;
+    }
+
+    private static long allowedNonWhite(long pixels, double whitePercent) {
+        return (long) Math.floor(pixels * (100 - whitePercent) / 100);
+    }
+
+    /**
+     * Follows the paths painted on a page and bounds the area, in square points, of the page that
+     * ends up non-white. {@link #maxInk} adds up the widened bounding boxes of everything that
+     * might not be white. {@link #minInk} is the largest area a single opaque, non-white rectangle
+     * is known to cover, and only holds if nothing that might be white was painted over it.
+     */
+    private static class PaintBounds extends PDFGraphicsStreamEngine {
+
+        private final int threshold;
+
+        /** The size of one rendered pixel, in points. */
+        private final double pixel;
+
+        private final Rectangle2D pageBounds;
+
+        private final GeneralPath path = new GeneralPath();
+
+        private boolean clipPending;
+
+        private int clipWindingRule;
+
+        double maxInk;
+
+        double minInk;
+
+        boolean minInkTrusted = true;
+
+        boolean needsRendering;
+
+        PaintBounds(PDPage page, int threshold, double pixel) {
+            super(page);
+            this.threshold = threshold;
+            this.pixel = pixel;
+            PDRectangle cropBox = page.getCropBox();
+            this.pageBounds =
+                    new Rectangle2D.Float(
+                            cropBox.getLowerLeftX(),
+                            cropBox.getLowerLeftY(),
+                            cropBox.getWidth(),
+                            cropBox.getHeight());
+        }
+
+        @Override
+        public void fillPath(int windingRule) throws IOException {
+            path.setWindingRule(windingRule);
+            PDGraphicsState state = getGraphicsState();
+            paint(state.getNonStrokingColor(), state.getNonStrokeAlphaConstant(), 0, true);
+            finishPath();
+        }
+
+        @Override
+        public void strokePath() throws IOException {
+            PDGraphicsState state = getGraphicsState();
+            paint(state.getStrokingColor(), state.getAlphaConstant(), strokeOutset(), false);
+            finishPath();
+        }
+
+        @Override
+        public void fillAndStrokePath(int windingRule) throws IOException {
+            path.setWindingRule(windingRule);
+            PDGraphicsState state = getGraphicsState();
+            paint(state.getNonStrokingColor(), state.getNonStrokeAlphaConstant(), 0, true);
+            paint(state.getStrokingColor(), state.getAlphaConstant(), strokeOutset(), false);
+            finishPath();
+        }
+
+        @Override
+        public void shadingFill(COSName shadingName) {
+            // a shading paints the whole clip with colours that are not checked here
+            Rectangle2D clip = getGraphicsState().getCurrentClippingPath().getBounds2D();
+            maxInk += visibleArea(clip, pixel);
+            minInkTrusted = false;
+        }
+
+        @Override
+        public void drawImage(PDImage pdImage) {
+            needsRendering = true;
+        }
+
+        @Override
+        public void showTextString(byte[] string) {
+            // glyphs are drawn but not worth outlining here; the page text index missed them
+            needsRendering = true;
+        }
+
+        @Override
+        public void showTextStrings(COSArray array) {
+            needsRendering = true;
+        }
+
+        /**
+         * @param outset how far the paint reaches beyond the path, in points
+         * @param fill whether the path's interior is painted, so it may count towards minInk
+         */
+        private void paint(PDColor color, double alpha, double outset, boolean fill) {
+            if (isWhite(color)) {
+                // may hide earlier paint, which would leave minInk too high
+                minInkTrusted = false;
+                return;
+            }
+            Rectangle2D bounds = path.getBounds2D();
+            Rectangle2D clip = getGraphicsState().getCurrentClippingPath().getBounds2D();
+            double reach = outset + pixel;
+            Rectangle2D widened =
+                    new Rectangle2D.Double(
+                            bounds.getX() - reach,
+                            bounds.getY() - reach,
+                            bounds.getWidth() + 2 * reach,
+                            bounds.getHeight() + 2 * reach);
+            maxInk += visibleArea(widened.createIntersection(clip), 0);
+
+            if (!isOpaque(alpha)) {
+                // blended with what is below, which can even turn pale paint white
+                minInkTrusted = false;
+            } else if (fill) {
+                Area covered = new Area(path);
+                covered.intersect(getGraphicsState().getCurrentClippingPath());
+                if (covered.isRectangular()) {
+                    // edge pixels may be blended with the background, so leave them out
+                    minInk = Math.max(minInk, visibleArea(covered.getBounds2D(), -pixel));
+                }
+            }
+        }
+
+        /** The area of the rectangle on the page, after growing it by {@code outset} each side. */
+        private double visibleArea(Rectangle2D rect, double outset) {
+            if (rect.isEmpty()) {
+                return 0;
+            }
+            Rectangle2D grown =
+                    new Rectangle2D.Double(
+                            rect.getX() - outset,
+                            rect.getY() - outset,
+                            rect.getWidth() + 2 * outset,
+                            rect.getHeight() + 2 * outset);
+            Rectangle2D visible = grown.createIntersection(pageBounds);
+            return visible.isEmpty() ? 0 : visible.getWidth() * visible.getHeight();
+        }
+
+        /**
+         * White paint counts as white only with normal blending and no soft mask, since other modes
+         * can darken what is below. Colours that cannot be converted, such as patterns, are not.
+         */
+        private boolean isWhite(PDColor color) {
+            if (!isOpaque(1)) {
+                return false;
+            }
+            int rgb;
+            try {
+                rgb = color.toRGB();
+            } catch (IOException | RuntimeException e) {
+                return false;
+            }
+            int cut = 255 - threshold;
+            return ((rgb >> 16) & 0xFF) >= cut && ((rgb >> 8) & 0xFF) >= cut && (rgb & 0xFF) >= cut;
+        }
+
+        /** Whether paint with this alpha replaces what is below it. */
+        private boolean isOpaque(double alpha) {
+            PDGraphicsState state = getGraphicsState();
+            return alpha >= 1
+                    && state.getSoftMask() == null
+                    && (state.getBlendMode() == BlendMode.NORMAL
+                            || state.getBlendMode() == BlendMode.COMPATIBLE);
+        }
+
+        /** Half the line width in device space, allowing for miter joins and square caps. */
+        private double strokeOutset() {
+            PDGraphicsState state = getGraphicsState();
+            Matrix ctm = state.getCurrentTransformationMatrix();
+            double scale =
+                    Math.max(Math.abs(ctm.getScalingFactorX()), Math.abs(ctm.getScalingFactorY()));
+            double extent = Math.max(state.getMiterLimit(), Math.sqrt(2));
+            return state.getLineWidth() * scale * extent / 2;
+        }
+
+        private void finishPath() {
+            if (clipPending) {
+                path.setWindingRule(clipWindingRule);
+                getGraphicsState().intersectClippingPath(path);
+                clipPending = false;
+            }
+            path.reset();
+        }
+
+        @Override
+        public void clip(int windingRule) {
+            // applies once the path is painted or ended, as in PageDrawer
+            clipPending = true;
+            clipWindingRule = windingRule;
+        }
+
+        @Override
+        public void endPath() {
+            finishPath();
+        }
+
+        @Override
+        public void appendRectangle(Point2D p0, Point2D p1, Point2D p2, Point2D p3) {
+            path.moveTo((float) p0.getX(), (float) p0.getY());
+            path.lineTo((float) p1.getX(), (float) p1.getY());
+            path.lineTo((float) p2.getX(), (float) p2.getY());
+            path.lineTo((float) p3.getX(), (float) p3.getY());
+            path.closePath();
+        }
+
+        @Override
+        public void moveTo(float x, float y) {
+            path.moveTo(x, y);
+        }
+
+        @Override
+        public void lineTo(float x, float y) {
+            path.lineTo(x, y);
+        }
+
+        @Override
+        public void curveTo(float x1, float y1, float x2, float y2, float x3, float y3) {
+            path.curveTo(x1, y1, x2, y2, x3, y3);
+        }
+
+        @Override
+        public Point2D getCurrentPoint() {
+            return path.getCurrentPoint();
+        }
+
+        @Override
+        public void closePath() {
+            path.closePath();
+        }
+    }
+}
@@ -4,8 +4,11 @@ import static java.nio.file.StandardWatchEventKinds.*;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -15,36 +18,47 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import lombok.extern.slf4j.Slf4j;
-
+import stirling.software.SPDF.model.ApplicationProperties;
+
+/**
+ * Watches the pipeline folders and reports files once they have stopped changing.
+ *
+ * <p>Only files that are still settling are kept in memory. A file is settled once its size and
+ * modification time have not changed for the configured quiet period, at which point the ready
+ * listeners are called and the file is forgotten.
+ */
 @Component
 @Slf4j
 public class FileMonitor {
 
     private final Map<Path, WatchKey> path2KeyMapping;
-    private final Set<Path> newlyDiscoveredFiles;
-    private final ConcurrentHashMap.KeySetView<Path, Boolean> readyForProcessingFiles;
+    private final Map<Path, PendingFile> pendingFiles;
     private final WatchService watchService;
     private final Predicate<Path> pathFilter;
     private final Path rootDir;
-    private Set<Path> stagingFiles;
+    private final List<Consumer<Path>> readyListeners;
+    private final long quietPeriodMillis;
 
     /**
      * @param rootDirectory the root directory to monitor
      * @param pathFilter the filter to apply to the paths, return true if the path should be
      *     monitored, false otherwise
+     * @param applicationProperties source of the quiet period a file must stay unchanged for
      */
     @Autowired
     public FileMonitor(
             @Qualifier("watchedFoldersDir") String rootDirectory,
-            @Qualifier("directoryFilter") Predicate<Path> pathFilter)
+            @Qualifier("directoryFilter") Predicate<Path> pathFilter,
+            ApplicationProperties applicationProperties)
             throws IOException {
-        this.newlyDiscoveredFiles = new HashSet<>();
-        this.path2KeyMapping = new HashMap<>();
-        this.stagingFiles = new HashSet<>();
+        this.path2KeyMapping = new ConcurrentHashMap<>();
+        this.pendingFiles = new ConcurrentHashMap<>();
         this.pathFilter = pathFilter;
-        this.readyForProcessingFiles = ConcurrentHashMap.newKeySet();
+        this.readyListeners = new CopyOnWriteArrayList<>();
         this.watchService = FileSystems.getDefault().newWatchService();
         this.rootDir = Path.of(rootDirectory);
+        this.quietPeriodMillis =
+                applicationProperties.getAutoPipeline().getFileQuietPeriodSeconds() * 1000L;
     }
 
     private boolean shouldNotProcess(Path path) {
@@ -65,21 +79,25 @@ public class FileMonitor {
                 if (Files.isDirectory(path)) {
                     recursivelyRegisterEntry(path);
                 } else if (Files.isRegularFile(path)) {
-                    handleFileCreation(path);
+                    // files that were already there count as unchanged since their last write
+                    trackFile(path, false);
                 }
             }
         }
     }
 
-    @Scheduled(fixedRate = 5000)
-    public void trackFiles() {
-        /*
-         All files observed changes in the last iteration will be considered as staging files.
-         If those files are not modified in current iteration, they will be considered as ready for processing.
-        */
-        stagingFiles = new HashSet<>(newlyDiscoveredFiles);
-        readyForProcessingFiles.clear();
+    /**
+     * Registers a listener that is called once for every file that becomes ready for processing.
+     * Listeners are called on the monitoring thread and should hand off any real work.
+     *
+     * @param listener the listener receiving the path of the ready file
+     */
+    public void addReadyListener(Consumer<Path> listener) {
+        readyListeners.add(listener);
+    }
 
+    @Scheduled(fixedDelay = 1000)
+    public synchronized void trackFiles() {
         if (path2KeyMapping.isEmpty()) {
             log.warn("not monitoring any directory, even the root directory itself: {}", rootDir);
             if (Files.exists(
@@ -98,31 +116,34 @@ public class FileMonitor {
             key.pollEvents()
                     .forEach(
                             (evt) -> {
-                                final Path path = (Path) evt.context();
                                 final WatchEvent.Kind<?> kind = evt.kind();
-                                if (shouldNotProcess(path)) return;
-
                                 try {
-                                    if (Files.isDirectory(path)) {
+                                    if (kind == OVERFLOW) {
+                                        // events were dropped, pick up the directory contents again
+                                        recursivelyRegisterEntry(watchingDir);
+                                        return;
+                                    }
+                                    Path relativePathFromRoot =
+                                            watchingDir.resolve((Path) evt.context());
+                                    if (shouldNotProcess(relativePathFromRoot)) return;
+                                    if (Files.isDirectory(relativePathFromRoot)) {
                                         if (kind == ENTRY_CREATE) {
-                                            handleDirectoryCreation(path);
+                                            recursivelyRegisterEntry(relativePathFromRoot);
                                         }
                                         /*
                                          we don't need to handle directory deletion or modification
                                          - directory deletion will be handled by key.reset()
                                          - directory modification indicates a new file creation or deletion, which is handled by below
                                         */
+                                        return;
                                     }
-                                    Path relativePathFromRoot = watchingDir.resolve(path);
-                                    if (kind == ENTRY_CREATE) {
-                                        handleFileCreation(relativePathFromRoot);
-                                    } else if (kind == ENTRY_DELETE) {
-                                        handleFileRemoval(relativePathFromRoot);
-                                    } else if (kind == ENTRY_MODIFY) {
-                                        handleFileModification(relativePathFromRoot);
+                                    if (kind == ENTRY_DELETE) {
+                                        pendingFiles.remove(relativePathFromRoot);
+                                    } else {
+                                        trackFile(relativePathFromRoot, true);
                                     }
                                 } catch (Exception e) {
-                                    log.error("Error while processing file: {}", path, e);
+                                    log.error("Error while processing file: {}", evt.context(), e);
                                 }
                             });
 
@@ -131,38 +152,95 @@ public class FileMonitor {
                 path2KeyMapping.remove((Path) key.watchable());
             }
         }
-        readyForProcessingFiles.addAll(stagingFiles);
-    }
-
-    private void handleDirectoryCreation(Path dir) throws IOException {
-        WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
-        path2KeyMapping.put(dir, key);
+        checkPendingFiles();
     }
 
-    private void handleFileRemoval(Path path) {
-        newlyDiscoveredFiles.remove(path);
-        stagingFiles.remove(path);
+    /**
+     * Starts or restarts the quiet period of a file.
+     *
+     * @param changedNow whether the file was just written to, otherwise its modification time is
+     *     taken as the start of the quiet period
+     */
+    private void trackFile(Path path, boolean changedNow) {
+        long now = System.currentTimeMillis();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            pendingFiles.put(
+                    path,
+                    new PendingFile(
+                            attributes.size(),
+                            lastModified,
+                            changedNow ? now : Math.min(now, lastModified)));
+        } catch (NoSuchFileException e) {
+            pendingFiles.remove(path);
+        } catch (IOException e) {
+            log.warn("Unable to read attributes of {}", path, e);
+            pendingFiles.put(path, new PendingFile(-1, -1, now));
+        }
     }
 
-    private void handleFileCreation(Path path) {
-        newlyDiscoveredFiles.add(path);
-        stagingFiles.remove(path);
+    /** Reports every pending file whose size and modification time held still long enough. */
+    private void checkPendingFiles() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, PendingFile>> iterator = pendingFiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, PendingFile> entry = iterator.next();
+            Path path = entry.getKey();
+            PendingFile pending = entry.getValue();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // removed (or unreadable) before it settled
+                iterator.remove();
+                continue;
+            }
+            if (!attributes.isRegularFile()) {
+                iterator.remove();
+                continue;
+            }
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            if (size != pending.size() || lastModified != pending.lastModified()) {
+                entry.setValue(new PendingFile(size, lastModified, now));
+            } else if (now - pending.stableSince() >= quietPeriodMillis) {
+                iterator.remove();
+                notifyReady(path);
+            }
+        }
     }
 
-    private void handleFileModification(Path path) {
-        // the logic is the same
-        handleFileCreation(path);
+    private void notifyReady(Path path) {
+        for (Consumer<Path> listener : readyListeners) {
+            try {
+                listener.accept(path);
+            } catch (Exception e) {
+                log.error("Error notifying listener about file: {}", path, e);
+            }
+        }
     }
 
     /**
      * Check if the file is ready for processing.
      *
-     * <p>A file is ready for processing if it is not being modified for 5000ms.
+     * <p>A file is ready for processing when it is not still settling and has not been modified
+     * within the quiet period.
      *
      * @param path the path of the file
      * @return true if the file is ready for processing, false otherwise
      */
     public boolean isFileReadyForProcessing(Path path) {
-        return readyForProcessingFiles.contains(path);
+        if (pendingFiles.containsKey(path)) {
+            return false;
+        }
+        try {
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            return System.currentTimeMillis() - lastModified >= quietPeriodMillis;
+        } catch (IOException e) {
+            return false;
+        }
     }
+
+    private record PendingFile(long size, long lastModified, long stableSince) {}
 }
@@ -2,18 +2,14 @@ package stirling.software.SPDF.utils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -22,11 +18,22 @@ import org.springframework.web.multipart.MultipartFile;
 import io.github.pixee.security.Filenames;
 
 import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.service.LibreOfficePool;
 import stirling.software.SPDF.utils.ProcessExecutor.ProcessExecutorResult;
 
 @Slf4j
 public class PDFToFile {
 
+    private final LibreOfficePool libreOfficePool;
+
+    public PDFToFile() {
+        this(null);
+    }
+
+    public PDFToFile(LibreOfficePool libreOfficePool) {
+        this.libreOfficePool = libreOfficePool;
+    }
+
     public ResponseEntity<byte[]> processPdfToHtml(MultipartFile inputFile)
             throws IOException, InterruptedException {
         if (!"application/pdf".equals(inputFile.getContentType())) {
@@ -69,16 +76,13 @@ public class PDFToFile {
             // Return output files in a ZIP archive
             fileName = pdfBaseName + "ToHtml.zip";
             ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            try (ZipOutputStream zipOutputStream = new ZipOutputStream(byteArrayOutputStream)) {
+            try (ZipArchiveWriter zipWriter = new ZipArchiveWriter(byteArrayOutputStream)) {
                 for (File outputFile : outputFiles) {
-                    ZipEntry entry = new ZipEntry(outputFile.getName());
-                    zipOutputStream.putNextEntry(entry);
-                    try (FileInputStream fis = new FileInputStream(outputFile)) {
-                        IOUtils.copy(fis, zipOutputStream);
+                    try {
+                        zipWriter.addEntry(outputFile.getName(), outputFile.toPath());
                     } catch (IOException e) {
                         log.error("Exception writing zip entry", e);
                     }
-                    zipOutputStream.closeEntry();
                 }
             } catch (IOException e) {
                 log.error("Exception writing zip", e);
@@ -134,22 +138,37 @@ public class PDFToFile {
             // Prepare the output directory
             tempOutputDir = Files.createTempDirectory("output_");
 
-            // Run the LibreOffice command
-            List<String> command =
-                    new ArrayList<>(
-                            Arrays.asList(
-                                    "soffice",
-                                    "--headless",
-                                    "--nologo",
-                                    "--infilter=" + libreOfficeFilter,
-                                    "--convert-to",
-                                    outputFormat,
-                                    "--outdir",
-                                    tempOutputDir.toString(),
-                                    tempInputFile.toString()));
-            ProcessExecutorResult returnCode =
-                    ProcessExecutor.getInstance(ProcessExecutor.Processes.LIBRE_OFFICE)
-                            .runCommandWithOutputHandling(command);
+            // Convert on a warm LibreOffice instance if possible. unoconv only takes a format
+            // name, so formats carrying a filter (e.g. txt:Text) go to soffice with the full string
+            List<String> pooledArguments =
+                    List.of(
+                            "-f",
+                            outputFormat,
+                            "-i",
+                            "FilterName=" + libreOfficeFilter,
+                            "-o",
+                            tempOutputDir.toString(),
+                            tempInputFile.toString());
+            if (libreOfficePool == null
+                    || outputFormat.contains(":")
+                    || libreOfficePool.convert(pooledArguments) == null) {
+                // Run the LibreOffice command
+                List<String> command =
+                        new ArrayList<>(
+                                Arrays.asList(
+                                        "soffice",
+                                        "--headless",
+                                        "--nologo",
+                                        "--infilter=" + libreOfficeFilter,
+                                        "--convert-to",
+                                        outputFormat,
+                                        "--outdir",
+                                        tempOutputDir.toString(),
+                                        tempInputFile.toString()));
+                ProcessExecutorResult returnCode =
+                        ProcessExecutor.getInstance(ProcessExecutor.Processes.LIBRE_OFFICE)
+                                .runCommandWithOutputHandling(command);
+            }
 
             // Get output files
             List<File> outputFiles = Arrays.asList(tempOutputDir.toFile().listFiles());
@@ -166,17 +185,13 @@ public class PDFToFile {
                 // Return output files in a ZIP archive
                 fileName = pdfBaseName + "To" + outputFormat + ".zip";
                 ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                try (ZipOutputStream zipOutputStream = new ZipOutputStream(byteArrayOutputStream)) {
+                try (ZipArchiveWriter zipWriter = new ZipArchiveWriter(byteArrayOutputStream)) {
                     for (File outputFile : outputFiles) {
-                        ZipEntry entry = new ZipEntry(outputFile.getName());
-                        zipOutputStream.putNextEntry(entry);
-                        try (FileInputStream fis = new FileInputStream(outputFile)) {
-                            IOUtils.copy(fis, zipOutputStream);
+                        try {
+                            zipWriter.addEntry(outputFile.getName(), outputFile.toPath());
                         } catch (IOException e) {
                             log.error("Exception writing zip entry", e);
                         }
-
-                        zipOutputStream.closeEntry();
                     }
                 } catch (IOException e) {
                     log.error("Exception writing zip", e);
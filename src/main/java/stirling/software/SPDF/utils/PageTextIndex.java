@@ -0,0 +1,152 @@
+package stirling.software.SPDF.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+/**
+ * The text of every page of a document, extracted in one pass of {@link PDFTextStripper}.
+ *
+ * <p>Setting the start and end page of a stripper for each page makes it walk the page tree from
+ * the first page every time, so checking every page of a document that way is quadratic. Here the
+ * stripper runs once and the output is split at page boundaries. Pages are 0-based.
+ */
+public class PageTextIndex {
+
+    private final List<String> texts;
+
+    private final List<List<TextPosition>> positions;
+
+    private PageTextIndex(List<String> texts, List<List<TextPosition>> positions) {
+        this.texts = texts;
+        this.positions = positions;
+    }
+
+    /**
+     * Extracts the text of all pages.
+     *
+     * @param withPositions also keep the position of every character, which costs far more memory
+     *     than the text alone
+     */
+    public static PageTextIndex build(PDDocument document, boolean withPositions)
+            throws IOException {
+        int pageCount = document.getNumberOfPages();
+        StringBuilder[] builders = new StringBuilder[pageCount];
+        List<List<TextPosition>> positions = withPositions ? new ArrayList<>(pageCount) : null;
+        for (int i = 0; i < pageCount; i++) {
+            builders[i] = new StringBuilder();
+            if (withPositions) {
+                positions.add(new ArrayList<>());
+            }
+        }
+
+        PageSplittingStripper stripper = new PageSplittingStripper(builders, positions);
+        stripper.writeText(document, stripper.pageWriter);
+
+        List<String> texts = new ArrayList<>(pageCount);
+        for (StringBuilder builder : builders) {
+            texts.add(builder.toString());
+        }
+        return new PageTextIndex(
+                Collections.unmodifiableList(texts),
+                withPositions ? Collections.unmodifiableList(positions) : null);
+    }
+
+    public int getPageCount() {
+        return texts.size();
+    }
+
+    public String getText(int pageIndex) {
+        return texts.get(pageIndex);
+    }
+
+    public int getCharacterCount(int pageIndex) {
+        return texts.get(pageIndex).length();
+    }
+
+    /** Whether the page has any text other than whitespace. */
+    public boolean hasText(int pageIndex) {
+        return !texts.get(pageIndex).isBlank();
+    }
+
+    public boolean contains(int pageIndex, String phrase) {
+        return texts.get(pageIndex).contains(phrase);
+    }
+
+    public boolean hasPositions() {
+        return positions != null;
+    }
+
+    /**
+     * The characters of the page in extraction order.
+     *
+     * @throws IllegalStateException if the index was built without positions
+     */
+    public List<TextPosition> getPositions(int pageIndex) {
+        if (positions == null) {
+            throw new IllegalStateException("Text index was built without positions");
+        }
+        return Collections.unmodifiableList(positions.get(pageIndex));
+    }
+
+    /** Sends the text of each page to its own builder instead of the output writer. */
+    private static class PageSplittingStripper extends PDFTextStripper {
+
+        private final StringBuilder[] builders;
+
+        private final List<List<TextPosition>> positions;
+
+        private StringBuilder current;
+
+        PageSplittingStripper(StringBuilder[] builders, List<List<TextPosition>> positions) {
+            this.builders = builders;
+            this.positions = positions;
+        }
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            // pages without content streams are never started and keep their empty text
+            current = builders[getCurrentPageNo() - 1];
+            super.startPage(page);
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            current = null;
+        }
+
+        @Override
+        protected void writeString(String text, List<TextPosition> textPositions)
+                throws IOException {
+            super.writeString(text, textPositions);
+            if (positions != null) {
+                positions.get(getCurrentPageNo() - 1).addAll(textPositions);
+            }
+        }
+
+        /** Everything the stripper writes goes to the page being processed, if any. */
+        final Writer pageWriter =
+                new Writer() {
+                    @Override
+                    public void write(char[] cbuf, int off, int len) {
+                        if (current != null) {
+                            current.append(cbuf, off, len);
+                        }
+                    }
+
+                    @Override
+                    public void flush() {}
+
+                    @Override
+                    public void close() {}
+                };
+    }
+}
@@ -0,0 +1,136 @@
+package stirling.software.SPDF.utils;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDPage;
+
+/**
+ * Estimates the saved size of a document built from pages of another one, without saving it.
+ *
+ * <p>Each page added walks the COS objects reachable from it and counts only the ones the document
+ * does not contain yet, so fonts, images and other resources shared between pages are paid for
+ * once. Streams are counted at their current encoded length, which saving keeps. Other objects are
+ * counted at their serialized size, reduced by the compression they get in the object streams
+ * PDFBox writes by default. Back references (a page's parent, an annotation's page) and other pages
+ * reached through link destinations are not followed.
+ */
+public class PdfSizeEstimator {
+
+    // header, catalog, page tree, document information and trailer
+    private static final long DOCUMENT_OVERHEAD = 512;
+
+    // "n 0 obj" / "endobj" or the object stream offset, plus the cross-reference entry
+    private static final long INDIRECT_OBJECT_OVERHEAD = 16;
+
+    private static final long STREAM_OVERHEAD = 32;
+
+    // roughly what Flate achieves on dictionaries and arrays packed into object streams
+    private static final double OBJECT_STREAM_RATIO = 0.35;
+
+    private final Set<COSBase> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private long streamBytes;
+
+    private long objectBytes;
+
+    /**
+     * Adds a page and everything it references that has not been counted yet.
+     *
+     * @return the estimated number of bytes the page adds
+     */
+    public long addPage(PDPage page) {
+        long before = getSize();
+        COSDictionary pageDict = page.getCOSObject();
+        Deque<COSBase> pending = new ArrayDeque<>();
+        if (counted.add(pageDict)) {
+            objectBytes += INDIRECT_OBJECT_OVERHEAD;
+            pending.push(pageDict);
+        }
+        while (!pending.isEmpty()) {
+            COSBase base = pending.pop();
+            if (base instanceof COSStream stream) {
+                streamBytes += stream.getLength() + STREAM_OVERHEAD;
+            }
+            if (base instanceof COSDictionary dict) {
+                objectBytes += 4;
+                for (Map.Entry<COSName, COSBase> entry : dict.entrySet()) {
+                    COSName key = entry.getKey();
+                    if (COSName.PARENT.equals(key) || COSName.P.equals(key)) {
+                        continue;
+                    }
+                    objectBytes += key.getName().length() + 2;
+                    visitValue(entry.getValue(), pageDict, pending);
+                }
+            } else if (base instanceof COSArray array) {
+                objectBytes += 2;
+                for (COSBase element : array) {
+                    visitValue(element, pageDict, pending);
+                }
+            }
+        }
+        return getSize() - before;
+    }
+
+    /** Counts a value in place and queues the containers and indirect objects it leads to. */
+    private void visitValue(COSBase value, COSDictionary pageDict, Deque<COSBase> pending) {
+        if (value instanceof COSObject reference) {
+            objectBytes += 8;
+            value = reference.getObject();
+            if (value == null) {
+                return;
+            }
+            if (value instanceof COSDictionary || value instanceof COSArray) {
+                if (isOtherPage(value, pageDict) || !counted.add(value)) {
+                    return;
+                }
+                objectBytes += INDIRECT_OBJECT_OVERHEAD;
+                pending.push(value);
+                return;
+            }
+        }
+        if (value instanceof COSDictionary || value instanceof COSArray) {
+            if (!isOtherPage(value, pageDict) && counted.add(value)) {
+                pending.push(value);
+            }
+        } else if (value instanceof COSName name) {
+            objectBytes += name.getName().length() + 2;
+        } else if (value instanceof COSString string) {
+            objectBytes += string.getBytes().length + 3;
+        } else if (value instanceof COSInteger integer) {
+            objectBytes += Long.toString(integer.longValue()).length() + 1;
+        } else if (value != null) {
+            objectBytes += 8;
+        }
+    }
+
+    private static boolean isOtherPage(COSBase value, COSDictionary pageDict) {
+        return value != pageDict
+                && value instanceof COSDictionary dict
+                && COSName.PAGE.equals(dict.getCOSName(COSName.TYPE));
+    }
+
+    /** Estimated size in bytes of a document holding the pages added so far. */
+    public long getSize() {
+        return DOCUMENT_OVERHEAD + streamBytes + Math.round(objectBytes * OBJECT_STREAM_RATIO);
+    }
+
+    /** Starts over with an empty document. */
+    public void reset() {
+        counted.clear();
+        streamBytes = 0;
+        objectBytes = 0;
+    }
+}
@@ -6,10 +6,8 @@ import java.awt.image.RenderedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.stream.IntStream;
 
 import javax.imageio.*;
 import javax.imageio.stream.ImageOutputStream;
@@ -29,13 +27,16 @@ import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.web.multipart.MultipartFile;
 
 import io.github.pixee.security.Filenames;
 
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.service.CustomPDDocumentFactory;
+import stirling.software.SPDF.service.PageRenderService;
+import stirling.software.SPDF.service.PageRenderService.DocumentSource;
+import stirling.software.SPDF.service.PageRenderService.RenderSettings;
+import stirling.software.SPDF.service.PageRenderService.RenderedPages;
 
 @Slf4j
 public class PdfUtils {
@@ -97,15 +98,12 @@ public class PdfUtils {
         return false;
     }
 
-    public static boolean hasText(PDDocument document, String pageNumbersToCheck, String phrase)
-            throws IOException {
+    public static boolean hasText(PageTextIndex index, String pageNumbersToCheck, String phrase) {
         String[] pageOrderArr = pageNumbersToCheck.split(",");
-        List<Integer> pageList =
-                GeneralUtils.parsePageList(pageOrderArr, document.getNumberOfPages());
+        List<Integer> pageList = GeneralUtils.parsePageList(pageOrderArr, index.getPageCount());
 
         for (int pageNumber : pageList) {
-            PDPage page = document.getPage(pageNumber);
-            if (hasTextOnPage(page, phrase)) {
+            if (index.contains(pageNumber, phrase)) {
                 return true;
             }
         }
@@ -117,16 +115,8 @@ public class PdfUtils {
         return getAllImages(page.getResources()).size() > 0;
     }
 
-    public static boolean hasTextOnPage(PDPage page, String phrase) throws IOException {
-        PDFTextStripper textStripper = new PDFTextStripper();
-        PDDocument tempDoc = new PDDocument();
-        tempDoc.addPage(page);
-        String pageText = textStripper.getText(tempDoc);
-        tempDoc.close();
-        return pageText.contains(phrase);
-    }
-
     public static byte[] convertFromPdf(
+            PageRenderService pageRenderService,
             byte[] inputStream,
             String imageType,
             ImageType colorType,
@@ -135,8 +125,7 @@ public class PdfUtils {
             String filename)
             throws IOException, Exception {
         try (PDDocument document = Loader.loadPDF(inputStream)) {
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            pdfRenderer.setSubsamplingAllowed(true);
+            RenderSettings renderSettings = new RenderSettings(DPI, colorType, true);
             int pageCount = document.getNumberOfPages();
 
             // Create a ByteArrayOutputStream to save the image(s) to
@@ -156,101 +145,62 @@ public class PdfUtils {
                         writer.setOutput(ios);
                         writer.prepareWriteSequence(null);
 
-                        for (int i = 0; i < pageCount; ++i) {
-                            BufferedImage image = pdfRenderer.renderImageWithDPI(i, DPI, colorType);
-                            writer.writeToSequence(new IIOImage(image, null, null), param);
-                        }
+                        pageRenderService.renderPages(
+                                document,
+                                DocumentSource.of(inputStream),
+                                renderSettings,
+                                (i, image) ->
+                                        writer.writeToSequence(
+                                                new IIOImage(image, null, null), param));
 
                         writer.endWriteSequence();
                     }
 
                     writer.dispose();
                 } else {
-                    // Combine all images into a single big image
-
-                    // Calculate the combined image dimensions
+                    // Stack all pages into a single big image, encoded page by page
                     int maxWidth = 0;
-                    int totalHeight = 0;
-
-                    BufferedImage pdfSizeImage = null;
-                    int pdfSizeImageIndex = -1;
-
-                    // Using a map to store the rendered dimensions of each page size
-                    // to avoid rendering the same page sizes multiple times
-                    HashMap<PdfRenderSettingsKey, PdfImageDimensionValue> pageSizes =
-                            new HashMap<>();
+                    int[] pageHeights = new int[pageCount];
                     for (int i = 0; i < pageCount; ++i) {
-                        PDPage page = document.getPage(i);
-                        PDRectangle mediaBox = page.getMediaBox();
-                        int rotation = page.getRotation();
-                        PdfRenderSettingsKey settings =
-                                new PdfRenderSettingsKey(
-                                        mediaBox.getWidth(), mediaBox.getHeight(), rotation);
-                        PdfImageDimensionValue dimension = pageSizes.get(settings);
-                        if (dimension == null) {
-                            // Render the image to get the dimensions
-                            pdfSizeImage = pdfRenderer.renderImageWithDPI(i, DPI, colorType);
-                            pdfSizeImageIndex = i;
-                            dimension =
-                                    new PdfImageDimensionValue(
-                                            pdfSizeImage.getWidth(), pdfSizeImage.getHeight());
-                            pageSizes.put(settings, dimension);
-                            if (pdfSizeImage.getWidth() > maxWidth) {
-                                maxWidth = pdfSizeImage.getWidth();
-                            }
-                        }
-                        totalHeight += dimension.height();
+                        Dimension size = renderedSize(document.getPage(i), DPI);
+                        maxWidth = Math.max(maxWidth, size.width);
+                        pageHeights[i] = size.height;
                     }
 
-                    // Create a new BufferedImage to store the combined images
-                    BufferedImage combined =
-                            prepareImageForPdfToImage(maxWidth, totalHeight, imageType);
-                    Graphics g = combined.getGraphics();
-
-                    int currentHeight = 0;
-                    BufferedImage pageImage;
-
-                    // Check if the first image is the last rendered image
-                    boolean firstImageAlreadyRendered = pdfSizeImageIndex == 0;
-
-                    for (int i = 0; i < pageCount; ++i) {
-                        if (firstImageAlreadyRendered && i == 0) {
-                            pageImage = pdfSizeImage;
-                        } else {
-                            pageImage = pdfRenderer.renderImageWithDPI(i, DPI, colorType);
-                        }
-
-                        // Calculate the x-coordinate to center the image
-                        int x = (maxWidth - pageImage.getWidth()) / 2;
-
-                        g.drawImage(pageImage, x, currentHeight, null);
-                        currentHeight += pageImage.getHeight();
+                    try (RenderedPages<BufferedImage> pages =
+                            pageRenderService.openPages(
+                                    document,
+                                    DocumentSource.of(inputStream),
+                                    IntStream.range(0, pageCount).boxed().toList(),
+                                    renderSettings,
+                                    (i, image) -> image)) {
+                        StripedImageWriter.write(pages, maxWidth, pageHeights, imageType, baos);
                     }
-
-                    // Write the image to the output stream
-                    ImageIO.write(combined, imageType, baos);
                 }
 
                 // Log that the image was successfully written to the byte array
                 log.info("Image successfully written to byte array");
             } else {
                 // Zip the images and return as byte array
-                try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-                    for (int i = 0; i < pageCount; ++i) {
-                        BufferedImage image = pdfRenderer.renderImageWithDPI(i, DPI, colorType);
-                        try (ByteArrayOutputStream baosImage = new ByteArrayOutputStream()) {
-                            ImageIO.write(image, imageType, baosImage);
-
-                            // Add the image to the zip file
-                            zos.putNextEntry(
-                                    new ZipEntry(
+                try (ZipArchiveWriter zos = new ZipArchiveWriter(baos)) {
+                    // pages are encoded on the thread that rendered them
+                    pageRenderService.renderPages(
+                            document,
+                            DocumentSource.of(inputStream),
+                            renderSettings,
+                            (i, image) -> {
+                                ByteArrayOutputStream baosImage = new ByteArrayOutputStream();
+                                ImageIO.write(image, imageType, baosImage);
+                                return baosImage.toByteArray();
+                            },
+                            (i, imageBytes) ->
+                                    // Add the image to the zip file
+                                    zos.addEntry(
                                             String.format(
                                                     filename + "_%d.%s",
                                                     i + 1,
-                                                    imageType.toLowerCase())));
-                            zos.write(baosImage.toByteArray());
-                        }
-                    }
+                                                    imageType.toLowerCase()),
+                                            imageBytes));
                     // Log that the images were successfully written to the byte array
                     log.info("Images successfully written to byte array as a zip");
                 }
@@ -270,43 +220,42 @@ public class PdfUtils {
      * @return converted document to PDF-Image
      * @throws IOException if conversion fails
      */
-    public static PDDocument convertPdfToPdfImage(PDDocument document) throws IOException {
+    public static PDDocument convertPdfToPdfImage(
+            PageRenderService pageRenderService, PDDocument document) throws IOException {
         PDDocument imageDocument = new PDDocument();
-        PDFRenderer pdfRenderer = new PDFRenderer(document);
-        pdfRenderer.setSubsamplingAllowed(true);
-        for (int page = 0; page < document.getNumberOfPages(); ++page) {
-            BufferedImage bim = pdfRenderer.renderImageWithDPI(page, 300, ImageType.RGB);
-            PDPage originalPage = document.getPage(page);
-
-            float width = originalPage.getMediaBox().getWidth();
-            float height = originalPage.getMediaBox().getHeight();
-
-            PDPage newPage = new PDPage(new PDRectangle(width, height));
-            imageDocument.addPage(newPage);
-            PDImageXObject pdImage = LosslessFactory.createFromImage(imageDocument, bim);
-            PDPageContentStream contentStream =
-                    new PDPageContentStream(imageDocument, newPage, AppendMode.APPEND, true, true);
-            contentStream.drawImage(pdImage, 0, 0, width, height);
-            contentStream.close();
-        }
+        // the document was usually changed in memory, so helpers render from a saved copy
+        pageRenderService.renderPages(
+                document,
+                DocumentSource.snapshot(document),
+                new RenderSettings(300, ImageType.RGB, true),
+                (page, bim) -> {
+                    PDPage originalPage = document.getPage(page);
+
+                    float width = originalPage.getMediaBox().getWidth();
+                    float height = originalPage.getMediaBox().getHeight();
+
+                    PDPage newPage = new PDPage(new PDRectangle(width, height));
+                    imageDocument.addPage(newPage);
+                    PDImageXObject pdImage = LosslessFactory.createFromImage(imageDocument, bim);
+                    PDPageContentStream contentStream =
+                            new PDPageContentStream(
+                                    imageDocument, newPage, AppendMode.APPEND, true, true);
+                    contentStream.drawImage(pdImage, 0, 0, width, height);
+                    contentStream.close();
+                });
         return imageDocument;
     }
 
-    private static BufferedImage prepareImageForPdfToImage(
-            int maxWidth, int height, String imageType) {
-        BufferedImage combined;
-        if ("png".equalsIgnoreCase(imageType)) {
-            combined = new BufferedImage(maxWidth, height, BufferedImage.TYPE_INT_ARGB);
-        } else {
-            combined = new BufferedImage(maxWidth, height, BufferedImage.TYPE_INT_RGB);
-        }
-        if (!"png".equalsIgnoreCase(imageType)) {
-            Graphics g = combined.getGraphics();
-            g.setColor(Color.WHITE);
-            g.fillRect(0, 0, combined.getWidth(), combined.getHeight());
-            g.dispose();
-        }
-        return combined;
+    /** The size {@link PDFRenderer} gives the page at this resolution, without rendering it. */
+    private static Dimension renderedSize(PDPage page, float dpi) {
+        PDRectangle cropBox = page.getCropBox();
+        float scale = dpi / 72f;
+        int width = (int) Math.max(Math.floor(cropBox.getWidth() * scale), 1);
+        int height = (int) Math.max(Math.floor(cropBox.getHeight() * scale), 1);
+        int rotation = page.getRotation();
+        return rotation == 90 || rotation == 270
+                ? new Dimension(height, width)
+                : new Dimension(width, height);
     }
 
     public static byte[] imageToPdf(
@@ -444,41 +393,40 @@ public class PdfUtils {
 
     public boolean containsTextInFile(PDDocument pdfDocument, String text, String pagesToCheck)
             throws IOException {
-        PDFTextStripper textStripper = new PDFTextStripper();
-        String pdfText = "";
+        PageTextIndex index = PageTextIndex.build(pdfDocument, false);
+        pdfDocument.close();
+        StringBuilder pdfText = new StringBuilder();
 
         if (pagesToCheck == null || "all".equals(pagesToCheck)) {
-            pdfText = textStripper.getText(pdfDocument);
+            for (int i = 0; i < index.getPageCount(); i++) {
+                pdfText.append(index.getText(i));
+            }
         } else {
             // remove whitespaces
             pagesToCheck = pagesToCheck.replaceAll("\\s+", "");
 
             String[] splitPoints = pagesToCheck.split(",");
             for (String splitPoint : splitPoints) {
+                int startPage;
+                int endPage;
                 if (splitPoint.contains("-")) {
                     // Handle page ranges
                     String[] range = splitPoint.split("-");
-                    int startPage = Integer.parseInt(range[0]);
-                    int endPage = Integer.parseInt(range[1]);
-
-                    for (int i = startPage; i <= endPage; i++) {
-                        textStripper.setStartPage(i);
-                        textStripper.setEndPage(i);
-                        pdfText += textStripper.getText(pdfDocument);
-                    }
+                    startPage = Integer.parseInt(range[0]);
+                    endPage = Integer.parseInt(range[1]);
                 } else {
                     // Handle individual page
-                    int page = Integer.parseInt(splitPoint);
-                    textStripper.setStartPage(page);
-                    textStripper.setEndPage(page);
-                    pdfText += textStripper.getText(pdfDocument);
+                    startPage = endPage = Integer.parseInt(splitPoint);
+                }
+                for (int i = Math.max(startPage, 1);
+                        i <= Math.min(endPage, index.getPageCount());
+                        i++) {
+                    pdfText.append(index.getText(i - 1));
                 }
             }
         }
 
-        pdfDocument.close();
-
-        return pdfText.contains(text);
+        return pdfText.indexOf(text) >= 0;
     }
 
     public boolean pageCount(PDDocument pdfDocument, int pageCount, String comparator)
@@ -517,10 +465,4 @@ public class PdfUtils {
         // Checks if the actual page size matches the expected page size
         return actualPageWidth == expectedPageWidth && actualPageHeight == expectedPageHeight;
     }
-
-    /** Key for storing the dimensions of a rendered image in a map. */
-    private record PdfRenderSettingsKey(float mediaBoxWidth, float mediaBoxHeight, int rotation) {}
-
-    /** Value for storing the dimensions of a rendered image in a map. */
-    private record PdfImageDimensionValue(int width, int height) {}
 }
@@ -2,31 +2,70 @@ package stirling.software.SPDF.utils;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.github.pixee.security.BoundedLineReader;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 
 import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.service.RequestMetricsService;
+import stirling.software.SPDF.service.RequestMetricsService.Stage;
 
 @Slf4j
 public class ProcessExecutor {
 
     private static final Map<Processes, ProcessExecutor> instances = new ConcurrentHashMap<>();
+    private static final int MAX_CAPTURED_LINES = 1000;
+    private static final int MAX_LINE_LENGTH = 10_000;
+    private static final AtomicInteger OUTPUT_READER_COUNT = new AtomicInteger();
+    // shared so every command no longer starts two fresh threads to read its output
+    private static final ExecutorService OUTPUT_READERS =
+            Executors.newCachedThreadPool(
+                    runnable -> {
+                        Thread thread =
+                                new Thread(
+                                        runnable,
+                                        "process-output-" + OUTPUT_READER_COUNT.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
     private static ApplicationProperties applicationProperties = new ApplicationProperties();
+    private final Processes processType;
     private final Semaphore semaphore;
     private final boolean liveUpdates;
+    private final Timer queueWaitTimer;
     private long timeoutDuration;
 
-    private ProcessExecutor(int semaphoreLimit, boolean liveUpdates, long timeout) {
+    private ProcessExecutor(
+            Processes processType, int semaphoreLimit, boolean liveUpdates, long timeout) {
+        this.processType = processType;
         this.semaphore = new Semaphore(semaphoreLimit);
         this.liveUpdates = liveUpdates;
         this.timeoutDuration = timeout;
+        this.queueWaitTimer =
+                Timer.builder("process.executor.queue.wait")
+                        .tag("process", processType.name().toLowerCase())
+                        .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Supplies the configured session limits and timeouts. Must be called before the first {@link
+     * #getInstance}, instances created earlier keep the defaults.
+     */
+    public static void setApplicationProperties(ApplicationProperties applicationProperties) {
+        ProcessExecutor.applicationProperties = applicationProperties;
     }
 
     public static ProcessExecutor getInstance(Processes processType) {
@@ -124,7 +163,7 @@ public class ProcessExecutor {
                                                 .getTimeoutMinutes()
                                                 .getCalibreTimeoutMinutes();
                             };
-                    return new ProcessExecutor(semaphoreLimit, liveUpdates, timeoutMinutes);
+                    return new ProcessExecutor(key, semaphoreLimit, liveUpdates, timeoutMinutes);
                 });
     }
 
@@ -135,9 +174,22 @@ public class ProcessExecutor {
 
     public ProcessExecutorResult runCommandWithOutputHandling(
             List<String> command, File workingDirectory) throws IOException, InterruptedException {
+        return runCommandWithOutputHandling(command, workingDirectory, null);
+    }
+
+    /**
+     * @param environment variables to add to the command's environment, may be null
+     */
+    public ProcessExecutorResult runCommandWithOutputHandling(
+            List<String> command, File workingDirectory, Map<String, String> environment)
+            throws IOException, InterruptedException {
         String messages = "";
         int exitCode = 1;
+        long queuedAt = System.nanoTime();
         semaphore.acquire();
+        long startedAt = System.nanoTime();
+        queueWaitTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+        String outcome = "failure";
         try {
 
             log.info("Running command: " + String.join(" ", command));
@@ -147,87 +199,51 @@ public class ProcessExecutor {
             if (workingDirectory != null) {
                 processBuilder.directory(workingDirectory);
             }
+            if (environment != null) {
+                processBuilder.environment().putAll(environment);
+            }
             Process process = processBuilder.start();
 
             // Read the error stream and standard output stream concurrently
-            List<String> errorLines = new ArrayList<>();
-            List<String> outputLines = new ArrayList<>();
-
-            Thread errorReaderThread =
-                    new Thread(
-                            () -> {
-                                try (BufferedReader errorReader =
-                                        new BufferedReader(
-                                                new InputStreamReader(
-                                                        process.getErrorStream(),
-                                                        StandardCharsets.UTF_8))) {
-                                    String line;
-                                    while ((line =
-                                                    BoundedLineReader.readLine(
-                                                            errorReader, 5_000_000))
-                                            != null) {
-                                        errorLines.add(line);
-                                        if (liveUpdates) log.info(line);
-                                    }
-                                } catch (InterruptedIOException e) {
-                                    log.warn("Error reader thread was interrupted due to timeout.");
-                                } catch (IOException e) {
-                                    log.error("exception", e);
-                                }
-                            });
-
-            Thread outputReaderThread =
-                    new Thread(
-                            () -> {
-                                try (BufferedReader outputReader =
-                                        new BufferedReader(
-                                                new InputStreamReader(
-                                                        process.getInputStream(),
-                                                        StandardCharsets.UTF_8))) {
-                                    String line;
-                                    while ((line =
-                                                    BoundedLineReader.readLine(
-                                                            outputReader, 5_000_000))
-                                            != null) {
-                                        outputLines.add(line);
-                                        if (liveUpdates) log.info(line);
-                                    }
-                                } catch (InterruptedIOException e) {
-                                    log.warn("Error reader thread was interrupted due to timeout.");
-                                } catch (IOException e) {
-                                    log.error("exception", e);
-                                }
-                            });
-
-            errorReaderThread.start();
-            outputReaderThread.start();
+            OutputBuffer errorLines = new OutputBuffer();
+            OutputBuffer outputLines = new OutputBuffer();
+            Future<?> errorReader =
+                    OUTPUT_READERS.submit(() -> drain(process.getErrorStream(), errorLines));
+            Future<?> outputReader =
+                    OUTPUT_READERS.submit(() -> drain(process.getInputStream(), outputLines));
 
             // Wait for the conversion process to complete
-            boolean finished = process.waitFor(timeoutDuration, TimeUnit.MINUTES);
+            boolean finished;
+            try {
+                finished = process.waitFor(timeoutDuration, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                // the request or job was cancelled, don't leave the tool running
+                outcome = "cancelled";
+                log.warn("Command was cancelled, terminating: {}", command.get(0));
+                destroyProcessTree(process);
+                throw e;
+            }
 
             if (!finished) {
-                // Terminate the process
-                process.destroy();
-                // Interrupt the reader threads
-                errorReaderThread.interrupt();
-                outputReaderThread.interrupt();
+                outcome = "timeout";
+                destroyProcessTree(process);
                 throw new IOException("Process timeout exceeded.");
             }
             exitCode = process.exitValue();
-            // Wait for the reader threads to finish
-            errorReaderThread.join();
-            outputReaderThread.join();
+            // Wait for the readers to finish
+            awaitReader(errorReader);
+            awaitReader(outputReader);
 
-            if (outputLines.size() > 0) {
-                String outputMessage = String.join("\n", outputLines);
+            if (!outputLines.isEmpty()) {
+                String outputMessage = outputLines.toString();
                 messages += outputMessage;
                 if (!liveUpdates) {
                     log.info("Command output:\n" + outputMessage);
                 }
             }
 
-            if (errorLines.size() > 0) {
-                String errorMessage = String.join("\n", errorLines);
+            if (!errorLines.isEmpty()) {
+                String errorMessage = errorLines.toString();
                 messages += errorMessage;
                 if (!liveUpdates) {
                     log.warn("Command error output:\n" + errorMessage);
@@ -248,12 +264,96 @@ public class ProcessExecutor {
                                 + "\nLogs: "
                                 + messages);
             }
+            outcome = "success";
         } finally {
             semaphore.release();
+            RequestMetricsService.addStageTime(Stage.EXEC, startedAt);
+            Timer.builder("process.executor.run")
+                    .tag("process", processType.name().toLowerCase())
+                    .tag("outcome", outcome)
+                    .register(Metrics.globalRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
         }
         return new ProcessExecutorResult(exitCode, messages);
     }
 
+    private void drain(InputStream stream, OutputBuffer lines) {
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = BoundedLineReader.readLine(reader, 5_000_000)) != null) {
+                lines.add(line);
+                if (liveUpdates) log.info(line);
+            }
+        } catch (IOException e) {
+            // the stream is closed under us when the process is destroyed
+            log.debug("Stopped reading process output", e);
+        }
+    }
+
+    private static void awaitReader(Future<?> reader) throws InterruptedException {
+        try {
+            reader.get();
+        } catch (ExecutionException e) {
+            log.error("exception", e.getCause());
+        }
+    }
+
+    /**
+     * Stops the process and everything it started (e.g. the soffice instance behind unoconv),
+     * forcibly if it does not exit within a few seconds.
+     */
+    private static void destroyProcessTree(Process process) {
+        List<ProcessHandle> descendants = process.descendants().toList();
+        process.destroy();
+        descendants.forEach(ProcessHandle::destroy);
+        try {
+            if (process.waitFor(5, TimeUnit.SECONDS)) {
+                descendants.stream()
+                        .filter(ProcessHandle::isAlive)
+                        .forEach(ProcessHandle::destroyForcibly);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        process.destroyForcibly();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+    }
+
+    /**
+     * Keeps the last {@link #MAX_CAPTURED_LINES} lines of a process stream, each cut to {@link
+     * #MAX_LINE_LENGTH} characters, so chatty tools (e.g. {@code unoconv -vvv}) cannot fill the
+     * heap.
+     */
+    private static class OutputBuffer {
+        private final ArrayDeque<String> lines = new ArrayDeque<>();
+        private long droppedLines;
+
+        synchronized void add(String line) {
+            if (lines.size() == MAX_CAPTURED_LINES) {
+                lines.removeFirst();
+                droppedLines++;
+            }
+            lines.addLast(
+                    line.length() > MAX_LINE_LENGTH
+                            ? line.substring(0, MAX_LINE_LENGTH) + "..."
+                            : line);
+        }
+
+        synchronized boolean isEmpty() {
+            return lines.isEmpty();
+        }
+
+        @Override
+        public synchronized String toString() {
+            String text = String.join("\n", lines);
+            return droppedLines > 0
+                    ? "[" + droppedLines + " earlier lines omitted]\n" + text
+                    : text;
+        }
+    }
+
     public enum Processes {
         LIBRE_OFFICE,
         PDFTOHTML,
@@ -0,0 +1,143 @@
+package stirling.software.SPDF.utils;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import stirling.software.SPDF.service.PageRenderService.RenderedPages;
+
+/**
+ * Encodes pages stacked top to bottom as one image without holding that image in memory.
+ *
+ * <p>The encoder is given an image whose pixels are only fetched when read: the page whose rows are
+ * being encoded is kept, and the next one is pulled from the renderer once the encoder reaches its
+ * first row. The PNG and JPEG encoders read rows top to bottom, so memory is bounded by a page
+ * (plus any pages rendered ahead) instead of growing with the page count. Encoders that need every
+ * pixel up front, like the GIF palette builder, still work but copy the image first.
+ */
+public class StripedImageWriter {
+
+    /**
+     * @param width width of the image; narrower pages are centred
+     * @param pageHeights height each page takes up, in the order the pages are returned; pages are
+     *     cut or padded to it
+     * @param imageType ImageIO format name; PNG keeps the space beside narrow pages transparent,
+     *     other formats fill it with white
+     * @return false if no encoder exists for the format, like {@link ImageIO#write}
+     */
+    public static boolean write(
+            RenderedPages<BufferedImage> pages,
+            int width,
+            int[] pageHeights,
+            String imageType,
+            OutputStream out)
+            throws IOException {
+        long totalHeight = Arrays.stream(pageHeights).asLongStream().sum();
+        if (width * totalHeight > Integer.MAX_VALUE) {
+            throw new IOException(
+                    "A single image of "
+                            + width
+                            + "x"
+                            + totalHeight
+                            + " pixels is too large, use a lower DPI or one image per page");
+        }
+
+        boolean transparent = "png".equalsIgnoreCase(imageType);
+        ColorModel colorModel =
+                transparent
+                        ? ColorModel.getRGBdefault()
+                        : new DirectColorModel(24, 0xFF0000, 0x00FF00, 0x0000FF);
+        PageStripBuffer buffer =
+                new PageStripBuffer(
+                        pages, width, pageHeights, transparent ? 0x00000000 : 0xFFFFFFFF);
+        WritableRaster raster =
+                Raster.createWritableRaster(
+                        colorModel.createCompatibleSampleModel(width, (int) totalHeight),
+                        buffer,
+                        null);
+        BufferedImage image = new BufferedImage(colorModel, raster, false, null);
+        try {
+            return ImageIO.write(image, imageType, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * ARGB pixels of the whole image, of which only the current page is held. Elements must be read
+     * in increasing rows; reading a row of a page already passed fails.
+     */
+    private static class PageStripBuffer extends DataBuffer {
+
+        private final RenderedPages<BufferedImage> pages;
+
+        private final int width;
+
+        private final int[] pageHeights;
+
+        private final int background;
+
+        private int nextPage;
+
+        private int[] strip = new int[0];
+
+        /** Element index of the first pixel of {@link #strip}. */
+        private int stripStart;
+
+        PageStripBuffer(
+                RenderedPages<BufferedImage> pages, int width, int[] pageHeights, int background) {
+            super(TYPE_INT, (int) (width * Arrays.stream(pageHeights).asLongStream().sum()));
+            this.pages = pages;
+            this.width = width;
+            this.pageHeights = pageHeights;
+            this.background = background;
+        }
+
+        @Override
+        public int getElem(int bank, int i) {
+            while (i >= stripStart + strip.length) {
+                nextStrip();
+            }
+            if (i < stripStart) {
+                throw new IllegalStateException("Rows of a striped image must be read in order");
+            }
+            return strip[i - stripStart];
+        }
+
+        @Override
+        public void setElem(int bank, int i, int val) {
+            throw new UnsupportedOperationException("Striped images are read-only");
+        }
+
+        private void nextStrip() {
+            stripStart += strip.length;
+            // let go of the previous page before the next one is rendered
+            strip = null;
+            int height = pageHeights[nextPage++];
+            BufferedImage page;
+            try {
+                page = pages.next();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            int[] pixels = new int[width * height];
+            if (background != 0) {
+                Arrays.fill(pixels, background);
+            }
+            int pageWidth = Math.min(page.getWidth(), width);
+            int pageHeight = Math.min(page.getHeight(), height);
+            int x = (width - pageWidth) / 2;
+            page.getRGB(0, 0, pageWidth, pageHeight, pixels, x, width);
+            strip = pixels;
+        }
+    }
+}
@@ -4,16 +4,25 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 
+import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.service.RequestMetricsService;
+import stirling.software.SPDF.service.RequestMetricsService.Stage;
+
+@Slf4j
 public class WebResponseUtils {
 
     public static ResponseEntity<byte[]> boasToWebResponse(
@@ -40,14 +49,22 @@ public class WebResponseUtils {
             byte[] bytes, String docName, MediaType mediaType) throws IOException {
 
         // Return the PDF as a response
+        HttpHeaders headers = createDownloadHeaders(docName, mediaType, bytes.length);
+        return new ResponseEntity<>(bytes, headers, HttpStatus.OK);
+    }
+
+    private static HttpHeaders createDownloadHeaders(
+            String docName, MediaType mediaType, long contentLength) throws IOException {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(mediaType);
-        headers.setContentLength(bytes.length);
+        if (contentLength >= 0) {
+            headers.setContentLength(contentLength);
+        }
         String encodedDocName =
                 URLEncoder.encode(docName, StandardCharsets.UTF_8.toString())
                         .replaceAll("\\+", "%20");
         headers.setContentDispositionFormData("attachment", encodedDocName);
-        return new ResponseEntity<>(bytes, headers, HttpStatus.OK);
+        return headers;
     }
 
     public static ResponseEntity<byte[]> bytesToWebResponse(byte[] bytes, String docName)
@@ -60,10 +77,69 @@ public class WebResponseUtils {
 
         // Open Byte Array and save document to it
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        long start = System.nanoTime();
         document.save(baos);
+        RequestMetricsService.addStageTime(Stage.SAVE, start);
         // Close the document
         document.close();
 
         return boasToWebResponse(baos, docName);
     }
+
+    /**
+     * Saves the document straight into the servlet output stream instead of buffering it in a byte
+     * array first. The document is closed once it has been written. Since the body is only produced
+     * after the handler returns, errors raised while saving can no longer be turned into an error
+     * response.
+     */
+    public static ResponseEntity<StreamingResponseBody> pdfDocToStreamingWebResponse(
+            PDDocument document, String docName) throws IOException {
+        StreamingResponseBody body =
+                outputStream -> {
+                    try (document) {
+                        document.save(CloseShieldOutputStream.wrap(outputStream));
+                    }
+                };
+        return new ResponseEntity<>(
+                body, createDownloadHeaders(docName, MediaType.APPLICATION_PDF, -1), HttpStatus.OK);
+    }
+
+    public static ResponseEntity<StreamingResponseBody> boasToStreamingWebResponse(
+            ByteArrayOutputStream baos, String docName, MediaType mediaType) throws IOException {
+        // writeTo avoids the extra copy that toByteArray() makes
+        StreamingResponseBody body = baos::writeTo;
+        return new ResponseEntity<>(
+                body, createDownloadHeaders(docName, mediaType, baos.size()), HttpStatus.OK);
+    }
+
+    /** Streams a file from disk to the client and deletes it once it has been sent. */
+    public static ResponseEntity<StreamingResponseBody> tempFileToStreamingWebResponse(
+            Path file, String docName, MediaType mediaType) throws IOException {
+        StreamingResponseBody body =
+                outputStream -> {
+                    try {
+                        Files.copy(file, outputStream);
+                    } finally {
+                        deleteQuietly(file);
+                    }
+                };
+        return new ResponseEntity<>(
+                body, createDownloadHeaders(docName, mediaType, Files.size(file)), HttpStatus.OK);
+    }
+
+    /** Streams a file that stays in place after the response is sent. */
+    public static ResponseEntity<StreamingResponseBody> fileToStreamingWebResponse(
+            Path file, String docName, MediaType mediaType) throws IOException {
+        StreamingResponseBody body = outputStream -> Files.copy(file, outputStream);
+        return new ResponseEntity<>(
+                body, createDownloadHeaders(docName, mediaType, Files.size(file)), HttpStatus.OK);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.error("Error deleting temporary file {}", file, e);
+        }
+    }
 }
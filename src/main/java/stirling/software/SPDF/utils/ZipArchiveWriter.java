@@ -0,0 +1,351 @@
+package stirling.software.SPDF.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+import stirling.software.SPDF.service.ComputeScheduler;
+
+/**
+ * Writes a ZIP archive to a stream as entries are produced.
+ *
+ * <p>Entries are deflated on compute slots that happen to be free (or on the calling thread when
+ * there are none), while the caller goes on producing the next entry; they are written to the
+ * stream in the order they were added. Formats that are compressed already (images, office
+ * documents, archives) are stored as they are, and other entries are only deflated if a quick probe
+ * of their first bytes shows it pays off, so PDFs full of compressed streams are not deflated for
+ * nothing. Archives beyond 4GB or 65535 entries are written as ZIP64.
+ */
+public class ZipArchiveWriter implements Closeable {
+
+    private static final Set<String> COMPRESSED_EXTENSIONS =
+            Set.of(
+                    "jpg", "jpeg", "jp2", "png", "gif", "webp", "zip", "gz", "7z", "docx", "xlsx",
+                    "pptx", "odt", "ods", "odp", "epub");
+
+    private static final int PROBE_SIZE = 64 * 1024;
+
+    // entries that deflate to more than this share of the original are stored instead
+    private static final double MIN_SAVING_RATIO = 0.9;
+
+    private static final int MAX_PENDING_ENTRIES = 16;
+
+    private static final long MAX_PENDING_BYTES = 64L * 1024 * 1024;
+
+    private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+
+    private final OutputStream out;
+
+    private final ComputeScheduler computeScheduler;
+
+    private final Deque<Entry> pending = new ArrayDeque<>();
+
+    private final List<Entry> written = new ArrayList<>();
+
+    private final Set<String> names = new HashSet<>();
+
+    private long pendingBytes;
+
+    private long position;
+
+    private boolean closed;
+
+    /** Writes the archive on the calling thread only. */
+    public ZipArchiveWriter(OutputStream out) {
+        this(out, null);
+    }
+
+    /** Deflates entries on free compute slots of the scheduler while the caller carries on. */
+    public ZipArchiveWriter(OutputStream out, ComputeScheduler computeScheduler) {
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+        this.computeScheduler = computeScheduler;
+    }
+
+    /** Writes the archive to a new file, which is replaced if it exists. */
+    public static ZipArchiveWriter toFile(Path file, ComputeScheduler computeScheduler)
+            throws IOException {
+        return new ZipArchiveWriter(Files.newOutputStream(file), computeScheduler);
+    }
+
+    /**
+     * Adds an entry. The data must not be modified afterwards.
+     *
+     * @throws ZipException if an entry of that name was added before
+     */
+    public void addEntry(String name, byte[] data) throws IOException {
+        if (closed) {
+            throw new IOException("Archive is closed");
+        }
+        if (!names.add(name)) {
+            throw new ZipException("duplicate entry: " + name);
+        }
+        Entry entry = new Entry(name, data, !isCompressedFormat(name));
+        pending.add(entry);
+        pendingBytes += data.length;
+        if (computeScheduler == null || !computeScheduler.tryRunAsync(entry::prepare)) {
+            entry.prepare();
+        }
+        writeReadyEntries(false);
+    }
+
+    public void addEntry(String name, Path file) throws IOException {
+        addEntry(name, Files.readAllBytes(file));
+    }
+
+    static boolean isCompressedFormat(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0
+                && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Writes the finished entries at the head of the queue, waiting for unfinished ones when too
+     * much is pending or {@code all} is set.
+     */
+    private void writeReadyEntries(boolean all) throws IOException {
+        while (!pending.isEmpty()) {
+            Entry entry = pending.peek();
+            boolean mustWait =
+                    all || pending.size() > MAX_PENDING_ENTRIES || pendingBytes > MAX_PENDING_BYTES;
+            if (entry.done.getCount() > 0 && !mustWait) {
+                return;
+            }
+            try {
+                entry.done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while compressing " + entry.name, e);
+            }
+            pending.poll();
+            pendingBytes -= entry.size;
+            writeEntry(entry);
+        }
+    }
+
+    private void writeEntry(Entry entry) throws IOException {
+        if (entry.failure != null) {
+            throw new IOException("Failed to compress " + entry.name, entry.failure);
+        }
+        entry.offset = position;
+        byte[] body = entry.compressed != null ? entry.compressed : entry.data;
+        writeInt(0x04034b50);
+        writeShort(20);
+        writeShort(0x0800); // names are UTF-8
+        writeShort(entry.method());
+        writeShort(entry.time);
+        writeShort(entry.date);
+        writeInt(entry.crc);
+        writeInt(body.length);
+        writeInt(entry.size);
+        writeShort(entry.nameBytes.length);
+        writeShort(0);
+        write(entry.nameBytes);
+        write(body);
+        entry.data = null;
+        entry.compressed = null;
+        written.add(entry);
+    }
+
+    /** Waits for all entries, writes the central directory and closes the stream. */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (out) {
+            writeReadyEntries(true);
+            writeCentralDirectory();
+            out.flush();
+        }
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long directoryOffset = position;
+        for (Entry entry : written) {
+            boolean zip64 = entry.offset >= ZIP64_LIMIT;
+            writeInt(0x02014b50);
+            writeShort(zip64 ? 45 : 20);
+            writeShort(zip64 ? 45 : 20);
+            writeShort(0x0800);
+            writeShort(entry.method());
+            writeShort(entry.time);
+            writeShort(entry.date);
+            writeInt(entry.crc);
+            writeInt(entry.compressedSize);
+            writeInt(entry.size);
+            writeShort(entry.nameBytes.length);
+            writeShort(zip64 ? 12 : 0);
+            writeShort(0); // comment
+            writeShort(0); // disk
+            writeShort(0); // internal attributes
+            writeInt(0); // external attributes
+            writeInt(zip64 ? ZIP64_LIMIT : entry.offset);
+            write(entry.nameBytes);
+            if (zip64) {
+                writeShort(0x0001);
+                writeShort(8);
+                writeLong(entry.offset);
+            }
+        }
+        long directorySize = position - directoryOffset;
+        int count = written.size();
+
+        if (count >= 0xFFFF || directoryOffset >= ZIP64_LIMIT || directorySize >= ZIP64_LIMIT) {
+            long recordOffset = position;
+            writeInt(0x06064b50);
+            writeLong(44);
+            writeShort(45);
+            writeShort(45);
+            writeInt(0);
+            writeInt(0);
+            writeLong(count);
+            writeLong(count);
+            writeLong(directorySize);
+            writeLong(directoryOffset);
+            writeInt(0x07064b50);
+            writeInt(0);
+            writeLong(recordOffset);
+            writeInt(1);
+        }
+        writeInt(0x06054b50);
+        writeShort(0);
+        writeShort(0);
+        writeShort(Math.min(count, 0xFFFF));
+        writeShort(Math.min(count, 0xFFFF));
+        writeInt(Math.min(directorySize, ZIP64_LIMIT));
+        writeInt(Math.min(directoryOffset, ZIP64_LIMIT));
+        writeShort(0);
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+        position += 2;
+    }
+
+    private void writeInt(long value) throws IOException {
+        writeShort((int) (value & 0xFFFF));
+        writeShort((int) ((value >>> 16) & 0xFFFF));
+    }
+
+    private void writeLong(long value) throws IOException {
+        writeInt(value & 0xFFFFFFFFL);
+        writeInt(value >>> 32);
+    }
+
+    private static final class Entry {
+
+        final String name;
+
+        final byte[] nameBytes;
+
+        final int size;
+
+        final boolean mayDeflate;
+
+        final int time;
+
+        final int date;
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        // released once written, so the archive does not keep every entry in memory
+        byte[] data;
+
+        // set by prepare(), published through the latch
+        long crc;
+
+        byte[] compressed;
+
+        int compressedSize;
+
+        Throwable failure;
+
+        long offset;
+
+        Entry(String name, byte[] data, boolean mayDeflate) {
+            this.name = name;
+            this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            this.data = data;
+            this.size = data.length;
+            this.mayDeflate = mayDeflate;
+            LocalDateTime now = LocalDateTime.now();
+            this.time = now.getHour() << 11 | now.getMinute() << 5 | now.getSecond() >> 1;
+            this.date =
+                    (now.getYear() - 1980) << 9 | now.getMonthValue() << 5 | now.getDayOfMonth();
+        }
+
+        int method() {
+            return compressedSize < size ? 8 : 0;
+        }
+
+        void prepare() {
+            try {
+                CRC32 checksum = new CRC32();
+                checksum.update(data);
+                crc = checksum.getValue();
+                if (mayDeflate && worthDeflating()) {
+                    byte[] deflated = deflate(data, data.length, Deflater.DEFAULT_COMPRESSION);
+                    if (deflated.length < data.length) {
+                        compressed = deflated;
+                    }
+                }
+                compressedSize = compressed != null ? compressed.length : data.length;
+            } catch (Throwable e) {
+                // also errors such as OutOfMemoryError, which would otherwise leave the entry
+                // without checksum and size; reported by the writing thread
+                failure = e;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private boolean worthDeflating() {
+            int probeLength = Math.min(data.length, PROBE_SIZE);
+            if (probeLength == 0) {
+                return false;
+            }
+            byte[] probe = deflate(data, probeLength, Deflater.BEST_SPEED);
+            return probe.length < probeLength * MIN_SAVING_RATIO;
+        }
+
+        private static byte[] deflate(byte[] data, int length, int level) {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                deflater.setInput(data, 0, length);
+                deflater.finish();
+                ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2 + 64);
+                byte[] buffer = new byte[64 * 1024];
+                while (!deflater.finished()) {
+                    result.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return result.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
@@ -1,30 +1,44 @@
 package stirling.software.SPDF.utils.misc;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-
-import javax.imageio.ImageIO;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.filter.Filter;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.ImageType;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.web.multipart.MultipartFile;
 
 import stirling.software.SPDF.model.api.misc.ReplaceAndInvert;
+import stirling.software.SPDF.service.PageRenderService;
+import stirling.software.SPDF.service.PageRenderService.DocumentSource;
+import stirling.software.SPDF.service.PageRenderService.RenderSettings;
 
 public class InvertFullColorStrategy extends ReplaceAndInvertColorStrategy {
 
-    public InvertFullColorStrategy(MultipartFile file, ReplaceAndInvert replaceAndInvert) {
+    private final PageRenderService pageRenderService;
+
+    public InvertFullColorStrategy(
+            MultipartFile file,
+            ReplaceAndInvert replaceAndInvert,
+            PageRenderService pageRenderService) {
         super(file, replaceAndInvert);
+        this.pageRenderService = pageRenderService;
     }
 
     @Override
@@ -33,73 +47,109 @@ public class InvertFullColorStrategy extends ReplaceAndInvertColorStrategy {
         // Create a temporary file, with the original filename from the multipart file
         File file = Files.createTempFile("temp", getFileInput().getOriginalFilename()).toFile();
 
-        // Transfer the content of the multipart file to the file
-        getFileInput().transferTo(file);
-
-        // Load the uploaded PDF
-        PDDocument document = Loader.loadPDF(file);
-
-        // Render each page and invert colors
-        PDFRenderer pdfRenderer = new PDFRenderer(document);
-        for (int page = 0; page < document.getNumberOfPages(); page++) {
-            BufferedImage image =
-                    pdfRenderer.renderImageWithDPI(page, 300); // Render page at 300 DPI
-
-            // Invert the colors
-            invertImageColors(image);
-
-            // Create a new PDPage from the inverted image
-            PDPage pdPage = document.getPage(page);
-            PDImageXObject pdImage =
-                    PDImageXObject.createFromFileByContent(
-                            convertToBufferedImageTpFile(image), document);
-
-            PDPageContentStream contentStream =
-                    new PDPageContentStream(
-                            document, pdPage, PDPageContentStream.AppendMode.OVERWRITE, true);
-            contentStream.drawImage(
-                    pdImage,
-                    0,
-                    0,
-                    pdPage.getMediaBox().getWidth(),
-                    pdPage.getMediaBox().getHeight());
-            contentStream.close();
+        try {
+            // Transfer the content of the multipart file to the file
+            getFileInput().transferTo(file);
+
+            // Load the uploaded PDF
+            try (PDDocument document = Loader.loadPDF(file)) {
+
+                // Render each page, then invert and compress it on the thread that rendered it
+                pageRenderService.renderPages(
+                        document,
+                        DocumentSource.of(file.toPath()),
+                        new RenderSettings(300, ImageType.RGB, false), // Render page at 300 DPI
+                        (page, image) -> invertToFlateRgb(image),
+                        (page, inverted) -> {
+                            // Replace the page content with the inverted image
+                            PDPage pdPage = document.getPage(page);
+                            PDImageXObject pdImage =
+                                    new PDImageXObject(
+                                            document,
+                                            new ByteArrayInputStream(inverted.data()),
+                                            COSName.FLATE_DECODE,
+                                            inverted.width(),
+                                            inverted.height(),
+                                            8,
+                                            PDDeviceRGB.INSTANCE);
+
+                            PDPageContentStream contentStream =
+                                    new PDPageContentStream(
+                                            document,
+                                            pdPage,
+                                            PDPageContentStream.AppendMode.OVERWRITE,
+                                            true);
+                            contentStream.drawImage(
+                                    pdImage,
+                                    0,
+                                    0,
+                                    pdPage.getMediaBox().getWidth(),
+                                    pdPage.getMediaBox().getHeight());
+                            contentStream.close();
+                        });
+
+                // Save the modified PDF to a ByteArrayOutputStream
+                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                document.save(byteArrayOutputStream);
+
+                // Prepare the modified PDF for download
+                ByteArrayInputStream inputStream =
+                        new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
+                return new InputStreamResource(inputStream);
+            }
+        } finally {
+            Files.deleteIfExists(file.toPath());
         }
-
-        // Save the modified PDF to a ByteArrayOutputStream
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        document.save(byteArrayOutputStream);
-        document.close();
-
-        // Prepare the modified PDF for download
-        ByteArrayInputStream inputStream =
-                new ByteArrayInputStream(byteArrayOutputStream.toByteArray());
-        InputStreamResource resource = new InputStreamResource(inputStream);
-        return resource;
     }
 
-    // Method to invert image colors
-    private void invertImageColors(BufferedImage image) {
+    /** 8-bit RGB samples of an image, Flate-compressed as an image XObject stores them. */
+    private record FlateRgbImage(int width, int height, byte[] data) {}
+
+    /**
+     * Inverts the image and compresses the result in one pass over the pixels. Rendered pages are
+     * packed RGB, which is read straight from the raster; inverting is flipping the colour bits.
+     */
+    private static FlateRgbImage invertToFlateRgb(BufferedImage image) throws IOException {
         int width = image.getWidth();
         int height = image.getHeight();
-        for (int x = 0; x < width; x++) {
+        WritableRaster raster = image.getRaster();
+        boolean packed =
+                image.getType() == BufferedImage.TYPE_INT_RGB
+                        && raster.getDataBuffer() instanceof DataBufferInt
+                        && raster.getSampleModel() instanceof SinglePixelPackedSampleModel;
+        int[] pixels = packed ? ((DataBufferInt) raster.getDataBuffer()).getData() : new int[width];
+        int stride =
+                packed
+                        ? ((SinglePixelPackedSampleModel) raster.getSampleModel())
+                                .getScanlineStride()
+                        : 0;
+
+        byte[] row = new byte[width * 3];
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Filter.getCompressionLevel());
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
             for (int y = 0; y < height; y++) {
-                int rgba = image.getRGB(x, y);
-                Color color = new Color(rgba, true);
-                Color invertedColor =
-                        new Color(
-                                255 - color.getRed(),
-                                255 - color.getGreen(),
-                                255 - color.getBlue());
-                image.setRGB(x, y, invertedColor.getRGB());
+                int offset;
+                if (packed) {
+                    offset =
+                            raster.getDataBuffer().getOffset()
+                                    + (y - raster.getSampleModelTranslateY()) * stride
+                                    - raster.getSampleModelTranslateX();
+                } else {
+                    image.getRGB(0, y, width, 1, pixels, 0, width);
+                    offset = 0;
+                }
+                for (int x = 0, i = 0; x < width; x++) {
+                    int rgb = ~pixels[offset + x];
+                    row[i++] = (byte) (rgb >> 16);
+                    row[i++] = (byte) (rgb >> 8);
+                    row[i++] = (byte) rgb;
+                }
+                out.write(row);
             }
+        } finally {
+            deflater.end();
         }
-    }
-
-    // Helper method to convert BufferedImage to InputStream
-    private File convertToBufferedImageTpFile(BufferedImage image) throws IOException {
-        File file = new File("image.png");
-        ImageIO.write(image, "png", file);
-        return file;
+        return new FlateRgbImage(width, height, compressed.toByteArray());
     }
 }
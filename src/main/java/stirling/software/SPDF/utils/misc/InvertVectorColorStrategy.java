@@ -0,0 +1,128 @@
+package stirling.software.SPDF.utils.misc;
+
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.blend.BlendMode;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.web.multipart.MultipartFile;
+
+import lombok.extern.slf4j.Slf4j;
+import stirling.software.SPDF.model.api.misc.ReplaceAndInvert;
+import stirling.software.SPDF.service.PageRenderService;
+
+/**
+ * Inverts every colour without rendering the pages, so text stays selectable and vector content
+ * stays sharp at any zoom.
+ *
+ * <p>PDF has no colour matrix, so the inversion is left to the viewer's compositing: white painted
+ * over the page with the Difference blend mode turns every colour c into 1 - c. An opaque white
+ * background is put under the page content first, so empty areas invert to black in viewers that
+ * treat the page backdrop as transparent. Annotations are drawn on top and stay as they are.
+ * Viewers without transparency support ignore the blend mode and show the pages solid white.
+ *
+ * <p>In a page group with a CMYK blending colour space the Difference overlay leaves the colours as
+ * they are, so documents with such pages are inverted like {@link InvertFullColorStrategy} instead.
+ */
+@Slf4j
+public class InvertVectorColorStrategy extends ReplaceAndInvertColorStrategy {
+
+    private final PageRenderService pageRenderService;
+
+    public InvertVectorColorStrategy(
+            MultipartFile file,
+            ReplaceAndInvert replaceAndInvert,
+            PageRenderService pageRenderService) {
+        super(file, replaceAndInvert);
+        this.pageRenderService = pageRenderService;
+    }
+
+    @Override
+    public InputStreamResource replace() throws IOException {
+        try (PDDocument document = Loader.loadPDF(getFileInput().getBytes())) {
+            if (!hasCmykPageGroup(document)) {
+                return invert(document);
+            }
+        }
+        log.info("Document has CMYK page groups, rendering the pages to invert them");
+        return new InvertFullColorStrategy(getFileInput(), getReplaceAndInvert(), pageRenderService)
+                .replace();
+    }
+
+    private static InputStreamResource invert(PDDocument document) throws IOException {
+        PDExtendedGraphicsState difference = new PDExtendedGraphicsState();
+        difference.setBlendMode(BlendMode.DIFFERENCE);
+
+        for (PDPage page : document.getPages()) {
+            PDRectangle mediaBox = page.getMediaBox();
+
+            try (PDPageContentStream background =
+                    new PDPageContentStream(
+                            document, page, PDPageContentStream.AppendMode.PREPEND, true)) {
+                // kept in its own graphics state so the page content starts as before
+                background.saveGraphicsState();
+                fillPage(background, mediaBox);
+                background.restoreGraphicsState();
+            }
+
+            try (PDPageContentStream overlay =
+                    new PDPageContentStream(
+                            document, page, PDPageContentStream.AppendMode.APPEND, true, true)) {
+                overlay.setGraphicsStateParameters(difference);
+                fillPage(overlay, mediaBox);
+            }
+        }
+
+        // Save the modified PDF to a ByteArrayOutputStream
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        document.save(byteArrayOutputStream);
+
+        // Prepare the modified PDF for download
+        return new InputStreamResource(
+                new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+    }
+
+    /** Whether any page is a transparency group that blends in a four-component colour space. */
+    private static boolean hasCmykPageGroup(PDDocument document) {
+        for (PDPage page : document.getPages()) {
+            COSDictionary group = page.getCOSObject().getCOSDictionary(COSName.GROUP);
+            COSBase colorSpace = group != null ? group.getDictionaryObject(COSName.CS) : null;
+            if (colorSpace == null) {
+                continue;
+            }
+            try {
+                if (PDColorSpace.create(colorSpace, page.getResources()).getNumberOfComponents()
+                        == 4) {
+                    return true;
+                }
+            } catch (IOException e) {
+                // unknown blending space, rendering is the safe choice
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void fillPage(PDPageContentStream contentStream, PDRectangle mediaBox)
+            throws IOException {
+        contentStream.setNonStrokingColor(Color.WHITE);
+        contentStream.addRect(
+                mediaBox.getLowerLeftX(),
+                mediaBox.getLowerLeftY(),
+                mediaBox.getWidth(),
+                mediaBox.getHeight());
+        contentStream.fill();
+    }
+}
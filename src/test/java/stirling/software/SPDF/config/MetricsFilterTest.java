@@ -0,0 +1,59 @@
+package stirling.software.SPDF.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.service.RequestMetricsService;
+
+public class MetricsFilterTest {
+
+    private static final String ROUTE = "/api/v1/general/rotate-pdf";
+
+    private RequestMetricsService requestMetricsService;
+
+    private MetricsFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        requestMetricsService = new RequestMetricsService(new SimpleMeterRegistry());
+        filter = new MetricsFilter(requestMetricsService, new ApplicationProperties());
+    }
+
+    @Test
+    void testStandardMethodsAreRecordedAsSent() throws Exception {
+        send("POST");
+        send("PATCH");
+
+        assertEquals(1.0, requestMetricsService.getRequestCount("POST", Optional.of(ROUTE)));
+        assertEquals(1.0, requestMetricsService.getRequestCount("PATCH", Optional.of(ROUTE)));
+    }
+
+    @Test
+    void testUnknownMethodsShareOneTag() throws Exception {
+        send("PROPFIND");
+        send("X-RANDOM-1");
+        send("get");
+
+        assertEquals(Map.of(ROUTE, 3.0), requestMetricsService.getRequestCounts("OTHER"));
+        assertTrue(requestMetricsService.getRequestCounts("PROPFIND").isEmpty());
+        assertTrue(requestMetricsService.getRequestCounts("X-RANDOM-1").isEmpty());
+    }
+
+    private void send(String method) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, ROUTE);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, ROUTE);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+}
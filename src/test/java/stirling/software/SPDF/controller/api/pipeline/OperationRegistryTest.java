@@ -0,0 +1,158 @@
+package stirling.software.SPDF.controller.api.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class OperationRegistryTest {
+
+    private OperationRegistry registry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        TestController controller = new TestController();
+        Map<RequestMappingInfo, HandlerMethod> handlerMethods = new LinkedHashMap<>();
+        handlerMethods.put(
+                post("/api/v1/general/rotate-pdf"),
+                handler(controller, "rotate", RotateRequest.class));
+        handlerMethods.put(
+                post("/api/v1/general/merge-pdfs"),
+                handler(controller, "merge", MergeRequest.class));
+        handlerMethods.put(
+                RequestMappingInfo.paths("/api/v1/info/status").methods(RequestMethod.GET).build(),
+                handler(controller, "status"));
+        handlerMethods.put(post("/login"), handler(controller, "status"));
+
+        RequestMappingHandlerMapping mapping = mock(RequestMappingHandlerMapping.class);
+        when(mapping.getHandlerMethods()).thenReturn(handlerMethods);
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBean(
+                        "requestMappingHandlerMapping", RequestMappingHandlerMapping.class))
+                .thenReturn(mapping);
+        registry = new OperationRegistry(applicationContext);
+    }
+
+    @Test
+    void testLookupIgnoresLeadingSlashes() {
+        OperationDescriptor descriptor = registry.get("/api/v1/general/rotate-pdf");
+
+        assertNotNull(descriptor);
+        assertSame(descriptor, registry.get("api/v1/general/rotate-pdf"));
+        assertSame(descriptor, registry.get("  //api/v1/general/rotate-pdf "));
+        assertEquals("/api/v1/general/rotate-pdf", descriptor.path());
+    }
+
+    @Test
+    void testOnlyPostApiOperationsAreRegistered() {
+        assertNull(registry.get("/api/v1/info/status"));
+        assertNull(registry.get("/login"));
+        assertNull(registry.get("/api/v1/general/unknown"));
+        assertFalse(registry.isValidOperation("/api/v1/general/unknown", Map.of()));
+        assertNull(registry.getExtensionTypes(false, "/api/v1/general/unknown"));
+    }
+
+    @Test
+    void testDescriptionTagsAreParsed() {
+        OperationDescriptor rotate = registry.get("api/v1/general/rotate-pdf");
+        assertFalse(rotate.multiInput());
+        assertFalse(rotate.multiOutput());
+        assertEquals(List.of("pdf"), rotate.getInputExtensions());
+        assertEquals(List.of("pdf"), registry.getExtensionTypes(true, "api/v1/general/rotate-pdf"));
+
+        assertTrue(registry.isMultiInput("api/v1/general/merge-pdfs"));
+        assertEquals(FileKind.ZIP, registry.get("api/v1/general/merge-pdfs").outputKind());
+    }
+
+    @Test
+    void testRequestParametersAreDescribed() {
+        OperationDescriptor rotate = registry.get("api/v1/general/rotate-pdf");
+
+        assertTrue(rotate.isDispatchable());
+        assertEquals(RotateRequest.class, rotate.requestType());
+        assertTrue(rotate.parameters().get("angle").required());
+        assertFalse(rotate.parameters().get("fileInput").required());
+        assertEquals(List.of("angle"), rotate.getMissingParameters(Map.of("fileInput", "x")));
+        assertEquals(List.of(), rotate.getMissingParameters(Map.of("angle", 90)));
+        // missing parameters are only logged
+        assertTrue(registry.isValidOperation("api/v1/general/rotate-pdf", Map.of()));
+    }
+
+    private static RequestMappingInfo post(String path) {
+        return RequestMappingInfo.paths(path).methods(RequestMethod.POST).build();
+    }
+
+    private static HandlerMethod handler(Object bean, String name, Class<?>... parameterTypes)
+            throws NoSuchMethodException {
+        return new HandlerMethod(bean, bean.getClass().getMethod(name, parameterTypes));
+    }
+
+    public static class RotateRequest {
+
+        private MultipartFile fileInput;
+
+        @Schema(requiredMode = Schema.RequiredMode.REQUIRED)
+        private Integer angle;
+
+        public MultipartFile getFileInput() {
+            return fileInput;
+        }
+
+        public void setFileInput(MultipartFile fileInput) {
+            this.fileInput = fileInput;
+        }
+
+        public Integer getAngle() {
+            return angle;
+        }
+
+        public void setAngle(Integer angle) {
+            this.angle = angle;
+        }
+    }
+
+    public static class MergeRequest {
+
+        private MultipartFile[] fileInput;
+
+        public MultipartFile[] getFileInput() {
+            return fileInput;
+        }
+
+        public void setFileInput(MultipartFile[] fileInput) {
+            this.fileInput = fileInput;
+        }
+    }
+
+    public static class TestController {
+
+        @Operation(description = "Rotates a PDF. Input:PDF Output:PDF Type:SISO")
+        public ResponseEntity<byte[]> rotate(RotateRequest request) {
+            return ResponseEntity.ok(new byte[0]);
+        }
+
+        @Operation(description = "Merges PDFs. Input:PDF Output:ZIP Type:MIMO")
+        public ResponseEntity<byte[]> merge(MergeRequest request) {
+            return ResponseEntity.ok(new byte[0]);
+        }
+
+        public String status() {
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package stirling.software.SPDF.controller.api.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.utils.FileMonitor;
+
+public class PipelineDirectoryProcessorTest {
+
+    @TempDir Path tempDir;
+
+    private Path watchedDir;
+
+    private Path folder;
+
+    private PipelineJournal journal;
+
+    private PipelineProcessor processor;
+
+    private PipelineDirectoryProcessor directoryProcessor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        watchedDir = tempDir.resolve("watchedFolders");
+        folder = watchedDir.resolve("rotate");
+        Files.createDirectories(folder.resolve("processing"));
+        journal = new PipelineJournal(tempDir.resolve("journal"), new ObjectMapper());
+        processor = mock(PipelineProcessor.class);
+        OperationRegistry operationRegistry = mock(OperationRegistry.class);
+        when(operationRegistry.isValidOperation(anyString(), anyMap())).thenReturn(true);
+        FileMonitor fileMonitor = mock(FileMonitor.class);
+        when(fileMonitor.isFileReadyForProcessing(any())).thenReturn(true);
+        directoryProcessor =
+                new PipelineDirectoryProcessor(
+                        new ObjectMapper(),
+                        operationRegistry,
+                        watchedDir.toString(),
+                        tempDir.resolve("finishedFolders").toString(),
+                        processor,
+                        fileMonitor,
+                        new ApplicationProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        directoryProcessor.shutdown();
+    }
+
+    @Test
+    void testStartupRollsBackInterruptedRun() throws Exception {
+        Path claimed = Files.writeString(folder.resolve("processing/a.pdf"), "a");
+        journal.claim(Map.of(claimed.toString(), folder.resolve("a.pdf").toString()));
+
+        directoryProcessor.init();
+
+        assertEquals("a", Files.readString(folder.resolve("a.pdf")));
+        assertFalse(Files.exists(claimed));
+        assertTrue(journal.readAll().isEmpty());
+    }
+
+    @Test
+    void testStartupFinishesCommittedRun() throws Exception {
+        Path claimed = Files.writeString(folder.resolve("processing/a.pdf"), "a");
+        journal.commit(
+                journal.claim(Map.of(claimed.toString(), folder.resolve("a.pdf").toString())),
+                Map.of());
+
+        directoryProcessor.init();
+
+        assertFalse(Files.exists(claimed));
+        assertFalse(Files.exists(folder.resolve("a.pdf")));
+        assertTrue(journal.readAll().isEmpty());
+    }
+
+    @Test
+    void testStartupDropsStagedOutputsOfInterruptedRun() throws Exception {
+        Path claimed = Files.writeString(folder.resolve("processing/a.pdf"), "a");
+        PipelineJournal.Entry entry =
+                journal.claim(Map.of(claimed.toString(), folder.resolve("a.pdf").toString()));
+        Path stagingDir = Files.createDirectories(journal.stagingDirectory(entry));
+        Files.writeString(stagingDir.resolve("a.pdf"), "rotated a");
+
+        directoryProcessor.init();
+
+        assertEquals("a", Files.readString(folder.resolve("a.pdf")));
+        assertFalse(Files.exists(stagingDir));
+        assertFalse(Files.exists(tempDir.resolve("out")));
+        assertTrue(journal.readAll().isEmpty());
+    }
+
+    @Test
+    void testStartupPublishesOutputsOfCommittedRunOnce() throws Exception {
+        Path claimed = Files.writeString(folder.resolve("processing/a.pdf"), "a");
+        PipelineJournal.Entry entry =
+                journal.claim(Map.of(claimed.toString(), folder.resolve("a.pdf").toString()));
+        // the crash came after the first output was moved to the output folder
+        Path out = Files.createDirectories(tempDir.resolve("out"));
+        Path stagingDir = Files.createDirectories(journal.stagingDirectory(entry));
+        Files.writeString(out.resolve("a.pdf"), "rotated a");
+        Files.writeString(stagingDir.resolve("b.pdf"), "rotated b");
+        journal.commit(
+                entry,
+                Map.of(
+                        stagingDir.resolve("a.pdf").toString(),
+                        out.resolve("a.pdf").toString(),
+                        stagingDir.resolve("b.pdf").toString(),
+                        out.resolve("b.pdf").toString()));
+
+        directoryProcessor.init();
+
+        assertEquals("rotated a", Files.readString(out.resolve("a.pdf")));
+        assertEquals("rotated b", Files.readString(out.resolve("b.pdf")));
+        try (var outputs = Files.list(out)) {
+            assertEquals(2, outputs.count());
+        }
+        assertFalse(Files.exists(claimed));
+        assertFalse(Files.exists(stagingDir));
+        assertTrue(journal.readAll().isEmpty());
+    }
+
+    @Test
+    void testSuccessfulRunPublishesOutputs() throws Exception {
+        writeConfig();
+        Files.writeString(folder.resolve("a.pdf"), "a");
+        when(processor.generateInputFiles(any(File[].class)))
+                .thenReturn(List.<Resource>of(new ByteArrayResource(new byte[] {'a'})));
+        when(processor.runPipelineAgainstFiles(anyList(), any()))
+                .thenReturn(List.<Resource>of(output("a.pdf", "rotated a")));
+
+        directoryProcessor.handleDirectory(folder);
+
+        assertEquals("rotated a", Files.readString(tempDir.resolve("out/a.pdf")));
+        assertFalse(Files.exists(folder.resolve("a.pdf")));
+        try (var processing = Files.list(folder.resolve("processing"))) {
+            assertEquals(0, processing.count());
+        }
+        try (var staging = Files.list(tempDir.resolve("journal/staging"))) {
+            assertEquals(0, staging.count());
+        }
+        assertTrue(journal.readAll().isEmpty());
+    }
+
+    @Test
+    void testStartupReturnsUnjournaledFiles() throws Exception {
+        Path leftover = Files.writeString(folder.resolve("processing/b.pdf"), "b");
+
+        directoryProcessor.init();
+
+        assertEquals("b", Files.readString(folder.resolve("b.pdf")));
+        assertFalse(Files.exists(leftover));
+    }
+
+    @Test
+    void testFailedRunMovesInputsToErrorDirectory() throws Exception {
+        writeConfig();
+        Files.writeString(folder.resolve("a.pdf"), "a");
+        when(processor.generateInputFiles(any(File[].class)))
+                .thenReturn(List.<Resource>of(new ByteArrayResource(new byte[] {'a'})));
+        when(processor.runPipelineAgainstFiles(anyList(), any()))
+                .thenThrow(new IOException("Operation failed"));
+
+        directoryProcessor.handleDirectory(folder);
+
+        // not returned to the folder, where it would fail again on the next pass
+        assertFalse(Files.exists(folder.resolve("a.pdf")));
+        assertEquals(
+                "a",
+                Files.readString(
+                        folder.resolve(PipelineDirectoryProcessor.ERROR_DIRECTORY + "/a.pdf")));
+        try (var processing = Files.list(folder.resolve("processing"))) {
+            assertEquals(0, processing.count());
+        }
+        assertTrue(journal.readAll().isEmpty());
+    }
+
+    private static Resource output(String filename, String content) {
+        return new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+
+    private void writeConfig() throws IOException {
+        Files.writeString(
+                folder.resolve("config.json"),
+                """
+                {
+                  "name": "rotate",
+                  "pipeline": [
+                    {
+                      "operation": "/api/v1/general/rotate-pdf",
+                      "parameters": {"fileInput": "automated", "angle": 90}
+                    }
+                  ],
+                  "outputDir": "%s",
+                  "outputFileName": "{filename}"
+                }
+                """
+                        .formatted(tempDir.resolve("out").toString().replace("\\", "/")));
+    }
+}
@@ -0,0 +1,62 @@
+package stirling.software.SPDF.controller.api.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class PipelineJournalTest {
+
+    @TempDir Path tempDir;
+
+    @Test
+    void testEntriesSurviveRestart() throws Exception {
+        Path journalDir = tempDir.resolve("journal");
+        PipelineJournal journal = new PipelineJournal(journalDir, new ObjectMapper());
+        PipelineJournal.Entry claimed =
+                journal.claim(Map.of("/watched/a/processing/x.pdf", "/watched/a/x.pdf"));
+        PipelineJournal.Entry committed =
+                journal.commit(
+                        journal.claim(Map.of("/watched/b/processing/y.pdf", "/b/y.pdf")),
+                        Map.of("/journal/staging/y.pdf", "/out/y.pdf"));
+
+        List<PipelineJournal.Entry> entries =
+                new PipelineJournal(journalDir, new ObjectMapper()).readAll();
+
+        assertEquals(2, entries.size());
+        assertTrue(entries.contains(claimed));
+        assertTrue(entries.contains(committed));
+        assertEquals(PipelineJournal.State.COMMITTED, committed.state());
+    }
+
+    @Test
+    void testRemovedEntryIsGone() throws Exception {
+        PipelineJournal journal = new PipelineJournal(tempDir, new ObjectMapper());
+        PipelineJournal.Entry entry = journal.claim(Map.of("/p/x.pdf", "/x.pdf"));
+
+        journal.remove(entry);
+
+        assertTrue(journal.readAll().isEmpty());
+    }
+
+    @Test
+    void testPartialAndUnreadableEntriesAreDropped() throws Exception {
+        PipelineJournal journal = new PipelineJournal(tempDir, new ObjectMapper());
+        PipelineJournal.Entry entry = journal.claim(Map.of("/p/x.pdf", "/x.pdf"));
+        // a crash while writing leaves the temporary file, a damaged disk a broken entry
+        Files.writeString(tempDir.resolve("partial.tmp"), "{\"id\":");
+        Files.writeString(tempDir.resolve("broken.json"), "not json");
+
+        assertEquals(List.of(entry), journal.readAll());
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
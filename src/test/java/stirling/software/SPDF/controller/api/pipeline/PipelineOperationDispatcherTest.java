@@ -0,0 +1,219 @@
+package stirling.software.SPDF.controller.api.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.multipart.MultipartFile;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import stirling.software.SPDF.config.EndpointConfiguration;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.service.ComputeScheduler;
+import stirling.software.SPDF.service.RequestMetricsService;
+
+public class PipelineOperationDispatcherTest {
+
+    private static final String PATH = "/api/v1/general/test-operation";
+
+    private ComputeScheduler computeScheduler;
+
+    private RequestMetricsService requestMetricsService;
+
+    private TestController controller;
+
+    private PipelineOperationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSystem().getComputePool().setMaxConcurrent(1);
+        applicationProperties.getSystem().getComputePool().setQueueSize(1);
+        computeScheduler = new ComputeScheduler(applicationProperties);
+        requestMetricsService = new RequestMetricsService(new SimpleMeterRegistry());
+        controller = new TestController(computeScheduler);
+
+        HandlerMethod handlerMethod =
+                new HandlerMethod(
+                        controller, TestController.class.getMethod("handle", TestRequest.class));
+        OperationDescriptor descriptor =
+                new OperationDescriptor(
+                        PATH, null, null, false, false, Map.of(), handlerMethod, TestRequest.class);
+        OperationRegistry operationRegistry = mock(OperationRegistry.class);
+        when(operationRegistry.get(PATH)).thenReturn(descriptor);
+        EndpointConfiguration endpointConfiguration = mock(EndpointConfiguration.class);
+        when(endpointConfiguration.isEndpointEnabled(anyString())).thenReturn(true);
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBean("mvcConversionService", ConversionService.class))
+                .thenReturn(new DefaultFormattingConversionService());
+
+        dispatcher =
+                new PipelineOperationDispatcher(
+                        applicationContext,
+                        endpointConfiguration,
+                        operationRegistry,
+                        computeScheduler,
+                        requestMetricsService,
+                        null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        computeScheduler.shutdown();
+    }
+
+    @Test
+    void testHandlerRunsHoldingComputeSlotAndIsRecorded() throws Exception {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        ResponseEntity<byte[]> response = dispatch();
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("input.pdf", new String(response.getBody(), StandardCharsets.UTF_8));
+        // the only slot was taken by the dispatcher while the handler ran
+        assertTrue(controller.ran.get());
+        assertFalse(controller.slotWasFree.get());
+        assertEquals(1.0, requestMetricsService.getRequestCount("POST", Optional.of(PATH)));
+    }
+
+    @Test
+    void testRequestThreadIsRejectedWhenComputeQueueIsFull() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread holder =
+                new Thread(
+                        () -> {
+                            try {
+                                computeScheduler.execute(
+                                        () -> {
+                                            holding.countDown();
+                                            finish.await();
+                                            return null;
+                                        });
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        holder.start();
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+        // fills the queue
+        Thread waiter =
+                new Thread(
+                        () -> {
+                            try {
+                                computeScheduler.execute(() -> null);
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        try {
+            assertThrows(ComputeScheduler.CapacityExceededException.class, this::dispatch);
+            assertFalse(controller.ran.get());
+            assertEquals(Map.of(PATH, 1.0), requestMetricsService.getRequestCounts("POST"));
+        } finally {
+            finish.countDown();
+            holder.join(5000);
+            waiter.join(5000);
+        }
+    }
+
+    @Test
+    void testBackgroundThreadWaitsForComputeSlot() throws Exception {
+        computeScheduler.acquire();
+        Thread worker =
+                new Thread(
+                        () -> {
+                            try {
+                                dispatch();
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        worker.start();
+        while (worker.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        assertFalse(controller.ran.get());
+
+        computeScheduler.release();
+        worker.join(5000);
+        assertTrue(controller.ran.get());
+    }
+
+    private ResponseEntity<byte[]> dispatch() throws Exception {
+        List<Resource> files =
+                List.of(
+                        new ByteArrayResource(new byte[10]) {
+                            @Override
+                            public String getFilename() {
+                                return "input.pdf";
+                            }
+                        });
+        return dispatcher.dispatch(PATH, files, false, Map.of());
+    }
+
+    public static class TestRequest {
+
+        private MultipartFile fileInput;
+
+        public MultipartFile getFileInput() {
+            return fileInput;
+        }
+
+        public void setFileInput(MultipartFile fileInput) {
+            this.fileInput = fileInput;
+        }
+    }
+
+    public static class TestController {
+
+        private final ComputeScheduler computeScheduler;
+
+        final AtomicBoolean ran = new AtomicBoolean();
+
+        final AtomicBoolean slotWasFree = new AtomicBoolean();
+
+        TestController(ComputeScheduler computeScheduler) {
+            this.computeScheduler = computeScheduler;
+        }
+
+        public ResponseEntity<byte[]> handle(TestRequest request) {
+            ran.set(true);
+            slotWasFree.set(computeScheduler.tryRunAsync(() -> {}));
+            return ResponseEntity.ok(
+                    request.getFileInput()
+                            .getOriginalFilename()
+                            .getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package stirling.software.SPDF.controller.api.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.servlet.ServletContext;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.model.PipelineConfig;
+import stirling.software.SPDF.model.PipelineOperation;
+
+public class PipelineProcessorTest {
+
+    private static final String OPERATION = "api/v1/general/rotate-pdf";
+
+    private PipelineOperationDispatcher dispatcher;
+
+    private PipelineProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        OperationRegistry operationRegistry = mock(OperationRegistry.class);
+        when(operationRegistry.isMultiInput(OPERATION)).thenReturn(false);
+        when(operationRegistry.getExtensionTypes(false, OPERATION)).thenReturn(List.of("pdf"));
+        ServletContext servletContext = mock(ServletContext.class);
+        when(servletContext.getContextPath()).thenReturn("");
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAutoPipeline().setMaxParallelFiles(4);
+        dispatcher = mock(PipelineOperationDispatcher.class);
+        processor =
+                new PipelineProcessor(
+                        operationRegistry,
+                        null,
+                        servletContext,
+                        dispatcher,
+                        applicationProperties,
+                        null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    @Test
+    void testFailingFileDoesNotAbortParallelStage() throws Exception {
+        when(dispatcher.dispatch(eq(OPERATION), anyList(), eq(false), anyMap()))
+                .thenAnswer(
+                        invocation -> {
+                            List<Resource> files = invocation.getArgument(1);
+                            String filename = files.get(0).getFilename();
+                            if (filename.startsWith("broken")) {
+                                throw new IOException("Cannot read " + filename);
+                            }
+                            return ResponseEntity.ok()
+                                    .header(
+                                            HttpHeaders.CONTENT_DISPOSITION,
+                                            "attachment; filename=\"" + filename + "\"")
+                                    .body(filename.getBytes(StandardCharsets.UTF_8));
+                        });
+        List<Resource> inputs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            inputs.add(pdf((i == 3 ? "broken" : "file") + i + ".pdf"));
+        }
+
+        List<Resource> outputs = processor.runPipelineAgainstFiles(inputs, rotateConfig());
+
+        assertEquals(
+                List.of(
+                        "file0.pdf",
+                        "file1.pdf",
+                        "file2.pdf",
+                        "file4.pdf",
+                        "file5.pdf",
+                        "file6.pdf",
+                        "file7.pdf"),
+                outputs.stream().map(Resource::getFilename).toList());
+        verify(dispatcher, times(8)).dispatch(eq(OPERATION), anyList(), eq(false), anyMap());
+    }
+
+    @Test
+    void testParallelLanesRunWithCallerRequestAttributes() throws Exception {
+        Set<Object> seenAttributes = ConcurrentHashMap.newKeySet();
+        Set<String> seenThreads = ConcurrentHashMap.newKeySet();
+        when(dispatcher.dispatch(eq(OPERATION), anyList(), eq(false), anyMap()))
+                .thenAnswer(
+                        invocation -> {
+                            RequestAttributes attributes =
+                                    RequestContextHolder.getRequestAttributes();
+                            seenAttributes.add(attributes != null ? attributes : "none");
+                            seenThreads.add(Thread.currentThread().getName());
+                            List<Resource> files = invocation.getArgument(1);
+                            return ResponseEntity.ok()
+                                    .body(
+                                            files.get(0)
+                                                    .getFilename()
+                                                    .getBytes(StandardCharsets.UTF_8));
+                        });
+        List<Resource> inputs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            inputs.add(pdf("file" + i + ".pdf"));
+        }
+        ServletRequestAttributes requestAttributes =
+                new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(requestAttributes);
+        try {
+            processor.runPipelineAgainstFiles(inputs, rotateConfig());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        assertTrue(seenThreads.stream().allMatch(name -> name.startsWith("pipeline-worker-")));
+        assertEquals(Set.of(requestAttributes), seenAttributes);
+    }
+
+    private static PipelineConfig rotateConfig() {
+        PipelineOperation operation = new PipelineOperation();
+        operation.setOperation(OPERATION);
+        operation.setParameters(Map.of("angle", 90));
+        PipelineConfig config = new PipelineConfig();
+        config.setName("rotate");
+        config.setOperations(List.of(operation));
+        return config;
+    }
+
+    private static Resource pdf(String filename) {
+        return new ByteArrayResource(new byte[] {'%', 'P', 'D', 'F'}) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+}
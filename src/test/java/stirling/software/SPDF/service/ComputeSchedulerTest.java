@@ -0,0 +1,129 @@
+package stirling.software.SPDF.service;
+
+import org.junit.jupiter.api.Test;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ComputeSchedulerTest {
+
+    private ComputeScheduler createScheduler(int maxConcurrent, int queueSize) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSystem().getComputePool().setMaxConcurrent(maxConcurrent);
+        applicationProperties.getSystem().getComputePool().setQueueSize(queueSize);
+        applicationProperties.getSystem().getComputePool().setRetryAfterSeconds(7);
+        return new ComputeScheduler(applicationProperties);
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        ComputeScheduler scheduler = createScheduler(1, 1);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread holder =
+                new Thread(
+                        () -> {
+                            try {
+                                scheduler.execute(
+                                        () -> {
+                                            holding.countDown();
+                                            finish.await();
+                                            return null;
+                                        });
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        holder.start();
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        Thread waiter =
+                new Thread(
+                        () -> {
+                            try {
+                                scheduler.execute(() -> null);
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+
+        ComputeScheduler.CapacityExceededException exception =
+                assertThrows(
+                        ComputeScheduler.CapacityExceededException.class,
+                        () -> scheduler.execute(() -> null));
+        assertEquals(503, exception.getStatusCode().value());
+        assertEquals("7", exception.getHeaders().getFirst("Retry-After"));
+
+        finish.countDown();
+        holder.join(5000);
+        waiter.join(5000);
+        assertEquals("done", scheduler.execute(() -> "done"));
+    }
+
+    @Test
+    public void testInvokeAllKeepsOrder() throws Exception {
+        ComputeScheduler scheduler = createScheduler(4, 4);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int value = i;
+            tasks.add(() -> value * 2);
+        }
+
+        List<Integer> results = scheduler.invokeAll(tasks);
+
+        assertEquals(50, results.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i * 2, results.get(i));
+        }
+    }
+
+    @Test
+    public void testInvokeAllCapsParallelism() throws Exception {
+        ComputeScheduler scheduler = createScheduler(8, 8);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            int value = i;
+            tasks.add(
+                    () -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        Thread.sleep(50);
+                        running.decrementAndGet();
+                        return value;
+                    });
+        }
+
+        List<Integer> results = scheduler.invokeAll(tasks, 2);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), results);
+        assertTrue(maxRunning.get() <= 2, "ran " + maxRunning.get() + " tasks at once");
+    }
+
+    @Test
+    public void testInvokeAllRethrowsFailure() {
+        ComputeScheduler scheduler = createScheduler(2, 2);
+        List<Callable<Integer>> tasks =
+                List.of(
+                        () -> 1,
+                        () -> {
+                            throw new IllegalStateException("boom");
+                        },
+                        () -> 3);
+
+        Exception exception = assertThrows(Exception.class, () -> scheduler.invokeAll(tasks));
+        assertEquals("boom", exception.getMessage());
+    }
+}
@@ -0,0 +1,117 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+
+public class CustomPDDocumentFactoryTest {
+
+    private CustomPDDocumentFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSystem().getPdfLoading().setFileThresholdMB(1);
+        factory =
+                new CustomPDDocumentFactory(
+                        new PdfMetadataService(applicationProperties, "Stirling-PDF", false, null),
+                        applicationProperties);
+    }
+
+    @Test
+    void testUploadAboveThresholdIsSpooledUntilClosed() throws IOException {
+        byte[] pdf = createPdf(1200);
+        assertTrue(pdf.length > 1024 * 1024, "test document must exceed the threshold");
+        Set<Path> before = spoolFiles();
+
+        PDDocument document =
+                factory.load(new MockMultipartFile("fileInput", "big.pdf", "application/pdf", pdf));
+        Set<Path> during = spoolFiles();
+        during.removeAll(before);
+        assertEquals(1, during.size(), "upload should be copied to one temp file");
+        assertEquals(1, document.getNumberOfPages());
+
+        document.close();
+        assertFalse(Files.exists(during.iterator().next()), "temp file removed on close");
+    }
+
+    @Test
+    void testStreamAboveThresholdIsSpooled() throws IOException {
+        byte[] pdf = createPdf(1200);
+        Set<Path> before = spoolFiles();
+        try (PDDocument document = factory.load(new ByteArrayInputStream(pdf))) {
+            Set<Path> during = spoolFiles();
+            during.removeAll(before);
+            assertEquals(1, during.size());
+            assertEquals(1, document.getNumberOfPages());
+        }
+        assertEquals(before, spoolFiles());
+    }
+
+    @Test
+    void testUploadBelowThresholdStaysInMemory() throws IOException {
+        byte[] pdf = createPdf(100);
+        assertTrue(pdf.length < 1024 * 1024);
+        Set<Path> before = spoolFiles();
+        try (PDDocument document =
+                factory.load(
+                        new MockMultipartFile("fileInput", "small.pdf", "application/pdf", pdf))) {
+            assertEquals(before, spoolFiles());
+            assertEquals(1, document.getNumberOfPages());
+        }
+        try (PDDocument document = factory.load(new ByteArrayInputStream(pdf))) {
+            assertEquals(before, spoolFiles());
+            assertEquals(1, document.getNumberOfPages());
+        }
+    }
+
+    /** One page with a noise image of size x size pixels, which barely compresses. */
+    private static byte[] createPdf(int size) throws IOException {
+        BufferedImage noise = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(1);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                noise.setRGB(x, y, random.nextInt());
+            }
+        }
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                contents.drawImage(LosslessFactory.createFromImage(document, noise), 0, 0);
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return baos.toByteArray();
+        }
+    }
+
+    private static Set<Path> spoolFiles() throws IOException {
+        Path tmp = Path.of(System.getProperty("java.io.tmpdir"));
+        try (Stream<Path> files = Files.list(tmp)) {
+            Set<Path> result = new HashSet<>();
+            files.filter(p -> p.getFileName().toString().startsWith("load_"))
+                    .forEach(result::add);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import stirling.software.SPDF.controller.api.pipeline.OperationDescriptor;
+import stirling.software.SPDF.controller.api.pipeline.OperationRegistry;
+import stirling.software.SPDF.controller.api.pipeline.PipelineOperationDispatcher;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.model.Job;
+
+public class JobServiceTest {
+
+    private static final String OPERATION = "/api/v1/general/rotate-pdf";
+
+    private static final String OWNER = "user:alice";
+
+    @TempDir Path tempDir;
+
+    private PipelineOperationDispatcher dispatcher;
+
+    private ComputeScheduler computeScheduler;
+
+    private JobService jobService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getJobs().setStorageDirectory(tempDir.toString());
+        applicationProperties.getJobs().setMaxConcurrentJobs(2);
+        OperationRegistry operationRegistry = mock(OperationRegistry.class);
+        when(operationRegistry.get(OPERATION))
+                .thenReturn(
+                        new OperationDescriptor(
+                                OPERATION, null, null, false, false, Map.of(), null, Object.class));
+        dispatcher = mock(PipelineOperationDispatcher.class);
+        computeScheduler = new ComputeScheduler(applicationProperties);
+        jobService =
+                new JobService(
+                        dispatcher,
+                        operationRegistry,
+                        computeScheduler,
+                        applicationProperties,
+                        null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+        computeScheduler.shutdown();
+    }
+
+    @Test
+    void testSubmittedJobCompletesWithStreamedResult() throws Exception {
+        when(dispatcher.dispatchToFile(eq(OPERATION), anyList(), eq(false), anyMap(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            Path target = invocation.getArgument(4);
+                            Files.writeString(target, "rotated");
+                            return ResponseEntity.ok()
+                                    .header(
+                                            HttpHeaders.CONTENT_DISPOSITION,
+                                            "attachment; filename=\"in_rotated.pdf\"")
+                                    .body(7L);
+                        });
+
+        Job job = jobService.submit(OPERATION, files(), Map.of("angle", "90"), OWNER);
+        Job finished = awaitFinished(job.getId());
+
+        assertEquals(Job.Status.COMPLETED, finished.getStatus());
+        assertEquals("in_rotated.pdf", finished.getResultFileName());
+        assertEquals(7, finished.getResultSize());
+        assertEquals("rotated", Files.readString(finished.getResultFile()));
+        // the worker deletes the input copies after it has settled the status
+        awaitDeleted(job.getDirectory().resolve("input-0"));
+    }
+
+    @Test
+    void testFailedOperationReportsResponseBody() throws Exception {
+        when(dispatcher.dispatchToFile(eq(OPERATION), anyList(), eq(false), anyMap(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            Path target = invocation.getArgument(4);
+                            Files.writeString(target, "angle must be a multiple of 90");
+                            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(30L);
+                        });
+
+        Job job = jobService.submit(OPERATION, files(), Map.of("angle", "45"), OWNER);
+        Job finished = awaitFinished(job.getId());
+
+        assertEquals(Job.Status.FAILED, finished.getStatus());
+        assertEquals(
+                "Operation failed with status 400: angle must be a multiple of 90",
+                finished.getError());
+    }
+
+    @Test
+    void testJobsAreOnlyVisibleToTheirOwner() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(dispatcher.dispatchToFile(eq(OPERATION), anyList(), eq(false), anyMap(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            release.await();
+                            return ResponseEntity.ok().build();
+                        });
+        Job job = jobService.submit(OPERATION, files(), Map.of(), OWNER);
+
+        assertNull(jobService.get(job.getId(), "user:bob"));
+        assertNull(jobService.get(job.getId(), null));
+        assertFalse(jobService.delete(job.getId(), "user:bob"));
+        assertSame(job, jobService.get(job.getId(), OWNER));
+
+        release.countDown();
+        assertEquals(Job.Status.COMPLETED, awaitFinished(job.getId()).getStatus());
+    }
+
+    @Test
+    void testCancelledJobStaysCancelledWhenOperationFinishes() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        when(dispatcher.dispatchToFile(eq(OPERATION), anyList(), eq(false), anyMap(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            running.countDown();
+                            // an operation that does not react to the interrupt
+                            while (true) {
+                                try {
+                                    release.await();
+                                    break;
+                                } catch (InterruptedException e) {
+                                    // keep going
+                                }
+                            }
+                            try {
+                                // the result directory went with the cancelled job
+                                Path target = invocation.getArgument(4);
+                                Files.createDirectories(target.getParent());
+                                Files.writeString(target, "late");
+                                return ResponseEntity.ok().body(4L);
+                            } finally {
+                                done.countDown();
+                            }
+                        });
+        Job job = jobService.submit(OPERATION, files(), Map.of(), OWNER);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        assertTrue(jobService.delete(job.getId(), OWNER));
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertNull(jobService.get(job.getId(), OWNER));
+        assertEquals(Job.Status.CANCELLED, job.getStatus());
+        awaitDeleted(job.getDirectory());
+    }
+
+    @Test
+    void testFinishedJobsExpire() throws Exception {
+        when(dispatcher.dispatchToFile(eq(OPERATION), anyList(), eq(false), anyMap(), any()))
+                .thenAnswer(
+                        invocation -> {
+                            Files.writeString(invocation.getArgument(4), "result");
+                            return ResponseEntity.ok().body(6L);
+                        });
+        Job job = jobService.submit(OPERATION, files(), Map.of(), OWNER);
+        awaitFinished(job.getId());
+
+        jobService.removeExpiredJobs();
+        assertNotNull(jobService.get(job.getId(), OWNER));
+
+        job.setCompletedAt(Instant.now().minus(Duration.ofHours(2)));
+        jobService.removeExpiredJobs();
+        assertNull(jobService.get(job.getId(), OWNER));
+        awaitDeleted(job.getDirectory());
+    }
+
+    private Job awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Job job = jobService.get(id, OWNER);
+        while (!job.isFinished()) {
+            assertTrue(System.nanoTime() < deadline, "Job did not finish in time");
+            Thread.sleep(10);
+        }
+        return job;
+    }
+
+    private static void awaitDeleted(Path directory) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.exists(directory)) {
+            assertTrue(System.nanoTime() < deadline, "Job directory was not deleted");
+            Thread.sleep(10);
+        }
+    }
+
+    private static MultipartFile[] files() {
+        return new MultipartFile[] {
+            new MockMultipartFile(
+                    "fileInput",
+                    "in.pdf",
+                    "application/pdf",
+                    "%PDF-1.7".getBytes(StandardCharsets.UTF_8))
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import stirling.software.SPDF.LibreOfficeListener;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.utils.ProcessExecutor.ProcessExecutorResult;
+
+public class LibreOfficePoolTest {
+
+    @TempDir Path tempDir;
+
+    private LibreOfficePool pool;
+
+    private FakeListener listener;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testConvertPassesArgumentsToUnoconvOnPooledPort() throws Exception {
+        Path argumentsFile = tempDir.resolve("arguments.txt");
+        startPool(fakeUnoconv("echo \"$@\" > '" + argumentsFile + "'\nexit 0"));
+
+        ProcessExecutorResult result =
+                pool.convert(
+                        List.of(
+                                "-f",
+                                "pdf",
+                                "-e",
+                                "SelectPdfVersion=2",
+                                "-o",
+                                "out",
+                                "in.pdf"));
+
+        assertNotNull(result);
+        assertEquals(0, result.getRc());
+        assertEquals(
+                "--no-launch --port 2002 -f pdf -e SelectPdfVersion=2 -o out in.pdf",
+                Files.readString(argumentsFile).trim());
+        assertEquals(1, listener.getConversions());
+    }
+
+    @Test
+    void testFailedConversionIsReported() throws Exception {
+        startPool(fakeUnoconv("echo 'unoconv: conversion failed' >&2\nexit 3"));
+
+        IOException exception =
+                assertThrows(IOException.class, () -> pool.convert(List.of("-f", "pdf", "in")));
+        assertTrue(exception.getMessage().contains("exit code 3"), exception.getMessage());
+    }
+
+    @Test
+    void testDeadInstanceIsRestartedInsteadOfReused() throws Exception {
+        startPool(fakeUnoconv("exit 0"));
+        listener.healthy = false;
+        listener.failStarts = true;
+
+        assertNull(pool.convert(List.of("-f", "pdf", "in")));
+
+        // restarted in the background rather than handed out again as it is
+        awaitStarts(3);
+        listener.failStarts = false;
+        listener.healthy = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        ProcessExecutorResult result = null;
+        while (result == null && System.nanoTime() < deadline) {
+            result = pool.convert(List.of("-f", "pdf", "in"));
+        }
+        assertNotNull(result);
+    }
+
+    private void startPool(Path unoconv) throws InterruptedException {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getProcessExecutor().getSessionLimit().setLibreOfficeSessionLimit(1);
+        pool =
+                new LibreOfficePool(
+                        applicationProperties,
+                        unoconv.toString(),
+                        (port, profileDir) -> listener = new FakeListener(port, profileDir));
+        pool.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!pool.isAvailable()) {
+            assertTrue(System.nanoTime() < deadline, "Pool did not start");
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitStarts(int starts) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (listener.starts.get() < starts) {
+            assertTrue(System.nanoTime() < deadline, "Listener was not restarted");
+            Thread.sleep(10);
+        }
+    }
+
+    private Path fakeUnoconv(String body) throws IOException {
+        Path script = tempDir.resolve("unoconv");
+        Files.writeString(script, "#!/bin/sh\n" + body + "\n");
+        Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return script;
+    }
+
+    /** Stands in for a LibreOffice instance without starting one. */
+    private static class FakeListener extends LibreOfficeListener {
+
+        final AtomicInteger starts = new AtomicInteger();
+
+        volatile boolean healthy = true;
+
+        volatile boolean failStarts;
+
+        FakeListener(int port, Path profileDir) {
+            super(port, profileDir);
+        }
+
+        @Override
+        public synchronized void start() throws IOException {
+            starts.incrementAndGet();
+            if (failStarts) {
+                throw new IOException("LibreOffice listener did not start");
+            }
+        }
+
+        @Override
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        @Override
+        public long getMemoryUsageBytes() {
+            return 0;
+        }
+
+        @Override
+        public synchronized void stop() {}
+    }
+}
@@ -0,0 +1,126 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+
+public class OcrCacheTest {
+
+    private static final int PAGE_SIZE = 400 * 1024;
+
+    @TempDir Path tempDir;
+
+    private ApplicationProperties applicationProperties;
+
+    private OcrCache ocrCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.System.OcrCache config =
+                applicationProperties.getSystem().getOcrCache();
+        config.setEnabled(true);
+        config.setDirectory(tempDir.resolve("cache").toString());
+        config.setMaxSizeMB(1);
+        ocrCache = createCache();
+    }
+
+    @Test
+    void testDisabledByDefault() {
+        assertFalse(new ApplicationProperties().getSystem().getOcrCache().isEnabled());
+    }
+
+    @Test
+    void testLeastRecentlyUsedPagesAreEvictedBeyondMaxSize() throws Exception {
+        ocrCache.put("aa01", page('1'));
+        ocrCache.put("bb02", page('2'));
+        // makes the first page the most recently used
+        assertTrue(ocrCache.copyTo("aa01", tempDir.resolve("hit.pdf")));
+
+        ocrCache.put("cc03", page('3'));
+
+        assertEquals(2L * PAGE_SIZE, ocrCache.getTotalBytes());
+        assertFalse(ocrCache.copyTo("bb02", tempDir.resolve("evicted.pdf")));
+        assertTrue(ocrCache.copyTo("aa01", tempDir.resolve("kept.pdf")));
+        assertTrue(ocrCache.copyTo("cc03", tempDir.resolve("new.pdf")));
+    }
+
+    @Test
+    void testEvictionStateSurvivesRestart() throws Exception {
+        ocrCache.put("aa01", page('1'));
+        ocrCache.put("bb02", page('2'));
+
+        applicationProperties.getSystem().getOcrCache().setMaxSizeMB(0);
+        OcrCache restarted = createCache();
+
+        assertEquals(2L * PAGE_SIZE, restarted.getTotalBytes());
+        Path target = tempDir.resolve("restored.pdf");
+        assertTrue(restarted.copyTo("bb02", target));
+        assertEquals('2', Files.readAllBytes(target)[0]);
+        assertEquals(2, restarted.purge());
+        assertEquals(0, restarted.getTotalBytes());
+    }
+
+    @Test
+    void testPagesOnlyShareKeyWhenLanguagesAndRasterMatch() {
+        byte[] raster = "P6\n1 1\n255\n\u0001\u0002\u0003".getBytes(StandardCharsets.US_ASCII);
+
+        String key = key(List.of("eng"), raster);
+
+        assertEquals(key, key(List.of("eng"), raster.clone()));
+        assertNotEquals(key, key(List.of("deu"), raster));
+        assertNotEquals(key, key(List.of("eng", "deu"), raster));
+        raster[raster.length - 1]++;
+        assertNotEquals(key, key(List.of("eng"), raster));
+        // the language list is closed off, so it cannot run into the raster bytes
+        assertNotEquals(
+                key(List.of("eng"), "\nx".getBytes(StandardCharsets.US_ASCII)),
+                key(List.of("eng\n"), "x".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void testEntriesSharingADirectoryPrefixStaySeparate() throws Exception {
+        ocrCache.put("aa01", page('1'));
+        ocrCache.put("aa02", page('2'));
+        // storing the same key again replaces the page instead of counting it twice
+        ocrCache.put("aa02", page('3'));
+
+        assertEquals(2L * PAGE_SIZE, ocrCache.getTotalBytes());
+        Path first = tempDir.resolve("first.pdf");
+        Path second = tempDir.resolve("second.pdf");
+        assertTrue(ocrCache.copyTo("aa01", first));
+        assertTrue(ocrCache.copyTo("aa02", second));
+        assertEquals('1', Files.readAllBytes(first)[0]);
+        assertEquals('3', Files.readAllBytes(second)[0]);
+    }
+
+    private OcrCache createCache() throws Exception {
+        OcrCache cache = new OcrCache(applicationProperties, new SimpleMeterRegistry());
+        cache.init();
+        return cache;
+    }
+
+    private String key(List<String> languages, byte[] raster) {
+        MessageDigest digest = ocrCache.newKeyDigest(languages);
+        digest.update(raster);
+        return OcrCache.toKey(digest);
+    }
+
+    private Path page(char content) throws Exception {
+        byte[] bytes = new byte[PAGE_SIZE];
+        bytes[0] = (byte) content;
+        return Files.write(tempDir.resolve("page_" + content + ".pdf"), bytes);
+    }
+}
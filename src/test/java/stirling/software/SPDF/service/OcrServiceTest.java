@@ -0,0 +1,158 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+
+public class OcrServiceTest {
+
+    private static final int PAGES = 6;
+
+    @TempDir Path tempDir;
+
+    private Path templates;
+
+    private Path invocations;
+
+    private OcrService ocrService;
+
+    private ComputeScheduler computeScheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        templates = Files.createDirectories(tempDir.resolve("templates"));
+        invocations = tempDir.resolve("invocations.txt");
+        for (int i = 0; i < PAGES; i++) {
+            try (PDDocument page = new PDDocument()) {
+                page.addPage(new PDPage(new PDRectangle(ocrWidth(i), 72)));
+                page.save(templates.resolve("page_" + i + ".pdf").toFile());
+            }
+        }
+        // stands in for Tesseract: later pages finish first, so the merge has to restore the order
+        Path tesseract = tempDir.resolve("tesseract");
+        Files.writeString(
+                tesseract,
+                """
+                #!/bin/sh
+                page=${2##*_}
+                [ "$(head -c 2 "$1")" = "P6" ] || exit 1
+                echo "$page $4 $5" >> '%s'
+                sleep 0.$((%d - page))
+                cp '%s'/page_$page.pdf "$2.pdf"
+                """
+                        .formatted(invocations, PAGES, templates));
+        Files.setPosixFilePermissions(tesseract, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getProcessExecutor().getSessionLimit().setTesseractSessionLimit(3);
+        applicationProperties.getSystem().getOcrCache().setEnabled(false);
+        computeScheduler = new ComputeScheduler(applicationProperties);
+        ocrService =
+                new OcrService(
+                        new CustomPDDocumentFactory(
+                                new PdfMetadataService(
+                                        applicationProperties, "Stirling-PDF", false, null),
+                                applicationProperties),
+                        new OcrCache(applicationProperties, new SimpleMeterRegistry()),
+                        new PageTextIndexService(),
+                        new PageRenderService(computeScheduler, applicationProperties),
+                        applicationProperties,
+                        tesseract.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ocrService.shutdown();
+        computeScheduler.shutdown();
+    }
+
+    @Test
+    void testPagesAreHandedToTesseractAndMergedInPageOrder() throws Exception {
+        Path output = ocr(createInput(-1), false);
+
+        try (PDDocument document = Loader.loadPDF(output.toFile())) {
+            assertEquals(PAGES, document.getNumberOfPages());
+            for (int i = 0; i < PAGES; i++) {
+                assertEquals(ocrWidth(i), document.getPage(i).getMediaBox().getWidth());
+            }
+        }
+        List<String> calls = Files.readAllLines(invocations);
+        assertEquals(PAGES, calls.size());
+        for (int i = 0; i < PAGES; i++) {
+            assertTrue(calls.contains(i + " eng+deu pdf"), calls.toString());
+        }
+    }
+
+    @Test
+    void testPagesWithTextAreKeptInPlace() throws Exception {
+        Path output = ocr(createInput(2), true);
+
+        try (PDDocument document = Loader.loadPDF(output.toFile())) {
+            assertEquals(PAGES, document.getNumberOfPages());
+            for (int i = 0; i < PAGES; i++) {
+                float expected = i == 2 ? inputWidth(i) : ocrWidth(i);
+                assertEquals(expected, document.getPage(i).getMediaBox().getWidth());
+            }
+        }
+        assertEquals(PAGES - 1, Files.readAllLines(invocations).size());
+        assertTrue(Files.readAllLines(invocations).stream().noneMatch(l -> l.startsWith("2 ")));
+    }
+
+    private Path ocr(Path input, boolean skipPagesWithText) throws Exception {
+        Path output = tempDir.resolve("output.pdf");
+        Path workDir = Files.createDirectories(tempDir.resolve("work"));
+        ocrService.ocrPdf(input, output, workDir, List.of("eng", "deu"), skipPagesWithText);
+        return output;
+    }
+
+    /** Creates the input, with text on {@code textPage} if it is not negative. */
+    private Path createInput(int textPage) throws IOException {
+        Path input = tempDir.resolve("input.pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < PAGES; i++) {
+                PDPage page = new PDPage(new PDRectangle(inputWidth(i), 72));
+                document.addPage(page);
+                if (i == textPage) {
+                    try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                        content.beginText();
+                        content.setFont(
+                                new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                        content.newLineAtOffset(10, 30);
+                        content.showText("Already searchable");
+                        content.endText();
+                    }
+                }
+            }
+            document.save(input.toFile());
+        }
+        return input;
+    }
+
+    private static float inputWidth(int page) {
+        return 144 + page;
+    }
+
+    private static float ocrWidth(int page) {
+        return 200 + page;
+    }
+}
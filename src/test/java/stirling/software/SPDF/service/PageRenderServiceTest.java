@@ -0,0 +1,305 @@
+package stirling.software.SPDF.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.service.PageRenderService.DocumentSource;
+import stirling.software.SPDF.service.PageRenderService.RenderSettings;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageRenderServiceTest {
+
+    private static final RenderSettings SETTINGS = new RenderSettings(20, ImageType.RGB, false);
+
+    private PageRenderService createService(int maxConcurrent) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSystem().getComputePool().setMaxConcurrent(maxConcurrent);
+        return new PageRenderService(
+                new ComputeScheduler(applicationProperties), applicationProperties);
+    }
+
+    @Test
+    void testHelpersRenderAheadAndPagesArriveInOrder() throws Exception {
+        PageRenderService service = createService(4);
+        byte[] pdf = createPdf(20);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<Integer> order = new ArrayList<>();
+        List<Integer> grey = new ArrayList<>();
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            service.renderPages(
+                    document,
+                    DocumentSource.of(pdf),
+                    SETTINGS,
+                    (i, image) -> {
+                        threads.add(Thread.currentThread().getName());
+                        sleep(20);
+                        return image.getRGB(0, 0) & 0xFF;
+                    },
+                    (i, blue) -> {
+                        order.add(i);
+                        grey.add(blue);
+                    });
+
+            PDFRenderer renderer = new PDFRenderer(document);
+            for (int i = 0; i < 20; i++) {
+                assertEquals(
+                        renderer.renderImageWithDPI(i, 20, ImageType.RGB).getRGB(0, 0) & 0xFF,
+                        grey.get(i));
+            }
+        }
+        assertEquals(20, order.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, order.get(i));
+        }
+        assertTrue(threads.size() > 1, "expected helper threads, got " + threads);
+    }
+
+    @Test
+    void testRendersOnCallerWhenSourceCannotBeOpened() throws Exception {
+        PageRenderService service = createService(4);
+        List<Integer> order = new ArrayList<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        try (PDDocument document = Loader.loadPDF(createPdf(6))) {
+            service.renderPages(
+                    document,
+                    () -> {
+                        throw new IOException("no instances");
+                    },
+                    List.of(4, 1, 5),
+                    SETTINGS,
+                    (i, image) -> {
+                        threads.add(Thread.currentThread().getName());
+                        return i;
+                    },
+                    (i, result) -> {
+                        assertEquals(i, result);
+                        order.add(i);
+                    });
+        }
+        assertEquals(List.of(4, 1, 5), order);
+        assertEquals(Set.of(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    void testBackgroundCallerWaitsInsteadOfBeingRejected() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSystem().getComputePool().setMaxConcurrent(1);
+        applicationProperties.getSystem().getComputePool().setQueueSize(1);
+        ComputeScheduler computeScheduler = new ComputeScheduler(applicationProperties);
+        PageRenderService service = new PageRenderService(computeScheduler, applicationProperties);
+        byte[] pdf = createPdf(3);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread holder =
+                new Thread(
+                        () -> {
+                            try {
+                                computeScheduler.execute(
+                                        () -> {
+                                            holding.countDown();
+                                            finish.await();
+                                            return null;
+                                        });
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        holder.start();
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+        // fills the queue, so a request thread would now be turned away
+        Thread waiter =
+                new Thread(
+                        () -> {
+                            try {
+                                computeScheduler.execute(() -> null);
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+
+        List<Integer> order = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread worker =
+                new Thread(
+                        () -> {
+                            try (PDDocument document = Loader.loadPDF(pdf)) {
+                                service.renderPages(
+                                        document,
+                                        DocumentSource.of(pdf),
+                                        SETTINGS,
+                                        (i, image) -> i,
+                                        (i, result) -> order.add(result));
+                            } catch (Throwable e) {
+                                failure.set(e);
+                            }
+                        });
+        worker.start();
+        while (worker.isAlive() && worker.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        assertTrue(order.isEmpty());
+
+        finish.countDown();
+        worker.join(5000);
+        holder.join(5000);
+        waiter.join(5000);
+        computeScheduler.shutdown();
+        assertNull(failure.get());
+        assertEquals(List.of(0, 1, 2), order);
+    }
+
+    @Test
+    void testRequestIsNotRejectedAfterFirstPage() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSystem().getComputePool().setMaxConcurrent(1);
+        applicationProperties.getSystem().getComputePool().setQueueSize(1);
+        ComputeScheduler computeScheduler = new ComputeScheduler(applicationProperties);
+        PageRenderService service = new PageRenderService(computeScheduler, applicationProperties);
+        byte[] pdf = createPdf(3);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CountDownLatch filled = new CountDownLatch(1);
+        List<Thread> others = new ArrayList<>();
+        List<Integer> order = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread worker =
+                new Thread(
+                        () -> {
+                            RequestContextHolder.setRequestAttributes(
+                                    new ServletRequestAttributes(new MockHttpServletRequest()));
+                            try (PDDocument document = Loader.loadPDF(pdf)) {
+                                service.renderPages(
+                                        document,
+                                        () -> {
+                                            throw new IOException("no instances");
+                                        },
+                                        List.of(0, 1, 2),
+                                        SETTINGS,
+                                        (i, image) -> i,
+                                        (i, result) -> {
+                                            order.add(result);
+                                            if (i == 0) {
+                                                // the first page is out; now take the slot and
+                                                // fill the queue behind it
+                                                others.addAll(
+                                                        fillScheduler(
+                                                                computeScheduler,
+                                                                holding,
+                                                                finish));
+                                                filled.countDown();
+                                            }
+                                        });
+                            } catch (Throwable e) {
+                                failure.set(e);
+                            } finally {
+                                RequestContextHolder.resetRequestAttributes();
+                            }
+                        });
+        worker.start();
+        filled.await(5, TimeUnit.SECONDS);
+        while (worker.isAlive() && worker.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+
+        finish.countDown();
+        worker.join(5000);
+        for (Thread other : others) {
+            other.join(5000);
+        }
+        computeScheduler.shutdown();
+        assertNull(failure.get());
+        assertEquals(List.of(0, 1, 2), order);
+    }
+
+    /** Holds the only slot until {@code finish} and queues one more task behind it. */
+    private static List<Thread> fillScheduler(
+            ComputeScheduler computeScheduler, CountDownLatch holding, CountDownLatch finish) {
+        Thread holder =
+                new Thread(
+                        () -> {
+                            try {
+                                computeScheduler.execute(
+                                        () -> {
+                                            holding.countDown();
+                                            finish.await();
+                                            return null;
+                                        });
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        holder.start();
+        Thread waiter =
+                new Thread(
+                        () -> {
+                            try {
+                                computeScheduler.execute(() -> null);
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+        try {
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+            waiter.start();
+            while (waiter.getState() != Thread.State.WAITING) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        return List.of(holder, waiter);
+    }
+
+    /** Page i is filled with grey level i * 10, so every page renders differently. */
+    private static byte[] createPdf(int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage(PDRectangle.A6);
+                document.addPage(page);
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    float level = i * 10 / 255f;
+                    contents.setNonStrokingColor(level, level, level);
+                    contents.addRect(0, 0, page.getMediaBox().getWidth(), 50);
+                    contents.addRect(0, 0, 50, page.getMediaBox().getHeight());
+                    contents.fill();
+                }
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return baos.toByteArray();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+
+public class PdfCompressionServiceTest {
+
+    @TempDir Path tempDir;
+
+    private ComputeScheduler computeScheduler;
+
+    private PdfCompressionService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // stands in for qpdf, copies the input (second to last argument) to the output
+        Path qpdf = tempDir.resolve("qpdf");
+        Files.writeString(
+                qpdf,
+                """
+                #!/bin/sh
+                for argument; do input=$output; output=$argument; done
+                cp "$input" "$output"
+                """);
+        Files.setPosixFilePermissions(qpdf, PosixFilePermissions.fromString("rwxr-xr-x"));
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSystem().getComputePool().setMaxConcurrent(4);
+        computeScheduler = new ComputeScheduler(applicationProperties);
+        service =
+                new PdfCompressionService(
+                        computeScheduler,
+                        new PdfImageCompressionService(computeScheduler),
+                        qpdf.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        computeScheduler.shutdown();
+    }
+
+    @Test
+    void testChosenCandidateMeetsTargetSize() throws Exception {
+        Path input = createPdf();
+        long targetSize = Files.size(input) / 4;
+
+        Path output = service.compressToSize(input, targetSize, false, false);
+
+        try {
+            assertTrue(
+                    Files.size(output) <= targetSize,
+                    Files.size(output) + " bytes is above the target of " + targetSize);
+            try (PDDocument document = Loader.loadPDF(output.toFile())) {
+                PDImageXObject image = firstImage(document);
+                assertTrue(image.getWidth() <= 1200);
+                assertNotNull(image.getImage());
+            }
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    @Test
+    void testImagesAreKeptWhenTargetIsAlreadyMet() throws Exception {
+        Path input = createPdf();
+
+        Path output = service.compressToSize(input, Files.size(input) * 2, false, false);
+
+        try {
+            assertEquals(Files.size(input), Files.size(output));
+            try (PDDocument document = Loader.loadPDF(output.toFile())) {
+                assertEquals(1200, firstImage(document).getWidth());
+            }
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    @Test
+    void testFailingCandidateDoesNotAbortSearch() throws Exception {
+        Path input = createPdf();
+        Path small = tempDir.resolve("small.pdf");
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            document.save(small.toFile());
+        }
+        PdfImageCompressionService imageCompressionService =
+                mock(PdfImageCompressionService.class);
+        when(imageCompressionService.compressImages(any(), any(), anyDouble(), anyFloat()))
+                .thenAnswer(
+                        invocation -> {
+                            if (invocation.<Float>getArgument(3) == 0.85f) {
+                                throw new IllegalStateException("Unsupported image");
+                            }
+                            Files.copy(
+                                    small,
+                                    invocation.<Path>getArgument(1),
+                                    StandardCopyOption.REPLACE_EXISTING);
+                            return 1;
+                        });
+        service =
+                new PdfCompressionService(
+                        computeScheduler,
+                        imageCompressionService,
+                        tempDir.resolve("qpdf").toString());
+        Set<Path> before = tempFiles();
+
+        Path output = service.compressToSize(input, Files.size(input) / 4, false, false);
+
+        try {
+            assertEquals(Files.size(small), Files.size(output));
+            Set<Path> left = tempFiles();
+            left.removeAll(before);
+            // only the returned result, the other candidates' files are gone
+            assertEquals(Set.of(output), left);
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private static Set<Path> tempFiles() throws Exception {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(
+                            file -> {
+                                String name = file.getFileName().toString();
+                                return name.startsWith("output_") || name.startsWith("images_");
+                            })
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    private Path createPdf() throws Exception {
+        BufferedImage photo = new BufferedImage(1200, 900, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(3);
+        for (int y = 0; y < 900; y++) {
+            for (int x = 0; x < 1200; x++) {
+                int grey = (x + y) * 255 / 2100;
+                int noise = random.nextInt(32);
+                photo.setRGB(x, y, (grey << 16) | ((255 - grey) << 8) | noise * 4);
+            }
+        }
+        Path input = tempDir.resolve("input.pdf");
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            PDImageXObject image = LosslessFactory.createFromImage(document, photo);
+            try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                contents.drawImage(image, 0, 0, 600, 450);
+            }
+            document.save(input.toFile());
+        }
+        return input;
+    }
+
+    private static PDImageXObject firstImage(PDDocument document) throws Exception {
+        PDResources resources = document.getPage(0).getResources();
+        return (PDImageXObject) resources.getXObject(resources.getXObjectNames().iterator().next());
+    }
+}
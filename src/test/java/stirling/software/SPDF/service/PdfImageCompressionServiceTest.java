@@ -0,0 +1,139 @@
+package stirling.software.SPDF.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PdfImageCompressionServiceTest {
+
+    @TempDir Path tempDir;
+
+    private final PdfImageCompressionService service =
+            new PdfImageCompressionService(new ComputeScheduler(new ApplicationProperties()));
+
+    private Path createPdf(BufferedImage image, int pages) throws Exception {
+        Path input = tempDir.resolve("input.pdf");
+        try (PDDocument document = new PDDocument()) {
+            PDImageXObject xobject = LosslessFactory.createFromImage(document, image);
+            for (int i = 0; i < pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    contents.drawImage(xobject, 0, 0, 400, 300);
+                }
+            }
+            document.save(input.toFile());
+        }
+        return input;
+    }
+
+    private static PDImageXObject firstImage(PDDocument document, int pageIndex)
+            throws Exception {
+        var resources = document.getPage(pageIndex).getResources();
+        return (PDImageXObject) resources.getXObject(resources.getXObjectNames().iterator().next());
+    }
+
+    @Test
+    public void testSharedPhotoIsScaledOnceAndKeepsItsMask() throws Exception {
+        BufferedImage photo = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(7);
+        for (int y = 0; y < 300; y++) {
+            for (int x = 0; x < 400; x++) {
+                photo.setRGB(x, y, (x * 255 / 400) << 24 | random.nextInt(0xFFFFFF));
+            }
+        }
+        Path input = createPdf(photo, 2);
+        Path output = tempDir.resolve("output.pdf");
+
+        assertEquals(1, service.compressImages(input, output, 0.5, 0.7f));
+
+        try (PDDocument document = Loader.loadPDF(output.toFile())) {
+            PDImageXObject first = firstImage(document, 0);
+            PDImageXObject second = firstImage(document, 1);
+            assertSame(first.getCOSObject(), second.getCOSObject());
+            assertEquals(200, first.getWidth());
+            assertEquals(150, first.getHeight());
+            assertEquals(COSName.DCT_DECODE, first.getCOSObject().getCOSName(COSName.FILTER));
+            assertEquals("DeviceRGB", first.getColorSpace().getName());
+            assertNotNull(first.getSoftMask(), "soft mask must be kept");
+            assertEquals(400, first.getSoftMask().getWidth());
+        }
+    }
+
+    @Test
+    public void testLineArtIsStoredLossless() throws Exception {
+        BufferedImage chart = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 600; y++) {
+            for (int x = 0; x < 800; x++) {
+                chart.setRGB(x, y, (x / 40 + y / 40) % 2 == 0 ? 0xFFFFFF : 0x2050A0);
+            }
+        }
+        Path input = createPdf(chart, 1);
+        Path output = tempDir.resolve("output.pdf");
+
+        assertEquals(1, service.compressImages(input, output, 0.5, 0.7f));
+
+        try (PDDocument document = Loader.loadPDF(output.toFile())) {
+            PDImageXObject image = firstImage(document, 0);
+            assertEquals(COSName.FLATE_DECODE, image.getCOSObject().getCOSName(COSName.FILTER));
+            assertEquals(400, image.getWidth());
+            assertEquals(0x2050A0, image.getImage().getRGB(30, 10) & 0xFFFFFF);
+        }
+    }
+
+    @Test
+    public void testJpxWithoutColorSpaceIsNotSupported() throws Exception {
+        try (PDDocument document = new PDDocument()) {
+            COSStream stream = document.getDocument().createCOSStream();
+            byte[] codestream = new byte[4096];
+            new Random(5).nextBytes(codestream);
+            try (OutputStream out = stream.createRawOutputStream()) {
+                out.write(codestream);
+            }
+            stream.setItem(COSName.TYPE, COSName.XOBJECT);
+            stream.setItem(COSName.SUBTYPE, COSName.IMAGE);
+            stream.setItem(COSName.FILTER, COSName.JPX_DECODE);
+            stream.setInt(COSName.WIDTH, 400);
+            stream.setInt(COSName.HEIGHT, 300);
+            stream.setInt(COSName.BITS_PER_COMPONENT, 8);
+
+            // decided from the dictionary, the codestream is never decoded
+            assertFalse(
+                    PdfImageCompressionService.isSupported(
+                            new PDImageXObject(new PDStream(stream), null)));
+        }
+    }
+
+    @Test
+    public void testDownscaleKeepsGrayLevels() {
+        BufferedImage gray = new BufferedImage(1000, 800, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < 800; y++) {
+            for (int x = 0; x < 1000; x++) {
+                gray.getRaster().setSample(x, y, 0, 100);
+            }
+        }
+
+        BufferedImage scaled = PdfImageCompressionService.downscale(gray, 130, 104);
+
+        assertEquals(130, scaled.getWidth());
+        assertEquals(104, scaled.getHeight());
+        assertEquals(100, scaled.getRaster().getSample(65, 52, 0), 1);
+    }
+}
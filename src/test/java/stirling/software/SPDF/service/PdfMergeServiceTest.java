@@ -0,0 +1,130 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationWidget;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDSignatureField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+
+public class PdfMergeServiceTest {
+
+    private PdfMergeService service;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        service =
+                new PdfMergeService(
+                        new CustomPDDocumentFactory(
+                                new PdfMetadataService(
+                                        applicationProperties, "Stirling-PDF", false, null),
+                                applicationProperties));
+    }
+
+    @Test
+    void testSortByTitleKeepsProvidedOrderForMissingAndEqualTitles() throws Exception {
+        MultipartFile[] files = {
+            file("a.pdf", 100, null, false),
+            file("b.pdf", 200, "Zebra", false),
+            file("c.pdf", 300, "Apple", false),
+            file("d.pdf", 400, null, false),
+            file("e.pdf", 500, "Apple", false)
+        };
+
+        assertEquals(List.of(300f, 500f, 200f, 100f, 400f), mergedWidths(files, "byPDFTitle"));
+        // the inputs are left in the order they were merged in
+        assertEquals(
+                List.of("c.pdf", "e.pdf", "b.pdf", "a.pdf", "d.pdf"),
+                Arrays.stream(files).map(MultipartFile::getOriginalFilename).toList());
+    }
+
+    @Test
+    void testSortByFileNameAndProvidedOrder() throws Exception {
+        MultipartFile[] files = {
+            file("b.pdf", 200, null, false),
+            file("c.pdf", 300, null, false),
+            file("a.pdf", 100, null, false)
+        };
+
+        assertEquals(List.of(200f, 300f, 100f), mergedWidths(files.clone(), "orderProvided"));
+        assertEquals(List.of(100f, 200f, 300f), mergedWidths(files, "byFileName"));
+    }
+
+    @Test
+    void testSignaturesAreFlattenedOnlyWhenRequested() throws Exception {
+        MultipartFile[] files = {file("a.pdf", 100, null, false), file("b.pdf", 200, null, true)};
+
+        Path kept = service.merge(files.clone(), "orderProvided", false);
+        Path flattened = service.merge(files.clone(), "orderProvided", true);
+
+        try (PDDocument document = Loader.loadPDF(kept.toFile())) {
+            PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
+            assertEquals(1, acroForm.getFields().size());
+            assertInstanceOf(PDSignatureField.class, acroForm.getFields().get(0));
+            assertEquals(1, document.getPage(1).getAnnotations().size());
+        }
+        try (PDDocument document = Loader.loadPDF(flattened.toFile())) {
+            assertEquals(2, document.getNumberOfPages());
+            PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
+            assertTrue(acroForm == null || acroForm.getFields().isEmpty());
+            assertTrue(document.getPage(1).getAnnotations().isEmpty());
+        } finally {
+            Files.deleteIfExists(kept);
+            Files.deleteIfExists(flattened);
+        }
+    }
+
+    private List<Float> mergedWidths(MultipartFile[] files, String sortType) throws Exception {
+        Path merged = service.merge(files, sortType, false);
+        try (PDDocument document = Loader.loadPDF(merged.toFile())) {
+            List<Float> widths = new ArrayList<>();
+            for (PDPage page : document.getPages()) {
+                widths.add(page.getMediaBox().getWidth());
+            }
+            return widths;
+        } finally {
+            Files.deleteIfExists(merged);
+        }
+    }
+
+    /** A one-page PDF whose page width identifies it. */
+    private static MultipartFile file(String name, float width, String title, boolean signed)
+            throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(new PDRectangle(width, 100));
+            document.addPage(page);
+            document.getDocumentInformation().setTitle(title);
+            if (signed) {
+                PDAcroForm acroForm = new PDAcroForm(document);
+                document.getDocumentCatalog().setAcroForm(acroForm);
+                PDSignatureField signature = new PDSignatureField(acroForm);
+                PDAnnotationWidget widget = signature.getWidgets().get(0);
+                widget.setRectangle(new PDRectangle(10, 10, 50, 20));
+                widget.setPage(page);
+                page.getAnnotations().add(widget);
+                acroForm.getFields().add(signature);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            document.save(bytes);
+            return new MockMultipartFile("fileInput", name, "application/pdf", bytes.toByteArray());
+        }
+    }
+}
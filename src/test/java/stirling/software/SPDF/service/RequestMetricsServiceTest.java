@@ -0,0 +1,63 @@
+package stirling.software.SPDF.service;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import stirling.software.SPDF.service.RequestMetricsService.Stage;
+import stirling.software.SPDF.service.RequestMetricsService.StageTimings;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestMetricsServiceTest {
+
+    @Test
+    void testStagesAreRecordedPerRoute() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RequestMetricsService service = new RequestMetricsService(registry);
+        StageTimings stages = new StageTimings();
+        stages.add(Stage.LOAD, TimeUnit.MILLISECONDS.toNanos(20));
+        stages.add(Stage.SAVE, TimeUnit.MILLISECONDS.toNanos(5));
+
+        service.record(
+                "POST",
+                "/api/v1/general/merge-pdfs",
+                200,
+                "session",
+                TimeUnit.MILLISECONDS.toNanos(50),
+                1000,
+                2000,
+                10,
+                stages);
+
+        Timer load =
+                registry.get(RequestMetricsService.STAGES)
+                        .tag("uri", "/api/v1/general/merge-pdfs")
+                        .tag("stage", "load")
+                        .timer();
+        assertEquals(1, load.count());
+        assertEquals(20, load.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(
+                0,
+                registry.get(RequestMetricsService.STAGES).tag("stage", "exec").timer().count());
+        assertEquals(
+                200,
+                registry.get(RequestMetricsService.REQUESTS + ".pages.rate").summary().mean(),
+                0.001);
+        assertEquals(1, service.getRequestCount("POST", Optional.empty()));
+    }
+
+    @Test
+    void testServerTimingListsStagesWithTime() {
+        StageTimings stages = new StageTimings();
+        stages.add(Stage.LOAD, 1_500_000);
+        stages.add(Stage.PROCESS, stages.remainder(10_000_000, Stage.LOAD, Stage.SAVE));
+
+        assertEquals("load;dur=1.5, process;dur=8.5", stages.toServerTiming());
+        assertEquals(0, stages.remainder(1_000_000, Stage.LOAD));
+    }
+}
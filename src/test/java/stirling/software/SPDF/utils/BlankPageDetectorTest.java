@@ -0,0 +1,153 @@
+package stirling.software.SPDF.utils;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.junit.jupiter.api.Test;
+
+import stirling.software.SPDF.utils.BlankPageDetector.Verdict;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlankPageDetectorTest {
+
+    @Test
+    void testImageBudgetCountsEveryChannel() {
+        for (int type : new int[] {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR}) {
+            BufferedImage image = filled(type, 100, 100, Color.WHITE);
+            assertTrue(BlankPageDetector.isBlankImage(image, 10, 100));
+
+            // 100 cyan pixels: the blue channel alone would call them white
+            Graphics2D g = image.createGraphics();
+            g.setColor(Color.CYAN);
+            g.fillRect(0, 50, 100, 1);
+            g.dispose();
+            assertTrue(BlankPageDetector.isBlankImage(image, 10, 99));
+            assertFalse(BlankPageDetector.isBlankImage(image, 10, 99.5));
+
+            // near-white counts as white within the threshold
+            assertTrue(BlankPageDetector.isBlankImage(filled(type, 10, 10, new Color(0xF0F0F0)), 20, 100));
+            assertFalse(BlankPageDetector.isBlankImage(filled(type, 10, 10, new Color(0xF0F0F0)), 10, 100));
+        }
+    }
+
+    @Test
+    void testImageSubRasterIsReadInPlace() {
+        BufferedImage image = filled(BufferedImage.TYPE_INT_RGB, 100, 100, Color.BLACK);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(50, 50, 50, 50);
+        g.dispose();
+        assertTrue(BlankPageDetector.isBlankImage(image.getSubimage(50, 50, 50, 50), 10, 100));
+        assertFalse(BlankPageDetector.isBlankImage(image.getSubimage(49, 50, 50, 50), 10, 99));
+    }
+
+    @Test
+    void testVectorPagesAreClassifiedWithoutRendering() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            assertEquals(Verdict.BLANK, classify(document, contents -> {}));
+
+            // a small mark stays within the 1% budget
+            assertEquals(Verdict.BLANK, classify(document, contents -> fillRect(contents, Color.BLACK, 100, 100, 10, 10)));
+            // white paint never counts
+            assertEquals(Verdict.BLANK, classify(document, contents -> fillRect(contents, Color.WHITE, 0, 0, 500, 500)));
+            // a large black rectangle is ink for sure
+            assertEquals(Verdict.NOT_BLANK, classify(document, contents -> fillRect(contents, Color.BLACK, 50, 50, 300, 300)));
+            // unless something white may have been painted over it
+            assertEquals(
+                    Verdict.RENDER,
+                    classify(
+                            document,
+                            contents -> {
+                                fillRect(contents, Color.BLACK, 50, 50, 300, 300);
+                                fillRect(contents, Color.WHITE, 50, 50, 300, 300);
+                            }));
+            // a long thin stroke has a large bounding box but no known covered area
+            assertEquals(
+                    Verdict.RENDER,
+                    classify(
+                            document,
+                            contents -> {
+                                contents.moveTo(0, 0);
+                                contents.lineTo(500, 700);
+                                contents.stroke();
+                            }));
+            // a clip can hide most of a large fill
+            assertEquals(
+                    Verdict.BLANK,
+                    classify(
+                            document,
+                            contents -> {
+                                contents.addRect(10, 10, 5, 5);
+                                contents.clip();
+                                fillRect(contents, Color.BLACK, 0, 0, 500, 500);
+                            }));
+        }
+    }
+
+    @Test
+    void testImagesAndGlyphsNeedRendering() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            BufferedImage white = filled(BufferedImage.TYPE_INT_RGB, 4, 4, Color.WHITE);
+            assertEquals(
+                    Verdict.RENDER,
+                    classify(
+                            document,
+                            contents ->
+                                    contents.drawImage(
+                                            LosslessFactory.createFromImage(document, white),
+                                            0,
+                                            0)));
+            assertEquals(
+                    Verdict.RENDER,
+                    classify(
+                            document,
+                            contents -> {
+                                contents.beginText();
+                                contents.setFont(
+                                        new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                                contents.showText(" ");
+                                contents.endText();
+                            }));
+        }
+    }
+
+    private interface Drawing {
+        void draw(PDPageContentStream contents) throws IOException;
+    }
+
+    private static Verdict classify(PDDocument document, Drawing drawing) throws IOException {
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+            drawing.draw(contents);
+        }
+        return BlankPageDetector.classifyVectorContent(page, 10, 99, 30);
+    }
+
+    private static void fillRect(
+            PDPageContentStream contents, Color color, float x, float y, float w, float h)
+            throws IOException {
+        contents.setNonStrokingColor(color);
+        contents.addRect(x, y, w, h);
+        contents.fill();
+    }
+
+    private static BufferedImage filled(int type, int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,81 @@
+package stirling.software.SPDF.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileMonitorTest {
+
+    @TempDir
+    Path rootDir;
+
+    private FileMonitor fileMonitor;
+
+    private final List<Path> readyFiles = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAutoPipeline().setFileQuietPeriodSeconds(1);
+        fileMonitor = new FileMonitor(rootDir.toString(), path -> true, applicationProperties);
+        fileMonitor.addReadyListener(readyFiles::add);
+    }
+
+    @Test
+    public void testExistingSettledFileIsReadyOnRegistration() throws IOException {
+        Path folder = Files.createDirectory(rootDir.resolve("folder"));
+        Path file = Files.writeString(folder.resolve("old.pdf"), "content");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 10000));
+
+        fileMonitor.trackFiles();
+
+        assertEquals(List.of(file), readyFiles);
+        assertTrue(fileMonitor.isFileReadyForProcessing(file));
+    }
+
+    @Test
+    public void testNewFileIsReadyAfterQuietPeriod() throws Exception {
+        Path folder = Files.createDirectory(rootDir.resolve("folder"));
+        fileMonitor.trackFiles();
+
+        Path file = Files.writeString(folder.resolve("new.pdf"), "content");
+        Thread.sleep(200);
+        fileMonitor.trackFiles();
+
+        assertTrue(readyFiles.isEmpty());
+        assertFalse(fileMonitor.isFileReadyForProcessing(file));
+
+        Thread.sleep(1100);
+        fileMonitor.trackFiles();
+
+        assertEquals(List.of(file), readyFiles);
+        assertTrue(fileMonitor.isFileReadyForProcessing(file));
+    }
+
+    @Test
+    public void testGrowingFileIsNotReady() throws Exception {
+        Path folder = Files.createDirectory(rootDir.resolve("folder"));
+        fileMonitor.trackFiles();
+
+        Path file = Files.writeString(folder.resolve("copying.pdf"), "part");
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(400);
+            Files.writeString(file, "part", StandardOpenOption.APPEND);
+            fileMonitor.trackFiles();
+            assertTrue(readyFiles.isEmpty());
+        }
+        assertFalse(fileMonitor.isFileReadyForProcessing(file));
+    }
+}
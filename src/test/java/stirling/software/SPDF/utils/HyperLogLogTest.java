@@ -0,0 +1,31 @@
+package stirling.software.SPDF.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HyperLogLogTest {
+
+    @Test
+    void testEmptySketchIsZero() {
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+
+    @Test
+    void testDuplicatesAreCountedOnce() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add("session-" + (i % 7));
+        }
+        assertEquals(7, sketch.estimate());
+    }
+
+    @Test
+    void testLargeCardinalityWithinFivePercent() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 200_000; i++) {
+            sketch.add("node0" + i + "abcdef");
+        }
+        assertEquals(200_000, sketch.estimate(), 10_000);
+    }
+}
@@ -0,0 +1,67 @@
+package stirling.software.SPDF.utils;
+
+import java.io.IOException;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageTextIndexTest {
+
+    @Test
+    void testMatchesPerPageExtraction() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            addPage(document, "first page");
+            document.addPage(new PDPage());
+            addPage(document, "third page");
+
+            PageTextIndex index = PageTextIndex.build(document, false);
+
+            assertEquals(3, index.getPageCount());
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int i = 0; i < 3; i++) {
+                stripper.setStartPage(i + 1);
+                stripper.setEndPage(i + 1);
+                assertEquals(stripper.getText(document), index.getText(i));
+            }
+            assertTrue(index.hasText(0));
+            assertFalse(index.hasText(1));
+            assertTrue(index.contains(2, "third"));
+            assertFalse(index.contains(0, "third"));
+            assertFalse(index.hasPositions());
+            assertThrows(IllegalStateException.class, () -> index.getPositions(0));
+        }
+    }
+
+    @Test
+    void testPositionsArePerPage() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            addPage(document, "abc");
+            addPage(document, "de");
+
+            PageTextIndex index = PageTextIndex.build(document, true);
+
+            assertEquals(3, index.getPositions(0).size());
+            assertEquals(2, index.getPositions(1).size());
+            assertEquals("d", index.getPositions(1).get(0).getUnicode());
+        }
+    }
+
+    private static void addPage(PDDocument document, String text) throws IOException {
+        PDPage page = new PDPage();
+        document.addPage(page);
+        try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+            contents.beginText();
+            contents.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+            contents.newLineAtOffset(50, 700);
+            contents.showText(text);
+            contents.endText();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package stirling.software.SPDF.utils;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PdfSizeEstimatorTest {
+
+    @Test
+    void testSharedImageIsCountedOnceAndEstimateIsClose() throws Exception {
+        BufferedImage noise = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(3);
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 300; x++) {
+                noise.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        try (PDDocument document = new PDDocument()) {
+            PDImageXObject image = LosslessFactory.createFromImage(document, noise);
+            for (int i = 0; i < 3; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    contents.drawImage(image, 0, 0, 300, 200);
+                }
+            }
+
+            PdfSizeEstimator estimator = new PdfSizeEstimator();
+            long first = estimator.addPage(document.getPage(0));
+            long second = estimator.addPage(document.getPage(1));
+            long third = estimator.addPage(document.getPage(2));
+
+            assertTrue(first > image.getCOSObject().getLength());
+            assertTrue(second < 1024, "shared image must not be counted again");
+            assertEquals(second, third, 16);
+
+            ByteArrayOutputStream saved = new ByteArrayOutputStream();
+            document.save(saved);
+            assertEquals(saved.size(), estimator.getSize(), saved.size() * 0.1);
+
+            estimator.reset();
+            assertEquals(first, estimator.addPage(document.getPage(1)), 16);
+        }
+    }
+}
@@ -1,18 +1,31 @@
 package stirling.software.SPDF.utils;
 
+import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.service.ComputeScheduler;
+import stirling.software.SPDF.service.PageRenderService;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+import javax.imageio.ImageIO;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class PdfUtilsTest {
@@ -47,5 +60,42 @@ public class PdfUtilsTest {
         assertTrue(PdfUtils.hasImagesOnPage(page));
     }
 
+    @Test
+    void testSingleImageHasHeightOfAllRenderedPages() throws Exception {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage(PDRectangle.A4));
+            PDPage rotated = new PDPage(PDRectangle.LETTER);
+            rotated.setRotation(90);
+            document.addPage(rotated);
+            PDPage cropped = new PDPage(PDRectangle.A5);
+            cropped.setCropBox(new PDRectangle(10.3f, 20.7f, 200.5f, 301.9f));
+            cropped.setRotation(270);
+            document.addPage(cropped);
+            document.save(pdf);
+        }
+
+        int expectedWidth = 0;
+        int expectedHeight = 0;
+        try (PDDocument document = Loader.loadPDF(pdf.toByteArray())) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            for (int i = 0; i < document.getNumberOfPages(); i++) {
+                BufferedImage image = renderer.renderImageWithDPI(i, 77, ImageType.RGB);
+                expectedWidth = Math.max(expectedWidth, image.getWidth());
+                expectedHeight += image.getHeight();
+            }
+        }
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        PageRenderService pageRenderService =
+                new PageRenderService(
+                        new ComputeScheduler(applicationProperties), applicationProperties);
+        byte[] png =
+                PdfUtils.convertFromPdf(
+                        pageRenderService, pdf.toByteArray(), "png", ImageType.RGB, true, 77, "test");
 
+        BufferedImage combined = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(expectedWidth, combined.getWidth());
+        assertEquals(expectedHeight, combined.getHeight());
+    }
 }
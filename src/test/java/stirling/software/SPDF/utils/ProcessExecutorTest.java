@@ -52,4 +52,43 @@ public class ProcessExecutorTest {
         String errorMessage = thrown.getMessage();
         assertTrue(errorMessage.contains("error=2") || errorMessage.contains("No such file or directory"), "Unexpected error message: " + errorMessage);
     }
+
+    @Test
+    public void testRunCommandWithOutputHandling_KeepsOnlyLastLines() throws IOException, InterruptedException {
+        List<String> command = List.of("sh", "-c", "for i in $(seq 1 5000); do echo line $i; done");
+
+        ProcessExecutor.ProcessExecutorResult result =
+                ProcessExecutor.getInstance(ProcessExecutor.Processes.QPDF, false)
+                        .runCommandWithOutputHandling(command);
+
+        assertTrue(result.getMessages().startsWith("[4000 earlier lines omitted]"));
+        assertTrue(result.getMessages().endsWith("line 5000"));
+        assertFalse(result.getMessages().contains("line 4000\n"));
+    }
+
+    @Test
+    public void testRunCommandWithOutputHandling_InterruptKillsProcess() throws Exception {
+        List<String> command = List.of("sleep", "30");
+        List<Throwable> failures = new ArrayList<>();
+        Thread runner =
+                new Thread(
+                        () -> {
+                            try {
+                                processExecutor.runCommandWithOutputHandling(command);
+                            } catch (Throwable t) {
+                                failures.add(t);
+                            }
+                        });
+        runner.start();
+        Thread.sleep(500);
+        long interruptedAt = System.currentTimeMillis();
+        runner.interrupt();
+        runner.join(10000);
+
+        assertFalse(runner.isAlive());
+        assertTrue(System.currentTimeMillis() - interruptedAt < 10000);
+        assertEquals(1, failures.size());
+        assertInstanceOf(InterruptedException.class, failures.get(0));
+        assertTrue(ProcessHandle.allProcesses().noneMatch(p -> p.info().commandLine().orElse("").equals("sleep 30")));
+    }
 }
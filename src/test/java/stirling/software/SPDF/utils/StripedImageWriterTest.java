@@ -0,0 +1,138 @@
+package stirling.software.SPDF.utils;
+
+import org.junit.jupiter.api.Test;
+
+import stirling.software.SPDF.service.PageRenderService.RenderedPages;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StripedImageWriterTest {
+
+    @Test
+    void testPngMatchesPagesDrawnIntoOneImage() throws IOException {
+        List<BufferedImage> pages =
+                List.of(page(120, 80, Color.RED), page(90, 50, Color.BLUE), page(120, 70, Color.GRAY));
+        BufferedImage expected = new BufferedImage(120, 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = expected.createGraphics();
+        int y = 0;
+        for (BufferedImage page : pages) {
+            g.drawImage(page, (120 - page.getWidth()) / 2, y, null);
+            y += page.getHeight();
+        }
+        g.dispose();
+
+        ListPages source = new ListPages(pages);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(StripedImageWriter.write(source, 120, new int[] {80, 50, 70}, "png", out));
+        assertEquals(3, source.taken);
+
+        BufferedImage actual = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(120, actual.getWidth());
+        assertEquals(200, actual.getHeight());
+        for (int row = 0; row < 200; row++) {
+            for (int col = 0; col < 120; col++) {
+                assertEquals(expected.getRGB(col, row), actual.getRGB(col, row), col + "," + row);
+            }
+        }
+    }
+
+    @Test
+    void testJpegFillsBesideNarrowPagesWithWhite() throws IOException {
+        ListPages source =
+                new ListPages(List.of(page(64, 64, Color.BLACK), page(32, 64, Color.BLACK)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(StripedImageWriter.write(source, 64, new int[] {64, 64}, "jpeg", out));
+
+        BufferedImage actual = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(64, actual.getWidth());
+        assertEquals(128, actual.getHeight());
+        assertTrue((actual.getRGB(32, 32) & 0xFF) < 16);
+        assertTrue((actual.getRGB(2, 96) & 0xFF) > 240);
+        assertTrue((actual.getRGB(32, 96) & 0xFF) < 16);
+    }
+
+    @Test
+    void testRenderFailureIsReported() {
+        for (String format : List.of("png", "jpeg")) {
+            ListPages source = new ListPages(List.of(page(10, 10, Color.RED)));
+            IOException e =
+                    assertThrows(
+                            IOException.class,
+                            () ->
+                                    StripedImageWriter.write(
+                                            source,
+                                            10,
+                                            new int[] {10, 10},
+                                            format,
+                                            new ByteArrayOutputStream()));
+            assertEquals("no more pages", e.getMessage(), format);
+        }
+    }
+
+    @Test
+    void testRejectsImagesTooLargeForOneRaster() {
+        ListPages source = new ListPages(List.of());
+        assertThrows(
+                IOException.class,
+                () ->
+                        StripedImageWriter.write(
+                                source,
+                                50_000,
+                                new int[] {50_000},
+                                "png",
+                                new ByteArrayOutputStream()));
+        assertEquals(0, source.taken);
+    }
+
+    private static BufferedImage page(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    private static class ListPages implements RenderedPages<BufferedImage> {
+
+        private final List<BufferedImage> pages;
+
+        int taken;
+
+        ListPages(List<BufferedImage> pages) {
+            this.pages = new ArrayList<>(pages);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return taken < pages.size();
+        }
+
+        @Override
+        public int nextPageIndex() {
+            return taken;
+        }
+
+        @Override
+        public BufferedImage next() throws IOException {
+            if (!hasNext()) {
+                throw new IOException("no more pages");
+            }
+            return pages.get(taken++);
+        }
+
+        @Override
+        public void close() {}
+    }
+}
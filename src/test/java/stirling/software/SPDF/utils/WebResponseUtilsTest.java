@@ -7,9 +7,13 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -108,4 +112,53 @@ public class WebResponseUtilsTest {
             fail("Exception thrown: " + e.getMessage());
         }
     }
+
+    @Test
+    public void testPdfDocToStreamingWebResponse() {
+        try {
+            PDDocument document = new PDDocument();
+            document.addPage(new org.apache.pdfbox.pdmodel.PDPage());
+            String docName = "sample.pdf";
+
+            ResponseEntity<StreamingResponseBody> responseEntity =
+                    WebResponseUtils.pdfDocToStreamingWebResponse(document, docName);
+
+            assertNotNull(responseEntity);
+            assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+            assertEquals(MediaType.APPLICATION_PDF, responseEntity.getHeaders().getContentType());
+            assertNotNull(responseEntity.getHeaders().getContentDisposition());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            responseEntity.getBody().writeTo(out);
+            String written = out.toString(StandardCharsets.ISO_8859_1);
+            assertTrue(written.startsWith("%PDF-"));
+            assertTrue(written.trim().endsWith("%%EOF"));
+
+        } catch (IOException e) {
+            fail("Exception thrown: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTempFileToStreamingWebResponse() {
+        try {
+            Path tempFile = Files.createTempFile("web_response_test", ".txt");
+            Files.writeString(tempFile, "Sample file content");
+
+            ResponseEntity<StreamingResponseBody> responseEntity =
+                    WebResponseUtils.tempFileToStreamingWebResponse(
+                            tempFile, "sample.txt", MediaType.TEXT_PLAIN);
+
+            assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+            assertEquals(19, responseEntity.getHeaders().getContentLength());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            responseEntity.getBody().writeTo(out);
+            assertEquals("Sample file content", out.toString(StandardCharsets.UTF_8));
+            assertFalse(Files.exists(tempFile));
+
+        } catch (IOException e) {
+            fail("Exception thrown: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,64 @@
+package stirling.software.SPDF.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.service.ComputeScheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZipArchiveWriterTest {
+
+    @TempDir Path tempDir;
+
+    @Test
+    void testEntriesKeepOrderAndContent() throws Exception {
+        byte[] text = "page text ".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        byte[] noise = new byte[200_000];
+        new Random(5).nextBytes(noise);
+        byte[] empty = new byte[0];
+        Path zip = tempDir.resolve("out.zip");
+
+        ComputeScheduler scheduler = new ComputeScheduler(new ApplicationProperties());
+        try (ZipArchiveWriter writer = ZipArchiveWriter.toFile(zip, scheduler)) {
+            for (int i = 0; i < 40; i++) {
+                writer.addEntry("text_" + i + ".txt", text);
+            }
+            writer.addEntry("photo.JPG", text);
+            writer.addEntry("noise.pdf", noise);
+            writer.addEntry("empty.pdf", empty);
+            writer.addEntry("naïve.txt", text);
+            assertThrows(ZipException.class, () -> writer.addEntry("noise.pdf", noise));
+        } finally {
+            scheduler.shutdown();
+        }
+
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            assertEquals(44, file.size());
+            assertEquals("text_0.txt", file.entries().nextElement().getName());
+
+            ZipEntry textEntry = file.getEntry("text_39.txt");
+            assertEquals(ZipEntry.DEFLATED, textEntry.getMethod());
+            assertArrayEquals(text, file.getInputStream(textEntry).readAllBytes());
+
+            ZipEntry photo = file.getEntry("photo.JPG");
+            assertEquals(ZipEntry.STORED, photo.getMethod());
+            assertArrayEquals(text, file.getInputStream(photo).readAllBytes());
+
+            ZipEntry noiseEntry = file.getEntry("noise.pdf");
+            assertEquals(ZipEntry.STORED, noiseEntry.getMethod());
+            assertArrayEquals(noise, file.getInputStream(noiseEntry).readAllBytes());
+
+            assertEquals(0, file.getInputStream(file.getEntry("empty.pdf")).readAllBytes().length);
+            assertNotNull(file.getEntry("naïve.txt"));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package stirling.software.SPDF.utils.misc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.model.api.misc.ReplaceAndInvert;
+import stirling.software.SPDF.service.ComputeScheduler;
+import stirling.software.SPDF.service.PageRenderService;
+
+public class InvertColorStrategyTest {
+
+    @Test
+    void testFullInversionRendersInvertedPages() throws IOException {
+        ReplaceAndInvertColorStrategy strategy =
+                new InvertFullColorStrategy(
+                        createPdf(null),
+                        ReplaceAndInvert.FULL_INVERSION,
+                        createPageRenderService());
+        try (PDDocument inverted = load(strategy)) {
+            assertEquals(3, inverted.getNumberOfPages());
+            for (int i = 0; i < 3; i++) {
+                assertPageInverted(inverted, i);
+            }
+        }
+    }
+
+    @Test
+    void testVectorInversionKeepsText() throws IOException {
+        ReplaceAndInvertColorStrategy strategy =
+                new InvertVectorColorStrategy(
+                        createPdf(COSName.DEVICERGB),
+                        ReplaceAndInvert.VECTOR_INVERSION,
+                        createPageRenderService());
+        try (PDDocument inverted = load(strategy)) {
+            assertEquals(3, inverted.getNumberOfPages());
+            for (int i = 0; i < 3; i++) {
+                assertPageInverted(inverted, i);
+            }
+            assertTrue(new PDFTextStripper().getText(inverted).contains("page 2"));
+        }
+    }
+
+    @Test
+    void testVectorInversionRendersDocumentsWithCmykPageGroups() throws IOException {
+        ReplaceAndInvertColorStrategy strategy =
+                new InvertVectorColorStrategy(
+                        createPdf(COSName.DEVICECMYK),
+                        ReplaceAndInvert.VECTOR_INVERSION,
+                        createPageRenderService());
+        try (PDDocument inverted = load(strategy)) {
+            assertEquals(3, inverted.getNumberOfPages());
+            for (int i = 0; i < 3; i++) {
+                assertPageInverted(inverted, i);
+            }
+            // rendered to images, as the Difference overlay does nothing in a CMYK group
+            assertFalse(new PDFTextStripper().getText(inverted).contains("page 2"));
+        }
+    }
+
+    private static PageRenderService createPageRenderService() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSystem().getComputePool().setMaxConcurrent(3);
+        return new PageRenderService(
+                new ComputeScheduler(applicationProperties), applicationProperties);
+    }
+
+    /** The white page turns black and the red square turns cyan. */
+    private static void assertPageInverted(PDDocument document, int pageIndex)
+            throws IOException {
+        BufferedImage image =
+                new PDFRenderer(document).renderImageWithDPI(pageIndex, 36, ImageType.RGB);
+        assertEquals(0x000000, image.getRGB(2, 2) & 0xFFFFFF);
+        int square = image.getRGB(image.getWidth() / 2, image.getHeight() / 2) & 0xFFFFFF;
+        assertEquals(0x00FFFF, square);
+    }
+
+    private static PDDocument load(ReplaceAndInvertColorStrategy strategy) throws IOException {
+        try (InputStream in = strategy.replace().getInputStream()) {
+            return Loader.loadPDF(in.readAllBytes());
+        }
+    }
+
+    /**
+     * Three pages with a red square and some text, each a transparency group blending in {@code
+     * groupColorSpace} if it is not null.
+     */
+    private static MockMultipartFile createPdf(COSName groupColorSpace) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < 3; i++) {
+                PDPage page = new PDPage(PDRectangle.A6);
+                document.addPage(page);
+                if (groupColorSpace != null) {
+                    COSDictionary group = new COSDictionary();
+                    group.setItem(COSName.TYPE, COSName.GROUP);
+                    group.setItem(COSName.S, COSName.TRANSPARENCY);
+                    group.setItem(COSName.CS, groupColorSpace);
+                    page.getCOSObject().setItem(COSName.GROUP, group);
+                }
+                float width = page.getMediaBox().getWidth();
+                float height = page.getMediaBox().getHeight();
+                try (PDPageContentStream contents = new PDPageContentStream(document, page)) {
+                    contents.setNonStrokingColor(Color.RED);
+                    contents.addRect(width / 4, height / 4, width / 2, height / 2);
+                    contents.fill();
+                    contents.beginText();
+                    contents.setFont(
+                            new PDType1Font(Standard14Fonts.FontName.HELVETICA),
+                            10);
+                    contents.newLineAtOffset(10, 10);
+                    contents.showText("page " + i);
+                    contents.endText();
+                }
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return new MockMultipartFile(
+                    "fileInput", "colours.pdf", "application/pdf", baos.toByteArray());
+        }
+    }
+}